@@ -3,8 +3,11 @@ package com.components;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 
 import com.data.CarData;
+import com.ui.ImageLoader;
 
 public class BackgroundPanel extends JPanel {
     // Constants
@@ -29,6 +32,14 @@ public class BackgroundPanel extends JPanel {
     private Image logoImage;
     private Image carImage;
     private CarData selectedCar;
+    private CompletableFuture<BufferedImage> carLoad;
+    private CompletableFuture<BufferedImage> fittedLoad;
+    private Dimension fittedSize;
+
+    private Font modelFont;
+    private String modelFontText;
+    private int modelFontWidth;
+    private int modelFontHeight;
 
     private int carOffsetX = INITIAL_CAR_OFFSET;
     private float textOpacity = 0f;
@@ -40,28 +51,92 @@ public class BackgroundPanel extends JPanel {
      */
     public BackgroundPanel() {
         setOpaque(false);
-        logoImage = loadImage(APP_LOGO_PATH);
-        background = loadImage(BG_IMAGE_PATH);
+        // The fallback colour shows until the images are decoded off the event dispatch thread
+        loadLogo();
+        loadBackground();
         setupAnimation();
     }
 
-    /**
-     * Loads an image from the specified path
-     */
-    private Image loadImage(String path) {
-        ImageIcon icon = new ImageIcon(path);
-        return icon.getImageLoadStatus() == MediaTracker.COMPLETE ? icon.getImage() : null;
+    // Each asks again if the loader drops the request to make room for newer ones
+
+    private void loadLogo() {
+        ImageLoader.shared().load(APP_LOGO_PATH, 0, 0, image -> {
+            logoImage = image;
+            repaint();
+        }).whenComplete((image, failure) -> {
+            if (failure != null) {
+                loadLogo();
+            }
+        });
+    }
+
+    private void loadBackground() {
+        ImageLoader.shared().load(BG_IMAGE_PATH, 0, 0, image -> {
+            background = image;
+            repaint();
+        }).whenComplete((image, failure) -> {
+            if (failure != null) {
+                loadBackground();
+            }
+        });
     }
 
     /**
-     * Sets the selected car and triggers animation
+     * Sets the selected car and triggers animation. The car slides in once its render is
+     * loaded; a render still loading for the previous car is no longer waited for.
      */
     public void setSelectedCar(CarData selectedCar) {
+        cancelCarLoads();
         this.selectedCar = selectedCar;
-        this.carImage = (selectedCar != null) ? loadImage(selectedCar.getPreviewImagePath()) : null;
+        this.carImage = null;
+        if (selectedCar != null) {
+            loadCarImage();
+        }
         resetAnimation();
     }
 
+    private void loadCarImage() {
+        CompletableFuture<BufferedImage> load = ImageLoader.shared().load(selectedCar.getPreviewImagePath(), 0, 0,
+                image -> {
+                    carLoad = null;
+                    carImage = image;
+                    // Slide in from the start if the render took a while to arrive
+                    if (animationTimer.isRunning()) {
+                        repaint();
+                    } else {
+                        carOffsetX = INITIAL_CAR_OFFSET;
+                        animationTimer.restart();
+                    }
+                });
+        if (!load.isDone()) {
+            carLoad = load;
+            load.whenComplete((image, failure) -> {
+                if (failure != null && carLoad == load) {
+                    // Dropped by the loader to make room; the car is still selected
+                    loadCarImage();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the loads for the previous car; each field is cleared before its load is
+     * cancelled, so the load's own handler does not ask again.
+     */
+    private void cancelCarLoads() {
+        CompletableFuture<BufferedImage> car = carLoad;
+        CompletableFuture<BufferedImage> fitted = fittedLoad;
+        carLoad = null;
+        fittedLoad = null;
+        fittedSize = null;
+        if (car != null) {
+            car.cancel(false);
+        }
+        if (fitted != null) {
+            fitted.cancel(false);
+        }
+    }
+
     /**
      * Returns the currently selected car
      */
@@ -166,7 +241,14 @@ public class BackgroundPanel extends JPanel {
             int maxTextW = (int) (width * LARGE_TEXT_AREA_WIDTH_RATIO);
             int maxTextH = (int) (height * LARGE_TEXT_AREA_HEIGHT_RATIO);
             
-            Font font = getAutoSizedFont(g2d, model, "SansSerif", Font.BOLD, maxTextW, maxTextH);
+            // Sized once per model and panel size, not on every animation frame
+            if (!model.equals(modelFontText) || maxTextW != modelFontWidth || maxTextH != modelFontHeight) {
+                modelFont = getAutoSizedFont(g2d, model, "SansSerif", Font.BOLD, maxTextW, maxTextH);
+                modelFontText = model;
+                modelFontWidth = maxTextW;
+                modelFontHeight = maxTextH;
+            }
+            Font font = modelFont;
             g2d.setFont(font);
 
             // Apply fade-in effect
@@ -194,8 +276,44 @@ public class BackgroundPanel extends JPanel {
             Dimension dim = scaleToFit(carImage.getWidth(this), carImage.getHeight(this), maxCarW, maxCarH);
             int carX = (width - dim.width) / 2 + carOffsetX - 70;
             int carY = (int) (height * CAR_VERTICAL_CENTER_RATIO - dim.height / 2);
-            
-            g2d.drawImage(carImage, carX, carY, dim.width, dim.height, this);
+
+            // Draw a copy scaled once to this size rather than scaling the full render every
+            // frame; until it is ready, scale the full render and ask for the copy
+            Image scaled = ImageLoader.shared().getCache().getIfPresent(selectedCar.getPreviewImagePath(),
+                    dim.width, dim.height);
+            if (scaled == null && !dim.equals(fittedSize)) {
+                CompletableFuture<BufferedImage> previous = fittedLoad;
+                fittedLoad = null;
+                if (previous != null) {
+                    previous.cancel(false);
+                }
+                fittedSize = dim;
+                CompletableFuture<BufferedImage> load = ImageLoader.shared().load(selectedCar.getPreviewImagePath(),
+                        dim.width, dim.height, image -> {
+                            fittedLoad = null;
+                            repaint();
+                        });
+                if (!load.isDone()) {
+                    fittedLoad = load;
+                    load.whenComplete((image, failure) -> {
+                        if (failure != null && fittedLoad == load) {
+                            // Dropped by the loader to make room; ask again when next painted
+                            fittedLoad = null;
+                            fittedSize = null;
+                            repaint();
+                        }
+                    });
+                }
+            }
+            if (scaled != null) {
+                g2d.drawImage(scaled, carX, carY, dim.width, dim.height, this);
+            } else {
+                // A quick, rough scale of the full render stands in for the copy
+                Object interpolation = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                g2d.drawImage(carImage, carX, carY, dim.width, dim.height, this);
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            }
         }
     }
 
@@ -226,21 +344,21 @@ public class BackgroundPanel extends JPanel {
     }
 
     /**
-     * Gets a font sized to fit the text within the given dimensions
+     * Gets a font sized to fit the text within the given dimensions, searching the sizes by
+     * halving as text only grows with its size
      */
     private Font getAutoSizedFont(Graphics2D g, String text, String fontName, int style, int maxW, int maxH) {
-        int size = Math.min(maxH * 2, 400);
-        Font font;
-        
-        do {
-            font = new Font(fontName, style, size--);
-            FontMetrics metrics = g.getFontMetrics(font);
-            
+        int low = 13;
+        int high = Math.min(maxH * 2, 400);
+        while (low < high) {
+            int size = (low + high + 1) >>> 1;
+            FontMetrics metrics = g.getFontMetrics(new Font(fontName, style, size));
             if (metrics.getHeight() <= maxH && metrics.stringWidth(text) <= maxW) {
-                break;
+                low = size;
+            } else {
+                high = size - 1;
             }
-        } while (size > 12);
-        
-        return font;
+        }
+        return new Font(fontName, style, low);
     }
 }
\ No newline at end of file
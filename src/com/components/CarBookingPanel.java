@@ -6,75 +6,50 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 
 import com.data.CarData;
+import com.journal.QuoteJournal;
+import com.pricing.BookingModel;
+import com.pricing.BookingOption;
+import com.pricing.MoneyFormat;
+import com.pricing.OptionCategory;
+import com.pricing.Quote;
+import com.pricing.QuoteEngine;
+import com.pricing.QuoteMatrix;
+import com.pricing.rules.RuleSet;
 import com.ui.*;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.function.Consumer;
+import java.awt.event.ActionListener;
 import net.miginfocom.swing.MigLayout;
 
 public class CarBookingPanel extends RoundedPanel {
 
     private static final Color PANEL_BACKGROUND = new Color(35, 35, 45, 200);
-    private static final Color BUTTON_COLOR = Color.decode("#2ECC71");
     private static final Color TEXT_COLOR_HEADER = Color.WHITE;
     private static final Color TEXT_COLOR_NORMAL = new Color(200, 200, 200);
     private static final Font FONT_HEADER = new Font("SansSerif", Font.BOLD, 16);
     private static final Font FONT_SUBHEADER = new Font("SansSerif", Font.BOLD, 14);
     private static final Font FONT_NORMAL = new Font("SansSerif", Font.BOLD, 12);
     private static final int PREFERRED_WIDTH = 300;
-    private static final int PREFERRED_HEIGHT = 620;
+    private static final int PREFERRED_HEIGHT = 665;
     private static final int HORIZONTAL_GAP = 12;
     private static final int FIXED_OPTION_ROW_HEIGHT = 35;
 
-    private static final String ADDON_BABY_SEAT = "Baby Seat";
-    private static final String ADDON_ROADSIDE_SUPPORT = "Roadside Support";
-    private static final String INS_THEFT = "Theft";
-    private static final String INS_DAMAGE_WAIVER = "Damage Waiver";
-    private static final String FUEL_FULL_TO_FULL = "Full-to-Full";
-    private static final String FUEL_PREPAID = "Prepaid";
-    private static final String SELF_DRIVING = "Self-Driving";
-    private static final String ASSIGN_DRIVER = "Assign Driver";
-
-    private static final Map<String, Integer> ADDON_PRICES = Map.of(
-            ADDON_BABY_SEAT, 60,
-            ADDON_ROADSIDE_SUPPORT, 40);
-    private static final Map<String, Integer> INSURANCE_PRICES = Map.of(
-            INS_THEFT, 100,
-            INS_DAMAGE_WAIVER, 80);
-    private static final Map<String, Integer> FUEL_PRICES = Map.of(
-            FUEL_PREPAID, 0,
-            FUEL_FULL_TO_FULL, 300);
-    private static final Map<String, Integer> DRIVER_PRICES = Map.of(
-            SELF_DRIVING, 0,
-            ASSIGN_DRIVER, 200);
-
-    private CarData car;
+    private static final int[] DURATION_DAYS = BookingModel.standardDurations();
+    private static final String TRAILING_PER_DAY = "/day";
+    private static final String TRAILING_ONCE_OFF = " - OnceOff";
+
+    private final BookingModel bookingModel;
+    private final QuoteJournal quoteJournal;
+    private final StringBuilder labelText = new StringBuilder(64);
     private final JComboBox<String> durationCombo;
-    private final ButtonGroup fuelGroup;
-    private final ButtonGroup driverGroup;
     private final JLabel totalLabel;
-    private final JButton calcBtn;
+    private final JButton reserveButton;
     private final JLabel carRentalCostDisplayLabel;
 
-    private final JLabel addonsCostLabel;
-    private final JLabel insuranceCostLabel;
-    private final JLabel fuelCostLabel;
-    private final JLabel driverCostLabel;
-
-    private List<JCheckBox> actualAddonsCheckBoxes;
-    private List<JCheckBox> actualInsuranceCheckBoxes;
-
-    private int addOnsTotal = 0;
-    private int insuranceTotal = 0;
-    private int fuelPolicyCost = 0;
-    private int driverCost = 0;
+    // Indexed by OptionCategory ordinal
+    private final JLabel[] costLabels = new JLabel[OptionCategory.values().length];
+    private final ButtonGroup[] buttonGroups = new ButtonGroup[OptionCategory.values().length];
 
     /**
      * Creates a new car booking panel with the specified car data
@@ -82,17 +57,40 @@ public class CarBookingPanel extends RoundedPanel {
      * @param carData The car data to initialize with
      */
     public CarBookingPanel(CarData carData) {
+        this(carData, null);
+    }
+
+    /**
+     * Creates a new car booking panel that reads its quotes from a precomputed matrix.
+     *
+     * @param carData The car data to initialize with
+     * @param quoteMatrix The precomputed quotes for the catalog, or null to price every change live
+     */
+    public CarBookingPanel(CarData carData, QuoteMatrix quoteMatrix) {
+        this(carData, quoteMatrix, null);
+    }
+
+    /**
+     * Creates a new car booking panel that records every total it shows in a journal.
+     *
+     * @param carData The car data to initialize with
+     * @param quoteMatrix The precomputed quotes for the catalog, or null to price every change live
+     * @param quoteJournal The journal receiving each displayed total, or null to keep no record
+     */
+    public CarBookingPanel(CarData carData, QuoteMatrix quoteMatrix, QuoteJournal quoteJournal) {
         super(12);
-        this.car = carData;
+        this.quoteJournal = quoteJournal;
+        this.bookingModel = new BookingModel(quoteMatrix != null ? quoteMatrix.getEngine() : new QuoteEngine(), quoteMatrix);
+        bookingModel.setCar(carData);
 
         setLayout(new MigLayout("fillx, wrap 1, insets 15", "[grow]",
-                "[]15[]15[]5[]15[]5[]5[]15[]"));
+                "[]15[]15[]5[]15[]5[]5[]15[]10[]"));
         setBackground(PANEL_BACKGROUND);
         setPreferredSize(new Dimension(PREFERRED_WIDTH, PREFERRED_HEIGHT));
 
         add(createBookingTitle(), "growx");
 
-        carRentalCostDisplayLabel = createLabel("Car Rental: R0");
+        carRentalCostDisplayLabel = createLabel("Car Rental: " + MoneyFormat.format(0));
         durationCombo = createDurationComboBox();
         JPanel durationOuterPanel = createLeftAlignedPanel();
         durationOuterPanel.add(createLabelNormal("Rental Duration:"));
@@ -100,59 +98,27 @@ public class CarBookingPanel extends RoundedPanel {
         durationOuterPanel.add(durationCombo);
         add(createSectionPanel(76, carRentalCostDisplayLabel, durationOuterPanel));
 
-        this.addonsCostLabel = createLabel("Extras: R0");
-        this.actualAddonsCheckBoxes = new ArrayList<>();
-        JComponent addOnsGroup = createCheckBoxGroupWithValue(
-                new String[]{ADDON_BABY_SEAT, ADDON_ROADSIDE_SUPPORT},
-                ADDON_PRICES, this.addonsCostLabel, "Extras",
-                cost -> addOnsTotal = cost, this.actualAddonsCheckBoxes);
-        add(createSectionPanel(66, this.addonsCostLabel, addOnsGroup));
-
-        this.insuranceCostLabel = createLabel("Insurance: R0");
-        this.actualInsuranceCheckBoxes = new ArrayList<>();
-        JComponent insuranceGroup = createCheckBoxGroupWithValue(
-                new String[]{INS_THEFT, INS_DAMAGE_WAIVER},
-                INSURANCE_PRICES, this.insuranceCostLabel, "Insurance",
-                cost -> insuranceTotal = cost, this.actualInsuranceCheckBoxes);
-        add(createSectionPanel(66, this.insuranceCostLabel, insuranceGroup));
-
-        this.fuelCostLabel = createLabel("Fuel Policy: R0");
-        fuelGroup = new ButtonGroup();
-        JComponent fuelPolicyGroup = createRadioButtonGroupWithValue(
-                new String[]{FUEL_PREPAID, FUEL_FULL_TO_FULL},
-                fuelGroup, FUEL_PRICES, this.fuelCostLabel, "Fuel Policy",
-                " - OnceOff", cost -> fuelPolicyCost = cost);
-        add(createSectionPanel(66, this.fuelCostLabel, fuelPolicyGroup));
-
-        this.driverCostLabel = createLabel("Driver Choice: R0");
-        driverGroup = new ButtonGroup();
-        JComponent driverOpGroup = createRadioButtonGroupWithValue(
-                new String[]{SELF_DRIVING, ASSIGN_DRIVER},
-                driverGroup, DRIVER_PRICES, this.driverCostLabel, "Driver Choice",
-                "/day", cost -> driverCost = cost);
-        add(createSectionPanel(66, this.driverCostLabel, driverOpGroup));
+        for (OptionCategory category : OptionCategory.values()) {
+            JLabel costLabel = createLabel(category.getTitle() + ": " + MoneyFormat.format(0));
+            costLabels[category.ordinal()] = costLabel;
+            add(createSectionPanel(66, costLabel, createOptionGroup(category)));
+        }
 
         add(Box.createVerticalStrut(10), BorderLayout.CENTER);
-        calcBtn = createButton("Calculate Total", 102, 32);
         totalLabel = createTotalLabel();
-        add(calcBtn, "center");
         add(totalLabel, "center");
+        reserveButton = createReserveButton();
+        add(reserveButton, "center, w 140!, h 32!");
 
         setupActionListeners();
-        updateCarRentalCostDisplay();
-        selectFirstOption(fuelGroup);
-        selectFirstOption(driverGroup);
-    }
-
-    /**
-     * Formats an integer value into a currency string.
-     * @param value The integer value to format.
-     * @return A string representing the value in the default currency format with no cents.
-     */
-    private String formatCurrency(int value) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.getDefault());
-        formatter.setMaximumFractionDigits(0);
-        return formatter.format(value);
+        bookingModel.update(() -> {
+            for (ButtonGroup group : buttonGroups) {
+                if (group != null) {
+                    selectFirstOption(group);
+                }
+            }
+        });
+        bookingModel.refreshAll();
     }
 
     /**
@@ -174,36 +140,6 @@ public class CarBookingPanel extends RoundedPanel {
         }
     }
 
-    /**
-     * Retrieves the currently selected AbstractButton from a ButtonGroup.
-     * @param group The ButtonGroup to check.
-     * @return The selected AbstractButton, or null if no button is selected.
-     */
-    private AbstractButton getSelectedButton(ButtonGroup group) {
-        for (AbstractButton button : Collections.list(group.getElements())) {
-            if (button.isSelected()) {
-                return button;
-            }
-        }
-        return null;
-    }
-
-
-    /**
-     * Creates a styled JButton with specified text, width, and height.
-     * @param text The text to display on the button.
-     * @param width The preferred width of the button.
-     * @param height The preferred height of the button.
-     * @return A new styled JButton.
-     */
-    private JButton createButton(String text, int width, int height) {
-        JButton button = new JButton(text);
-        button.setFont(FONT_SUBHEADER);
-        button.setPreferredSize(new Dimension(width, height));
-        button.setUI(new RoundedButtonUI(20, BUTTON_COLOR, null));
-        return button;
-    }
-
     /**
      * Creates a styled JLabel for displaying the total price.
      * @return A new styled JLabel initialized for the total.
@@ -216,44 +152,42 @@ public class CarBookingPanel extends RoundedPanel {
     }
 
     /**
-     * Sets up action listeners for interactive components like the calculate button
-     * and the duration combo box.
+     * Sets up the duration combo box listener and subscribes the labels to booking changes.
      */
     private void setupActionListeners() {
-        calcBtn.addActionListener(e -> calculateTotal());
-        durationCombo.addActionListener(e -> {
-            updateCarRentalCostDisplay();
-
-            if (this.actualAddonsCheckBoxes != null && this.addonsCostLabel != null) {
-                updateCostDisplay(this.actualAddonsCheckBoxes, ADDON_PRICES, this.addonsCostLabel, "Extras", cost -> addOnsTotal = cost);
-            }
+        durationCombo.addActionListener(e -> bookingModel.setDays(getSelectedNumberOfDays()));
+        bookingModel.addListener(this::bookingChanged);
+    }
 
-            if (this.actualInsuranceCheckBoxes != null && this.insuranceCostLabel != null) {
-                updateCostDisplay(this.actualInsuranceCheckBoxes, INSURANCE_PRICES, this.insuranceCostLabel, "Insurance", cost -> insuranceTotal = cost);
+    /**
+     * Repaints only the labels whose booking nodes changed.
+     * @param model The booking model that changed.
+     * @param changedNodes Bit set of the changed nodes.
+     */
+    private void bookingChanged(BookingModel model, int changedNodes) {
+        if ((changedNodes & BookingModel.CAR_RENTAL) != 0) {
+            updateCarRentalCostDisplay();
+        }
+        for (OptionCategory category : OptionCategory.values()) {
+            if ((changedNodes & BookingModel.lineItem(category)) != 0) {
+                updateCostDisplay(category);
             }
+        }
+        if ((changedNodes & BookingModel.TOTAL) != 0) {
+            updateTotalDisplay();
+            recordTotal();
+        }
+    }
 
-            AbstractButton selectedDriverButton = getSelectedButton(driverGroup);
-            if (selectedDriverButton != null && this.driverCostLabel != null) {
-                String optionText = selectedDriverButton.getText();
-                int costPerDay = DRIVER_PRICES.getOrDefault(optionText, 0);
-                driverCost = costPerDay;
-
-                int numberOfDays = getSelectedNumberOfDays();
-                int totalCalculatedDriverCost = costPerDay * numberOfDays;
-                String title = "Driver Choice";
-                String driverTrailing = "/day";
-
-                if (costPerDay == 0) {
-                    this.driverCostLabel.setText(title + ": R0");
-                } else {
-                    if (numberOfDays > 1 && costPerDay > 0) {
-                        this.driverCostLabel.setText(title + ": R" + totalCalculatedDriverCost + " (R" + costPerDay + driverTrailing + ")");
-                    } else {
-                        this.driverCostLabel.setText(title + ": R" + totalCalculatedDriverCost);
-                    }
-                }
-            }
-        });
+    /**
+     * Queues the displayed total for the quote journal; never waits on the disk.
+     */
+    private void recordTotal() {
+        CarData car = bookingModel.getCar();
+        if (quoteJournal != null && car != null) {
+            quoteJournal.append(car.getId(), bookingModel.getDays(), bookingModel.getOptions(),
+                    bookingModel.getPriceVersion(), bookingModel.getQuote().getTotalCents());
+        }
     }
 
     /**
@@ -291,7 +225,11 @@ public class CarBookingPanel extends RoundedPanel {
      * @return A new styled JComboBox with predefined duration options.
      */
     private JComboBox<String> createDurationComboBox() {
-        JComboBox<String> combo = new JComboBox<>(new String[]{"1 Day", "3 Days", "7 Days"});
+        String[] items = new String[DURATION_DAYS.length];
+        for (int i = 0; i < DURATION_DAYS.length; i++) {
+            items[i] = DURATION_DAYS[i] + (DURATION_DAYS[i] == 1 ? " Day" : " Days");
+        }
+        JComboBox<String> combo = new JComboBox<>(items);
         combo.setUI(new RoundedComboBoxUI());
         combo.setPreferredSize(new Dimension(144, 32));
         combo.setOpaque(false);
@@ -311,85 +249,69 @@ public class CarBookingPanel extends RoundedPanel {
     }
 
     /**
-     * Creates a JPanel containing a group of JCheckBoxes.
-     * It populates a provided list with the created checkboxes and sets up
-     * action listeners to update a cost label and a callback when selections change.
-     * @param labels Array of strings for checkbox labels.
-     * @param prices Map of label strings to their integer prices.
-     * @param costLabel JLabel to display the calculated cost of selected checkboxes.
-     * @param title Title string for the cost label.
-     * @param callback Consumer to accept the total base cost of selected items.
-     * @param checkBoxesListToPopulate List to be populated with the created JCheckBoxes.
+     * Creates the selection controls for a category of booking options.
+     * Exclusive categories become radio buttons, the others become checkboxes.
+     * @param category The category to create controls for.
+     * @return A JPanel containing the category's options.
+     */
+    private JPanel createOptionGroup(OptionCategory category) {
+        BookingOption[] options = BookingOption.inCategory(category);
+        if (category.isExclusive()) {
+            ButtonGroup group = new ButtonGroup();
+            buttonGroups[category.ordinal()] = group;
+            return createRadioButtonGroupWithValue(options, group);
+        }
+        return createCheckBoxGroupWithValue(options);
+    }
+
+    /**
+     * Creates a JPanel containing a group of JCheckBoxes, one per booking option.
+     * Toggling a checkbox updates the selected options of the booking model.
+     * @param options The booking options to show as checkboxes.
      * @return A JPanel containing the group of checkboxes.
      */
-    private JPanel createCheckBoxGroupWithValue(String[] labels, Map<String, Integer> prices, JLabel costLabel,
-                                                String title, Consumer<Integer> callback, List<JCheckBox> checkBoxesListToPopulate) {
+    private JPanel createCheckBoxGroupWithValue(BookingOption[] options) {
 
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, HORIZONTAL_GAP, 0));
         panel.setOpaque(false);
 
-        for (String label : labels) {
-            JCheckBox cb = new JCheckBox(label);
+        for (BookingOption option : options) {
+            JCheckBox cb = new JCheckBox(option.getLabel());
             cb.setUI(new RoundedCheckBoxUI());
             cb.setOpaque(false);
             cb.setForeground(Color.WHITE);
 
-            checkBoxesListToPopulate.add(cb);
             panel.add(cb);
-            cb.addActionListener(e -> updateCostDisplay(checkBoxesListToPopulate, prices, costLabel, title, callback));
+            cb.addActionListener(e -> bookingModel.setOptionSelected(option, cb.isSelected()));
         }
 
-        updateCostDisplay(checkBoxesListToPopulate, prices, costLabel, title, callback);
         panel.setPreferredSize(new Dimension(panel.getPreferredSize().width, FIXED_OPTION_ROW_HEIGHT));
         panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, FIXED_OPTION_ROW_HEIGHT));
         return panel;
     }
 
     /**
-     * Creates a JPanel containing a group of JRadioButtons.
-     * Radio buttons are added to a provided ButtonGroup. Action listeners update
-     * a cost label and a callback when a radio button is selected.
-     * @param options Array of strings for radio button labels.
+     * Creates a JPanel containing a group of JRadioButtons, one per booking option.
+     * Radio buttons are added to a provided ButtonGroup. Selecting one replaces the
+     * category's previous option in the booking model.
+     * @param options The mutually exclusive booking options to show as radio buttons.
      * @param group ButtonGroup to which the radio buttons will be added.
-     * @param prices Map of option strings to their integer prices.
-     * @param costLabel JLabel to display the cost of the selected option.
-     * @param title Title string for the cost label.
-     * @param trailing String to append to the cost label (e.g., "/day", " - OnceOff").
-     * @param callback Consumer to accept the base cost of the selected item.
      * @return A JPanel containing the group of radio buttons.
      */
-    private JPanel createRadioButtonGroupWithValue(String[] options, ButtonGroup group, Map<String, Integer> prices,
-                                                   JLabel costLabel, String title, String trailing, Consumer<Integer> callback) {
+    private JPanel createRadioButtonGroupWithValue(BookingOption[] options, ButtonGroup group) {
 
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, HORIZONTAL_GAP, 0));
         panel.setOpaque(false);
 
-        for (String option : options) {
-            JRadioButton rb = new JRadioButton(option);
+        for (BookingOption option : options) {
+            JRadioButton rb = new JRadioButton(option.getLabel());
             rb.setUI(new RoundedRadioButtonUI());
             rb.setOpaque(false);
             rb.setForeground(Color.WHITE);
 
             group.add(rb);
             panel.add(rb);
-            rb.addActionListener(e -> {
-                int cost = prices.getOrDefault(rb.getText(), 0);
-                int numberOfDays = getSelectedNumberOfDays();
-                int displayTotalCost = trailing.equals("/day") ? cost * numberOfDays : cost;
-
-                if (cost == 0) {
-                    costLabel.setText(title + ": R0");
-                } else if (trailing.equals("/day")) {
-                    if (numberOfDays > 1 && cost > 0) {
-                         costLabel.setText(title + ": R" + displayTotalCost + " (R" + cost + trailing + ")");
-                    } else {
-                         costLabel.setText(title + ": R" + displayTotalCost);
-                    }
-                } else {
-                    costLabel.setText(title + ": R" + cost + trailing);
-                }
-                callback.accept(cost);
-            });
+            rb.addActionListener(e -> bookingModel.setOptionSelected(option, true));
         }
 
         panel.setPreferredSize(new Dimension(panel.getPreferredSize().width, FIXED_OPTION_ROW_HEIGHT));
@@ -398,34 +320,47 @@ public class CarBookingPanel extends RoundedPanel {
     }
 
     /**
-     * Updates a cost display JLabel based on selected JCheckBoxes from a list.
-     * The display includes the total cost for the selected number of days and,
-     * if applicable, the base per-day cost.
-     * @param boxes List of JCheckBoxes to evaluate.
-     * @param prices Map of checkbox text to their integer prices (per day).
-     * @param costLabel JLabel to update with the calculated cost.
-     * @param title Title string for the cost label.
-     * @param callback Consumer to accept the total base per-day cost of selected items.
+     * Updates the cost label of a category from the current quote, after any pricing rules.
+     * Per-day categories show the total for the selected number of days and, when it is
+     * the base per-day cost times the days, that cost. Once-off categories show the flat cost.
+     * @param category The category whose label should be updated.
      */
-    private void updateCostDisplay(List<JCheckBox> boxes, Map<String, Integer> prices,
-                                   JLabel costLabel, String title, Consumer<Integer> callback) {
-        String trailing = "/day";
-        int baseTotalPerDay = boxes.stream()
-                .filter(AbstractButton::isSelected)
-                .mapToInt(box -> prices.getOrDefault(box.getText().trim(), 0))
-                .sum();
-
-        int numberOfDays = getSelectedNumberOfDays();
-        int totalCalculatedCost = baseTotalPerDay * numberOfDays;
-
-        if (baseTotalPerDay == 0) {
-            costLabel.setText(title + ": R0");
-        } else if (numberOfDays > 1 && baseTotalPerDay > 0) {
-            costLabel.setText(title + ": R" + totalCalculatedCost + " (R" + baseTotalPerDay + trailing + ")");
+    private void updateCostDisplay(OptionCategory category) {
+        Quote quote = bookingModel.getQuote();
+        long basePrice = quote.getBasePriceCents(category);
+        long amount = quote.getAmountCents(category);
+        StringBuilder text = startLabelText(category.getTitle());
+
+        if (amount == 0) {
+            MoneyFormat.formatTo(0, text);
+        } else if (!category.isPerDay()) {
+            MoneyFormat.formatTo(amount, text).append(TRAILING_ONCE_OFF);
+        } else if (quote.getDays() > 1 && amount == basePrice * quote.getDays()) {
+            MoneyFormat.formatTo(amount, text).append(" (");
+            MoneyFormat.formatTo(basePrice, text).append(TRAILING_PER_DAY).append(')');
         } else {
-            costLabel.setText(title + ": R" + totalCalculatedCost);
+            MoneyFormat.formatTo(amount, text);
         }
-        callback.accept(baseTotalPerDay);
+        getCostLabel(category).setText(text.toString());
+    }
+
+    /**
+     * Clears the shared label buffer and starts it with a title.
+     * @param title The title to start the label with.
+     * @return The label buffer, ready for the amount to be appended.
+     */
+    private StringBuilder startLabelText(String title) {
+        labelText.setLength(0);
+        return labelText.append(title).append(": ");
+    }
+
+    /**
+     * Returns the label that displays the cost of a category.
+     * @param category The option category.
+     * @return The category's cost label.
+     */
+    private JLabel getCostLabel(OptionCategory category) {
+        return costLabels[category.ordinal()];
     }
 
     /**
@@ -475,41 +410,40 @@ public class CarBookingPanel extends RoundedPanel {
      * and the selected number of days.
      */
     private void updateCarRentalCostDisplay() {
-        int basePricePerDay = (car != null) ? car.getPrice() : 0;
-        int numberOfDays = getSelectedNumberOfDays();
-        int currentCarRentalCost = basePricePerDay * numberOfDays;
-        carRentalCostDisplayLabel.setText("Car Rental: " + formatCurrency(currentCarRentalCost));
+        StringBuilder text = startLabelText("Car Rental");
+        carRentalCostDisplayLabel.setText(MoneyFormat.formatTo(bookingModel.getQuote().getCarRentalCents(), text).toString());
     }
 
     /**
      * Gets the number of days selected in the duration JComboBox.
-     * @return The number of days (1, 3, or 7), defaulting to 1.
+     * @return The number of days, defaulting to 1.
      */
     private int getSelectedNumberOfDays() {
-        return switch (durationCombo.getSelectedIndex()) {
-            case 0 -> 1;
-            case 1 -> 3;
-            case 2 -> 7;
-            default -> 1;
-        };
+        int index = durationCombo.getSelectedIndex();
+        return (index >= 0 && index < DURATION_DAYS.length) ? DURATION_DAYS[index] : 1;
+    }
+
+    private JButton createReserveButton() {
+        JButton button = new JButton("Reserve");
+        button.setFocusPainted(false);
+        button.setUI(new RoundedButtonUI(20, new Color(40, 160, 80), Color.white));
+        button.setForeground(Color.WHITE);
+        button.setFont(FONT_SUBHEADER);
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setEnabled(false);
+        return button;
     }
 
     /**
-     * Calculates the total booking cost based on car rental, addons, insurance,
-     * fuel policy, and driver costs, multiplied by the number of days where applicable.
-     * Updates the totalLabel with the formatted total cost.
+     * Displays the total booking cost of the current quote in the totalLabel.
      */
-    private void calculateTotal() {
-        int basePricePerDay = (car != null) ? car.getPrice() : 0;
-        int numberOfDays = getSelectedNumberOfDays();
-
-        int total = (basePricePerDay * numberOfDays) +
-                (addOnsTotal * numberOfDays) +
-                (insuranceTotal * numberOfDays) +
-                fuelPolicyCost +
-                (driverCost * numberOfDays);
-
-        totalLabel.setText("Total: " + formatCurrency(total));
+    private void updateTotalDisplay() {
+        if (bookingModel.getCar() == null) {
+            totalLabel.setText("Total:");
+        } else {
+            StringBuilder text = startLabelText("Total");
+            totalLabel.setText(MoneyFormat.formatTo(bookingModel.getQuote().getTotalCents(), text).toString());
+        }
     }
 
     /**
@@ -524,27 +458,56 @@ public class CarBookingPanel extends RoundedPanel {
 
     /**
      * Updates the panel with data from a newly selected car.
-     * If a car is selected, its rental cost is updated. If no car is selected (null),
-     * relevant cost displays and state variables are reset.
+     * Only the labels whose amounts change are updated. If no car is selected (null),
+     * every cost display reads zero.
      *
      * @param selectedCar The new car data, or null to clear.
      */
     public void updateDisplay(CarData selectedCar) {
-        this.car = selectedCar;
+        bookingModel.setCar(selectedCar);
+    }
 
-        if (car != null) {
-            updateCarRentalCostDisplay();
-        } else {
-            carRentalCostDisplayLabel.setText("Car Rental: R0");
-            if (addonsCostLabel != null) addonsCostLabel.setText("Extras: R0");
-            if (insuranceCostLabel != null) insuranceCostLabel.setText("Insurance: R0");
-            if (driverCostLabel != null) driverCostLabel.setText("Driver Choice: R0");
-            if (fuelCostLabel != null) fuelCostLabel.setText("Fuel Policy: R0");
-            addOnsTotal = 0;
-            insuranceTotal = 0;
-            driverCost = 0;
-            fuelPolicyCost = 0;
-            totalLabel.setText("Total:");
-        }
+    /**
+     * @return the selected rental duration in days
+     */
+    public int getDays() {
+        return bookingModel.getDays();
+    }
+
+    /**
+     * Registers a listener to be notified when the booking changes, such as its duration.
+     */
+    public void addBookingListener(BookingModel.Listener listener) {
+        bookingModel.addListener(listener);
+    }
+
+    /**
+     * Registers an action to run when the customer reserves the car on display.
+     */
+    public void addReserveListener(ActionListener listener) {
+        reserveButton.addActionListener(listener);
+    }
+
+    /**
+     * Enables the reserve button, such as while the car on display is held for this kiosk.
+     */
+    public void setReservable(boolean reservable) {
+        reserveButton.setEnabled(reservable);
+    }
+
+    /**
+     * Sets the pricing rules applied on top of the quoted prices.
+     */
+    public void setRules(RuleSet rules) {
+        bookingModel.setRules(rules);
+    }
+
+    /**
+     * Switches to quotes built from new prices; only the labels whose amounts change are updated.
+     *
+     * @param quoteMatrix The precomputed quotes for the new prices
+     */
+    public void updatePrices(QuoteMatrix quoteMatrix) {
+        bookingModel.setPricing(quoteMatrix.getEngine(), quoteMatrix);
     }
 }
\ No newline at end of file
@@ -4,31 +4,104 @@ import javax.swing.Box;
 import javax.swing.JPanel;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import javax.swing.SwingUtilities;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.data.CarCatalog;
 import com.data.CarData;
+import com.data.filter.CarFilter;
+import com.data.filter.CarSearchIndex;
+import com.data.filter.CatalogIndex;
+import com.data.filter.CompressedBitmap;
+import com.feed.FeedDelta;
+import com.feed.FeedSubscriber;
+import com.inventory.AvailabilityCalendar;
+import com.inventory.BookingStore;
+import com.inventory.Reservation;
+import com.inventory.ReservationManager;
+import com.journal.QuoteJournal;
 import com.listeners.CarSelectionListener;
+import com.pricing.PriceBook;
+import com.pricing.PriceIndex;
+import com.pricing.PriceSnapshot;
+import com.pricing.PricingSetup;
+import com.pricing.QuoteMatrix;
 
 // CarDisplayPanel IS the BackgroundPanel
 public class CarDisplayPanel extends BackgroundPanel {
 
+    /** The most cars shown in the carousel at once; filters narrow larger fleets. */
+    private static final int MAX_SHOWN_CARS = 100;
+    /** How long the car on the booking panel is held for this kiosk. */
+    private static final Duration HOLD_TIME = Duration.ofMinutes(5);
+
     private CarBookingPanel carBookingPanel; // Reference to the info panel
     private CarInfoPanel carInfoPanel; // Reference to the info panel
     private CarSelectionPanel selectionPanel; // Reference to the selection panel
+    private CarFilterPanel filterPanel; // Reference to the filter panel
+    private CatalogIndex catalogIndex; // Answers filters over the whole fleet
+    private volatile PriceIndex priceIndex; // Orders the fleet by price; read by the price watcher
+    private final AvailabilityCalendar calendar; // Reservations of every car
+    private final ReservationManager reservations; // Holds the car being looked at
+    private Reservation carHold; // This kiosk's hold on the selected car, or null
+    private int availabilityDays; // The duration the carousel's availability was worked out for
+    private CompressedBitmap searchRows; // Cars matching the search text, or null when it is blank
+    private BitSet withdrawnRows = new BitSet(); // Cars the feed has pulled from the fleet
+    private CompressedBitmap inServiceRows; // Cars not pulled from the fleet, or null when none are
+    private CarSearchIndex.Session searchSession; // Built and used on the search thread only
+    private final AtomicInteger searchGeneration = new AtomicInteger(); // Bumped by every edit
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "car-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService bookingExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "car-booking");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public CarDisplayPanel() {
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(20, 20, 20, 20));
         // --- Car Data Initialization ---
-        List<CarData> myCars = createSampleCarData();
+        CarCatalog catalog = PricingSetup.loadCatalog();
+        PriceBook priceBook = PricingSetup.openPriceBook(catalog);
+        PriceSnapshot prices = priceBook.current();
+        calendar = openCalendar(catalog);
+        reservations = new ReservationManager(calendar, HOLD_TIME);
+        reservations.startExpiring(Duration.ofSeconds(1));
 
-        // --- Car Selection Panel (SOUTH) ---
-        selectionPanel = new CarSelectionPanel(myCars);
-        selectionPanel.setBorder(new EmptyBorder(20, 0, 0, 0));
+        catalogIndex = CatalogIndex.build(catalog, prices.getCarPrices());
+        priceIndex = PriceIndex.build(prices);
+
+        // --- Filter and Car Selection Panels (SOUTH) ---
+        filterPanel = new CarFilterPanel(catalogIndex);
+        filterPanel.setBorder(new EmptyBorder(20, 0, 0, 0));
+        List<CarData> shownCars = selectCars(CarFilter.ALL);
+        selectionPanel = new CarSelectionPanel(shownCars);
+        selectionPanel.setBorder(new EmptyBorder(10, 0, 0, 0));
+        selectionPanel.updatePrices(prices);
 
         // --- Car Booking Panel (EAST) ---
-        setSelectedCar(myCars.get(0)); // Set the initial selected car
-        carBookingPanel = new CarBookingPanel(getSelectedCar()); // Pass initial data
+        // Start on the first car; with none to show, the panels wait without one
+        setSelectedCar(shownCars.isEmpty() ? null : shownCars.get(0));
+        QuoteMatrix quoteMatrix = PricingSetup.buildQuoteMatrix(prices, null);
+        carBookingPanel = new CarBookingPanel(getSelectedCar(), quoteMatrix, openQuoteJournal()); // Pass initial data
+        carBookingPanel.setRules(PricingSetup.loadRules());
+        holdSelectedCar();
+        updateAvailability();
 
         // --- Car Info Panel (WEST) ---
         carInfoPanel = new CarInfoPanel(getSelectedCar()); // Pass initial data
@@ -46,25 +119,64 @@ public class CarDisplayPanel extends BackgroundPanel {
         eastPanel.add(userPanel, BorderLayout.NORTH); // Add the user panel to the east panel
         add(eastPanel, BorderLayout.EAST); // Takes full height on the right
         add(carInfoPanel, BorderLayout.WEST); // Takes full height on the right
-        add(selectionPanel, BorderLayout.SOUTH); // Takes full width at the bottom
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setOpaque(false);
+        southPanel.add(filterPanel, BorderLayout.NORTH);
+        southPanel.add(selectionPanel, BorderLayout.CENTER);
+        add(southPanel, BorderLayout.SOUTH); // Takes full width at the bottom
 
         // --- Listener Setup ---
         selectionPanel.addCarSelectionListener(new CarSelectionListener() {
             @Override
             public void carSelected(CarData selectedCar) {
-                if (selectedCar != null) {
-                    // Update BackgroundPanel elements (managed by BackgroundPanel superclass)
-                    setSelectedCar(selectedCar);
+                // Null when no cars are left on the strip: the panels clear and the hold goes
+                // Update BackgroundPanel elements (managed by BackgroundPanel superclass)
+                setSelectedCar(selectedCar);
 
-                    // Update the CarInfoPanel AND booking with the new data
-                    updateCarInfoPanel();
-                    updateBookingPanel();
-                }
+                // Update the CarInfoPanel AND booking with the new data
+                updateCarInfoPanel();
+                updateBookingPanel();
+                holdSelectedCar();
             }
         });
 
+        carBookingPanel.addReserveListener(e -> reserveSelectedCar());
+
+        carBookingPanel.addBookingListener((model, changedNodes) -> {
+            if (model.getDays() != availabilityDays) {
+                holdSelectedCar();
+                updateAvailability();
+            }
+        });
+
+        filterPanel.addCarFilterListener(filter -> selectionPanel.showCars(selectCars(filter)));
+        filterPanel.addCarSearchListener(this::search);
+        searchExecutor.execute(() -> searchSession = CarSearchIndex.build(catalog).newSession());
+
+        // --- Price Reloads ---
+        priceBook.addListener(newPrices -> {
+            // Build the new quotes and index on the watcher thread, then swap them in on the EDT
+            QuoteMatrix newMatrix = PricingSetup.buildQuoteMatrix(newPrices, null);
+            CatalogIndex newIndex = CatalogIndex.build(newPrices.getCatalog(), newPrices.getCarPrices());
+            PriceIndex oldPriceIndex = priceIndex;
+            PriceIndex newPriceIndex = oldPriceIndex.withPrices(newPrices);
+            SwingUtilities.invokeLater(() -> {
+                catalogIndex = newIndex;
+                priceIndex = newPriceIndex;
+                selectionPanel.updatePrices(newPrices);
+                carBookingPanel.updatePrices(newMatrix);
+                if (filterPanel.getFilter().hasPriceRange()
+                        || filterPanel.getSortOrder() != CarFilterPanel.SortOrder.CATALOG) {
+                    // Cars may have moved in or out of the price range, or changed places
+                    selectionPanel.showCars(selectCars(filterPanel.getFilter()));
+                }
+            });
+        });
+
+        followFeed(priceBook);
+
         // --- Set Initial Selection ---
-        if (!myCars.isEmpty()) {
+        if (!shownCars.isEmpty()) {
             selectionPanel.setSelectedIndex(0); // This will trigger the listener above
         } else {
             updateCarInfoPanel();
@@ -73,24 +185,253 @@ public class CarDisplayPanel extends BackgroundPanel {
     }
 
     /**
-     * Helper method to create sample car data.
-     * 
-     * @return List of CarData objects.
+     * Greys out the cars in the carousel that are reserved on any day of a rental starting
+     * today for the chosen duration.
      */
-    private List<CarData> createSampleCarData() {
-        List<CarData> cars = new ArrayList<>();
-        cars.add(new CarData("gle", "Mercedes Benz", "GLE 2024", "benz_gle", "mercedes_benz", "240", "4", 9500));
-        cars.add(new CarData("rover_b", "Range Rover", "Vogue 2024", "land_rover_white", "land_rover", "140", "4",
-                1000));
-        cars.add(new CarData("clc", "Mercedes Benz", "CL 2013", "mercedes_clc", "mercedes_benz", "240", "4", 6500));
-        cars.add(new CarData("golfr", "Volkswagen", "GTI-R 2025", "golf_r", "vw", "280", "4", 2500));
-        cars.add(new CarData("bmwm3", "BMW M3", "M3 Ultra", "bmw_m3", "bmw", "245", "2", 2000));
-        cars.add(new CarData("golf8", "Volkswagen", "GTI-8 2025", "golf_8", "vw", "280", "4", 2500));
-        cars.add(new CarData("bmwm2", "BMW M2", "M2 Ultra", "bmw_m2", "bmw", "195", "2", 1600));
+    private void updateAvailability() {
+        int days = carBookingPanel.getDays();
+        availabilityDays = days;
+        LocalDate start = LocalDate.now();
+        LocalDate end = start.plusDays(days);
+        if (start.isBefore(calendar.getOrigin()) || end.isAfter(calendar.getEnd())) {
+            // Past the reservations the kiosk knows about
+            selectionPanel.setAvailability(car -> true);
+            return;
+        }
+        CarCatalog catalog = calendar.getCatalog();
+        selectionPanel.setAvailability(car -> isHeldHere(car)
+                || calendar.isFree(catalog.indexOf(car.getId()), start, end));
+    }
+
+    /**
+     * Holds the selected car for a rental starting today while the customer looks at it,
+     * giving up the previous hold. Nothing is held if the car is taken by someone else.
+     */
+    private void holdSelectedCar() {
+        if (carHold != null) {
+            reservations.release(carHold);
+            carHold = null;
+        }
+        CarData car = getSelectedCar();
+        LocalDate start = LocalDate.now();
+        LocalDate end = start.plusDays(carBookingPanel.getDays());
+        if (car != null && !start.isBefore(calendar.getOrigin()) && !end.isAfter(calendar.getEnd())) {
+            carHold = reservations.hold(car.getId(), start, end);
+        }
+        carBookingPanel.setReservable(carHold != null);
+    }
 
+    /**
+     * Turns this kiosk's hold on the selected car into a booking on the booking thread, which
+     * waits for the booking store to have it on disk, then greys the car out.
+     */
+    private void reserveSelectedCar() {
+        Reservation hold = carHold;
+        carHold = null; // No longer this kiosk's to release when the selection moves on
+        carBookingPanel.setReservable(false);
+        if (hold == null) {
+            updateAvailability();
+            return;
+        }
+        bookingExecutor.execute(() -> {
+            if (!reservations.confirm(hold)) {
+                // Lapsed while the customer was deciding; book it afresh if it is still free
+                Reservation again = reservations.hold(hold.getCarId(), hold.getStart(), hold.getEnd());
+                if (again != null && !reservations.confirm(again)) {
+                    reservations.release(again);
+                }
+            }
+            SwingUtilities.invokeLater(this::updateAvailability);
+        });
+    }
+
+    private boolean isHeldHere(CarData car) {
+        return carHold != null && carHold.getCarId().equals(car.getId());
+    }
+
+    /**
+     * Searches the fleet on the search thread and shows the result unless the text has been
+     * edited again in the meantime; a superseded search stops early.
+     */
+    private void search(String query) {
+        int generation = searchGeneration.incrementAndGet();
+        searchExecutor.execute(() -> {
+            if (generation != searchGeneration.get()) {
+                return;
+            }
+            CompressedBitmap rows = searchSession.search(query, () -> generation != searchGeneration.get());
+            if (rows == null) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (generation == searchGeneration.get()) {
+                    searchRows = query.isBlank() ? null : rows;
+                    selectionPanel.showCars(selectCars(filterPanel.getFilter()));
+                }
+            });
+        });
+    }
+
+    /**
+     * Finds the cars matching a filter and the search text and returns the first of them in the
+     * chosen order for the carousel, updating the filter panel's count.
+     */
+    private List<CarData> selectCars(CarFilter filter) {
+        CompressedBitmap rows = catalogIndex.select(filter);
+        if (searchRows != null) {
+            rows = rows.and(searchRows);
+        }
+        if (inServiceRows != null) {
+            rows = rows.and(inServiceRows);
+        }
+        CarCatalog catalog = catalogIndex.getCatalog();
+        List<CarData> cars = new ArrayList<>(Math.min(rows.cardinality(), MAX_SHOWN_CARS));
+        CarFilterPanel.SortOrder order = filterPanel.getSortOrder();
+        if (order == CarFilterPanel.SortOrder.CATALOG) {
+            for (PrimitiveIterator.OfInt it = rows.iterator(); it.hasNext() && cars.size() < MAX_SHOWN_CARS;) {
+                cars.add(catalog.get(it.nextInt()));
+            }
+        } else {
+            for (int row : priceIndex.top(MAX_SHOWN_CARS, rows, order == CarFilterPanel.SortOrder.DEAREST)) {
+                cars.add(catalog.get(row));
+            }
+        }
+        filterPanel.setResultCount(cars.size(), rows.cardinality());
         return cars;
     }
 
+    /**
+     * Follows the kiosk feed named by the {@code rental.feed} system property, a
+     * {@code host:port} or the path of a Unix domain socket, if it is set. Price changes go
+     * through the price book like a price file reload; cars pulled from the fleet leave the
+     * strip without the other cards being rebuilt.
+     */
+    private void followFeed(PriceBook priceBook) {
+        String address = System.getProperty("rental.feed");
+        if (address == null) {
+            return;
+        }
+        try {
+            FeedSubscriber.connect(address, delta -> {
+                if (delta.changesPrices()) {
+                    priceBook.update(delta::applyTo);
+                }
+                SwingUtilities.invokeLater(() -> applyFleetChanges(delta));
+            });
+        } catch (IOException e) {
+            System.err.println("Kiosk feed disabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Withdraws and restores the cars a feed delta names, updating the strip only if it shows
+     * one of them.
+     */
+    private void applyFleetChanges(FeedDelta delta) {
+        CarCatalog catalog = catalogIndex.getCatalog();
+        BitSet withdrawn = delta.isFull() ? new BitSet() : (BitSet) withdrawnRows.clone();
+        for (int i = 0; i < delta.size(); i++) {
+            int row = catalog.indexOf(delta.getKey(i));
+            if (row >= 0 && delta.getKind(i) == FeedDelta.Kind.WITHDRAWN) {
+                withdrawn.set(row);
+            } else if (row >= 0 && delta.getKind(i) == FeedDelta.Kind.RESTORED) {
+                withdrawn.clear(row);
+            }
+        }
+        if (withdrawn.equals(withdrawnRows)) {
+            return;
+        }
+        BitSet pulled = (BitSet) withdrawn.clone();
+        pulled.andNot(withdrawnRows);
+        withdrawnRows = withdrawn;
+        if (withdrawn.isEmpty()) {
+            inServiceRows = null;
+        } else {
+            CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+            for (int row = withdrawn.nextClearBit(0); row < catalog.size(); row = withdrawn.nextClearBit(row + 1)) {
+                builder.add(row);
+            }
+            inServiceRows = builder.build();
+        }
+
+        List<CarData> cars = selectCars(filterPanel.getFilter());
+        List<CarData> remaining = new ArrayList<>(selectionPanel.getCars());
+        remaining.removeIf(car -> pulled.get(catalog.indexOf(car.getId())));
+        if (cars.equals(remaining)) {
+            selectionPanel.removeCars(car -> pulled.get(catalog.indexOf(car.getId())));
+        } else {
+            selectionPanel.showCars(cars);
+        }
+    }
+
+    /**
+     * Loads the reservations from the file named by the {@code rental.reservations} system
+     * property (default {@code reservations.csv}) into a calendar starting today.
+     *
+     * @return the calendar; it holds no reservations if the file is missing, and those before
+     *         the first bad line if it is invalid
+     */
+    private static AvailabilityCalendar openCalendar(CarCatalog catalog) {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(catalog, LocalDate.now(),
+                AvailabilityCalendar.DEFAULT_HORIZON_DAYS);
+        BookingStore store = openBookingStore(calendar);
+        Path file = Paths.get(System.getProperty("rental.reservations", "reservations.csv"));
+        // The file seeds a new booking store; after that the store has them
+        if ((store == null || store.isNew()) && Files.exists(file)) {
+            try {
+                calendar.load(file);
+            } catch (IOException e) {
+                System.err.println("Reservations incomplete: " + e.getMessage());
+            }
+        }
+        return calendar;
+    }
+
+    /**
+     * Restores the bookings saved by earlier runs and saves every booking made from now on,
+     * or returns null if the booking directory cannot be used.
+     */
+    private static BookingStore openBookingStore(AvailabilityCalendar calendar) {
+        try {
+            BookingStore store = BookingStore.open(Paths.get(System.getProperty("rental.bookings.dir", "bookings")),
+                    calendar);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.err.println("Booking store failed: " + e.getMessage());
+                }
+            }, "booking-store-close"));
+            return store;
+        } catch (IOException e) {
+            System.err.println("Bookings will not be saved: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the quote journal in the directory named by the {@code rental.journal.dir} system
+     * property (default {@code journal}) and closes it when the JVM exits.
+     *
+     * @return the journal, or null if it cannot be opened; the kiosk keeps working without one
+     */
+    private static QuoteJournal openQuoteJournal() {
+        try {
+            QuoteJournal journal = new QuoteJournal(Paths.get(System.getProperty("rental.journal.dir", "journal")));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Quote journal failed: " + e.getMessage());
+                }
+            }, "quote-journal-close"));
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Quote journal disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Updates the CarInfoPanel with data from the selected CarData object.
      * The selected car data, or null to clear/reset.
@@ -0,0 +1,279 @@
+package com.components;
+
+import com.data.filter.CarFilter;
+import com.data.filter.CatalogIndex;
+import com.listeners.CarFilterListener;
+import com.listeners.CarSearchListener;
+import com.pricing.MoneyFormat;
+import com.ui.RoundedComboBoxUI;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.EventListenerList;
+import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A search box and a row of drop-downs that narrow the fleet by make and model, brand, seats,
+ * grade and daily price and choose its order, with a count of the matching cars.
+ */
+public class CarFilterPanel extends JPanel {
+
+    /**
+     * The order matching cars are shown in.
+     */
+    public enum SortOrder {
+        CATALOG("Catalog order"),
+        CHEAPEST("Cheapest first"),
+        DEAREST("Dearest first");
+
+        private final String title;
+
+        SortOrder(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    private static final Color TEXT_COLOR = new Color(200, 200, 200);
+    private static final Color HINT_COLOR = new Color(150, 150, 150);
+    private static final Font FONT_NORMAL = new Font("SansSerif", Font.BOLD, 12);
+    private static final String SEARCH_HINT = "Search make or model";
+    private static final int HORIZONTAL_GAP = 12;
+    private static final int[] PRICE_LIMITS = {1000, 2000, 3000, 5000, 10000};
+
+    private final List<String> brands;
+    private final List<Integer> seatCounts;
+    private final List<String> grades;
+    private final JTextField searchField;
+    private final JComboBox<String> brandCombo;
+    private final JComboBox<String> seatsCombo;
+    private final JComboBox<String> gradeCombo;
+    private final JComboBox<String> priceCombo;
+    private final JComboBox<SortOrder> sortCombo;
+    private final JLabel resultLabel;
+    private final EventListenerList listenerList = new EventListenerList();
+
+    /**
+     * Creates a filter panel offering the values present in an index.
+     * @param index The index whose brands, seat counts and grades are offered
+     */
+    public CarFilterPanel(CatalogIndex index) {
+        setOpaque(false);
+        setLayout(new FlowLayout(FlowLayout.LEFT, HORIZONTAL_GAP, 0));
+
+        brands = index.getBrands();
+        seatCounts = index.getSeatCounts();
+        grades = index.getGrades();
+
+        String[] brandItems = new String[brands.size() + 1];
+        brandItems[0] = "All brands";
+        for (int i = 0; i < brands.size(); i++) {
+            brandItems[i + 1] = brandTitle(brands.get(i));
+        }
+        String[] seatItems = new String[seatCounts.size() + 1];
+        seatItems[0] = "Any seats";
+        for (int i = 0; i < seatCounts.size(); i++) {
+            seatItems[i + 1] = seatCounts.get(i) + "+ seats";
+        }
+        String[] gradeItems = new String[grades.size() + 1];
+        gradeItems[0] = "Any grade";
+        for (int i = 0; i < grades.size(); i++) {
+            gradeItems[i + 1] = "Grade " + grades.get(i);
+        }
+        String[] priceItems = new String[PRICE_LIMITS.length + 1];
+        priceItems[0] = "Any price";
+        for (int i = 0; i < PRICE_LIMITS.length; i++) {
+            priceItems[i + 1] = "Under " + MoneyFormat.formatRand(PRICE_LIMITS[i]) + "/day";
+        }
+
+        searchField = createSearchField(180);
+        brandCombo = createComboBox(brandItems, 150);
+        seatsCombo = createComboBox(seatItems, 110);
+        gradeCombo = createComboBox(gradeItems, 110);
+        priceCombo = createComboBox(priceItems, 150);
+        sortCombo = createComboBox(SortOrder.values(), 130);
+        resultLabel = new JLabel();
+        resultLabel.setFont(FONT_NORMAL);
+        resultLabel.setForeground(TEXT_COLOR);
+
+        add(searchField);
+        add(brandCombo);
+        add(seatsCombo);
+        add(gradeCombo);
+        add(priceCombo);
+        add(sortCombo);
+        add(resultLabel);
+    }
+
+    /**
+     * @return the filter described by the current selections
+     */
+    public CarFilter getFilter() {
+        CarFilter filter = CarFilter.ALL;
+        if (brandCombo.getSelectedIndex() > 0) {
+            filter = filter.withBrands(brands.get(brandCombo.getSelectedIndex() - 1));
+        }
+        if (seatsCombo.getSelectedIndex() > 0) {
+            filter = filter.withMinSeats(seatCounts.get(seatsCombo.getSelectedIndex() - 1));
+        }
+        if (gradeCombo.getSelectedIndex() > 0) {
+            filter = filter.withGrades(grades.get(gradeCombo.getSelectedIndex() - 1));
+        }
+        if (priceCombo.getSelectedIndex() > 0) {
+            // "Under R3,000" includes cars priced exactly R3,000
+            filter = filter.withPriceRange(0, PRICE_LIMITS[priceCombo.getSelectedIndex() - 1]);
+        }
+        return filter;
+    }
+
+    /**
+     * @return the text typed in the search box
+     */
+    public String getSearchText() {
+        return searchField.getText();
+    }
+
+    public SortOrder getSortOrder() {
+        return (SortOrder) sortCombo.getSelectedItem();
+    }
+
+    /**
+     * Shows how many cars match and how many of them are shown.
+     */
+    public void setResultCount(int shown, int matching) {
+        resultLabel.setText(shown == matching ? String.format("%,d cars", matching)
+                : String.format("Showing %,d of %,d cars", shown, matching));
+    }
+
+    /**
+     * Registers a listener to be notified when the filter changes.
+     */
+    public void addCarFilterListener(CarFilterListener listener) {
+        listenerList.add(CarFilterListener.class, listener);
+    }
+
+    /**
+     * Removes a previously registered filter listener.
+     */
+    public void removeCarFilterListener(CarFilterListener listener) {
+        listenerList.remove(CarFilterListener.class, listener);
+    }
+
+    /**
+     * Registers a listener to be notified on every edit to the search text.
+     */
+    public void addCarSearchListener(CarSearchListener listener) {
+        listenerList.add(CarSearchListener.class, listener);
+    }
+
+    /**
+     * Removes a previously registered search listener.
+     */
+    public void removeCarSearchListener(CarSearchListener listener) {
+        listenerList.remove(CarSearchListener.class, listener);
+    }
+
+    private void fireSearchChanged() {
+        String query = getSearchText();
+        for (Object listener : listenerList.getListenerList()) {
+            if (listener instanceof CarSearchListener) {
+                ((CarSearchListener) listener).searchChanged(query);
+            }
+        }
+    }
+
+    private void fireFilterChanged() {
+        CarFilter filter = getFilter();
+        for (Object listener : listenerList.getListenerList()) {
+            if (listener instanceof CarFilterListener) {
+                ((CarFilterListener) listener).filterChanged(filter);
+            }
+        }
+    }
+
+    private JTextField createSearchField(int width) {
+        JTextField field = new JTextField() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (getText().isEmpty() && !isFocusOwner()) {
+                    Insets insets = getInsets();
+                    g.setColor(HINT_COLOR);
+                    g.setFont(getFont());
+                    g.drawString(SEARCH_HINT, insets.left, insets.top + g.getFontMetrics().getAscent());
+                }
+            }
+        };
+        field.setPreferredSize(new Dimension(width, 32));
+        field.setFont(FONT_NORMAL);
+        field.setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                fireSearchChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                fireSearchChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not change the text
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                field.repaint();
+            }
+
+            @Override
+            public void focusLost(FocusEvent e) {
+                field.repaint();
+            }
+        });
+        return field;
+    }
+
+    private <T> JComboBox<T> createComboBox(T[] items, int width) {
+        JComboBox<T> combo = new JComboBox<>(items);
+        combo.setUI(new RoundedComboBoxUI());
+        combo.setPreferredSize(new Dimension(width, 32));
+        combo.setOpaque(false);
+        combo.setForeground(Color.BLACK);
+        combo.setBackground(Color.WHITE);
+        combo.addActionListener(e -> fireFilterChanged());
+        return combo;
+    }
+
+    /**
+     * Turns a brand key such as {@code mercedes_benz} into a title such as "Mercedes Benz".
+     */
+    private static String brandTitle(String brand) {
+        StringBuilder title = new StringBuilder(brand.length());
+        boolean startOfWord = true;
+        for (char c : brand.toCharArray()) {
+            if (c == '_') {
+                title.append(' ');
+                startOfWord = true;
+            } else {
+                title.append(startOfWord ? Character.toUpperCase(c) : c);
+                startOfWord = false;
+            }
+        }
+        String text = title.toString();
+        // Short keys such as "bmw" and "vw" are abbreviations
+        return brand.length() <= 3 ? text.toUpperCase(Locale.ROOT) : text;
+    }
+}
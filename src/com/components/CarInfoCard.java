@@ -2,6 +2,7 @@ package com.components;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
+import com.ui.ImageLoader;
 import com.ui.RoundedPanel;
 
 import java.awt.*;
@@ -37,9 +38,16 @@ public class CarInfoCard extends RoundedPanel {
     private void setupIcon(String iconPath) {
         iconLabel.setBounds(10, 10, ICON_SIZE, ICON_SIZE);
         if (iconPath != null && !iconPath.isEmpty()) {
-            ImageIcon icon = new ImageIcon(iconPath);
-            Image scaled = icon.getImage().getScaledInstance(ICON_SIZE, ICON_SIZE, Image.SCALE_SMOOTH);
-            iconLabel.setIcon(new ImageIcon(scaled));
+            ImageLoader.shared().load(iconPath, ICON_SIZE, ICON_SIZE, image -> {
+                if (image != null) {
+                    iconLabel.setIcon(new ImageIcon(image));
+                }
+            }).whenComplete((image, failure) -> {
+                if (failure != null) {
+                    // Dropped by the loader to make room; the icon is still wanted
+                    setupIcon(iconPath);
+                }
+            });
         }
     }
 
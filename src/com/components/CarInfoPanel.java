@@ -6,10 +6,13 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 
 import com.data.CarData;
+import com.ui.ImageLoader;
 import com.ui.RoundedPanel;
 
 import net.miginfocom.swing.MigLayout;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 import org.jdesktop.animation.timing.Animator;
 import org.jdesktop.animation.timing.TimingTargetAdapter;
 import org.jdesktop.animation.timing.interpolation.PropertySetter;
@@ -33,6 +36,7 @@ public class CarInfoPanel extends RoundedPanel {
     private JLabel carInfoLogoLabel;
     private CarInfoCard carInfoSpeedLabel;
     private CarInfoCard carInfoSeatsLabel;
+    private CompletableFuture<BufferedImage> logoLoad;
 
     // --- Constructor ---
     public CarInfoPanel(CarData carData) {
@@ -44,8 +48,8 @@ public class CarInfoPanel extends RoundedPanel {
 
         add(createCarInfoSection(), "growx");
 
-        carInfoSeatsLabel = new CarInfoCard("Seats", String.valueOf(car.getSeats()), "assets/icons/seats.png");
-        carInfoSpeedLabel = new CarInfoCard("Speed", car.getSpeed(), "assets/icons/speed.png");
+        carInfoSeatsLabel = new CarInfoCard("Seats", car != null ? String.valueOf(car.getSeats()) : "?", "assets/icons/seats.png");
+        carInfoSpeedLabel = new CarInfoCard("Speed", car != null ? String.valueOf(car.getSpeed()) : "?", "assets/icons/speed.png");
 
         add(carInfoSeatsLabel);
         add(carInfoSpeedLabel);
@@ -111,19 +115,33 @@ public class CarInfoPanel extends RoundedPanel {
     }
 
     private void updateCarInfoLogo() {
+        // A logo still loading for the previous car is no longer wanted
+        CompletableFuture<BufferedImage> previous = logoLoad;
+        logoLoad = null;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        carInfoLogoLabel.setIcon(null);
         if (car != null && car.getLogoPath() != null && !car.getLogoPath().isEmpty()) {
-            try {
-                ImageIcon icon = new ImageIcon(car.getLogoPath());
-                if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                    Image scaled = icon.getImage().getScaledInstance(52, 52, Image.SCALE_SMOOTH);
-                    carInfoLogoLabel.setIcon(new ImageIcon(scaled));
-                    return;
+            String logoPath = car.getLogoPath();
+            CompletableFuture<BufferedImage> load = ImageLoader.shared().load(logoPath, 52, 52, image -> {
+                logoLoad = null;
+                if (image != null) {
+                    carInfoLogoLabel.setIcon(new ImageIcon(image));
+                } else {
+                    System.err.println("Error loading logo: " + logoPath);
                 }
-            } catch (Exception e) {
-                System.err.println("Error loading logo: " + e.getMessage());
+            });
+            if (!load.isDone()) {
+                logoLoad = load;
+                load.whenComplete((image, failure) -> {
+                    if (failure != null && logoLoad == load) {
+                        // Dropped by the loader to make room; the logo is still wanted
+                        updateCarInfoLogo();
+                    }
+                });
             }
         }
-        carInfoLogoLabel.setIcon(null);
     }
 
     public void updateDisplay(CarData newCar) {
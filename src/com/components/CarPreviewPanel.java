@@ -1,14 +1,16 @@
 package com.components;
 
 import com.data.CarData;
+import com.pricing.MoneyFormat;
+import com.ui.ImageLoader;
 import com.ui.RoundedPanel;
 
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A custom Swing panel to display a preview of a car.
@@ -18,6 +20,7 @@ public class CarPreviewPanel extends RoundedPanel {
 
     private final CarData carData;
     private boolean isSelected = false;
+    private boolean isAvailable = true;
 
     // --- Styling Constants ---
     private static final Color DEFAULT_BG = new Color(30, 30, 30);
@@ -27,6 +30,9 @@ public class CarPreviewPanel extends RoundedPanel {
     private static final Color PI_FG = Color.BLACK;
     private static final Color PRICE_FG_DEFAULT = Color.WHITE;
     private static final Color PRICE_FG_SELECTED = Color.BLACK;
+    private static final Color UNAVAILABLE_SHADE = new Color(20, 20, 20, 170);
+    private static final Color UNAVAILABLE_FG = new Color(220, 220, 220);
+    private static final Color PLACEHOLDER_FG = new Color(255, 255, 255, 40);
 
     // --- Dimension Constants ---
     static final int PREVIEW_WIDTH = 220;
@@ -37,6 +43,9 @@ public class CarPreviewPanel extends RoundedPanel {
     // --- Font Constants ---
     private static final Font RATING_PI_FONT = new Font("SansSerif", Font.BOLD, 14);
     private static final Font PRICE_FONT = new Font("SansSerif", Font.BOLD, 16);
+    private static final Font UNAVAILABLE_FONT = new Font("SansSerif", Font.BOLD, 13);
+
+    private static final Icon PLACEHOLDER = createPlaceholder(IMAGE_WIDTH - 6, PREVIEW_HEIGHT - 30);
 
     // --- UI Components ---
     private JLabel imageLabel;
@@ -44,6 +53,9 @@ public class CarPreviewPanel extends RoundedPanel {
     private JLabel ratingLabel;
     private JLabel piLabel;
 
+    private boolean imageLoaded;
+    private CompletableFuture<BufferedImage> imageLoad;
+
     /**
      * Constructor to create the preview panel for a given car.
      */
@@ -86,9 +98,7 @@ public class CarPreviewPanel extends RoundedPanel {
         ratingPiPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
         // --- Price Label ---
-        NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(Locale.getDefault());
-        currencyFormatter.setMaximumFractionDigits(0);
-        priceLabel = new JLabel(currencyFormatter.format(carData.getPrice()));
+        priceLabel = new JLabel(MoneyFormat.formatRand(carData.getPrice()));
         priceLabel.setFont(PRICE_FONT);
         priceLabel.setForeground(PRICE_FG_DEFAULT);
         priceLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
@@ -102,19 +112,15 @@ public class CarPreviewPanel extends RoundedPanel {
         imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
         imageLabel.setVerticalAlignment(SwingConstants.CENTER);
 
-        // Load and scale car image
-        try {
-            ImageIcon icon = new ImageIcon(carData.getPreviewImagePath());
-            if (icon.getImageLoadStatus() == MediaTracker.COMPLETE && icon.getIconWidth() > 0) {
-                Image scaledImg = icon.getImage().getScaledInstance(IMAGE_WIDTH - 6, PREVIEW_HEIGHT - 30, Image.SCALE_SMOOTH);
-                imageLabel.setIcon(new ImageIcon(scaledImg));
-            } else {
-                imageLabel.setText("No Image");
-                System.err.println("Failed to load preview image: " + carData.getPreviewImagePath());
-            }
-        } catch (Exception e) {
-            imageLabel.setText("Error");
-            System.err.println("Error loading preview image '" + carData.getPreviewImagePath() + "': " + e.getMessage());
+        // Show the scaled car image if an earlier card already loaded it; otherwise a
+        // placeholder until the card is first painted and the image arrives
+        BufferedImage cached = ImageLoader.shared().getCache().getIfPresent(carData.getPreviewImagePath(),
+                IMAGE_WIDTH - 6, PREVIEW_HEIGHT - 30);
+        if (cached != null) {
+            imageLabel.setIcon(new ImageIcon(cached));
+            imageLoaded = true;
+        } else {
+            imageLabel.setIcon(PLACEHOLDER);
         }
 
         // --- Final Layout ---
@@ -122,6 +128,65 @@ public class CarPreviewPanel extends RoundedPanel {
         add(imageLabel, BorderLayout.EAST);
     }
 
+    /**
+     * Creates the faint rounded block shown where the car image will be.
+     */
+    private static Icon createPlaceholder(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(PLACEHOLDER_FG);
+        g2.fillRoundRect(4, height / 4, width - 8, height / 2, 12, 12);
+        g2.dispose();
+        return new ImageIcon(image);
+    }
+
+    /**
+     * Asks for the car image off the event dispatch thread, unless it is shown or on its way.
+     * Called when the card is first painted, so cards scrolled out of sight never load.
+     */
+    private void requestImage() {
+        if (imageLoaded || imageLoad != null) {
+            return;
+        }
+        CompletableFuture<BufferedImage> load = ImageLoader.shared().load(carData.getPreviewImagePath(),
+                IMAGE_WIDTH - 6, PREVIEW_HEIGHT - 30, this::showImage);
+        if (!load.isDone()) {
+            imageLoad = load;
+            load.whenComplete((image, failure) -> {
+                if (failure != null && imageLoad == load) {
+                    // Dropped by the loader to make room; ask again when next painted
+                    imageLoad = null;
+                    repaint();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops a pending image load, such as when the card scrolls out of sight or leaves the
+     * strip; the image is asked for again when the card is next painted.
+     */
+    public void cancelImage() {
+        CompletableFuture<BufferedImage> load = imageLoad;
+        imageLoad = null;
+        if (load != null) {
+            load.cancel(false);
+        }
+    }
+
+    private void showImage(BufferedImage image) {
+        imageLoad = null;
+        imageLoaded = true;
+        if (image != null) {
+            imageLabel.setIcon(new ImageIcon(image));
+        } else {
+            imageLabel.setIcon(null);
+            imageLabel.setText("No Image");
+            System.err.println("Failed to load preview image: " + carData.getPreviewImagePath());
+        }
+    }
+
     /**
      * Creates a stylized info box (used for rating and PI).
      */
@@ -153,6 +218,20 @@ public class CarPreviewPanel extends RoundedPanel {
         return isSelected;
     }
 
+    /**
+     * Greys the preview out when the car is reserved for the chosen dates.
+     */
+    public void setAvailable(boolean available) {
+        if (this.isAvailable != available) {
+            this.isAvailable = available;
+            repaint();
+        }
+    }
+
+    public boolean isAvailable() {
+        return isAvailable;
+    }
+
     /**
      * Returns the associated CarData object.
      */
@@ -160,6 +239,48 @@ public class CarPreviewPanel extends RoundedPanel {
         return carData;
     }
 
+    /**
+     * Shows a new daily price, for example after a price reload.
+     *
+     * @param rand The daily price in rand
+     */
+    public void setDailyPrice(int rand) {
+        priceLabel.setText(MoneyFormat.formatRand(rand));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        requestImage();
+        super.paintComponent(g);
+    }
+
+    @Override
+    public void removeNotify() {
+        cancelImage();
+        super.removeNotify();
+    }
+
+    /**
+     * Shades the finished preview and labels it when the car is unavailable.
+     */
+    @Override
+    protected void paintChildren(Graphics g) {
+        super.paintChildren(g);
+        if (!isAvailable) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(UNAVAILABLE_SHADE);
+            g2.fillRoundRect(0, 0, getWidth(), getHeight(), 18, 18);
+            g2.setFont(UNAVAILABLE_FONT);
+            g2.setColor(UNAVAILABLE_FG);
+            FontMetrics metrics = g2.getFontMetrics();
+            String text = "Unavailable";
+            g2.drawString(text, (getWidth() - metrics.stringWidth(text)) / 2,
+                    (getHeight() + metrics.getAscent() - metrics.getDescent()) / 2);
+            g2.dispose();
+        }
+    }
+
     /**
      * Updates background and price color depending on selection.
      */
@@ -2,6 +2,7 @@ package com.components;
 
 import com.data.CarData;
 import com.listeners.CarSelectionListener;
+import com.pricing.PriceSnapshot;
 
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
@@ -9,14 +10,18 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
 
 public class CarSelectionPanel extends JPanel {
 
     private static final Color PANEL_BACKGROUND = new Color(35, 35, 45, 0);
     private static final int HORIZONTAL_GAP = 10;
 
-    private final List<CarData> carDataList;
+    private List<CarData> carDataList;
+    private PriceSnapshot prices;
+    private Predicate<CarData> availability = car -> true;
     private final List<CarPreviewPanel> previewPanels = new ArrayList<>();
     private final JPanel contentPanel = createContentPanel(); // Panel that holds car previews
     private final EventListenerList listenerList = new EventListenerList();
@@ -70,10 +75,25 @@ public class CarSelectionPanel extends JPanel {
         // Still allow scrolling via touchpad/mouse by setting scrollbar size to 0
         scrollPane.getHorizontalScrollBar().setPreferredSize(new Dimension(0, 0));
         scrollPane.getHorizontalScrollBar().setUnitIncrement(CarPreviewPanel.PREVIEW_WIDTH / 2);
+
+        // Cards scrolled past before their image arrived stop waiting for it
+        JViewport viewport = scrollPane.getViewport();
+        viewport.addChangeListener(e -> cancelHiddenImages(viewport.getViewRect()));
     
         return scrollPane;
     }
     
+    /**
+     * Cancels the image loads of cards outside the visible part of the strip.
+     */
+    private void cancelHiddenImages(Rectangle visible) {
+        for (CarPreviewPanel previewPanel : previewPanels) {
+            if (!visible.intersects(previewPanel.getBounds())) {
+                previewPanel.cancelImage();
+            }
+        }
+    }
+
     /**
      * Populates the content panel with car preview panels.
      * Adds mouse click listeners to each for selection.
@@ -93,11 +113,10 @@ public class CarSelectionPanel extends JPanel {
                 contentPanel.add(Box.createHorizontalStrut(HORIZONTAL_GAP));
             }
 
-            final int index = i;
             previewPanel.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
-                    setSelectedIndex(index); // Select the clicked car
+                    setSelectedIndex(previewPanels.indexOf(previewPanel)); // Select the clicked car
                 }
             });
         }
@@ -106,6 +125,70 @@ public class CarSelectionPanel extends JPanel {
         contentPanel.repaint();
     }
 
+    /**
+     * Replaces the cars on display, such as after a filter change, and selects the first one;
+     * with none to show, a null selection is fired.
+     * @param cars List of cars to display
+     */
+    public void showCars(List<CarData> cars) {
+        carDataList = cars != null ? cars : new ArrayList<>();
+        selectedIndex = -1;
+        populateContentPanel();
+        if (prices != null) {
+            for (CarPreviewPanel previewPanel : previewPanels) {
+                previewPanel.setDailyPrice(prices.getCarPrice(previewPanel.getCarData()));
+            }
+        }
+        setAvailability(availability);
+        if (!carDataList.isEmpty()) {
+            setSelectedIndex(0);
+        } else {
+            fireCarSelected(null);
+        }
+    }
+
+    /**
+     * Takes cars off the strip, such as when they are pulled from the fleet, keeping the
+     * other cards as they are. If the selected car goes, the first one left is selected, or
+     * a null selection is fired if none are left.
+     * @param removed Tells whether a car is to go
+     */
+    public void removeCars(Predicate<CarData> removed) {
+        CarData selectedCar = getSelectedCar();
+        List<CarData> keptCars = new ArrayList<>(carDataList.size());
+        List<CarPreviewPanel> keptPanels = new ArrayList<>(previewPanels.size());
+        for (int i = 0; i < carDataList.size(); i++) {
+            if (!removed.test(carDataList.get(i))) {
+                keptCars.add(carDataList.get(i));
+                keptPanels.add(previewPanels.get(i));
+            }
+        }
+        if (keptCars.size() == carDataList.size()) {
+            return;
+        }
+        carDataList = keptCars;
+        previewPanels.clear();
+        previewPanels.addAll(keptPanels);
+        contentPanel.removeAll();
+        for (int i = 0; i < keptPanels.size(); i++) {
+            contentPanel.add(keptPanels.get(i));
+            if (i < keptPanels.size() - 1) {
+                contentPanel.add(Box.createHorizontalStrut(HORIZONTAL_GAP));
+            }
+        }
+        contentPanel.revalidate();
+        contentPanel.repaint();
+
+        selectedIndex = keptCars.indexOf(selectedCar);
+        if (selectedIndex < 0) {
+            if (!keptCars.isEmpty()) {
+                setSelectedIndex(0);
+            } else if (selectedCar != null) {
+                fireCarSelected(null);
+            }
+        }
+    }
+
     /**
      * Updates the selected index and highlights the corresponding car panel.
      * Fires a selection event to listeners.
@@ -133,6 +216,13 @@ public class CarSelectionPanel extends JPanel {
         return (selectedIndex >= 0 && selectedIndex < carDataList.size()) ? carDataList.get(selectedIndex) : null;
     }
 
+    /**
+     * Gets the cars on display, in order.
+     */
+    public List<CarData> getCars() {
+        return Collections.unmodifiableList(carDataList);
+    }
+
     /**
      * Gets the index of the selected car.
      */
@@ -140,6 +230,33 @@ public class CarSelectionPanel extends JPanel {
         return selectedIndex;
     }
 
+    /**
+     * Shows each car's daily price from a new price snapshot, touching only the cards whose
+     * price changed.
+     */
+    public void updatePrices(PriceSnapshot prices) {
+        PriceSnapshot previous = this.prices;
+        this.prices = prices;
+        for (CarPreviewPanel previewPanel : previewPanels) {
+            CarData car = previewPanel.getCarData();
+            int price = prices.getCarPrice(car);
+            if (previous == null || previous.getCarPrice(car) != price) {
+                previewPanel.setDailyPrice(price);
+            }
+        }
+    }
+
+    /**
+     * Greys out the cars that are not available, now and whenever the cars on display change.
+     * @param availability Tells whether a car is free for the chosen dates
+     */
+    public void setAvailability(Predicate<CarData> availability) {
+        this.availability = availability;
+        for (CarPreviewPanel previewPanel : previewPanels) {
+            previewPanel.setAvailable(availability.test(previewPanel.getCarData()));
+        }
+    }
+
     /**
      * Registers a listener to be notified when a car is selected.
      */
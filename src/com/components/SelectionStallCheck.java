@@ -0,0 +1,128 @@
+package com.components;
+
+import com.ui.ImageCache;
+import com.ui.ImageLoader;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Builds the kiosk off screen with an empty image cache and steps through the strip as a
+ * customer would, selecting and painting on the event dispatch thread, first quickly and
+ * then pausing on each car. It reports the longest and average time the event dispatch
+ * thread spent per selection, both elapsed and on the CPU, and fails if any image was loaded,
+ * or waited for, on it or if its CPU time for one selection passes the limit. Elapsed time
+ * also counts the loading threads taking the CPU on a machine with few cores. Run with
+ * {@code -Drental.images.strict=true} to fail at the offending call instead.
+ *
+ * <p>Usage: {@code SelectionStallCheck [selections] [maxStallMillis]}</p>
+ */
+public final class SelectionStallCheck {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+
+    private SelectionStallCheck() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+        int selections = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        double maxStall = args.length > 1 ? Double.parseDouble(args[1]) : 50;
+
+        CarDisplayPanel[] kiosk = new CarDisplayPanel[1];
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        SwingUtilities.invokeAndWait(() -> {
+            kiosk[0] = new CarDisplayPanel();
+            kiosk[0].setSize(WIDTH, HEIGHT);
+            layOut(kiosk[0]);
+        });
+        CarSelectionPanel strip = find(kiosk[0], CarSelectionPanel.class);
+        if (strip == null || strip.getCars().isEmpty()) {
+            throw new IllegalStateException("no cars on the strip");
+        }
+        // The first paint loads fonts and look and feel resources, which are not images
+        paint(kiosk[0], screen);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] worst = new long[2];
+        long[] total = new long[2];
+        int cars = strip.getCars().size();
+        for (int i = 0; i < selections; i++) {
+            int index = i % cars;
+            SwingUtilities.invokeAndWait(() -> {
+                long start = System.nanoTime();
+                long startCpu = threads.getCurrentThreadCpuTime();
+                strip.setSelectedIndex(index);
+                layOut(kiosk[0]);
+                Graphics2D g = screen.createGraphics();
+                kiosk[0].paint(g);
+                g.dispose();
+                long elapsed = System.nanoTime() - start;
+                long cpu = threads.getCurrentThreadCpuTime() - startCpu;
+                worst[0] = Math.max(worst[0], elapsed);
+                worst[1] = Math.max(worst[1], cpu);
+                total[0] += elapsed;
+                total[1] += cpu;
+            });
+            if (i >= selections / 2) {
+                // Linger so the images arrive, as on a car the customer stops at
+                Thread.sleep(100);
+                paint(kiosk[0], screen);
+            }
+        }
+
+        ImageCache cache = ImageLoader.shared().getCache();
+        System.out.printf("%d selections over %d cars on the event dispatch thread:%n", selections, cars);
+        System.out.printf("  elapsed longest %6.1f ms, average %6.2f ms%n", worst[0] / 1e6, total[0] / 1e6 / selections);
+        System.out.printf("  CPU     longest %6.1f ms, average %6.2f ms%n", worst[1] / 1e6, total[1] / 1e6 / selections);
+        System.out.printf("%d loads cancelled, %s%n", ImageLoader.shared().getCancelledCount(), cache);
+        if (cache.getEdtLoadCount() != 0) {
+            throw new IllegalStateException(cache.getEdtLoadCount() + " images loaded on the event dispatch thread");
+        }
+        if (worst[1] / 1e6 > maxStall) {
+            throw new IllegalStateException(String.format("event dispatch thread busy for %.1f ms", worst[1] / 1e6));
+        }
+        System.out.println("No image loads on the event dispatch thread");
+        System.exit(0);
+    }
+
+    private static void paint(JComponent component, BufferedImage screen)
+            throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(() -> {
+            Graphics2D g = screen.createGraphics();
+            component.paint(g);
+            g.dispose();
+        });
+    }
+
+    /**
+     * Lays out a component tree that has no window to do it.
+     */
+    private static void layOut(Component component) {
+        if (component instanceof Container) {
+            component.doLayout();
+            for (Component child : ((Container) component).getComponents()) {
+                layOut(child);
+            }
+        }
+    }
+
+    private static <T> T find(Component component, Class<T> type) {
+        if (type.isInstance(component)) {
+            return type.cast(component);
+        }
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                T found = find(child, type);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+}
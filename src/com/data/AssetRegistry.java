@@ -0,0 +1,119 @@
+package com.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The brands, preview images and make names of every car in the JVM, each held once. Cars
+ * refer to the shared records instead of carrying their own copies, and asset paths are
+ * resolved when a record is first registered rather than on every call.
+ *
+ * <p>Brands and images are limited by the asset files shipped with the kiosk, so they are
+ * kept for the life of the JVM. Make names are shared up to a limit; beyond it a name is
+ * used as given.</p>
+ */
+public final class AssetRegistry {
+    private static final String LOGO_FOLDER = "assets/logos/";
+    private static final String IMAGE_FOLDER = "assets/cars/";
+    private static final String IMAGE_EXTENSION = ".png";
+    private static final int MAX_NAMES = 4096;
+
+    private static final ConcurrentMap<String, Brand> BRANDS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CarImage> IMAGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, String> NAMES = new ConcurrentHashMap<>();
+    private static final List<Brand> BRANDS_BY_ID = new ArrayList<>();
+    private static final List<CarImage> IMAGES_BY_ID = new ArrayList<>();
+
+    private AssetRegistry() {
+    }
+
+    /**
+     * @param key A brand key such as {@code bmw}, which also names the logo file
+     * @return the brand, registered on first use, or null if key is null
+     */
+    public static Brand brand(String key) {
+        if (key == null) {
+            return null;
+        }
+        Brand brand = BRANDS.get(key);
+        if (brand != null) {
+            return brand;
+        }
+        return BRANDS.computeIfAbsent(key, k -> {
+            synchronized (BRANDS_BY_ID) {
+                Brand added = new Brand(BRANDS_BY_ID.size(), k, LOGO_FOLDER + k + IMAGE_EXTENSION);
+                BRANDS_BY_ID.add(added);
+                return added;
+            }
+        });
+    }
+
+    /**
+     * @return the brand with the given id
+     * @throws IndexOutOfBoundsException if no brand has that id
+     */
+    public static Brand brand(int id) {
+        synchronized (BRANDS_BY_ID) {
+            return BRANDS_BY_ID.get(id);
+        }
+    }
+
+    /**
+     * @param name An image file name without folder or extension, such as {@code bmw_m3}
+     * @return the image, registered on first use, or null if name is null
+     */
+    public static CarImage image(String name) {
+        if (name == null) {
+            return null;
+        }
+        CarImage image = IMAGES.get(name);
+        if (image != null) {
+            return image;
+        }
+        return IMAGES.computeIfAbsent(name, n -> {
+            synchronized (IMAGES_BY_ID) {
+                CarImage added = new CarImage(IMAGES_BY_ID.size(), n, IMAGE_FOLDER + n + IMAGE_EXTENSION);
+                IMAGES_BY_ID.add(added);
+                return added;
+            }
+        });
+    }
+
+    /**
+     * @return the image with the given id
+     * @throws IndexOutOfBoundsException if no image has that id
+     */
+    public static CarImage image(int id) {
+        synchronized (IMAGES_BY_ID) {
+            return IMAGES_BY_ID.get(id);
+        }
+    }
+
+    /**
+     * @return the shared instance of a make name such as "Mercedes Benz"
+     */
+    public static String name(String name) {
+        if (name == null) {
+            return null;
+        }
+        String shared = NAMES.get(name);
+        if (shared != null) {
+            return shared;
+        }
+        if (NAMES.size() >= MAX_NAMES) {
+            return name;
+        }
+        shared = NAMES.putIfAbsent(name, name);
+        return shared != null ? shared : name;
+    }
+
+    public static int brandCount() {
+        return BRANDS.size();
+    }
+
+    public static int imageCount() {
+        return IMAGES.size();
+    }
+}
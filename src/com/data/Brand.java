@@ -0,0 +1,39 @@
+package com.data;
+
+/**
+ * A car brand, shared by every car of that brand. Obtain one from {@link AssetRegistry}.
+ */
+public final class Brand {
+    private final int id;
+    private final String key;
+    private final String logoPath;
+
+    Brand(int id, String key, String logoPath) {
+        this.id = id;
+        this.key = key;
+        this.logoPath = logoPath;
+    }
+
+    /**
+     * @return a small number identifying the brand within this JVM, in registration order
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the key of the brand, such as {@code bmw}
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getLogoPath() {
+        return logoPath;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
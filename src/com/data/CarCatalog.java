@@ -0,0 +1,94 @@
+package com.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * The fleet of cars offered for rent. A car's position in the catalog is its index,
+ * which pricing tables and logs use instead of the string id.
+ */
+public final class CarCatalog {
+    private final List<CarData> cars;
+    private final ToIntFunction<String> indexById;
+
+    /**
+     * @throws IllegalArgumentException if two cars share an id, or an id is longer than
+     *         {@link CarData#MAX_ID_BYTES}
+     */
+    public CarCatalog(List<CarData> cars) {
+        this.cars = Collections.unmodifiableList(new ArrayList<>(cars));
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < this.cars.size(); i++) {
+            String id = this.cars.get(i).getId();
+            if (indexes.putIfAbsent(id, i) != null) {
+                throw new IllegalArgumentException("Duplicate car id: " + id);
+            }
+            if (id.getBytes(StandardCharsets.UTF_8).length > CarData.MAX_ID_BYTES) {
+                throw new IllegalArgumentException("Car id is longer than " + CarData.MAX_ID_BYTES + " bytes: " + id);
+            }
+        }
+        this.indexById = id -> indexes.getOrDefault(id, -1);
+    }
+
+    /**
+     * Wraps cars that already come with an id index, such as a mapped catalog file.
+     *
+     * @param cars The cars, used as is
+     * @param indexById Returns the index of the car with an id, or -1 if there is none
+     */
+    CarCatalog(List<CarData> cars, ToIntFunction<String> indexById) {
+        this.cars = Collections.unmodifiableList(cars);
+        this.indexById = indexById;
+    }
+
+    /**
+     * @return the built-in demo fleet
+     */
+    public static CarCatalog sample() {
+        List<CarData> cars = new ArrayList<>();
+        cars.add(new CarData("gle", "Mercedes Benz", "GLE 2024", "benz_gle", "mercedes_benz", 240, 4, 9500));
+        cars.add(new CarData("rover_b", "Range Rover", "Vogue 2024", "land_rover_white", "land_rover", 140, 4,
+                1000));
+        cars.add(new CarData("clc", "Mercedes Benz", "CL 2013", "mercedes_clc", "mercedes_benz", 240, 4, 6500));
+        cars.add(new CarData("golfr", "Volkswagen", "GTI-R 2025", "golf_r", "vw", 280, 4, 2500));
+        cars.add(new CarData("bmwm3", "BMW M3", "M3 Ultra", "bmw_m3", "bmw", 245, 2, 2000));
+        cars.add(new CarData("golf8", "Volkswagen", "GTI-8 2025", "golf_8", "vw", 280, 4, 2500));
+        cars.add(new CarData("bmwm2", "BMW M2", "M2 Ultra", "bmw_m2", "bmw", 195, 2, 1600));
+        return new CarCatalog(cars);
+    }
+
+    /**
+     * @return the cars in catalog order, as an unmodifiable list
+     */
+    public List<CarData> getCars() {
+        return cars;
+    }
+
+    public int size() {
+        return cars.size();
+    }
+
+    public CarData get(int index) {
+        return cars.get(index);
+    }
+
+    /**
+     * @return the index of the car with the given id, or -1 if there is none
+     */
+    public int indexOf(String id) {
+        return indexById.applyAsInt(id);
+    }
+
+    /**
+     * @return the car with the given id, or null if there is none
+     */
+    public CarData findById(String id) {
+        int index = indexOf(id);
+        return index >= 0 ? cars.get(index) : null;
+    }
+}
@@ -1,27 +1,43 @@
 package com.data;
 
 public class CarData {
+    /**
+     * The longest id a car may have, in bytes of UTF-8, so that both a booking record and a
+     * quote journal record can hold it; the journal's is the shorter.
+     */
+    public static final int MAX_ID_BYTES = 27;
+
     private final String id;
     private final String name;
     private final String model;
-    private final String previewImagePath;
-    private final String logoPath;
-    private final String speed;
-    private final String seats;
+    private final CarImage image;
+    private final Brand brand;
+    private final CarSpecs specs;
     private final int price;
 
-    public CarData(String id, String name, String model, String previewImagePath, String logoPath, String speed,
-            String seats, int price) {
+    public CarData(String id, String name, String model, String previewImagePath, String logoPath, int speed,
+            int seats, int price) {
+        this(id, name, model, previewImagePath, logoPath, CarSpecs.of(speed, seats), price);
+    }
+
+    public CarData(String id, String name, String model, String previewImagePath, String logoPath, CarSpecs specs,
+            int price) {
         this.id = id;
-        this.name = name;
+        this.name = AssetRegistry.name(name);
         this.model = model;
-        this.previewImagePath = previewImagePath;
-        this.logoPath = logoPath;
-        this.speed = speed;
-        this.seats = seats;
+        this.image = AssetRegistry.image(previewImagePath);
+        this.brand = AssetRegistry.brand(logoPath);
+        this.specs = specs;
         this.price = price;
     }
 
+    /**
+     * For views that read their values from elsewhere and override every getter.
+     */
+    CarData() {
+        this(null, null, null, null, null, null, 0);
+    }
+
     public String getId() {
         return id;
     }
@@ -35,40 +51,64 @@ public class CarData {
     }
 
     public String getPreviewImagePath() {
-        return "assets/cars/" + previewImagePath + ".png";
+        return getImage().getPath();
+    }
+
+    /**
+     * @return the file name of the preview image, without folder or extension
+     */
+    String getImageName() {
+        return getImage().getName();
+    }
+
+    /**
+     * @return the preview image, shared with every car showing it
+     */
+    public CarImage getImage() {
+        return image;
+    }
+
+    /**
+     * @return the key of the car's brand, such as {@code bmw}; it also names the brand's logo
+     */
+    public String getBrand() {
+        return getBrandAsset().getKey();
+    }
+
+    /**
+     * @return the car's brand, shared with every car of that brand
+     */
+    public Brand getBrandAsset() {
+        return brand;
     }
 
     public String getLogoPath() {
-        return "assets/logos/" + logoPath + ".png";
+        return getBrandAsset().getLogoPath();
+    }
+
+    public CarSpecs getSpecs() {
+        return specs;
     }
 
-    public String getSpeed() {
-        return speed;
+    /**
+     * @return the top speed in km/h, or 0 if unknown
+     */
+    public int getSpeed() {
+        return specs.getTopSpeed();
     }
 
-    public String getSeats() {
-        return seats;
+    public int getSeats() {
+        return specs.getSeats();
     }
 
     public int getPrice() {
         return price;
     }
 
+    /**
+     * @return the grade assigned when the specs were created, see {@link GradingPolicy}
+     */
     public String getGrade() {
-        // Map speed to a grade (example logic)
-        try {
-            int speedValue = Integer.parseInt(speed);
-            if (speedValue > 200) {
-                return "A"; // Example grade
-            } else if (speedValue > 150) {
-                return "B";
-            } else {
-                return "C";
-            }
-        } catch (NumberFormatException e) {
-            // Handle cases where speed is not a valid integer (e.g., return a default
-            // grade)
-            return "N/A"; // Or some other appropriate default
-        }
-    }
-}
\ No newline at end of file
+        return specs.getGrade();
+    }
+}
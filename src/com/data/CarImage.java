@@ -0,0 +1,39 @@
+package com.data;
+
+/**
+ * A car preview image, shared by every car showing it. Obtain one from {@link AssetRegistry}.
+ */
+public final class CarImage {
+    private final int id;
+    private final String name;
+    private final String path;
+
+    CarImage(int id, String name, String path) {
+        this.id = id;
+        this.name = name;
+        this.path = path;
+    }
+
+    /**
+     * @return a small number identifying the image within this JVM, in registration order
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the file name of the image, without folder or extension
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,87 @@
+package com.data;
+
+/**
+ * A car's technical specifications, validated when created, with the grade derived from
+ * them. Specs are immutable, so cars with the same specs can share one instance.
+ */
+public final class CarSpecs {
+    private final int topSpeed;
+    private final int seats;
+    private final int power;
+    private final int range;
+    private final Transmission transmission;
+    private final String grade;
+
+    /**
+     * @param topSpeed The top speed in km/h, or 0 if unknown
+     * @param seats The number of seats, or 0 if unknown
+     * @param power The engine power in kW, or 0 if unknown
+     * @param range The range on a full tank or charge in km, or 0 if unknown
+     * @param transmission The gearbox type
+     * @param policy Assigns the grade
+     * @throws IllegalArgumentException if a number is negative
+     */
+    public CarSpecs(int topSpeed, int seats, int power, int range, Transmission transmission, GradingPolicy policy) {
+        if (topSpeed < 0 || seats < 0 || power < 0 || range < 0) {
+            throw new IllegalArgumentException("Specs must not be negative: speed " + topSpeed + ", seats " + seats
+                    + ", power " + power + ", range " + range);
+        }
+        this.topSpeed = topSpeed;
+        this.seats = seats;
+        this.power = power;
+        this.range = range;
+        this.transmission = transmission;
+        this.grade = policy.grade(topSpeed);
+    }
+
+    /**
+     * @return specs with only the top speed and seats known, graded by the default policy
+     */
+    public static CarSpecs of(int topSpeed, int seats) {
+        return new CarSpecs(topSpeed, seats, 0, 0, Transmission.UNSPECIFIED, GradingPolicy.DEFAULT);
+    }
+
+    public int getTopSpeed() {
+        return topSpeed;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+
+    public int getPower() {
+        return power;
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    public Transmission getTransmission() {
+        return transmission;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CarSpecs)) {
+            return false;
+        }
+        CarSpecs other = (CarSpecs) o;
+        return topSpeed == other.topSpeed && seats == other.seats && power == other.power && range == other.range
+                && transmission == other.transmission && grade.equals(other.grade);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = topSpeed;
+        hash = 31 * hash + seats;
+        hash = 31 * hash + power;
+        hash = 31 * hash + range;
+        hash = 31 * hash + transmission.ordinal();
+        return 31 * hash + grade.hashCode();
+    }
+}
@@ -0,0 +1,125 @@
+package com.data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates CSV and JSON Lines catalogs of increasing size and reports how fast
+ * {@link CatalogLoader} reads them and how much heap each loaded car takes, then does the
+ * same for the {@link CatalogFile} form of the catalog.
+ *
+ * <p>Usage: {@code CatalogBenchmark [maxRows] [rounds]}</p>
+ */
+public final class CatalogBenchmark {
+
+    private static final String[][] MAKES = {
+        {"Mercedes Benz", "mercedes_benz", "benz_gle"},
+        {"Range Rover", "land_rover", "land_rover_white"},
+        {"Volkswagen", "vw", "golf_r"},
+        {"BMW M3", "bmw", "bmw_m3"},
+        {"BMW M2", "bmw", "bmw_m2"},
+    };
+
+    private CatalogBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxRows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path dir = Files.createTempDirectory("catalog-benchmark");
+        try {
+            System.out.printf("%-6s %9s %9s %10s %12s %10s %10s%n", "format", "rows", "file MB", "load ms", "rows/s",
+                    "scan ns", "bytes/car");
+            for (int rows = 1_000; rows <= maxRows; rows *= 10) {
+                for (boolean json : new boolean[] {false, true}) {
+                    Path file = dir.resolve("cars-" + rows + (json ? ".jsonl" : ".csv"));
+                    write(file, rows, json);
+                    report(json ? "json" : "csv", file, rows, rounds);
+                    if (json) {
+                        Path binary = dir.resolve("cars-" + rows + ".cars");
+                        CatalogFile.write(CatalogLoader.load(file), binary);
+                        report("cars", binary, rows, rounds);
+                        Files.delete(binary);
+                    }
+                    Files.delete(file);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void report(String format, Path file, int rows, int rounds) throws IOException {
+        long fileBytes = Files.size(file);
+        long bestLoad = Long.MAX_VALUE;
+        long bestScan = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            CarCatalog catalog = CatalogLoader.load(file);
+            bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+            if (catalog.size() != rows) {
+                throw new IllegalStateException("Loaded " + catalog.size() + " of " + rows + " cars");
+            }
+            start = System.nanoTime();
+            checksum += scan(catalog);
+            bestScan = Math.min(bestScan, System.nanoTime() - start);
+        }
+
+        long before = usedHeap();
+        CarCatalog retained = CatalogLoader.load(file);
+        long after = usedHeap();
+
+        System.out.printf("%-6s %9d %9.1f %10.1f %12.0f %10.1f %10.1f  (%d)%n", format, retained.size(),
+                fileBytes / 1e6, bestLoad / 1e6, rows / (bestLoad / 1e9), (double) bestScan / rows,
+                (double) (after - before) / rows, checksum);
+    }
+
+    /**
+     * Reads the fields the selection cards show for every car.
+     */
+    private static long scan(CarCatalog catalog) {
+        long sum = 0;
+        for (CarData car : catalog.getCars()) {
+            sum += car.getPrice() + car.getBrand().length() + car.getName().length() + car.getSpeed()
+                    + car.getGrade().length();
+        }
+        return sum;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void write(Path file, int rows, boolean json) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (!json) {
+                out.write("id,name,model,image,brand,speed,seats,price\n");
+            }
+            for (int i = 0; i < rows; i++) {
+                String[] make = MAKES[i % MAKES.length];
+                String id = String.format("car%07d", i);
+                String model = "Model " + (2015 + i % 11);
+                int speed = 140 + (i % 15) * 10;
+                int seats = 2 + (i % 3) * 2;
+                int price = 800 + (i % 90) * 100;
+                if (json) {
+                    out.write("{\"id\": \"" + id + "\", \"name\": \"" + make[0] + "\", \"model\": \"" + model
+                            + "\", \"image\": \"" + make[2] + "\", \"brand\": \"" + make[1] + "\", \"speed\": " + speed
+                            + ", \"seats\": " + seats + ", \"price\": " + price + "}\n");
+                } else {
+                    out.write(id + "," + make[0] + "," + model + "," + make[2] + "," + make[1] + "," + speed + ","
+                            + seats + "," + price + "\n");
+                }
+            }
+        }
+    }
+}
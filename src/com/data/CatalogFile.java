@@ -0,0 +1,465 @@
+package com.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A binary catalog file laid out in columns and read through a memory map.
+ *
+ * <p>Opening a file maps it and checks its header; nothing is parsed up front. The cars of
+ * the returned catalog are flyweight {@link CarData} views that read their row from the
+ * columns on each call, so a catalog costs a few objects of heap however many cars it
+ * holds, and ids are looked up by binary search over a column of rows sorted by id.</p>
+ *
+ * <p>The file is little-endian: a 64-byte header, the columns id, name, model, image and
+ * brand (string numbers), price, rows sorted by id (ints), speed, power and range (unsigned
+ * shorts), seats and transmission (unsigned bytes), then the string table:
+ * {@code stringCount + 1} offsets followed by the UTF-8 bytes. Each distinct string is
+ * stored once. Grades are not stored; a car's grade comes from the top speed column and
+ * the policy the file is opened with.</p>
+ *
+ * <p>Usage: {@code CatalogFile input.csv|input.jsonl output.cars} converts a catalog.</p>
+ */
+public final class CatalogFile {
+    private static final int MAGIC = 0x53524143; // "CARS"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int MODEL = 2;
+    private static final int IMAGE = 3;
+    private static final int BRAND = 4;
+    private static final int PRICE = 5;
+    private static final int SORTED = 6;
+    /** Columns of 4-byte values; the spec columns follow them. */
+    private static final int INT_COLUMNS = 7;
+    private static final int SPEED = 0;
+    private static final int POWER = 1;
+    private static final int RANGE = 2;
+    private static final int SHORT_COLUMNS = 3;
+    private static final int SEATS = 0;
+    private static final int TRANSMISSION = 1;
+    private static final int BYTE_COLUMNS = 2;
+    private static final Transmission[] TRANSMISSIONS = Transmission.values();
+    private static final int STRING_CACHE_SIZE = 1024;
+
+    private CatalogFile() {
+    }
+
+    /**
+     * Writes a catalog in the binary format.
+     *
+     * @throws IOException if the file cannot be written, or a car's specs do not fit their columns
+     */
+    public static void write(CarCatalog catalog, Path file) throws IOException {
+        List<CarData> cars = catalog.getCars();
+        int count = cars.size();
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] columns = new int[INT_COLUMNS][count];
+        short[][] shorts = new short[SHORT_COLUMNS][count];
+        byte[][] bytes = new byte[BYTE_COLUMNS][count];
+        byte[][] ids = new byte[count][];
+        long stringBytes = 0;
+        for (int row = 0; row < count; row++) {
+            CarData car = cars.get(row);
+            String[] values = {car.getId(), car.getName(), car.getModel(), car.getImageName(), car.getBrand()};
+            for (int c = 0; c < values.length; c++) {
+                String value = values[c] != null ? values[c] : "";
+                Integer index = stringIndexes.get(value);
+                if (index == null) {
+                    index = strings.size();
+                    stringIndexes.put(value, index);
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    strings.add(utf8);
+                    stringBytes += utf8.length;
+                }
+                columns[c][row] = index;
+            }
+            ids[row] = strings.get(columns[ID][row]);
+            columns[PRICE][row] = car.getPrice();
+            CarSpecs specs = car.getSpecs();
+            shorts[SPEED][row] = (short) checkRange(car, "speed", specs.getTopSpeed(), 0xFFFF);
+            shorts[POWER][row] = (short) checkRange(car, "power", specs.getPower(), 0xFFFF);
+            shorts[RANGE][row] = (short) checkRange(car, "range", specs.getRange(), 0xFFFF);
+            bytes[SEATS][row] = (byte) checkRange(car, "seats", specs.getSeats(), 0xFF);
+            bytes[TRANSMISSION][row] = (byte) specs.getTransmission().ordinal();
+        }
+        if (stringBytes > Integer.MAX_VALUE - 8) {
+            throw new IOException("Catalog strings are too large: " + stringBytes + " bytes");
+        }
+        Integer[] sorted = new Integer[count];
+        for (int row = 0; row < count; row++) {
+            sorted[row] = row;
+        }
+        Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(ids[a], ids[b]));
+        for (int i = 0; i < count; i++) {
+            columns[SORTED][i] = sorted[i];
+        }
+
+        Layout layout = new Layout(count, strings.size(), stringBytes);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count).putInt(strings.size())
+                    .putLong(layout.length);
+            buffer.position(HEADER_SIZE);
+            for (int[] column : columns) {
+                for (int value : column) {
+                    buffer = put(channel, buffer, 4).putInt(value);
+                }
+            }
+            for (short[] column : shorts) {
+                for (short value : column) {
+                    buffer = put(channel, buffer, 2).putShort(value);
+                }
+            }
+            for (byte[] column : bytes) {
+                buffer = put(channel, buffer, column.length).put(column);
+            }
+            while (buffer.position() % 4 != 0) {
+                buffer.put((byte) 0);
+            }
+            int offset = 0;
+            for (byte[] string : strings) {
+                buffer = put(channel, buffer, 4).putInt(offset);
+                offset += string.length;
+            }
+            buffer = put(channel, buffer, 4).putInt(offset);
+            for (byte[] string : strings) {
+                buffer = put(channel, buffer, string.length).put(string);
+            }
+            flush(channel, buffer);
+            if (channel.position() != layout.length) {
+                throw new IllegalStateException("Wrote " + channel.position() + " bytes, expected " + layout.length);
+            }
+        }
+    }
+
+    /**
+     * Maps a catalog file, grading cars by {@link GradingPolicy#DEFAULT}.
+     *
+     * @return a catalog whose cars read from the file; it stays mapped while the catalog is in use
+     * @throws IOException if the file cannot be read or is not a catalog file
+     */
+    public static CarCatalog open(Path file) throws IOException {
+        return open(file, GradingPolicy.DEFAULT);
+    }
+
+    /**
+     * Maps a catalog file, grading cars by the given policy.
+     *
+     * @throws IOException if the file cannot be read or is not a catalog file
+     */
+    public static CarCatalog open(Path file, GradingPolicy policy) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": not a catalog file");
+            }
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer buffer = map.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + ": not a catalog file");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(file + ": unsupported catalog version " + buffer.getInt(4));
+        }
+        int count = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        if (count < 0 || stringCount < 0 || buffer.getLong(16) != buffer.capacity()) {
+            throw new IOException(file + ": truncated catalog file");
+        }
+        Columns columns = new Columns(buffer, count, stringCount, policy);
+        if (columns.stringBytes + columns.stringOffset(stringCount) != buffer.capacity()) {
+            throw new IOException(file + ": truncated catalog file");
+        }
+        for (int row = 0; row < count; row++) {
+            int id = columns.intAt(ID, row);
+            if (columns.stringOffset(id + 1) - columns.stringOffset(id) > CarData.MAX_ID_BYTES) {
+                throw new IOException(file + ": car id is longer than " + CarData.MAX_ID_BYTES + " bytes: "
+                        + columns.decode(id));
+            }
+        }
+        return new CarCatalog(columns, columns::indexOf);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CatalogFile input.csv|input.jsonl output.cars");
+            System.exit(2);
+        }
+        CarCatalog catalog = CatalogLoader.load(Paths.get(args[0]));
+        write(catalog, Paths.get(args[1]));
+        System.out.println("Wrote " + catalog.size() + " cars to " + args[1]);
+    }
+
+    private static int checkRange(CarData car, String name, int value, int max) throws IOException {
+        if (value < 0 || value > max) {
+            throw new IOException("Car " + car.getId() + ": " + name + " must be between 0 and " + max + ": " + value);
+        }
+        return value;
+    }
+
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        flush(channel, buffer);
+        return bytes <= buffer.capacity() ? buffer
+                : ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Section offsets derived from the counts.
+     */
+    private static final class Layout {
+        final long shorts;
+        final long bytes;
+        final long stringOffsets;
+        final long stringBytes;
+        final long length;
+
+        Layout(int count, int stringCount, long stringLength) {
+            shorts = HEADER_SIZE + (long) INT_COLUMNS * 4 * count;
+            bytes = shorts + SHORT_COLUMNS * 2L * count;
+            stringOffsets = (bytes + BYTE_COLUMNS * (long) count + 3) & ~3L;
+            stringBytes = stringOffsets + 4L * (stringCount + 1);
+            length = stringBytes + stringLength;
+        }
+    }
+
+    /**
+     * The mapped columns, also serving as the catalog's list of cars.
+     */
+    private static final class Columns extends AbstractList<CarData> implements RandomAccess {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int shorts;
+        private final int bytes;
+        private final int stringOffsets;
+        private final int stringBytes;
+        private final GradingPolicy policy;
+        private final CachedString[] cache = new CachedString[STRING_CACHE_SIZE];
+
+        Columns(ByteBuffer buffer, int count, int stringCount, GradingPolicy policy) throws IOException {
+            Layout layout = new Layout(count, stringCount, 0);
+            if (layout.stringBytes > buffer.capacity()) {
+                throw new IOException("truncated catalog file");
+            }
+            this.buffer = buffer;
+            this.count = count;
+            this.shorts = (int) layout.shorts;
+            this.bytes = (int) layout.bytes;
+            this.stringOffsets = (int) layout.stringOffsets;
+            this.stringBytes = (int) layout.stringBytes;
+            this.policy = policy;
+        }
+
+        @Override
+        public CarData get(int row) {
+            if (row < 0 || row >= count) {
+                throw new IndexOutOfBoundsException("Car " + row + " of " + count);
+            }
+            return new MappedCar(this, row);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        int intAt(int column, int row) {
+            return buffer.getInt(HEADER_SIZE + (column * count + row) * 4);
+        }
+
+        int shortAt(int column, int row) {
+            return Short.toUnsignedInt(buffer.getShort(shorts + (column * count + row) * 2));
+        }
+
+        int byteAt(int column, int row) {
+            return Byte.toUnsignedInt(buffer.get(bytes + column * count + row));
+        }
+
+        int stringOffset(int index) {
+            return buffer.getInt(stringOffsets + index * 4);
+        }
+
+        /**
+         * Decodes a string, keeping recently used ones; most names, images and brands repeat.
+         */
+        String string(int index) {
+            int slot = index & (STRING_CACHE_SIZE - 1);
+            CachedString cached = cache[slot];
+            if (cached != null && cached.index == index) {
+                return cached.value;
+            }
+            String value = decode(index);
+            cache[slot] = new CachedString(index, value);
+            return value;
+        }
+
+        String decode(int index) {
+            int start = stringOffset(index);
+            byte[] bytes = new byte[stringOffset(index + 1) - start];
+            buffer.get(stringBytes + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int indexOf(String id) {
+            byte[] key = id.getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int row = intAt(SORTED, middle);
+                int c = compareId(row, key);
+                if (c < 0) {
+                    low = middle + 1;
+                } else if (c > 0) {
+                    high = middle - 1;
+                } else {
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        private int compareId(int row, byte[] key) {
+            int index = intAt(ID, row);
+            int start = stringBytes + stringOffset(index);
+            int length = stringOffset(index + 1) - stringOffset(index);
+            int n = Math.min(length, key.length);
+            for (int i = 0; i < n; i++) {
+                int c = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return length - key.length;
+        }
+    }
+
+    private static final class CachedString {
+        final int index;
+        final String value;
+
+        CachedString(int index, String value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A car read from the columns on each call.
+     */
+    private static final class MappedCar extends CarData {
+        private final Columns columns;
+        private final int row;
+
+        MappedCar(Columns columns, int row) {
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public String getId() {
+            return columns.decode(columns.intAt(ID, row));
+        }
+
+        @Override
+        public String getName() {
+            return columns.string(columns.intAt(NAME, row));
+        }
+
+        @Override
+        public String getModel() {
+            return columns.string(columns.intAt(MODEL, row));
+        }
+
+        @Override
+        String getImageName() {
+            return columns.string(columns.intAt(IMAGE, row));
+        }
+
+        @Override
+        public CarImage getImage() {
+            return AssetRegistry.image(getImageName());
+        }
+
+        @Override
+        public String getBrand() {
+            return columns.string(columns.intAt(BRAND, row));
+        }
+
+        @Override
+        public Brand getBrandAsset() {
+            return AssetRegistry.brand(getBrand());
+        }
+
+        /**
+         * @return specs decoded from the columns, a new instance on each call
+         */
+        @Override
+        public CarSpecs getSpecs() {
+            int transmission = columns.byteAt(TRANSMISSION, row);
+            return new CarSpecs(getSpeed(), getSeats(), columns.shortAt(POWER, row), columns.shortAt(RANGE, row),
+                    transmission < TRANSMISSIONS.length ? TRANSMISSIONS[transmission] : Transmission.UNSPECIFIED,
+                    columns.policy);
+        }
+
+        @Override
+        public int getSpeed() {
+            return columns.shortAt(SPEED, row);
+        }
+
+        @Override
+        public int getSeats() {
+            return columns.byteAt(SEATS, row);
+        }
+
+        @Override
+        public String getGrade() {
+            return columns.policy.grade(getSpeed());
+        }
+
+        @Override
+        public int getPrice() {
+            return columns.intAt(PRICE, row);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MappedCar && ((MappedCar) o).columns == columns && ((MappedCar) o).row == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return row;
+        }
+    }
+}
@@ -0,0 +1,617 @@
+package com.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Loads a {@link CarCatalog} from a CSV or JSON Lines file.
+ *
+ * <p>The file is split into chunks of about {@link #CHUNK_BYTES} at line boundaries and the
+ * chunks are read and parsed in parallel, each into its own array of cars, which are then
+ * joined in file order. Parsing works on the raw bytes: numbers are parsed in place, and
+ * repeated values such as brands, names and image names are shared through a per-chunk
+ * pool backed by one for the whole load, so a large fleet costs little more than its distinct
+ * strings. Only the chunks being parsed are held in memory besides the cars themselves.</p>
+ *
+ * <p>CSV files start with a header naming the columns {@code id, name, model, image, brand,
+ * speed, seats, price} in any order. Fields may be quoted, with {@code ""} for a quote, but
+ * may not contain line breaks. JSON files hold one flat object per line with the same keys;
+ * a surrounding {@code [ ]} on lines of their own and commas between objects are accepted.
+ * Speed (km/h), seats and the daily price in rand must be non-negative whole numbers.
+ * The columns {@code power} (kW), {@code range} (km) and {@code transmission} are optional.
+ * Each car's specs are validated and graded once here, and cars with equal specs share them.</p>
+ */
+public final class CatalogLoader {
+
+    /** The target size of a chunk parsed as one task. */
+    public static final int CHUNK_BYTES = 1 << 20;
+
+    private static final String[] COLUMNS = {
+        "id", "name", "model", "image", "brand", "speed", "seats", "price", "power", "range", "transmission"};
+    /** Columns before this one must be present. */
+    private static final int REQUIRED = 8;
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int MODEL = 2;
+    private static final int IMAGE = 3;
+    private static final int BRAND = 4;
+    private static final int SPEED = 5;
+    private static final int SEATS = 6;
+    private static final int PRICE = 7;
+    private static final int POWER = 8;
+    private static final int RANGE = 9;
+    private static final int TRANSMISSION = 10;
+    private static final int MAX_POOLED_SPECS = 1 << 16;
+    private static final byte[][] COLUMN_BYTES = new byte[COLUMNS.length][];
+
+    static {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            COLUMN_BYTES[i] = COLUMNS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final Transmission[] TRANSMISSIONS = Transmission.values();
+
+    private CatalogLoader() {
+    }
+
+    /**
+     * Loads a catalog, choosing the format from the file extension: {@code .csv} for CSV,
+     * {@code .json}, {@code .jsonl} or {@code .ndjson} for JSON Lines, and {@code .cars} for a
+     * {@link CatalogFile}, which is mapped rather than parsed.
+     *
+     * Cars are graded by {@link GradingPolicy#DEFAULT}.
+     *
+     * @throws IOException if the file cannot be read, or is invalid; the message names the line
+     */
+    public static CarCatalog load(Path file) throws IOException {
+        return load(file, GradingPolicy.DEFAULT);
+    }
+
+    /**
+     * Loads a catalog like {@link #load(Path)}, grading cars by the given policy.
+     */
+    public static CarCatalog load(Path file, GradingPolicy policy) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".cars")) {
+            return CatalogFile.open(file, policy);
+        }
+        if (name.endsWith(".csv")) {
+            return load(file, false, policy);
+        }
+        if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return load(file, true, policy);
+        }
+        throw new IOException("Unknown catalog format: " + file);
+    }
+
+    private static CarCatalog load(Path file, boolean json, GradingPolicy policy) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = 0;
+            int[] columns = null;
+            int headerLines = 0;
+            if (!json) {
+                byte[] header = readLine(channel, 0);
+                if (header == null) {
+                    throw new IOException(file + ": missing header");
+                }
+                columns = parseHeader(file, header);
+                dataStart = Math.min(size, header.length + 1L);
+                headerLines = 1;
+            }
+
+            long[] bounds = chunkBounds(channel, dataStart, size);
+            int[] columnIndexes = columns;
+            ConcurrentHashMap<String, String> shared = new ConcurrentHashMap<>();
+            ChunkResult[] results = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1], columnIndexes, json, shared,
+                            policy))
+                    .toArray(ChunkResult[]::new);
+
+            List<CarData> cars = new ArrayList<>();
+            int line = headerLines;
+            for (ChunkResult result : results) {
+                if (result.error != null) {
+                    throw new IOException(file + ":" + (line + result.errorLine) + ": " + result.error);
+                }
+                cars.addAll(Arrays.asList(result.cars).subList(0, result.count));
+                line += result.lines;
+            }
+            try {
+                return new CarCatalog(cars);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // --- Chunking ---
+
+    /**
+     * @return chunk boundaries from start to end, each one at the start of a line
+     */
+    private static long[] chunkBounds(FileChannel channel, long start, long end) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        long position = start;
+        while (end - position > CHUNK_BYTES) {
+            position = nextLineStart(channel, position + CHUNK_BYTES, end);
+            if (position >= end) {
+                break;
+            }
+            bounds.add(position);
+        }
+        bounds.add(end);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < end) {
+            buffer.clear();
+            int read = channel.read(buffer, position - 1);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    private static byte[] readLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        byte[] line = new byte[0];
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position + line.length);
+            if (read <= 0) {
+                return line.length > 0 ? line : null;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    byte[] result = Arrays.copyOf(line, line.length + i);
+                    buffer.get(0, result, line.length, i);
+                    return result;
+                }
+            }
+            int length = line.length;
+            line = Arrays.copyOf(line, length + read);
+            buffer.get(0, line, length, read);
+        }
+    }
+
+    private static int[] parseHeader(Path file, byte[] header) throws IOException {
+        int[] columns = new int[COLUMNS.length];
+        Arrays.fill(columns, -1);
+        int end = trimLineEnd(header, 0, header.length);
+        int field = 0;
+        int start = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i == end || header[i] == ',') {
+                String name = new String(header, start, i - start, StandardCharsets.UTF_8).trim().replace("\"", "");
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    if (COLUMNS[c].equalsIgnoreCase(name)) {
+                        columns[c] = field;
+                    }
+                }
+                field++;
+                start = i + 1;
+            }
+        }
+        for (int c = 0; c < REQUIRED; c++) {
+            if (columns[c] < 0) {
+                throw new IOException(file + ":1: missing column " + COLUMNS[c]);
+            }
+        }
+        return columns;
+    }
+
+    // --- Parsing ---
+
+    private static final class ChunkResult {
+        CarData[] cars = new CarData[256];
+        int count;
+        int lines;
+        String error;
+        int errorLine;
+
+        void add(CarData car) {
+            if (count == cars.length) {
+                cars = Arrays.copyOf(cars, count * 2);
+            }
+            cars[count++] = car;
+        }
+    }
+
+    /**
+     * Thrown inside a chunk to abandon it; the chunk records the message and its line.
+     */
+    private static final class RowException extends Exception {
+        RowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long start, long end, int[] columns, boolean json,
+            ConcurrentHashMap<String, String> shared, GradingPolicy policy) {
+        ChunkResult result = new ChunkResult();
+        byte[] data = new byte[(int) (end - start)];
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("File shrank while loading");
+                }
+            }
+        } catch (IOException e) {
+            result.error = e.getMessage();
+            return result;
+        }
+
+        RowParser parser = new RowParser(data, columns, shared, policy);
+        int lineStart = 0;
+        while (lineStart < data.length) {
+            int newline = indexOf(data, (byte) '\n', lineStart);
+            int lineEnd = newline < 0 ? data.length : newline;
+            result.lines++;
+            try {
+                CarData car = json ? parser.parseJson(lineStart, lineEnd) : parser.parseCsv(lineStart, lineEnd);
+                if (car != null) {
+                    result.add(car);
+                }
+            } catch (RowException e) {
+                result.error = e.getMessage();
+                result.errorLine = result.lines;
+                return result;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return result;
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimLineEnd(byte[] data, int start, int end) {
+        while (end > start && (data[end - 1] == '\r' || data[end - 1] == ' ' || data[end - 1] == '\t')) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Parses rows of one chunk. Field positions are kept in reusable arrays; strings are only
+     * created for values the pool has not seen yet.
+     */
+    private static final class RowParser {
+        private final byte[] data;
+        private final int[] columns;
+        private final boolean json;
+        private final int[] fieldStart = new int[16];
+        private final int[] fieldEnd = new int[16];
+        private final boolean[] fieldEscaped = new boolean[16];
+        private final int[] valueStart = new int[COLUMNS.length];
+        private final int[] valueEnd = new int[COLUMNS.length];
+        private final boolean[] valueEscaped = new boolean[COLUMNS.length];
+        private final StringPool pool;
+        private final GradingPolicy policy;
+        private final Map<CarSpecs, CarSpecs> specsPool = new HashMap<>();
+
+        RowParser(byte[] data, int[] columns, ConcurrentHashMap<String, String> shared, GradingPolicy policy) {
+            this.data = data;
+            this.columns = columns;
+            this.json = columns == null;
+            this.pool = new StringPool(shared);
+            this.policy = policy;
+        }
+
+        CarData parseCsv(int start, int end) throws RowException {
+            end = trimLineEnd(data, start, end);
+            if (end == start) {
+                return null;
+            }
+            int fields = 0;
+            int i = start;
+            while (true) {
+                if (fields == fieldStart.length) {
+                    throw new RowException("too many fields");
+                }
+                boolean escaped = false;
+                int fieldEndPos;
+                if (i < end && data[i] == '"') {
+                    int j = i + 1;
+                    while (true) {
+                        if (j >= end) {
+                            throw new RowException("unterminated quoted field");
+                        }
+                        if (data[j] == '"') {
+                            if (j + 1 < end && data[j + 1] == '"') {
+                                escaped = true;
+                                j += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        j++;
+                    }
+                    fieldStart[fields] = i + 1;
+                    fieldEnd[fields] = j;
+                    fieldEndPos = j + 1;
+                    if (fieldEndPos < end && data[fieldEndPos] != ',') {
+                        throw new RowException("unexpected text after quoted field");
+                    }
+                } else {
+                    int j = i;
+                    while (j < end && data[j] != ',') {
+                        j++;
+                    }
+                    fieldStart[fields] = i;
+                    fieldEnd[fields] = j;
+                    fieldEndPos = j;
+                }
+                fieldEscaped[fields] = escaped;
+                fields++;
+                if (fieldEndPos >= end) {
+                    break;
+                }
+                i = fieldEndPos + 1;
+            }
+            for (int c = 0; c < COLUMNS.length; c++) {
+                int f = columns[c];
+                if (f < 0 || (f >= fields && c >= REQUIRED)) {
+                    valueStart[c] = -1;
+                    continue;
+                }
+                if (f >= fields) {
+                    throw new RowException("missing " + COLUMNS[c]);
+                }
+                valueStart[c] = fieldStart[f];
+                valueEnd[c] = fieldEnd[f];
+                valueEscaped[c] = fieldEscaped[f];
+            }
+            return toCar();
+        }
+
+        CarData parseJson(int start, int end) throws RowException {
+            end = trimLineEnd(data, start, end);
+            start = skipSpace(start, end);
+            // Tolerate the array brackets and separators of a pretty-printed JSON array
+            if (end > start && data[end - 1] == ',') {
+                end = trimLineEnd(data, start, end - 1);
+            }
+            if (end == start || (end - start == 1 && (data[start] == '[' || data[start] == ']'))) {
+                return null;
+            }
+            if (data[start] != '{' || data[end - 1] != '}') {
+                throw new RowException("expected one JSON object per line");
+            }
+            Arrays.fill(valueStart, -1);
+            int i = skipSpace(start + 1, end - 1);
+            while (i < end - 1) {
+                if (data[i] != '"') {
+                    throw new RowException("expected a key");
+                }
+                int keyEnd = endOfString(i + 1, end);
+                int column = columnOf(i + 1, keyEnd);
+                i = skipSpace(keyEnd + 1, end);
+                if (i >= end || data[i] != ':') {
+                    throw new RowException("expected :");
+                }
+                i = skipSpace(i + 1, end);
+                int valueFrom;
+                int valueTo;
+                boolean escaped = false;
+                if (i < end && data[i] == '"') {
+                    valueFrom = i + 1;
+                    valueTo = endOfString(valueFrom, end);
+                    for (int k = valueFrom; k < valueTo; k++) {
+                        if (data[k] == '\\') {
+                            escaped = true;
+                            break;
+                        }
+                    }
+                    i = valueTo + 1;
+                } else {
+                    valueFrom = i;
+                    while (i < end - 1 && data[i] != ',' && data[i] != ' ' && data[i] != '}') {
+                        i++;
+                    }
+                    valueTo = i;
+                }
+                if (column >= 0) {
+                    valueStart[column] = valueFrom;
+                    valueEnd[column] = valueTo;
+                    valueEscaped[column] = escaped;
+                }
+                i = skipSpace(i, end);
+                if (i < end - 1) {
+                    if (data[i] != ',') {
+                        throw new RowException("expected , between fields");
+                    }
+                    i = skipSpace(i + 1, end);
+                }
+            }
+            for (int c = 0; c < REQUIRED; c++) {
+                if (valueStart[c] < 0) {
+                    throw new RowException("missing " + COLUMNS[c]);
+                }
+            }
+            return toCar();
+        }
+
+        private CarData toCar() throws RowException {
+            String id = text(ID, false);
+            if (id.isEmpty()) {
+                throw new RowException("empty id");
+            }
+            int price = number(PRICE);
+            CarSpecs specs = new CarSpecs(number(SPEED), number(SEATS), optionalNumber(POWER), optionalNumber(RANGE),
+                    transmission(), policy);
+            CarSpecs shared = specsPool.get(specs);
+            if (shared != null) {
+                specs = shared;
+            } else if (specsPool.size() < MAX_POOLED_SPECS) {
+                specsPool.put(specs, specs);
+            }
+            return new CarData(id, text(NAME, true), text(MODEL, true), text(IMAGE, true), text(BRAND, true), specs,
+                    price);
+        }
+
+        private int optionalNumber(int column) throws RowException {
+            return isBlank(column) ? 0 : number(column);
+        }
+
+        private boolean isBlank(int column) {
+            return valueStart[column] < 0 || valueStart[column] == valueEnd[column]
+                    || (json && Arrays.equals(data, valueStart[column], valueEnd[column], NULL, 0, NULL.length));
+        }
+
+        private Transmission transmission() throws RowException {
+            if (isBlank(TRANSMISSION)) {
+                return Transmission.UNSPECIFIED;
+            }
+            int start = valueStart[TRANSMISSION];
+            int length = valueEnd[TRANSMISSION] - start;
+            for (Transmission transmission : TRANSMISSIONS) {
+                String name = transmission.name();
+                if (name.length() == length && equalsIgnoreCase(name, start)) {
+                    return transmission;
+                }
+            }
+            throw new RowException("invalid transmission: " + new String(data, start, length, StandardCharsets.UTF_8));
+        }
+
+        private String text(int column, boolean pooled) throws RowException {
+            int start = valueStart[column];
+            int end = valueEnd[column];
+            if (valueEscaped[column]) {
+                return unescape(start, end);
+            }
+            return pooled ? pool.get(data, start, end - start) : new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        private int number(int column) throws RowException {
+            int start = valueStart[column];
+            int end = valueEnd[column];
+            if (start == end || end - start > 9) {
+                throw new RowException("invalid " + COLUMNS[column]);
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new RowException("invalid " + COLUMNS[column] + ": " + new String(data, start, end - start,
+                            StandardCharsets.UTF_8));
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private String unescape(int start, int end) throws RowException {
+            StringBuilder text = new StringBuilder(end - start);
+            String raw = new String(data, start, end - start, StandardCharsets.UTF_8);
+            for (int i = 0; i < raw.length(); i++) {
+                char c = raw.charAt(i);
+                if (!json && c == '"' && i + 1 < raw.length() && raw.charAt(i + 1) == '"') {
+                    text.append('"');
+                    i++;
+                } else if (json && c == '\\' && i + 1 < raw.length()) {
+                    char e = raw.charAt(++i);
+                    switch (e) {
+                        case 'n': text.append('\n'); break;
+                        case 't': text.append('\t'); break;
+                        case 'r': text.append('\r'); break;
+                        case 'b': text.append('\b'); break;
+                        case 'f': text.append('\f'); break;
+                        case 'u':
+                            if (i + 4 >= raw.length()) {
+                                throw new RowException("invalid \\u escape");
+                            }
+                            try {
+                                text.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                            } catch (NumberFormatException ex) {
+                                throw new RowException("invalid \\u escape");
+                            }
+                            i += 4;
+                            break;
+                        default: text.append(e);
+                    }
+                } else {
+                    text.append(c);
+                }
+            }
+            return text.toString();
+        }
+
+        private boolean equalsIgnoreCase(String upperCase, int start) {
+            for (int i = 0; i < upperCase.length(); i++) {
+                int b = data[start + i];
+                if (b >= 'a' && b <= 'z') {
+                    b -= 'a' - 'A';
+                }
+                if (b != upperCase.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int columnOf(int start, int end) {
+            for (int c = 0; c < COLUMN_BYTES.length; c++) {
+                if (Arrays.equals(data, start, end, COLUMN_BYTES[c], 0, COLUMN_BYTES[c].length)) {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        private int endOfString(int from, int end) throws RowException {
+            for (int i = from; i < end; i++) {
+                if (data[i] == '\\') {
+                    i++;
+                } else if (data[i] == '"') {
+                    return i;
+                }
+            }
+            throw new RowException("unterminated string");
+        }
+
+        private int skipSpace(int from, int end) {
+            while (from < end && (data[from] == ' ' || data[from] == '\t')) {
+                from++;
+            }
+            return from;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.data;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the heap held by a generated fleet whose cars carry their own copies of every
+ * string, as a parser produces them, with the same fleet sharing brands, images and make
+ * names through {@link AssetRegistry}, and the garbage each pays to resolve asset paths.
+ *
+ * <p>Usage: {@code FootprintBenchmark [cars]}</p>
+ */
+public final class FootprintBenchmark {
+
+    // name, image, brand
+    private static final String[][] MAKES = {
+        {"Mercedes Benz", "benz_gle", "mercedes_benz"}, {"Mercedes Benz", "mercedes_clc", "mercedes_benz"},
+        {"Range Rover", "land_rover_white", "land_rover"}, {"Volkswagen", "golf_r", "vw"},
+        {"Volkswagen", "golf_8", "vw"}, {"BMW M3", "bmw_m3", "bmw"}, {"BMW M2", "bmw_m2", "bmw"},
+        {"Toyota", "corolla", "toyota"}, {"Ford", "ranger", "ford"}, {"Porsche", "cayenne", "porsche"},
+    };
+
+    private FootprintBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int cars = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        long before = usedHeap();
+        List<CopiedCar> copied = new ArrayList<>(cars);
+        Random random = new Random(cars);
+        for (int i = 0; i < cars; i++) {
+            String[] make = MAKES[random.nextInt(MAKES.length)];
+            copied.add(new CopiedCar("car" + i, copy(make[0]), "Model " + random.nextInt(1000), copy(make[1]),
+                    copy(make[2]), 120 + random.nextInt(200), 4, 500 + random.nextInt(10_000)));
+        }
+        long copiedBytes = usedHeap() - before;
+
+        before = usedHeap();
+        List<CarData> shared = new ArrayList<>(cars);
+        random = new Random(cars);
+        for (int i = 0; i < cars; i++) {
+            String[] make = MAKES[random.nextInt(MAKES.length)];
+            shared.add(new CarData("car" + i, copy(make[0]), "Model " + random.nextInt(1000), copy(make[1]),
+                    copy(make[2]), 120 + random.nextInt(200), 4, 500 + random.nextInt(10_000)));
+        }
+        long sharedBytes = usedHeap() - before;
+
+        System.out.printf("%,d cars, %d brands, %d images%n", cars, AssetRegistry.brandCount(),
+                AssetRegistry.imageCount());
+        System.out.printf("  copied strings  %,8d KB  %6.1f bytes/car%n", copiedBytes / 1024,
+                (double) copiedBytes / cars);
+        System.out.printf("  shared records  %,8d KB  %6.1f bytes/car  (%.0f%% less)%n", sharedBytes / 1024,
+                (double) sharedBytes / cars, 100.0 * (copiedBytes - sharedBytes) / copiedBytes);
+
+        // Selecting a car resolves both paths; count the garbage that leaves behind
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = allocatedBytes();
+            for (CopiedCar car : copied) {
+                checksum += car.getPreviewImagePath().length() + car.getLogoPath().length();
+            }
+            long copiedGarbage = allocatedBytes() - start;
+            start = allocatedBytes();
+            for (CarData car : shared) {
+                checksum += car.getPreviewImagePath().length() + car.getLogoPath().length();
+            }
+            long sharedGarbage = allocatedBytes() - start;
+            if (round == 2) {
+                System.out.printf("  path lookups allocate %.1f bytes/car copied, %.1f bytes/car shared  (%d)%n",
+                        (double) copiedGarbage / cars, (double) sharedGarbage / cars, checksum);
+            }
+        }
+    }
+
+    /**
+     * @return a distinct copy, as each parsed row yields
+     */
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * A car holding its own strings and building its paths on each call.
+     */
+    private static final class CopiedCar {
+        final String id;
+        final String name;
+        final String model;
+        final String image;
+        final String brand;
+        final CarSpecs specs;
+        final int price;
+
+        CopiedCar(String id, String name, String model, String image, String brand, int speed, int seats, int price) {
+            this.id = id;
+            this.name = name;
+            this.model = model;
+            this.image = image;
+            this.brand = brand;
+            this.specs = CarSpecs.of(speed, seats);
+            this.price = price;
+        }
+
+        String getPreviewImagePath() {
+            return "assets/cars/" + image + ".png";
+        }
+
+        String getLogoPath() {
+            return "assets/logos/" + brand + ".png";
+        }
+    }
+}
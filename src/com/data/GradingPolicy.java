@@ -0,0 +1,104 @@
+package com.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns a car its grade from its top speed: the first grade whose threshold the speed
+ * exceeds, or the last grade if it exceeds none. Grades are assigned once, when a car's
+ * specs are created.
+ *
+ * <p>A policy is written as {@code A>200, B>150, C}, which is also the default.</p>
+ */
+public final class GradingPolicy {
+    /** Shown for cars whose top speed is not known. */
+    public static final String UNGRADED = "N/A";
+
+    public static final GradingPolicy DEFAULT = parse("A>200, B>150, C");
+
+    private final String[] grades;
+    private final int[] thresholds;
+
+    private GradingPolicy(String[] grades, int[] thresholds) {
+        this.grades = grades;
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * @param text Grades separated by commas, each but the last with a {@code >speed} threshold,
+     *        in descending order of speed
+     * @throws IllegalArgumentException if the text is not a valid policy
+     */
+    public static GradingPolicy parse(String text) {
+        String[] parts = text.split(",");
+        List<String> grades = new ArrayList<>();
+        int[] thresholds = new int[parts.length - 1];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].trim();
+            int split = part.indexOf('>');
+            boolean last = i == parts.length - 1;
+            if (last != (split < 0)) {
+                throw new IllegalArgumentException("Every grade but the last needs a threshold: " + text);
+            }
+            String grade = (last ? part : part.substring(0, split)).trim();
+            if (grade.isEmpty()) {
+                throw new IllegalArgumentException("Missing grade name: " + text);
+            }
+            grades.add(grade);
+            if (!last) {
+                try {
+                    thresholds[i] = Integer.parseInt(part.substring(split + 1).trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid threshold: " + part);
+                }
+                if (i > 0 && thresholds[i] >= thresholds[i - 1]) {
+                    throw new IllegalArgumentException("Thresholds must decrease: " + text);
+                }
+            }
+        }
+        return new GradingPolicy(grades.toArray(new String[0]), thresholds);
+    }
+
+    /**
+     * @param topSpeed The top speed in km/h, or 0 if unknown
+     * @return the grade, or {@link #UNGRADED} if the speed is unknown
+     */
+    public String grade(int topSpeed) {
+        if (topSpeed <= 0) {
+            return UNGRADED;
+        }
+        for (int i = 0; i < thresholds.length; i++) {
+            if (topSpeed > thresholds[i]) {
+                return grades[i];
+            }
+        }
+        return grades[grades.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < grades.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(grades[i]);
+            if (i < thresholds.length) {
+                text.append('>').append(thresholds[i]);
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GradingPolicy && Arrays.equals(grades, ((GradingPolicy) o).grades)
+                && Arrays.equals(thresholds, ((GradingPolicy) o).thresholds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(grades) + Arrays.hashCode(thresholds);
+    }
+}
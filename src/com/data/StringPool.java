@@ -0,0 +1,80 @@
+package com.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Turns UTF-8 byte slices into strings, returning the same instance for the same bytes.
+ * Lookups hash the bytes directly, so a value seen before costs no allocation. Each loader
+ * task owns a pool; the shared map makes values equal across pools share one instance.
+ * Not thread safe.
+ */
+final class StringPool {
+    private static final int MAX_ENTRIES = 1 << 16;
+
+    private final ConcurrentMap<String, String> shared;
+    private byte[][] keys = new byte[256][];
+    private String[] values = new String[256];
+    private int size;
+
+    StringPool(ConcurrentMap<String, String> shared) {
+        this.shared = shared;
+    }
+
+    String get(byte[] data, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + data[i];
+        }
+        int mask = keys.length - 1;
+        int slot = mix(hash) & mask;
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], 0, keys[slot].length, data, offset, offset + length)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = share(new String(data, offset, length, StandardCharsets.UTF_8));
+        if (size < MAX_ENTRIES) {
+            // Distinct values beyond the cap are still shared, just not cached here
+            keys[slot] = Arrays.copyOfRange(data, offset, offset + length);
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+        return value;
+    }
+
+    private String share(String value) {
+        String existing = shared.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int hash = 1;
+                for (byte b : oldKeys[i]) {
+                    hash = 31 * hash + b;
+                }
+                int slot = mix(hash) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
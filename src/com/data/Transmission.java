@@ -0,0 +1,21 @@
+package com.data;
+
+import java.util.Locale;
+
+/**
+ * How a car changes gear.
+ */
+public enum Transmission {
+    UNSPECIFIED,
+    AUTOMATIC,
+    MANUAL;
+
+    /**
+     * @param text A transmission name in any case, or an empty string for {@link #UNSPECIFIED}
+     * @throws IllegalArgumentException if the text names no transmission
+     */
+    public static Transmission parse(String text) {
+        String name = text.trim();
+        return name.isEmpty() ? UNSPECIFIED : valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
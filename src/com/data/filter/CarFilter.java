@@ -0,0 +1,126 @@
+package com.data.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import com.data.CarData;
+
+/**
+ * Criteria a customer narrows the fleet with. A car matches when it satisfies every
+ * criterion that is set; a criterion listing several values accepts any of them.
+ * Filters are immutable; the {@code with} methods return a changed copy.
+ */
+public final class CarFilter {
+    /** Accepts every car. */
+    public static final CarFilter ALL = new CarFilter(Collections.emptySet(), 0, Collections.emptySet(), 0,
+            Integer.MAX_VALUE);
+
+    private final Set<String> brands;
+    private final int minSeats;
+    private final Set<String> grades;
+    private final int minPrice;
+    private final int maxPrice;
+
+    private CarFilter(Set<String> brands, int minSeats, Set<String> grades, int minPrice, int maxPrice) {
+        this.brands = brands;
+        this.minSeats = minSeats;
+        this.grades = grades;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * @param brands Brand keys such as {@code bmw}; none accepts any brand
+     */
+    public CarFilter withBrands(String... brands) {
+        return new CarFilter(toSet(brands), minSeats, grades, minPrice, maxPrice);
+    }
+
+    /**
+     * @param minSeats The fewest seats accepted; 0 accepts any car
+     */
+    public CarFilter withMinSeats(int minSeats) {
+        return new CarFilter(brands, Math.max(0, minSeats), grades, minPrice, maxPrice);
+    }
+
+    /**
+     * @param grades Grades such as {@code A}; none accepts any grade
+     */
+    public CarFilter withGrades(String... grades) {
+        return new CarFilter(brands, minSeats, toSet(grades), minPrice, maxPrice);
+    }
+
+    /**
+     * @param minPrice The lowest daily price accepted, in rand
+     * @param maxPrice The highest daily price accepted, in rand
+     */
+    public CarFilter withPriceRange(int minPrice, int maxPrice) {
+        return new CarFilter(brands, minSeats, grades, Math.max(0, minPrice), maxPrice);
+    }
+
+    public Set<String> getBrands() {
+        return brands;
+    }
+
+    public int getMinSeats() {
+        return minSeats;
+    }
+
+    public Set<String> getGrades() {
+        return grades;
+    }
+
+    public int getMinPrice() {
+        return minPrice;
+    }
+
+    public int getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice > 0 || maxPrice < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Tests one car directly, without an index.
+     *
+     * @param car The car
+     * @param price The car's current daily price in rand
+     */
+    public boolean matches(CarData car, int price) {
+        return (brands.isEmpty() || brands.contains(car.getBrand()))
+                && car.getSeats() >= minSeats
+                && (grades.isEmpty() || grades.contains(car.getGrade()))
+                && price >= minPrice && price <= maxPrice;
+    }
+
+    private static Set<String> toSet(String... values) {
+        return values.length == 0 ? Collections.emptySet()
+                : Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(values)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CarFilter)) {
+            return false;
+        }
+        CarFilter other = (CarFilter) o;
+        return brands.equals(other.brands) && minSeats == other.minSeats && grades.equals(other.grades)
+                && minPrice == other.minPrice && maxPrice == other.maxPrice;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(brands, minSeats, grades, minPrice, maxPrice);
+    }
+
+    @Override
+    public String toString() {
+        return "CarFilter[brands=" + brands + ", minSeats=" + minSeats + ", grades=" + grades + ", price="
+                + minPrice + ".." + maxPrice + "]";
+    }
+}
@@ -0,0 +1,465 @@
+package com.data.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Typo-tolerant prefix search over the words of each car's name, model, brand and preview
+ * image name (which names the model, as in {@code golf_r}).
+ *
+ * <p>The distinct words are sorted into a trie in which every node knows the range of
+ * words below it, and each word lists the cars containing it. A query term matches the
+ * words it is a prefix of, allowing one typo in terms of 4 to 7 letters and two in longer
+ * ones: the trie is walked computing edit distances row by row, taking whole subtrees once
+ * the term is matched and abandoning branches that are already too far off. A car matches a
+ * query when every term matches one of its words.</p>
+ *
+ * <p>Typing usually narrows a query, and a narrower query's matches are a subset of the
+ * previous ones. A {@link Session} remembers recent results and answers such a query by
+ * checking only the cars of the closest earlier result, so a keystroke costs in proportion
+ * to the cars still matching rather than the fleet.</p>
+ */
+public final class CarSearchIndex {
+    private static final int HISTORY = 32;
+
+    private final int carCount;
+    private final String[] words;
+    // Trie: node 0 is the root; children are linked in word order
+    private final char[] label;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] firstWord;
+    private final int[] endWord;
+    private final int maxDepth;
+    // Postings: the cars containing word w are carsOfWord[wordStart[w]..wordStart[w + 1])
+    private final int[] wordStart;
+    private final int[] carsOfWord;
+    // Forward index: the words of car c are wordsOfCar[carStart[c]..carStart[c + 1])
+    private final int[] carStart;
+    private final int[] wordsOfCar;
+
+    private CarSearchIndex(int carCount, String[] words, char[] label, int[] firstChild, int[] nextSibling,
+            int[] firstWord, int[] endWord, int maxDepth, int[] wordStart, int[] carsOfWord, int[] carStart,
+            int[] wordsOfCar) {
+        this.carCount = carCount;
+        this.words = words;
+        this.label = label;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.firstWord = firstWord;
+        this.endWord = endWord;
+        this.maxDepth = maxDepth;
+        this.wordStart = wordStart;
+        this.carsOfWord = carsOfWord;
+        this.carStart = carStart;
+        this.wordsOfCar = wordsOfCar;
+    }
+
+    /**
+     * Indexes the words of every car in a catalog.
+     */
+    public static CarSearchIndex build(CarCatalog catalog) {
+        int carCount = catalog.size();
+        TreeMap<String, Integer> wordCounts = new TreeMap<>();
+        int[] carStart = new int[carCount + 1];
+        List<String> scratch = new ArrayList<>();
+        List<String> all = new ArrayList<>();
+        for (int c = 0; c < carCount; c++) {
+            carWords(catalog.get(c), scratch);
+            for (String word : scratch) {
+                wordCounts.merge(word, 1, Integer::sum);
+            }
+            all.addAll(scratch);
+            carStart[c + 1] = all.size();
+        }
+        String[] words = wordCounts.keySet().toArray(new String[0]);
+
+        int[] wordStart = new int[words.length + 1];
+        int w = 0;
+        for (int count : wordCounts.values()) {
+            wordStart[w + 1] = wordStart[w] + count;
+            w++;
+        }
+        int[] wordsOfCar = new int[all.size()];
+        int[] carsOfWord = new int[all.size()];
+        int[] fill = Arrays.copyOf(wordStart, words.length);
+        for (int c = 0; c < carCount; c++) {
+            for (int i = carStart[c]; i < carStart[c + 1]; i++) {
+                int word = Arrays.binarySearch(words, all.get(i));
+                wordsOfCar[i] = word;
+                carsOfWord[fill[word]++] = c;
+            }
+        }
+
+        // Insert the sorted words; each node's words are a contiguous range
+        int capacity = 1;
+        int maxDepth = 0;
+        for (String word : words) {
+            capacity += word.length();
+            maxDepth = Math.max(maxDepth, word.length());
+        }
+        char[] label = new char[capacity];
+        int[] firstChild = new int[capacity];
+        int[] nextSibling = new int[capacity];
+        int[] lastChild = new int[capacity];
+        int[] firstWord = new int[capacity];
+        int[] endWord = new int[capacity];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        Arrays.fill(lastChild, -1);
+        endWord[0] = words.length;
+        int nodes = 1;
+        for (int i = 0; i < words.length; i++) {
+            int node = 0;
+            for (int d = 0; d < words[i].length(); d++) {
+                char c = words[i].charAt(d);
+                int child = lastChild[node];
+                if (child < 0 || label[child] != c) {
+                    child = nodes++;
+                    label[child] = c;
+                    firstWord[child] = i;
+                    if (lastChild[node] < 0) {
+                        firstChild[node] = child;
+                    } else {
+                        nextSibling[lastChild[node]] = child;
+                    }
+                    lastChild[node] = child;
+                }
+                endWord[child] = i + 1;
+                node = child;
+            }
+        }
+        return new CarSearchIndex(carCount, words, Arrays.copyOf(label, nodes), Arrays.copyOf(firstChild, nodes),
+                Arrays.copyOf(nextSibling, nodes), Arrays.copyOf(firstWord, nodes), Arrays.copyOf(endWord, nodes),
+                maxDepth, wordStart, carsOfWord, carStart, wordsOfCar);
+    }
+
+    /**
+     * Lists the distinct words a car can be found by.
+     */
+    static void carWords(CarData car, List<String> into) {
+        into.clear();
+        tokenize(car.getName(), into);
+        tokenize(car.getModel(), into);
+        tokenize(car.getBrand(), into);
+        tokenize(car.getImage().getName(), into);
+        // A word is listed once per car
+        for (int i = into.size() - 1; i >= 0; i--) {
+            if (into.indexOf(into.get(i)) != i) {
+                into.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits.
+     */
+    static List<String> tokenize(String text, List<String> into) {
+        if (text == null) {
+            return into;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                into.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return into;
+    }
+
+    /**
+     * @return how many typos a term of the given length may contain
+     */
+    static int maxEdits(int length) {
+        return length < 4 ? 0 : length < 8 ? 1 : 2;
+    }
+
+    public int getCarCount() {
+        return carCount;
+    }
+
+    public int getWordCount() {
+        return words.length;
+    }
+
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Finds the words a term matches, as sorted, non-overlapping ranges of word numbers.
+     *
+     * @return {start, end} pairs
+     */
+    int[] matchingWords(String term) {
+        int k = maxEdits(term.length());
+        int m = term.length();
+        if (m <= k) {
+            return new int[] {0, words.length};
+        }
+        int[][] rows = new int[maxDepth + 1][m + 1];
+        for (int j = 0; j <= m; j++) {
+            rows[0][j] = j;
+        }
+        int[] ranges = new int[8];
+        int count = 0;
+        // Iterative depth-first walk; stack holds (node, depth)
+        int[] stack = new int[2 * (label.length + 1)];
+        int top = 0;
+        for (int child = firstChild[0]; child >= 0; child = nextSibling[child]) {
+            stack[top++] = child;
+            stack[top++] = 1;
+        }
+        // Pushing reverses sibling order, so sort the ranges at the end
+        while (top > 0) {
+            int depth = stack[--top];
+            int node = stack[--top];
+            int[] previous = rows[depth - 1];
+            int[] row = rows[depth];
+            char c = label[node];
+            row[0] = depth;
+            int best = row[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = previous[j - 1] + (term.charAt(j - 1) == c ? 0 : 1);
+                cost = Math.min(cost, Math.min(previous[j], row[j - 1]) + 1);
+                row[j] = cost;
+                best = Math.min(best, cost);
+            }
+            if (row[m] <= k) {
+                if (count == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, count * 2);
+                }
+                ranges[count++] = firstWord[node];
+                ranges[count++] = endWord[node];
+            } else if (best <= k && depth < maxDepth) {
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    stack[top++] = child;
+                    stack[top++] = depth + 1;
+                }
+            }
+        }
+        return mergeRanges(ranges, count);
+    }
+
+    private static int[] mergeRanges(int[] ranges, int count) {
+        int pairs = count / 2;
+        long[] packed = new long[pairs];
+        for (int i = 0; i < pairs; i++) {
+            packed[i] = (long) ranges[2 * i] << 32 | ranges[2 * i + 1];
+        }
+        Arrays.sort(packed);
+        int[] merged = new int[count];
+        int n = 0;
+        for (long range : packed) {
+            int start = (int) (range >>> 32);
+            int end = (int) range;
+            if (n > 0 && start <= merged[n - 1]) {
+                merged[n - 1] = Math.max(merged[n - 1], end);
+            } else {
+                merged[n++] = start;
+                merged[n++] = end;
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private static boolean inRanges(int[] ranges, int word) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (word < ranges[2 * middle]) {
+                high = middle - 1;
+            } else if (word >= ranges[2 * middle + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] terms(String query) {
+        return tokenize(query, new ArrayList<>()).toArray(new String[0]);
+    }
+
+    /**
+     * The search state of one search box. Not thread safe: use it from one thread at a time,
+     * such as a single search worker.
+     */
+    public final class Session {
+        private final ArrayDeque<Result> history = new ArrayDeque<>();
+
+        private Session() {
+        }
+
+        /**
+         * Finds the cars matching every term of a query.
+         *
+         * @param query The text typed so far; blank matches every car
+         * @param cancelled Polled while searching; once it returns true the search gives up
+         * @return the matching cars' catalog indexes, or null if cancelled
+         */
+        public CompressedBitmap search(String query, BooleanSupplier cancelled) {
+            String[] terms = terms(query);
+            if (terms.length == 0) {
+                return CompressedBitmap.range(carCount);
+            }
+            Result base = null;
+            for (Result result : history) {
+                if (narrows(result.terms, terms) && (base == null || result.cardinality < base.cardinality)) {
+                    base = result;
+                }
+            }
+            long[] bits;
+            int cardinality;
+            int firstTerm;
+            if (base != null) {
+                if (Arrays.equals(base.terms, terms)) {
+                    return base.rows;
+                }
+                bits = base.bits.clone();
+                cardinality = base.cardinality;
+                // The base's earlier terms are identical, so only its last and the new ones need checking
+                firstTerm = base.terms.length - 1;
+            } else {
+                bits = null;
+                cardinality = carCount;
+                firstTerm = 0;
+            }
+            for (int t = firstTerm; t < terms.length && cardinality > 0; t++) {
+                if (cancelled.getAsBoolean()) {
+                    return null;
+                }
+                int[] ranges = matchingWords(terms[t]);
+                if (bits == null) {
+                    bits = carsWith(ranges);
+                    cardinality = cardinality(bits);
+                } else {
+                    cardinality = narrow(bits, cardinality, ranges, cancelled);
+                    if (cardinality < 0) {
+                        return null;
+                    }
+                }
+            }
+            Result result = new Result(terms, bits, cardinality, CompressedBitmap.fromWords(bits));
+            if (history.size() == HISTORY) {
+                history.removeFirst();
+            }
+            history.addLast(result);
+            return result.rows;
+        }
+
+        /**
+         * A later query narrows an earlier one when it repeats the earlier terms, may
+         * extend the last of them with the same typo allowance, and may add terms.
+         */
+        private boolean narrows(String[] earlier, String[] later) {
+            if (later.length < earlier.length) {
+                return false;
+            }
+            int last = earlier.length - 1;
+            for (int i = 0; i < last; i++) {
+                if (!earlier[i].equals(later[i])) {
+                    return false;
+                }
+            }
+            return later[last].startsWith(earlier[last])
+                    && maxEdits(later[last].length()) == maxEdits(earlier[last].length());
+        }
+
+        /**
+         * Sets the bits of the cars containing a word in the ranges.
+         */
+        private long[] carsWith(int[] ranges) {
+            long[] bits = new long[(carCount + 63) >>> 6];
+            for (int r = 0; r < ranges.length; r += 2) {
+                for (int i = wordStart[ranges[r]]; i < wordStart[ranges[r + 1]]; i++) {
+                    int car = carsOfWord[i];
+                    bits[car >>> 6] |= 1L << car;
+                }
+            }
+            return bits;
+        }
+
+        /**
+         * Clears the cars in bits that contain no word in the ranges, choosing between checking
+         * each remaining car's words and intersecting with the cars of the matching words.
+         *
+         * @return the number of cars left, or -1 if cancelled
+         */
+        private int narrow(long[] bits, int cardinality, int[] ranges, BooleanSupplier cancelled) {
+            long postings = 0;
+            for (int r = 0; r < ranges.length; r += 2) {
+                postings += wordStart[ranges[r + 1]] - wordStart[ranges[r]];
+            }
+            long perCar = (long) cardinality * wordsOfCar.length / Math.max(1, carCount);
+            if (postings + bits.length < perCar) {
+                long[] matching = carsWith(ranges);
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] &= matching[i];
+                }
+                return cardinality(bits);
+            }
+            int left = 0;
+            int checked = 0;
+            for (int i = 0; i < bits.length; i++) {
+                for (long word = bits[i]; word != 0; word &= word - 1) {
+                    int car = i << 6 | Long.numberOfTrailingZeros(word);
+                    if (!hasWordIn(car, ranges)) {
+                        bits[i] &= ~(1L << car);
+                    } else {
+                        left++;
+                    }
+                    if ((++checked & 4095) == 0 && cancelled.getAsBoolean()) {
+                        return -1;
+                    }
+                }
+            }
+            return left;
+        }
+
+        private boolean hasWordIn(int car, int[] ranges) {
+            for (int i = carStart[car]; i < carStart[car + 1]; i++) {
+                if (inRanges(ranges, wordsOfCar[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static final class Result {
+        final String[] terms;
+        final long[] bits;
+        final int cardinality;
+        final CompressedBitmap rows;
+
+        Result(String[] terms, long[] bits, int cardinality, CompressedBitmap rows) {
+            this.terms = terms;
+            this.bits = bits;
+            this.cardinality = cardinality;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.data.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Bitmap indexes over a catalog for answering {@link CarFilter}s without scanning it.
+ *
+ * <p>There is one {@link CompressedBitmap} of rows per brand, per seat count and per grade,
+ * and one per price band. The bands split the fleet's prices into about
+ * {@value #PRICE_BANDS} groups of similar size, so a price range is the union of the bands
+ * inside it plus the rows of the two edge bands whose price is checked individually. A
+ * filter is the intersection of its criteria, each the union of its values.</p>
+ *
+ * <p>An index is immutable; build a new one when the catalog or its prices change.</p>
+ */
+public final class CatalogIndex {
+    static final int PRICE_BANDS = 32;
+
+    private final CarCatalog catalog;
+    private final int[] prices;
+    private final CompressedBitmap all;
+    private final Map<String, CompressedBitmap> byBrand;
+    private final TreeMap<Integer, CompressedBitmap> bySeats;
+    private final Map<String, CompressedBitmap> byGrade;
+    /** Band i holds prices from bandStarts[i] up to bandStarts[i + 1], the last up to maxPrice. */
+    private final int[] bandStarts;
+    private final int maxPrice;
+    private final CompressedBitmap[] byBand;
+
+    private CatalogIndex(CarCatalog catalog, int[] prices, Map<String, CompressedBitmap> byBrand,
+            TreeMap<Integer, CompressedBitmap> bySeats, Map<String, CompressedBitmap> byGrade, int[] bandStarts,
+            CompressedBitmap[] byBand) {
+        this.catalog = catalog;
+        this.prices = prices;
+        this.all = CompressedBitmap.range(prices.length);
+        this.byBrand = byBrand;
+        this.bySeats = bySeats;
+        this.byGrade = byGrade;
+        this.bandStarts = bandStarts;
+        this.byBand = byBand;
+        this.maxPrice = Arrays.stream(prices).max().orElse(0);
+    }
+
+    /**
+     * Indexes a catalog in one pass.
+     *
+     * @param catalog The cars; their catalog index is their row
+     * @param prices The daily price of each car in rand, by row; kept, not copied
+     */
+    public static CatalogIndex build(CarCatalog catalog, int[] prices) {
+        if (prices.length != catalog.size()) {
+            throw new IllegalArgumentException(prices.length + " prices for " + catalog.size() + " cars");
+        }
+        int[] bandStarts = bandStarts(prices);
+        Map<String, CompressedBitmap.Builder> brands = new TreeMap<>();
+        TreeMap<Integer, CompressedBitmap.Builder> seats = new TreeMap<>();
+        Map<String, CompressedBitmap.Builder> grades = new TreeMap<>();
+        CompressedBitmap.Builder[] bands = new CompressedBitmap.Builder[bandStarts.length];
+        for (int i = 0; i < bands.length; i++) {
+            bands[i] = new CompressedBitmap.Builder();
+        }
+        // Consecutive cars often share values, so remember the last builder of each kind
+        String lastBrand = null;
+        CompressedBitmap.Builder brandBuilder = null;
+        String lastGrade = null;
+        CompressedBitmap.Builder gradeBuilder = null;
+        int lastSeats = -1;
+        CompressedBitmap.Builder seatsBuilder = null;
+        for (int row = 0; row < prices.length; row++) {
+            CarData car = catalog.get(row);
+            String brand = car.getBrand();
+            if (!brand.equals(lastBrand)) {
+                lastBrand = brand;
+                brandBuilder = brands.computeIfAbsent(brand, b -> new CompressedBitmap.Builder());
+            }
+            brandBuilder.add(row);
+            String grade = car.getGrade();
+            if (!grade.equals(lastGrade)) {
+                lastGrade = grade;
+                gradeBuilder = grades.computeIfAbsent(grade, g -> new CompressedBitmap.Builder());
+            }
+            gradeBuilder.add(row);
+            int seatCount = car.getSeats();
+            if (seatCount != lastSeats) {
+                lastSeats = seatCount;
+                seatsBuilder = seats.computeIfAbsent(seatCount, s -> new CompressedBitmap.Builder());
+            }
+            seatsBuilder.add(row);
+            bands[band(bandStarts, prices[row])].add(row);
+        }
+        CompressedBitmap[] byBand = new CompressedBitmap[bands.length];
+        for (int i = 0; i < bands.length; i++) {
+            byBand[i] = bands[i].build();
+        }
+        return new CatalogIndex(catalog, prices, buildAll(brands), buildAll(seats), buildAll(grades), bandStarts,
+                byBand);
+    }
+
+    private static <K> TreeMap<K, CompressedBitmap> buildAll(Map<K, CompressedBitmap.Builder> builders) {
+        TreeMap<K, CompressedBitmap> bitmaps = new TreeMap<>();
+        builders.forEach((key, builder) -> bitmaps.put(key, builder.build()));
+        return bitmaps;
+    }
+
+    /**
+     * Chooses band boundaries at evenly spaced quantiles of a sample of the prices; the first
+     * band starts at the lowest price.
+     */
+    private static int[] bandStarts(int[] prices) {
+        int sampleSize = Math.min(prices.length, 64 * 1024);
+        int[] sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = prices[(int) ((long) i * prices.length / sampleSize)];
+        }
+        Arrays.sort(sample);
+        int[] starts = new int[PRICE_BANDS];
+        int count = 0;
+        starts[count++] = Arrays.stream(prices).min().orElse(0);
+        for (int b = 1; b < PRICE_BANDS && sampleSize > 0; b++) {
+            int start = sample[(int) ((long) b * sampleSize / PRICE_BANDS)];
+            if (start > starts[count - 1]) {
+                starts[count++] = start;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private static int band(int[] bandStarts, int price) {
+        int index = Arrays.binarySearch(bandStarts, price);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public CarCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return the brands present, in order
+     */
+    public List<String> getBrands() {
+        return Collections.unmodifiableList(new ArrayList<>(byBrand.keySet()));
+    }
+
+    /**
+     * @return the seat counts present, in ascending order
+     */
+    public List<Integer> getSeatCounts() {
+        return Collections.unmodifiableList(new ArrayList<>(bySeats.keySet()));
+    }
+
+    /**
+     * @return the grades present, in order
+     */
+    public List<String> getGrades() {
+        return Collections.unmodifiableList(new ArrayList<>(byGrade.keySet()));
+    }
+
+    /**
+     * @return the approximate heap taken by the bitmaps, in bytes
+     */
+    public long sizeInBytes() {
+        long size = all.sizeInBytes();
+        for (Map<?, CompressedBitmap> index : List.of(byBrand, bySeats, byGrade)) {
+            for (CompressedBitmap bitmap : index.values()) {
+                size += bitmap.sizeInBytes();
+            }
+        }
+        for (CompressedBitmap bitmap : byBand) {
+            size += bitmap.sizeInBytes();
+        }
+        return size;
+    }
+
+    /**
+     * @return the rows of the cars matching the filter
+     */
+    public CompressedBitmap select(CarFilter filter) {
+        List<CompressedBitmap> criteria = new ArrayList<>(4);
+        if (!filter.getBrands().isEmpty()) {
+            criteria.add(union(byBrand, filter.getBrands()));
+        }
+        if (filter.getMinSeats() > 0) {
+            criteria.add(union(bySeats.tailMap(filter.getMinSeats(), true).values()));
+        }
+        if (!filter.getGrades().isEmpty()) {
+            criteria.add(union(byGrade, filter.getGrades()));
+        }
+        if (filter.hasPriceRange()) {
+            criteria.add(priceRange(filter.getMinPrice(), filter.getMaxPrice()));
+        }
+        if (criteria.isEmpty()) {
+            return all;
+        }
+        // Intersect the smallest sets first so the intermediate results stay small
+        criteria.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        CompressedBitmap result = criteria.get(0);
+        for (int i = 1; i < criteria.size() && !result.isEmpty(); i++) {
+            result = result.and(criteria.get(i));
+        }
+        return result;
+    }
+
+    private static CompressedBitmap union(Map<String, CompressedBitmap> index, Iterable<String> keys) {
+        CompressedBitmap result = CompressedBitmap.empty();
+        for (String key : keys) {
+            CompressedBitmap bitmap = index.get(key);
+            if (bitmap != null) {
+                result = result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static CompressedBitmap union(Iterable<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = CompressedBitmap.empty();
+        for (CompressedBitmap bitmap : bitmaps) {
+            result = result.or(bitmap);
+        }
+        return result;
+    }
+
+    private CompressedBitmap priceRange(int minPrice, int maxPrice) {
+        if (minPrice > maxPrice) {
+            return CompressedBitmap.empty();
+        }
+        int first = Math.max(0, band(bandStarts, minPrice));
+        int last = band(bandStarts, maxPrice);
+        CompressedBitmap result = CompressedBitmap.empty();
+        for (int b = first; b <= last; b++) {
+            long end = b + 1 < bandStarts.length ? bandStarts[b + 1] - 1L : this.maxPrice;
+            boolean inside = bandStarts[b] >= minPrice && end <= maxPrice;
+            result = result.or(inside ? byBand[b] : checkPrices(byBand[b], minPrice, maxPrice));
+        }
+        return result;
+    }
+
+    private CompressedBitmap checkPrices(CompressedBitmap rows, int minPrice, int maxPrice) {
+        CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+        for (PrimitiveIterator.OfInt it = rows.iterator(); it.hasNext();) {
+            int row = it.nextInt();
+            if (prices[row] >= minPrice && prices[row] <= maxPrice) {
+                builder.add(row);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,387 @@
+package com.data.filter;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable set of non-negative ints, such as catalog rows, compressed by chunk.
+ *
+ * <p>Rows are split into chunks of 65,536 by their upper 16 bits. A chunk with at most
+ * {@value #ARRAY_MAX} rows is stored as a sorted array of their lower 16 bits; a denser chunk
+ * is stored as 1,024 words of bits, and empty chunks are not stored at all. Intersections
+ * and unions work a chunk at a time, word by word on dense chunks and by merging sparse
+ * ones, so their cost follows the stored size rather than the catalog size.</p>
+ */
+public final class CompressedBitmap {
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new int[0], new Object[0], 0);
+
+    private final int[] keys;
+    /** Either a {@code char[]} of sorted low bits or a {@code long[]} of {@value #WORDS} words. */
+    private final Object[] chunks;
+    private final int cardinality;
+
+    private CompressedBitmap(int[] keys, Object[] chunks, int cardinality) {
+        this.keys = keys;
+        this.chunks = chunks;
+        this.cardinality = cardinality;
+    }
+
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the rows from 0 up to but not including size
+     */
+    public static CompressedBitmap range(int size) {
+        Builder builder = new Builder();
+        int fullChunks = size >>> 16;
+        for (int key = 0; key < fullChunks; key++) {
+            long[] words = new long[WORDS];
+            Arrays.fill(words, -1L);
+            builder.addChunk(key, words, 65536);
+        }
+        for (int row = fullChunks << 16; row < size; row++) {
+            builder.add(row);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param words Bits of rows, row {@code r} at bit {@code r % 64} of word {@code r / 64}
+     * @return the rows whose bits are set
+     */
+    public static CompressedBitmap fromWords(long[] words) {
+        Builder builder = new Builder();
+        for (int from = 0, key = 0; from < words.length; from += WORDS, key++) {
+            int count = 0;
+            for (int i = from; i < Math.min(from + WORDS, words.length); i++) {
+                count += Long.bitCount(words[i]);
+            }
+            // copyOfRange pads the last chunk with zeros
+            long[] chunk = Arrays.copyOfRange(words, from, from + WORDS);
+            builder.addChunk(key, count > ARRAY_MAX ? chunk : Builder.toArray(chunk, count), count);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the number of rows in the set
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int row) {
+        int index = Arrays.binarySearch(keys, row >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        Object chunk = chunks[index];
+        char low = (char) row;
+        if (chunk instanceof long[]) {
+            return (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) chunk, low) >= 0;
+    }
+
+    /**
+     * @return the approximate heap taken by the set, in bytes
+     */
+    public long sizeInBytes() {
+        long size = 32 + 16 + 4L * keys.length + 16 + 8L * chunks.length;
+        for (Object chunk : chunks) {
+            size += chunk instanceof long[] ? 16 + 8L * WORDS : 16 + 2L * ((char[]) chunk).length;
+        }
+        return size;
+    }
+
+    /**
+     * @return the rows in both sets
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                builder.addAnd(keys[i], chunks[i], other.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the rows in either set
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                builder.addShared(keys[i], chunks[i]);
+                i++;
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                builder.addShared(other.keys[j], other.chunks[j]);
+                j++;
+            } else {
+                builder.addOr(keys[i], chunks[i], other.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the rows in ascending order
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk;
+            private int position = -1;
+            private int next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int row = next;
+                next = advance();
+                return row;
+            }
+
+            private int advance() {
+                while (chunk < chunks.length) {
+                    Object current = chunks[chunk];
+                    if (current instanceof char[]) {
+                        char[] values = (char[]) current;
+                        if (++position < values.length) {
+                            return keys[chunk] << 16 | values[position];
+                        }
+                    } else {
+                        long[] words = (long[]) current;
+                        int start = position + 1;
+                        int word = start >>> 6;
+                        if (word < WORDS) {
+                            long bits = words[word] & (-1L << start);
+                            while (bits == 0 && ++word < WORDS) {
+                                bits = words[word];
+                            }
+                            if (bits != 0) {
+                                position = word << 6 | Long.numberOfTrailingZeros(bits);
+                                return keys[chunk] << 16 | position;
+                            }
+                        }
+                    }
+                    chunk++;
+                    position = -1;
+                }
+                return -1;
+            }
+        };
+    }
+
+    /**
+     * Collects rows in ascending order. Rows must be added in ascending order.
+     */
+    public static final class Builder {
+        private int[] keys = new int[8];
+        private Object[] chunks = new Object[8];
+        private int size;
+        private int cardinality;
+        private int currentKey = -1;
+        private final long[] scratch = new long[WORDS];
+        private int scratchCount;
+        private int last = -1;
+
+        /**
+         * @throws IllegalArgumentException if the row is negative or not above the last one added
+         */
+        public void add(int row) {
+            if (row <= last) {
+                throw new IllegalArgumentException("Rows must be added in ascending order: " + row + " after " + last);
+            }
+            last = row;
+            int key = row >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            scratch[(row & 0xFFFF) >>> 6] |= 1L << row;
+            scratchCount++;
+        }
+
+        public CompressedBitmap build() {
+            flush();
+            CompressedBitmap bitmap = size == 0 ? EMPTY
+                    : new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(chunks, size), cardinality);
+            keys = new int[8];
+            chunks = new Object[8];
+            size = 0;
+            cardinality = 0;
+            last = -1;
+            return bitmap;
+        }
+
+        private void flush() {
+            if (scratchCount > 0) {
+                addChunk(currentKey, scratchCount > ARRAY_MAX ? scratch.clone() : toArray(scratch, scratchCount),
+                        scratchCount);
+                Arrays.fill(scratch, 0L);
+                scratchCount = 0;
+            }
+            currentKey = -1;
+        }
+
+        void addChunk(int key, Object chunk, int count) {
+            if (count == 0) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                chunks = Arrays.copyOf(chunks, size * 2);
+            }
+            keys[size] = key;
+            chunks[size] = chunk;
+            size++;
+            cardinality += count;
+            last = (key << 16) | 0xFFFF;
+        }
+
+        void addShared(int key, Object chunk) {
+            addChunk(key, chunk, chunk instanceof char[] ? ((char[]) chunk).length : bitCount((long[]) chunk));
+        }
+
+        void addAnd(int key, Object a, Object b) {
+            if (a instanceof long[] && b instanceof long[]) {
+                long[] x = (long[]) a;
+                long[] y = (long[]) b;
+                long[] words = new long[WORDS];
+                int count = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    words[i] = x[i] & y[i];
+                    count += Long.bitCount(words[i]);
+                }
+                addChunk(key, count > ARRAY_MAX ? words : toArray(words, count), count);
+            } else if (a instanceof char[] && b instanceof char[]) {
+                char[] x = (char[]) a;
+                char[] y = (char[]) b;
+                char[] values = new char[Math.min(x.length, y.length)];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < x.length && j < y.length) {
+                    if (x[i] < y[j]) {
+                        i++;
+                    } else if (x[i] > y[j]) {
+                        j++;
+                    } else {
+                        values[count++] = x[i];
+                        i++;
+                        j++;
+                    }
+                }
+                addChunk(key, Arrays.copyOf(values, count), count);
+            } else {
+                char[] array = (char[]) (a instanceof char[] ? a : b);
+                long[] words = (long[]) (a instanceof long[] ? a : b);
+                char[] values = new char[array.length];
+                int count = 0;
+                for (char value : array) {
+                    if ((words[value >>> 6] & (1L << value)) != 0) {
+                        values[count++] = value;
+                    }
+                }
+                addChunk(key, Arrays.copyOf(values, count), count);
+            }
+        }
+
+        void addOr(int key, Object a, Object b) {
+            if (a instanceof char[] && b instanceof char[]
+                    && ((char[]) a).length + ((char[]) b).length <= ARRAY_MAX) {
+                char[] x = (char[]) a;
+                char[] y = (char[]) b;
+                char[] values = new char[x.length + y.length];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < x.length || j < y.length) {
+                    if (j == y.length || (i < x.length && x[i] < y[j])) {
+                        values[count++] = x[i++];
+                    } else if (i == x.length || x[i] > y[j]) {
+                        values[count++] = y[j++];
+                    } else {
+                        values[count++] = x[i];
+                        i++;
+                        j++;
+                    }
+                }
+                addChunk(key, Arrays.copyOf(values, count), count);
+                return;
+            }
+            long[] words = new long[WORDS];
+            for (Object chunk : new Object[] {a, b}) {
+                if (chunk instanceof long[]) {
+                    long[] source = (long[]) chunk;
+                    for (int i = 0; i < WORDS; i++) {
+                        words[i] |= source[i];
+                    }
+                } else {
+                    for (char value : (char[]) chunk) {
+                        words[value >>> 6] |= 1L << value;
+                    }
+                }
+            }
+            int count = bitCount(words);
+            addChunk(key, count > ARRAY_MAX ? words : toArray(words, count), count);
+        }
+
+        private static int bitCount(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        private static char[] toArray(long[] words, int count) {
+            char[] values = new char[count];
+            int n = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long bits = words[i];
+                while (bits != 0) {
+                    values[n++] = (char) (i << 6 | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.data.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Builds bitmap indexes over generated fleets of 10k, 100k and 1M cars and reports build
+ * time, index memory and query latency against a linear scan, after checking both give the
+ * same cars.
+ *
+ * <p>Usage: {@code FilterBenchmark [maxCars] [rounds]}</p>
+ */
+public final class FilterBenchmark {
+
+    private static final String[] BRANDS = {
+        "mercedes_benz", "land_rover", "vw", "bmw", "audi", "toyota", "ford", "honda", "kia", "hyundai",
+        "mazda", "nissan", "porsche", "volvo", "renault", "peugeot", "suzuki", "jeep", "lexus", "mini",
+    };
+    private static final int[] SEATS = {2, 4, 5, 7};
+
+    private static final CarFilter[] FILTERS = {
+        CarFilter.ALL.withMinSeats(4).withGrades("A").withPriceRange(0, 3000),
+        CarFilter.ALL.withBrands("bmw", "audi").withGrades("A", "B"),
+        CarFilter.ALL.withBrands("porsche").withMinSeats(4),
+        CarFilter.ALL.withPriceRange(1000, 1500),
+        CarFilter.ALL.withMinSeats(5),
+    };
+
+    private FilterBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxCars = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (int cars = 10_000; cars <= maxCars; cars *= 10) {
+            Random random = new Random(cars);
+            List<CarData> list = new ArrayList<>(cars);
+            int[] prices = new int[cars];
+            for (int i = 0; i < cars; i++) {
+                String brand = BRANDS[skewed(random, BRANDS.length)];
+                prices[i] = 500 + 50 * random.nextInt(300);
+                list.add(new CarData("car" + i, brand, "Model", "golf_r", brand, 120 + random.nextInt(200),
+                        SEATS[random.nextInt(SEATS.length)], prices[i]));
+            }
+            CarCatalog catalog = new CarCatalog(list);
+
+            long bestBuild = Long.MAX_VALUE;
+            CatalogIndex index = null;
+            for (int i = 0; i < Math.min(rounds, 5); i++) {
+                long start = System.nanoTime();
+                index = CatalogIndex.build(catalog, prices);
+                bestBuild = Math.min(bestBuild, System.nanoTime() - start);
+            }
+            System.out.printf("%,d cars: index built in %.1f ms, %,d KB (%.1f bytes/car)%n", cars, bestBuild / 1e6,
+                    index.sizeInBytes() / 1024, (double) index.sizeInBytes() / cars);
+
+            for (CarFilter filter : FILTERS) {
+                int expected = scan(catalog, prices, filter);
+                int actual = index.select(filter).cardinality();
+                if (actual != expected) {
+                    throw new IllegalStateException(filter + ": index found " + actual + ", scan found " + expected);
+                }
+                long bestIndex = Long.MAX_VALUE;
+                long bestScan = Long.MAX_VALUE;
+                for (int i = 0; i < rounds; i++) {
+                    long start = System.nanoTime();
+                    index.select(filter);
+                    bestIndex = Math.min(bestIndex, System.nanoTime() - start);
+                    start = System.nanoTime();
+                    scan(catalog, prices, filter);
+                    bestScan = Math.min(bestScan, System.nanoTime() - start);
+                }
+                System.out.printf("  %,9d matches  index %8.1f us  scan %9.1f us  %s%n", actual, bestIndex / 1e3,
+                        bestScan / 1e3, filter);
+            }
+        }
+    }
+
+    /**
+     * Picks popular brands more often, as in a real fleet.
+     */
+    private static int skewed(Random random, int bound) {
+        return (int) (bound * Math.pow(random.nextDouble(), 2));
+    }
+
+    private static int scan(CarCatalog catalog, int[] prices, CarFilter filter) {
+        int count = 0;
+        for (int i = 0; i < prices.length; i++) {
+            if (filter.matches(catalog.get(i), prices[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,154 @@
+package com.data.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Types queries into a search session one keystroke at a time over a generated fleet and
+ * reports the slowest and average keystroke, compared with searching each prefix afresh,
+ * after checking every result against a scan of all cars.
+ *
+ * <p>Usage: {@code SearchBenchmark [cars] [rounds]}</p>
+ */
+public final class SearchBenchmark {
+
+    // name, model line, image
+    private static final String[][] MODELS = {
+        {"Mercedes Benz", "GLE", "benz_gle"}, {"Mercedes Benz", "C-Class", "benz_c"},
+        {"Land Rover", "Range Rover Sport", "range_rover"}, {"Land Rover", "Defender", "defender"},
+        {"Volkswagen", "Golf GTI", "golf_r"}, {"Volkswagen", "Polo Vivo", "polo"}, {"BMW", "M3", "bmw_m3"},
+        {"BMW", "X5 M", "bmw_x5"}, {"Audi", "RS3 Sportback", "audi_rs3"}, {"Toyota", "Corolla Cross", "corolla"},
+        {"Toyota", "Hilux Raider", "hilux"}, {"Ford", "Ranger Wildtrak", "ranger"}, {"Honda", "Civic Type R", "civic"},
+        {"Kia", "Sportage", "sportage"}, {"Hyundai", "Tucson", "tucson"}, {"Mazda", "CX-5", "mazda_cx5"},
+        {"Nissan", "Navara", "navara"}, {"Porsche", "Cayenne", "cayenne"}, {"Volvo", "XC90", "volvo_xc90"},
+        {"Suzuki", "Swift", "swift"}, {"Jeep", "Wrangler Rubicon", "wrangler"}, {"Lexus", "RX 350", "lexus_rx"},
+    };
+    private static final String[] TRIMS = {"Base", "Comfort", "Sport", "Premium", "Executive", "Limited", "Plus"};
+
+    private static final String[] QUERIES = {
+        "golf", "m3", "range", "range rover sport", "mercedse gle", "toyota corola", "bmw m", "wildtrack",
+    };
+
+    private SearchBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int cars = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Random random = new Random(cars);
+        List<CarData> list = new ArrayList<>(cars);
+        for (int i = 0; i < cars; i++) {
+            String[] model = MODELS[random.nextInt(MODELS.length)];
+            String brand = model[0].toLowerCase().replace(' ', '_');
+            // Trim codes give the fleet a large vocabulary, as dealer stock lists do
+            String line = model[1] + " " + TRIMS[random.nextInt(TRIMS.length)] + " T" + random.nextInt(20_000) + " "
+                    + (2015 + random.nextInt(11));
+            list.add(new CarData("car" + i, model[0], line, model[2], brand, 120 + random.nextInt(200),
+                    4 + random.nextInt(4), 500 + random.nextInt(10_000)));
+        }
+        CarCatalog catalog = new CarCatalog(list);
+        List<List<String>> carWords = new ArrayList<>(cars);
+        for (CarData car : list) {
+            List<String> words = new ArrayList<>();
+            CarSearchIndex.carWords(car, words);
+            carWords.add(words);
+        }
+
+        long start = System.nanoTime();
+        CarSearchIndex index = CarSearchIndex.build(catalog);
+        System.out.printf("%,d cars, %,d words: index built in %.1f ms%n", cars, index.getWordCount(),
+                (System.nanoTime() - start) / 1e6);
+
+        for (String query : QUERIES) {
+            CarSearchIndex.Session check = index.newSession();
+            for (int end = 1; end <= query.length(); end++) {
+                String prefix = query.substring(0, end);
+                int expected = scan(carWords, prefix);
+                int actual = check.search(prefix, () -> false).cardinality();
+                if (actual != expected) {
+                    throw new IllegalStateException("\"" + prefix + "\": index found " + actual + ", scan found "
+                            + expected);
+                }
+            }
+            long bestMax = Long.MAX_VALUE;
+            long bestTotal = Long.MAX_VALUE;
+            long bestFresh = Long.MAX_VALUE;
+            int matches = 0;
+            for (int r = 0; r < rounds; r++) {
+                CarSearchIndex.Session session = index.newSession();
+                long max = 0;
+                long total = 0;
+                long fresh = 0;
+                for (int end = 1; end <= query.length(); end++) {
+                    String prefix = query.substring(0, end);
+                    long keystroke = System.nanoTime();
+                    matches = session.search(prefix, () -> false).cardinality();
+                    keystroke = System.nanoTime() - keystroke;
+                    max = Math.max(max, keystroke);
+                    total += keystroke;
+                    long again = System.nanoTime();
+                    index.newSession().search(prefix, () -> false);
+                    fresh = Math.max(fresh, System.nanoTime() - again);
+                }
+                bestMax = Math.min(bestMax, max);
+                bestTotal = Math.min(bestTotal, total);
+                bestFresh = Math.min(bestFresh, fresh);
+            }
+            System.out.printf("  %-20s %,7d matches  keystroke max %6.3f ms, avg %6.3f ms  (afresh max %6.3f ms)%n",
+                    "\"" + query + "\"", matches, bestMax / 1e6, bestTotal / 1e6 / query.length(), bestFresh / 1e6);
+        }
+    }
+
+    private static int scan(List<List<String>> carWords, String query) {
+        List<String> terms = CarSearchIndex.tokenize(query, new ArrayList<>());
+        int count = 0;
+        for (List<String> words : carWords) {
+            boolean all = true;
+            for (String term : terms) {
+                boolean any = false;
+                for (String word : words) {
+                    if (prefixDistance(term, word) <= CarSearchIndex.maxEdits(term.length())) {
+                        any = true;
+                        break;
+                    }
+                }
+                if (!any) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the fewest edits turning the term into some prefix of the word
+     */
+    private static int prefixDistance(String term, String word) {
+        int[] row = new int[term.length() + 1];
+        for (int j = 0; j <= term.length(); j++) {
+            row[j] = j;
+        }
+        int best = row[term.length()];
+        for (int i = 1; i <= word.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            for (int j = 1; j <= term.length(); j++) {
+                int above = row[j];
+                row[j] = Math.min(diagonal + (term.charAt(j - 1) == word.charAt(i - 1) ? 0 : 1),
+                        Math.min(above, row[j - 1]) + 1);
+                diagonal = above;
+            }
+            best = Math.min(best, row[term.length()]);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,203 @@
+package com.feed;
+
+import java.util.Arrays;
+
+import com.data.CarCatalog;
+import com.pricing.BookingOption;
+import com.pricing.Money;
+import com.pricing.PriceSnapshot;
+import com.pricing.PriceTable;
+
+/**
+ * A numbered batch of fleet changes sent over the kiosk feed: car and option prices, and
+ * cars pulled from or returned to the fleet. Changes are held in parallel arrays and apply
+ * in order.
+ *
+ * <p>A full delta is a snapshot of everything the publisher has changed so far, sent when a
+ * kiosk connects or has missed deltas: cars it does not list as withdrawn are back in the
+ * fleet.</p>
+ */
+public final class FeedDelta {
+
+    /**
+     * What a change does; the value is a daily price in rand for a car, in cents for an
+     * option, and unused for the others.
+     */
+    public enum Kind {
+        CAR_PRICE, OPTION_PRICE, WITHDRAWN, RESTORED;
+
+        private static final Kind[] VALUES = values();
+
+        static Kind of(int code) {
+            if (code < 0 || code >= VALUES.length) {
+                throw new IllegalArgumentException("Unknown change " + code);
+            }
+            return VALUES[code];
+        }
+    }
+
+    private final long sequence;
+    private final boolean full;
+    private final Kind[] kinds;
+    private final String[] keys;
+    private final int[] values;
+
+    FeedDelta(long sequence, boolean full, Kind[] kinds, String[] keys, int[] values) {
+        this.sequence = sequence;
+        this.full = full;
+        this.kinds = kinds;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return the delta's number, one more than the one before it; a full delta carries the
+     *         number of the last delta it includes
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return whether this delta replaces everything received before it
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public int size() {
+        return kinds.length;
+    }
+
+    public Kind getKind(int change) {
+        return kinds[change];
+    }
+
+    /**
+     * @return the car id, or the option name for an option price
+     */
+    public String getKey(int change) {
+        return keys[change];
+    }
+
+    public int getValue(int change) {
+        return values[change];
+    }
+
+    FeedDelta withSequence(long sequence, boolean full) {
+        return new FeedDelta(sequence, full, kinds, keys, values);
+    }
+
+    /**
+     * @return whether any change is a price
+     */
+    public boolean changesPrices() {
+        for (Kind kind : kinds) {
+            if (kind == Kind.CAR_PRICE || kind == Kind.OPTION_PRICE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the price changes to a snapshot. Cars and options the kiosk does not know are
+     * skipped. The version is left for the {@link com.pricing.PriceBook} to set.
+     */
+    public PriceSnapshot applyTo(PriceSnapshot prices) {
+        CarCatalog catalog = prices.getCatalog();
+        int[] carPrices = prices.getCarPrices();
+        PriceTable options = prices.getOptionPrices();
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == Kind.CAR_PRICE) {
+                int car = catalog.indexOf(keys[i]);
+                if (car >= 0) {
+                    carPrices[car] = values[i];
+                }
+            } else if (kinds[i] == Kind.OPTION_PRICE) {
+                BookingOption option = optionNamed(keys[i]);
+                if (option != null) {
+                    options = options.withPrice(option, Money.ofCents(values[i]));
+                }
+            }
+        }
+        return new PriceSnapshot(catalog, options, carPrices);
+    }
+
+    private static BookingOption optionNamed(String name) {
+        try {
+            return BookingOption.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(full ? "full #" : "#").append(sequence).append(' ').append('[');
+        for (int i = 0; i < kinds.length; i++) {
+            text.append(i > 0 ? ", " : "").append(kinds[i]).append(' ').append(keys[i]);
+            if (kinds[i] == Kind.CAR_PRICE || kinds[i] == Kind.OPTION_PRICE) {
+                text.append('=').append(values[i]);
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * Collects changes for {@link FeedPublisher#publish}.
+     */
+    public static final class Builder {
+        private Kind[] kinds = new Kind[8];
+        private String[] keys = new String[8];
+        private int[] values = new int[8];
+        private int size;
+
+        public Builder carPrice(String carId, int rand) {
+            if (rand < 0) {
+                throw new IllegalArgumentException("Price of " + carId + " must not be negative");
+            }
+            return add(Kind.CAR_PRICE, carId, rand);
+        }
+
+        public Builder optionPrice(BookingOption option, Money price) {
+            if (price.getCents() < 0 || price.getCents() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Price of " + option + " out of range: " + price);
+            }
+            return add(Kind.OPTION_PRICE, option.name(), (int) price.getCents());
+        }
+
+        public Builder withdraw(String carId) {
+            return add(Kind.WITHDRAWN, carId, 0);
+        }
+
+        public Builder restore(String carId) {
+            return add(Kind.RESTORED, carId, 0);
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public FeedDelta build() {
+            return new FeedDelta(0, false, Arrays.copyOf(kinds, size), Arrays.copyOf(keys, size),
+                    Arrays.copyOf(values, size));
+        }
+
+        Builder add(Kind kind, String key, int value) {
+            if (FeedProtocol.utf8Length(key) > FeedProtocol.MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Key too long: " + key);
+            }
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            kinds[size] = kind;
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.feed;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Wire format of the kiosk feed. Every frame is big-endian:
+ * <pre>
+ * int  length of the rest of the frame
+ * byte type
+ * long sequence
+ * </pre>
+ * followed by a body depending on the type:
+ * <ul>
+ *   <li>{@link #HELLO}, kiosk to publisher on connecting or after a gap: {@code long epoch}
+ *       of the last full delta received, 0 for none; the sequence is the last delta applied.
+ *       The publisher answers with the deltas after it, or with a full delta if it no longer
+ *       has them or has restarted.</li>
+ *   <li>{@link #DELTA}: the changes.</li>
+ *   <li>{@link #FULL}: {@code long epoch}, then the changes.</li>
+ * </ul>
+ * Changes are a {@code short} count, then for each a {@code byte} kind, a {@code byte} key
+ * length, the key in UTF-8 and an {@code int} value, so a single price change is a
+ * 24 byte frame.
+ */
+final class FeedProtocol {
+    static final byte HELLO = 1;
+    static final byte DELTA = 2;
+    static final byte FULL = 3;
+
+    static final int HEADER_SIZE = 4 + 1 + 8;
+    static final int MAX_KEY_BYTES = 255;
+    static final int MAX_CHANGES = Short.MAX_VALUE;
+    static final int MAX_FRAME_SIZE = 1 << 24;
+
+    private FeedProtocol() {
+    }
+
+    /**
+     * Parses {@code host:port} as a TCP address and anything else as the path of a Unix
+     * domain socket.
+     */
+    static SocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon > 0 && address.indexOf('/') < 0 && address.indexOf('\\') < 0) {
+            try {
+                int port = Integer.parseInt(address.substring(colon + 1));
+                return new InetSocketAddress(address.substring(0, colon), port);
+            } catch (NumberFormatException e) {
+                // Not a port; treat it as a path
+            }
+        }
+        return UnixDomainSocketAddress.of(Path.of(address));
+    }
+
+    static int utf8Length(String key) {
+        return key.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static ByteBuffer hello(long epoch, long lastSequence) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + 8);
+        frame.putInt(frame.capacity() - 4).put(HELLO).putLong(lastSequence).putLong(epoch);
+        return frame.flip();
+    }
+
+    /**
+     * Encodes a delta, as a full delta of the given epoch if the delta is full.
+     */
+    static ByteBuffer encode(FeedDelta delta, long epoch) {
+        if (delta.size() > MAX_CHANGES) {
+            throw new IllegalArgumentException("Too many changes: " + delta.size());
+        }
+        byte[][] keys = new byte[delta.size()][];
+        int size = HEADER_SIZE + (delta.isFull() ? 8 : 0) + 2;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = delta.getKey(i).getBytes(StandardCharsets.UTF_8);
+            size += 1 + 1 + keys[i].length + 4;
+        }
+        ByteBuffer frame = ByteBuffer.allocate(size);
+        frame.putInt(size - 4).put(delta.isFull() ? FULL : DELTA).putLong(delta.getSequence());
+        if (delta.isFull()) {
+            frame.putLong(epoch);
+        }
+        frame.putShort((short) keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            frame.put((byte) delta.getKind(i).ordinal()).put((byte) keys[i].length).put(keys[i])
+                    .putInt(delta.getValue(i));
+        }
+        return frame.flip();
+    }
+
+    /**
+     * Takes the next complete frame off a buffer in read mode.
+     *
+     * @return the frame, or null if the buffer does not hold all of it yet
+     * @throws IOException if the frame is larger than any valid one
+     */
+    static ByteBuffer nextFrame(ByteBuffer in) throws IOException {
+        if (in.remaining() < 4) {
+            return null;
+        }
+        int length = in.getInt(in.position());
+        if (length < HEADER_SIZE - 4 || length > MAX_FRAME_SIZE) {
+            throw new IOException("bad frame length " + length);
+        }
+        if (in.remaining() < 4 + length) {
+            return null;
+        }
+        ByteBuffer frame = in.slice(in.position(), 4 + length);
+        in.position(in.position() + 4 + length);
+        return frame;
+    }
+
+    static byte typeOf(ByteBuffer frame) {
+        return frame.get(4);
+    }
+
+    static long sequenceOf(ByteBuffer frame) {
+        return frame.getLong(5);
+    }
+
+    /**
+     * @return the epoch of a hello or full frame
+     */
+    static long epochOf(ByteBuffer frame) {
+        return frame.getLong(HEADER_SIZE);
+    }
+
+    static FeedDelta decode(ByteBuffer frame) throws IOException {
+        boolean full = typeOf(frame) == FULL;
+        ByteBuffer body = frame.position(HEADER_SIZE + (full ? 8 : 0));
+        try {
+            int count = body.getShort() & 0xFFFF;
+            FeedDelta.Kind[] kinds = new FeedDelta.Kind[count];
+            String[] keys = new String[count];
+            int[] values = new int[count];
+            for (int i = 0; i < count; i++) {
+                kinds[i] = FeedDelta.Kind.of(body.get());
+                byte[] key = new byte[body.get() & 0xFF];
+                body.get(key);
+                keys[i] = new String(key, StandardCharsets.UTF_8);
+                values[i] = body.getInt();
+            }
+            return new FeedDelta(sequenceOf(frame), full, kinds, keys, values);
+        } catch (RuntimeException e) {
+            throw new IOException("bad delta #" + sequenceOf(frame) + ": " + e.getMessage());
+        }
+    }
+}
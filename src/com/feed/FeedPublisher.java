@@ -0,0 +1,316 @@
+package com.feed;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pushes fleet and price changes to every connected kiosk.
+ *
+ * <p>One selector thread accepts kiosks, numbers each published delta, and writes it to
+ * every kiosk without blocking on any of them. The last {@value #HISTORY} deltas are kept
+ * so a kiosk that reconnects is sent just the ones it missed; one that is further behind,
+ * or that last heard from an earlier run of the publisher, gets a full delta instead. A
+ * kiosk that stops reading has its unsent deltas dropped once they pass
+ * {@value #MAX_BACKLOG} bytes; it sees the gap and asks to be resynced.</p>
+ */
+public final class FeedPublisher implements AutoCloseable {
+
+    private static final int HISTORY = 4096;
+    private static final int MAX_BACKLOG = 256 * 1024;
+    private static final int READ_BUFFER_SIZE = 256;
+
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        int outBytes;
+        boolean greeted;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final Selector selector;
+    private final Thread thread;
+    private final long epoch;
+    private final Queue<FeedDelta> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean open = true;
+
+    // Owned by the selector thread
+    private final FeedState state = new FeedState();
+    private final ArrayDeque<ByteBuffer> history = new ArrayDeque<>();
+    private volatile long sequence;
+    private volatile int subscribers;
+    private volatile long dropped;
+
+    private FeedPublisher(ServerSocketChannel server, SocketAddress address) throws IOException {
+        this.server = server;
+        this.address = address;
+        this.selector = Selector.open();
+        long random;
+        do {
+            random = ThreadLocalRandom.current().nextLong();
+        } while (random == 0);
+        this.epoch = random;
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::run, "feed-publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts publishing on an address.
+     *
+     * @param address {@code host:port}, with port 0 for any free port, or the path of a Unix
+     *                domain socket; a stale socket file is replaced
+     */
+    public static FeedPublisher bind(String address) throws IOException {
+        SocketAddress socketAddress = FeedProtocol.parseAddress(address);
+        ServerSocketChannel server;
+        if (socketAddress instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) socketAddress).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        try {
+            server.bind(socketAddress);
+            return new FeedPublisher(server, server.getLocalAddress());
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the bound address, with the actual port if port 0 was asked for
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Sends a delta to every kiosk; it is numbered and sent on the publisher thread.
+     */
+    public void publish(FeedDelta delta) {
+        if (delta.isFull()) {
+            throw new IllegalArgumentException("Full deltas are made by the publisher");
+        }
+        pending.add(delta);
+        selector.wakeup();
+    }
+
+    /**
+     * @return the number of the last delta sent
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers;
+    }
+
+    /**
+     * @return the number of deltas dropped for kiosks that fell behind
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    private void run() {
+        try {
+            while (open) {
+                selector.select();
+                for (FeedDelta delta; (delta = pending.poll()) != null;) {
+                    send(delta);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                read(key, connection);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flush(key, connection);
+                            }
+                        }
+                    } catch (IOException e) {
+                        disconnect(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (open) {
+                System.err.println("Feed publisher stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+            subscribers++;
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        subscribers--;
+    }
+
+    private void send(FeedDelta delta) {
+        long next = sequence + 1;
+        FeedDelta numbered = delta.withSequence(next, false);
+        state.apply(numbered);
+        ByteBuffer frame = FeedProtocol.encode(numbered, epoch);
+        history.addLast(frame);
+        if (history.size() > HISTORY) {
+            history.removeFirst();
+        }
+        sequence = next;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection && key.isValid()) {
+                Connection connection = (Connection) key.attachment();
+                if (connection.greeted) {
+                    queue(key, connection, frame);
+                }
+            }
+        }
+    }
+
+    private void read(SelectionKey key, Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            throw new IOException("closed");
+        }
+        connection.in.flip();
+        try {
+            for (ByteBuffer frame; (frame = FeedProtocol.nextFrame(connection.in)) != null;) {
+                if (FeedProtocol.typeOf(frame) != FeedProtocol.HELLO) {
+                    throw new IOException("unexpected frame");
+                }
+                catchUp(key, connection, FeedProtocol.epochOf(frame), FeedProtocol.sequenceOf(frame));
+            }
+        } finally {
+            connection.in.compact();
+        }
+    }
+
+    /**
+     * Sends a kiosk what it is missing after the last delta it applied, then keeps it current.
+     */
+    private void catchUp(SelectionKey key, Connection connection, long theirEpoch, long theirSequence) {
+        // Anything already queued is covered by the catch-up
+        ByteBuffer partial = connection.out.peekFirst();
+        connection.out.clear();
+        connection.outBytes = 0;
+        if (partial != null && partial.position() > 0) {
+            connection.out.add(partial);
+            connection.outBytes = partial.remaining();
+        }
+        long oldest = sequence - history.size() + 1;
+        if (theirEpoch == epoch && theirSequence <= sequence && theirSequence >= oldest - 1) {
+            for (ByteBuffer frame : history) {
+                if (FeedProtocol.sequenceOf(frame) > theirSequence) {
+                    queue(key, connection, frame);
+                }
+            }
+        } else {
+            queue(key, connection, FeedProtocol.encode(state.toFull(sequence), epoch));
+        }
+        connection.greeted = true;
+    }
+
+    private void queue(SelectionKey key, Connection connection, ByteBuffer frame) {
+        if (connection.outBytes > MAX_BACKLOG) {
+            // Keep only a frame that is half written; the kiosk will see the gap and resync
+            ByteBuffer partial = connection.out.peekFirst();
+            dropped += connection.out.size() - (partial != null && partial.position() > 0 ? 1 : 0);
+            connection.out.clear();
+            connection.outBytes = 0;
+            if (partial != null && partial.position() > 0) {
+                connection.out.add(partial);
+                connection.outBytes = partial.remaining();
+            }
+        }
+        ByteBuffer copy = frame.duplicate();
+        connection.out.addLast(copy);
+        connection.outBytes += copy.remaining();
+        try {
+            flush(key, connection);
+        } catch (IOException e) {
+            disconnect(key);
+        }
+    }
+
+    private void flush(SelectionKey key, Connection connection) throws IOException {
+        while (!connection.out.isEmpty()) {
+            ByteBuffer head = connection.out.peekFirst();
+            int written = connection.channel.write(head);
+            connection.outBytes -= written;
+            if (head.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.out.removeFirst();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Disconnects every kiosk and stops publishing; kiosks keep retrying until a publisher
+     * is back.
+     */
+    @Override
+    public void close() throws IOException {
+        open = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        server.close();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+}
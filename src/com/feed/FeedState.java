@@ -0,0 +1,51 @@
+package com.feed;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything published so far, folded together so a kiosk that connects late or falls
+ * behind can be sent one full delta instead of the whole history.
+ */
+final class FeedState {
+    private final Map<String, Integer> carPrices = new LinkedHashMap<>();
+    private final Map<String, Integer> optionPrices = new LinkedHashMap<>();
+    private final Set<String> withdrawn = new LinkedHashSet<>();
+
+    void apply(FeedDelta delta) {
+        if (delta.isFull()) {
+            carPrices.clear();
+            optionPrices.clear();
+            withdrawn.clear();
+        }
+        for (int i = 0; i < delta.size(); i++) {
+            String key = delta.getKey(i);
+            switch (delta.getKind(i)) {
+                case CAR_PRICE:
+                    carPrices.put(key, delta.getValue(i));
+                    break;
+                case OPTION_PRICE:
+                    optionPrices.put(key, delta.getValue(i));
+                    break;
+                case WITHDRAWN:
+                    withdrawn.add(key);
+                    break;
+                case RESTORED:
+                    withdrawn.remove(key);
+                    break;
+            }
+        }
+    }
+
+    FeedDelta toFull(long sequence) {
+        FeedDelta.Builder builder = new FeedDelta.Builder();
+        carPrices.forEach((car, rand) -> builder.add(FeedDelta.Kind.CAR_PRICE, car, rand));
+        optionPrices.forEach((option, cents) -> builder.add(FeedDelta.Kind.OPTION_PRICE, option, cents));
+        for (String car : withdrawn) {
+            builder.add(FeedDelta.Kind.WITHDRAWN, car, 0);
+        }
+        return builder.build().withSequence(sequence, true);
+    }
+}
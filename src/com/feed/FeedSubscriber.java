@@ -0,0 +1,196 @@
+package com.feed;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Keeps a kiosk connected to a {@link FeedPublisher} and hands it each delta in order.
+ *
+ * <p>A delta arriving after a gap in the numbering is not applied; the subscriber asks the
+ * publisher for what it missed and carries on from there, or from a full delta. When the
+ * connection drops it reconnects with growing pauses of up to a second and picks up where it
+ * left off.</p>
+ */
+public final class FeedSubscriber implements AutoCloseable {
+
+    /**
+     * Receives each delta in order, on the feed thread.
+     */
+    public interface Listener {
+        void deltaReceived(FeedDelta delta);
+    }
+
+    private static final long FIRST_RETRY_MILLIS = 50;
+    private static final long MAX_RETRY_MILLIS = 1000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final SocketAddress address;
+    private final Listener listener;
+    private final Selector selector;
+    private final Thread thread;
+    private volatile boolean open = true;
+    private volatile boolean connected;
+
+    // Owned by the feed thread
+    private ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private long epoch;
+    private volatile long lastSequence;
+    private boolean resyncing;
+    private volatile long resyncs;
+
+    private FeedSubscriber(SocketAddress address, Listener listener) throws IOException {
+        this.address = address;
+        this.listener = listener;
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "feed-subscriber");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts following a publisher; returns at once and keeps trying while it is unreachable.
+     *
+     * @param address {@code host:port} or the path of a Unix domain socket
+     */
+    public static FeedSubscriber connect(String address, Listener listener) throws IOException {
+        return new FeedSubscriber(FeedProtocol.parseAddress(address), listener);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * @return the number of the last delta applied
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return how many times a gap made the subscriber ask to be resynced
+     */
+    public long getResyncCount() {
+        return resyncs;
+    }
+
+    private void run() {
+        long retryMillis = FIRST_RETRY_MILLIS;
+        boolean reported = false;
+        while (open) {
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                in.clear();
+                resyncing = false;
+                write(channel, FeedProtocol.hello(epoch, lastSequence));
+                connected = true;
+                retryMillis = FIRST_RETRY_MILLIS;
+                if (reported) {
+                    System.err.println("Feed reconnected: " + address);
+                    reported = false;
+                }
+                try {
+                    while (open) {
+                        selector.select();
+                        selector.selectedKeys().clear();
+                        if (key.isReadable()) {
+                            read(channel);
+                        }
+                    }
+                } finally {
+                    key.cancel();
+                    selector.selectNow();
+                }
+            } catch (IOException e) {
+                if (open && !reported) {
+                    System.err.println("Feed unavailable, retrying: " + e.getMessage());
+                    reported = true;
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            }
+            connected = false;
+            if (open) {
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void read(SocketChannel channel) throws IOException {
+        if (channel.read(in) < 0) {
+            throw new IOException("publisher closed the connection");
+        }
+        in.flip();
+        for (ByteBuffer frame; (frame = FeedProtocol.nextFrame(in)) != null;) {
+            receive(channel, frame);
+        }
+        if (in.remaining() >= 4 && in.capacity() < 4 + in.getInt(in.position())) {
+            // A frame larger than the buffer; nextFrame has checked its length
+            ByteBuffer larger = ByteBuffer.allocate(4 + in.getInt(in.position()));
+            larger.put(in);
+            in = larger;
+        } else {
+            in.compact();
+        }
+    }
+
+    private void receive(SocketChannel channel, ByteBuffer frame) throws IOException {
+        byte type = FeedProtocol.typeOf(frame);
+        long sequence = FeedProtocol.sequenceOf(frame);
+        if (type == FeedProtocol.FULL) {
+            epoch = FeedProtocol.epochOf(frame);
+        } else if (type != FeedProtocol.DELTA) {
+            throw new IOException("unexpected frame");
+        } else if (sequence <= lastSequence) {
+            return;
+        } else if (sequence != lastSequence + 1) {
+            if (!resyncing) {
+                resyncing = true;
+                resyncs++;
+                write(channel, FeedProtocol.hello(epoch, lastSequence));
+            }
+            return;
+        }
+        FeedDelta delta = FeedProtocol.decode(frame);
+        lastSequence = sequence;
+        resyncing = false;
+        try {
+            listener.deltaReceived(delta);
+        } catch (RuntimeException e) {
+            System.err.println("Feed delta #" + sequence + " failed: " + e);
+        }
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+        // A hello is a few bytes, so the socket buffer always has room
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Disconnects and stops retrying.
+     */
+    @Override
+    public void close() throws IOException {
+        open = false;
+        selector.close();
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
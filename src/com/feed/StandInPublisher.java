@@ -0,0 +1,157 @@
+package com.feed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.data.CarCatalog;
+import com.data.CatalogLoader;
+import com.pricing.BookingOption;
+import com.pricing.Money;
+
+/**
+ * Stands in for the head-office publisher so kiosks can be tried against a feed on one
+ * machine. It reads changes from standard input, one delta per line with changes separated
+ * by {@code ;}:
+ * <pre>
+ * price gle 9900; option BABY_SEAT 75
+ * withdraw m3
+ * restore m3
+ * status
+ * </pre>
+ * With {@code --rate} it also re-prices random catalog cars by up to 10% that many times a
+ * second, and now and then withdraws or restores one.
+ *
+ * <p>Usage: {@code StandInPublisher [address=localhost:7070] [--rate n] [--catalog file]}</p>
+ */
+public final class StandInPublisher {
+
+    private StandInPublisher() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String address = "localhost:7070";
+        double rate = 0;
+        CarCatalog catalog = CarCatalog.sample();
+        for (int i = 0; i < args.length; i++) {
+            String flag = args[i];
+            if (!flag.startsWith("--")) {
+                address = flag;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + flag);
+            }
+            String value = args[++i];
+            switch (flag) {
+                case "--rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "--catalog":
+                    catalog = CatalogLoader.load(Paths.get(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + flag);
+            }
+        }
+
+        try (FeedPublisher publisher = FeedPublisher.bind(address)) {
+            System.out.println("Publishing on " + publisher.getAddress());
+            if (rate > 0) {
+                startRandomChanges(publisher, catalog, rate);
+            }
+            BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = input.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.equals("status")) {
+                    System.out.printf("#%d, %d kiosks, %d deltas dropped%n", publisher.getSequence(),
+                            publisher.getSubscriberCount(), publisher.getDroppedCount());
+                    continue;
+                }
+                try {
+                    publisher.publish(parse(line));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                }
+            }
+            // Standard input closed: keep serving the random changes, if any
+            if (rate > 0) {
+                Thread.currentThread().join();
+            }
+        }
+    }
+
+    private static FeedDelta parse(String line) {
+        FeedDelta.Builder builder = new FeedDelta.Builder();
+        for (String command : line.split(";")) {
+            String[] words = command.trim().split("\\s+");
+            switch (words[0]) {
+                case "price":
+                    expect(words, 3);
+                    builder.carPrice(words[1], Integer.parseInt(words[2]));
+                    break;
+                case "option":
+                    expect(words, 3);
+                    builder.optionPrice(BookingOption.valueOf(words[1]), Money.parse(words[2]));
+                    break;
+                case "withdraw":
+                    expect(words, 2);
+                    builder.withdraw(words[1]);
+                    break;
+                case "restore":
+                    expect(words, 2);
+                    builder.restore(words[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + command.trim());
+            }
+        }
+        return builder.build();
+    }
+
+    private static void expect(String[] words, int count) {
+        if (words.length != count) {
+            throw new IllegalArgumentException("Expected " + (count - 1) + " values after " + words[0]);
+        }
+    }
+
+    private static void startRandomChanges(FeedPublisher publisher, CarCatalog catalog, double rate) {
+        long pauseNanos = (long) (1e9 / rate);
+        Thread thread = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long next = System.nanoTime();
+            while (true) {
+                String car = catalog.get(random.nextInt(catalog.size())).getId();
+                FeedDelta.Builder builder = new FeedDelta.Builder();
+                int roll = random.nextInt(100);
+                if (roll == 0) {
+                    builder.withdraw(car);
+                } else if (roll < 5) {
+                    builder.restore(car);
+                } else {
+                    int price = catalog.get(catalog.indexOf(car)).getPrice();
+                    builder.carPrice(car, Math.max(1, price + random.nextInt(-price / 10, price / 10 + 1)));
+                }
+                publisher.publish(builder.build());
+                next += pauseNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "stand-in-changes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,99 @@
+package com.inventory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+import com.data.filter.CompressedBitmap;
+
+/**
+ * Books generated fleets of 10k, 100k and 1M cars about 20% full over the default horizon
+ * and times single-car checks and whole-fleet availability queries, after checking the
+ * fleet query against asking each car.
+ *
+ * <p>Usage: {@code AvailabilityBenchmark [maxCars] [rounds]}</p>
+ */
+public final class AvailabilityBenchmark {
+
+    private static final int[] DURATIONS = {1, 3, 7, 30};
+
+    private AvailabilityBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxCars = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        LocalDate origin = LocalDate.of(2026, 1, 1);
+        int horizon = AvailabilityCalendar.DEFAULT_HORIZON_DAYS;
+
+        for (int cars = 10_000; cars <= maxCars; cars *= 10) {
+            List<CarData> list = new ArrayList<>(cars);
+            for (int i = 0; i < cars; i++) {
+                list.add(new CarData("car" + i, "Volkswagen", "Golf", "golf_r", "vw", 200, 4, 1000));
+            }
+            CarCatalog catalog = new CarCatalog(list);
+            AvailabilityCalendar calendar = new AvailabilityCalendar(catalog, origin, horizon);
+            Random random = new Random(cars);
+
+            // Rentals of 1 to 14 days with gaps of up to two months, about 20% of the days booked
+            long start = System.nanoTime();
+            int booked = 0;
+            for (int i = 0; i < cars; i++) {
+                String id = catalog.get(i).getId();
+                int day = random.nextInt(60);
+                while (true) {
+                    int length = 1 + random.nextInt(14);
+                    if (day + length > horizon) {
+                        break;
+                    }
+                    if (calendar.reserve(id, origin.plusDays(day), origin.plusDays(day + length)) != null) {
+                        booked++;
+                    }
+                    day += length + random.nextInt(60);
+                }
+            }
+            long reserveTime = System.nanoTime() - start;
+            System.out.printf("%,d cars: %,d reservations at %.0f ns each%n", cars, booked,
+                    (double) reserveTime / booked);
+
+            for (int days : DURATIONS) {
+                LocalDate from = origin.plusDays(100);
+                LocalDate to = from.plusDays(days);
+                CompressedBitmap free = calendar.freeCars(from, to);
+                int expected = 0;
+                for (int car = 0; car < cars; car++) {
+                    boolean isFree = calendar.isFree(car, from, to);
+                    if (isFree != free.contains(car)) {
+                        throw new IllegalStateException("car" + car + " free " + isFree + " but fleet query disagrees");
+                    }
+                    expected += isFree ? 1 : 0;
+                }
+                if (expected != free.cardinality()) {
+                    throw new IllegalStateException("fleet query found " + free.cardinality() + ", cars say "
+                            + expected);
+                }
+                long bestFleet = Long.MAX_VALUE;
+                long bestEach = Long.MAX_VALUE;
+                for (int r = 0; r < rounds; r++) {
+                    long t = System.nanoTime();
+                    calendar.freeCars(from, to);
+                    bestFleet = Math.min(bestFleet, System.nanoTime() - t);
+                    t = System.nanoTime();
+                    int count = 0;
+                    for (int car = 0; car < cars; car++) {
+                        count += calendar.isFree(car, from, to) ? 1 : 0;
+                    }
+                    bestEach = Math.min(bestEach, System.nanoTime() - t);
+                    if (count != expected) {
+                        throw new IllegalStateException("count changed");
+                    }
+                }
+                System.out.printf("  %2d days: %,9d free  fleet query %8.1f us  each car %6.1f ns (%8.1f us)%n",
+                        days, expected, bestFleet / 1e3, (double) bestEach / cars, bestEach / 1e3);
+            }
+        }
+    }
+}
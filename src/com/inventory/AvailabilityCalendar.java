@@ -0,0 +1,550 @@
+package com.inventory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.data.CarCatalog;
+import com.data.filter.CompressedBitmap;
+
+/**
+ * Which cars of a catalog are reserved on each day of a fixed horizon.
+ *
+ * <p>Each day holds a bitset over the fleet with a bit per reserved car, created on the first
+ * reservation touching that day. A car is free for a run of days when its bit is clear on
+ * each of them; the cars free for a run are the complement of the union of its days, worked
+ * out a word at a time, so asking takes about a millisecond at a million cars.
+ * Cars are identified by their catalog index, the same rows {@link CompressedBitmap}s hold.</p>
+ *
+ * <p>Runs are given as a start date and an end date that is not included. Dates before the
+ * horizon's first day or after its last are rejected.</p>
+ *
+ * <p>The calendar is thread safe, and reservations of different cars do not wait for each
+ * other. Checking and booking a car's days happens under one of {@value #STRIPES} locks
+ * chosen by the car, so two bookings of the same car are serialized and cannot overlap.
+ * Bits are set and cleared with atomic word operations, since one word holds the bits of
+ * 64 cars that may be booked under different locks at once. Queries take no lock.</p>
+ *
+ * <p>The calendar lives in one process: booking panels and threads sharing an instance cannot
+ * double-book a car, but separate kiosk processes each have their own calendar and do not see
+ * each other's reservations, and the quote service has none.</p>
+ *
+ * <p>A reservation can be a hold, which lapses at a deadline unless confirmed; see
+ * {@link ReservationManager}. A lapsed hold stops blocking its car as soon as another
+ * booking of that car needs the days.</p>
+ */
+public final class AvailabilityCalendar {
+
+    /**
+     * Receives each reservation as it is made or confirmed and each one cancelled; holds are
+     * not reported until confirmed. Called under the car's lock, so the calls for one car
+     * arrive in the order the changes happened, and so must not block. The call that made the
+     * change waits for the returned future, if any, once the lock is released: a listener
+     * saving changes returns a future completed when the change is on disk.
+     */
+    public interface Listener {
+        CompletableFuture<Void> reserved(Reservation reservation);
+
+        CompletableFuture<Void> cancelled(Reservation reservation);
+    }
+
+    /** How far ahead the kiosk tracks reservations by default. */
+    public static final int DEFAULT_HORIZON_DAYS = 366;
+    private static final int STRIPES = 256;
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final CarCatalog catalog;
+    private final LocalDate origin;
+    private final long originDay;
+    private final int horizonDays;
+    private final int words;
+    /** Reserved cars by day since the origin; null for a day without reservations. */
+    private final AtomicReferenceArray<long[]> reserved;
+    /** The reservations of each car, a {@code List<Reservation>} or null; guarded by the car's stripe. */
+    private final Object[] carReservations;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private volatile Listener listener;
+
+    /**
+     * Creates an empty calendar.
+     *
+     * @param catalog The cars that can be reserved
+     * @param origin The first day tracked, usually today
+     * @param horizonDays How many days are tracked
+     */
+    public AvailabilityCalendar(CarCatalog catalog, LocalDate origin, int horizonDays) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("horizon must be at least 1 day: " + horizonDays);
+        }
+        this.catalog = catalog;
+        this.origin = origin;
+        this.originDay = origin.toEpochDay();
+        this.horizonDays = horizonDays;
+        this.words = (catalog.size() + 63) >>> 6;
+        this.reserved = new AtomicReferenceArray<>(horizonDays);
+        this.carReservations = new Object[catalog.size()];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public CarCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return the first day tracked
+     */
+    public LocalDate getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return the day after the last one tracked
+     */
+    public LocalDate getEnd() {
+        return origin.plusDays(horizonDays);
+    }
+
+    /**
+     * Sets the listener told about reservations from now on.
+     *
+     * @param listener The listener, or null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param car The car's catalog index
+     * @return whether the car has no reservation on any day in {@code [start, end)}
+     * @throws IllegalArgumentException if the run is empty or leaves the horizon
+     */
+    public boolean isFree(int car, LocalDate start, LocalDate end) {
+        int from = dayIndex(start, end);
+        return isFree(car, from, from + days(start, end));
+    }
+
+    /**
+     * @return the catalog indexes of the cars without a reservation on any day in {@code [start, end)}
+     * @throws IllegalArgumentException if the run is empty or leaves the horizon
+     */
+    public CompressedBitmap freeCars(LocalDate start, LocalDate end) {
+        int from = dayIndex(start, end);
+        int to = from + days(start, end);
+        long[] taken = new long[words];
+        for (int day = from; day < to; day++) {
+            long[] row = reserved.get(day);
+            if (row != null) {
+                for (int i = 0; i < words; i++) {
+                    taken[i] |= (long) WORDS.getAcquire(row, i);
+                }
+            }
+        }
+        for (int i = 0; i < words; i++) {
+            taken[i] = ~taken[i];
+        }
+        if ((catalog.size() & 63) != 0) {
+            taken[words - 1] &= (1L << catalog.size()) - 1;
+        }
+        return CompressedBitmap.fromWords(taken);
+    }
+
+    /**
+     * Reserves a car for {@code [start, end)} if it is free on each of those days.
+     *
+     * @return the reservation, or null if the car is already reserved on one of the days
+     * @throws IllegalArgumentException if the car is unknown, or the run is empty or leaves the horizon
+     */
+    public Reservation reserve(String carId, LocalDate start, LocalDate end) {
+        return reserve(carId, start, end, false, 0);
+    }
+
+    /**
+     * Reserves a car, as a hold lapsing at a deadline or outright.
+     *
+     * @param deadline The {@link System#nanoTime()} at which a hold lapses
+     */
+    Reservation reserve(String carId, LocalDate start, LocalDate end, boolean hold, long deadline) {
+        int car = carIndex(carId);
+        int from = dayIndex(start, end);
+        int to = from + days(start, end);
+        ReentrantLock lock = stripe(car);
+        Reservation reservation;
+        CompletableFuture<Void> saved = null;
+        lock.lock();
+        try {
+            if (!isFree(car, from, to) && (!dropLapsedHolds(car) || !isFree(car, from, to))) {
+                return null;
+            }
+            reservation = new Reservation(nextId.getAndIncrement(), car, carId, start, end, hold, deadline);
+            add(reservation, from, to);
+            Listener current = listener;
+            if (current != null && !hold) {
+                saved = current.reserved(reservation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitSaved(saved);
+        return reservation;
+    }
+
+    /**
+     * Frees the days of a reservation or hold.
+     *
+     * @return false if it was already cancelled or freed after lapsing, or belongs to another calendar
+     */
+    public boolean cancel(Reservation reservation) {
+        if (!owns(reservation)) {
+            return false;
+        }
+        ReentrantLock lock = stripe(reservation.getCar());
+        CompletableFuture<Void> saved = null;
+        lock.lock();
+        try {
+            if (!remove(reservation)) {
+                return false;
+            }
+            Listener current = listener;
+            if (current != null && !reservation.isHold()) {
+                saved = current.cancelled(reservation);
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitSaved(saved);
+        return true;
+    }
+
+    /**
+     * Turns a hold into a reservation unless it has lapsed; a lapsed hold is freed.
+     *
+     * @return whether the car is now reserved
+     */
+    boolean confirm(Reservation hold) {
+        if (!owns(hold)) {
+            return false;
+        }
+        ReentrantLock lock = stripe(hold.getCar());
+        CompletableFuture<Void> saved = null;
+        lock.lock();
+        try {
+            if (!reservationsOf(hold.getCar()).contains(hold)) {
+                return false;
+            }
+            if (hold.hasLapsed(System.nanoTime())) {
+                remove(hold);
+                return false;
+            }
+            hold.confirm();
+            Listener current = listener;
+            if (current != null) {
+                saved = current.reserved(hold);
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitSaved(saved);
+        return true;
+    }
+
+    /**
+     * Waits, without holding a car's lock, for the listener to save a change.
+     */
+    private static void awaitSaved(CompletableFuture<Void> saved) {
+        if (saved == null) {
+            return;
+        }
+        try {
+            saved.join();
+        } catch (CompletionException | CancellationException e) {
+            // Reported by the listener; the change stands in memory
+        }
+    }
+
+    /**
+     * Puts back a reservation saved earlier, keeping its id, without telling the listener.
+     * The part outside the horizon is left out.
+     *
+     * @return false if the car is unknown, the reservation lies outside the horizon or the
+     *         car is already reserved on one of its days
+     */
+    boolean restore(long id, String carId, LocalDate start, LocalDate end) {
+        // Even a booking that is not put back keeps its id from being reused
+        nextId.accumulateAndGet(id + 1, Math::max);
+        int car = catalog.indexOf(carId);
+        long from = Math.max(start.toEpochDay() - originDay, 0);
+        long to = Math.min(end.toEpochDay() - originDay, horizonDays);
+        if (car < 0 || to <= from) {
+            return false;
+        }
+        ReentrantLock lock = stripe(car);
+        lock.lock();
+        try {
+            if (!isFree(car, (int) from, (int) to)) {
+                return false;
+            }
+            add(new Reservation(id, car, carId, origin.plusDays(from), origin.plusDays(to), false, 0), (int) from,
+                    (int) to);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels a car's reservation by id without telling the listener, as when replaying a log.
+     *
+     * @return false if the car has no reservation with that id
+     */
+    boolean restoreCancel(String carId, long id) {
+        int car = catalog.indexOf(carId);
+        if (car < 0) {
+            return false;
+        }
+        ReentrantLock lock = stripe(car);
+        lock.lock();
+        try {
+            for (Reservation reservation : reservationsOf(car)) {
+                if (reservation.getId() == id) {
+                    return remove(reservation);
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a hold if it has lapsed.
+     *
+     * @return whether it was freed
+     */
+    boolean expire(Reservation hold, long now) {
+        if (!owns(hold) || !hold.hasLapsed(now)) {
+            return false;
+        }
+        ReentrantLock lock = stripe(hold.getCar());
+        lock.lock();
+        try {
+            return hold.hasLapsed(now) && remove(hold);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of reservations and holds held
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return a copy of a car's reservations and holds
+     */
+    public List<Reservation> reservationsOf(String carId) {
+        int car = carIndex(carId);
+        ReentrantLock lock = stripe(car);
+        lock.lock();
+        try {
+            return new ArrayList<>(reservationsOf(car));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the reservations listed in a file, one {@code car,start,end} line each with ISO dates
+     * and the end not included. Blank lines and lines starting with {@code #} are skipped.
+     * Reservations are clipped to the horizon, and ones entirely outside it are skipped.
+     *
+     * @return the number of reservations added
+     * @throws IOException if the file cannot be read, or a line is malformed, names an unknown
+     *         car or overlaps an earlier reservation; lines before it stay reserved
+     */
+    public int load(Path file) throws IOException {
+        int added = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s*,\\s*");
+                if (fields.length != 3) {
+                    throw new IOException(file + ":" + lineNumber + ": expected car,start,end");
+                }
+                if (catalog.indexOf(fields[0]) < 0) {
+                    throw new IOException(file + ":" + lineNumber + ": unknown car " + fields[0]);
+                }
+                LocalDate start;
+                LocalDate end;
+                try {
+                    start = LocalDate.parse(fields[1]);
+                    end = LocalDate.parse(fields[2]);
+                } catch (DateTimeParseException e) {
+                    throw new IOException(file + ":" + lineNumber + ": bad date " + e.getParsedString());
+                }
+                if (!end.isAfter(start)) {
+                    throw new IOException(file + ":" + lineNumber + ": end must be after start");
+                }
+                if (start.isBefore(origin)) {
+                    start = origin;
+                }
+                if (end.isAfter(getEnd())) {
+                    end = getEnd();
+                }
+                if (!end.isAfter(start)) {
+                    continue;
+                }
+                if (reserve(fields[0], start, end) == null) {
+                    throw new IOException(file + ":" + lineNumber + ": " + fields[0] + " is already reserved");
+                }
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private boolean isFree(int car, int from, int to) {
+        int word = car >>> 6;
+        long bit = 1L << car;
+        for (int day = from; day < to; day++) {
+            long[] row = reserved.get(day);
+            if (row != null && ((long) WORDS.getAcquire(row, word) & bit) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBits(int car, int from, int to, boolean set) {
+        int word = car >>> 6;
+        long bit = 1L << car;
+        for (int day = from; day < to; day++) {
+            long[] row = reserved.get(day);
+            if (row == null) {
+                reserved.compareAndSet(day, null, new long[words]);
+                row = reserved.get(day);
+            }
+            if (set) {
+                WORDS.getAndBitwiseOr(row, word, bit);
+            } else {
+                WORDS.getAndBitwiseAnd(row, word, ~bit);
+            }
+        }
+    }
+
+    /**
+     * Frees the lapsed holds of a car; call with the car's stripe held.
+     *
+     * @return whether any were freed
+     */
+    private boolean dropLapsedHolds(int car) {
+        long now = System.nanoTime();
+        boolean dropped = false;
+        for (Reservation reservation : new ArrayList<>(reservationsOf(car))) {
+            if (reservation.hasLapsed(now)) {
+                dropped |= remove(reservation);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Records a reservation and sets its days; call with the car's stripe held.
+     */
+    private void add(Reservation reservation, int from, int to) {
+        setBits(reservation.getCar(), from, to, true);
+        reservationsOf(reservation.getCar()).add(reservation);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Removes a reservation and clears its days, without telling the listener; call with the
+     * car's stripe held.
+     */
+    private boolean remove(Reservation reservation) {
+        int car = reservation.getCar();
+        List<Reservation> list = reservationsOf(car);
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == reservation) {
+                list.remove(i);
+                if (list.isEmpty()) {
+                    carReservations[car] = null;
+                }
+                int from = dayIndex(reservation.getStart(), reservation.getEnd());
+                setBits(car, from, from + reservation.getDays(), false);
+                size.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Reservation> reservationsOf(int car) {
+        Object list = carReservations[car];
+        if (list == null) {
+            list = new ArrayList<Reservation>(2);
+            carReservations[car] = list;
+        }
+        return (List<Reservation>) list;
+    }
+
+    private boolean owns(Reservation reservation) {
+        int car = reservation.getCar();
+        return car < catalog.size() && reservation.getCarId().equals(catalog.get(car).getId());
+    }
+
+    private ReentrantLock stripe(int car) {
+        return stripes[car & (STRIPES - 1)];
+    }
+
+    private int carIndex(String carId) {
+        int car = catalog.indexOf(carId);
+        if (car < 0) {
+            throw new IllegalArgumentException("unknown car: " + carId);
+        }
+        return car;
+    }
+
+    private int dayIndex(LocalDate start, LocalDate end) {
+        long from = start.toEpochDay() - originDay;
+        long to = end.toEpochDay() - originDay;
+        if (to <= from) {
+            throw new IllegalArgumentException("end must be after start: " + start + ".." + end);
+        }
+        if (from < 0 || to > horizonDays) {
+            throw new IllegalArgumentException(start + ".." + end + " is outside " + origin + ".." + getEnd());
+        }
+        return (int) from;
+    }
+
+    private static int days(LocalDate start, LocalDate end) {
+        return (int) (end.toEpochDay() - start.toEpochDay());
+    }
+}
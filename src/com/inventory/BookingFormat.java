@@ -0,0 +1,117 @@
+package com.inventory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On-disk layout of a {@link BookingStore}.
+ *
+ * <p>The log is a series of segment files named {@code bookings-<first sequence>.log}, each
+ * a run of 64 byte records, little-endian:</p>
+ * <pre>
+ *  0 long  sequence, counting from 1 across segments
+ *  8 long  reservation id
+ * 16 int   start, epoch day
+ * 20 int   end, epoch day, not included
+ * 24 byte  type: 1 reserved, 2 cancelled
+ * 25 byte  car id length in bytes
+ * 26 byte[34] car id, UTF-8
+ * 60 int   CRC-32 of bytes 0 to 59
+ * </pre>
+ *
+ * <p>A record that fails its checksum or breaks the sequence ends its segment; it was torn by
+ * a crash before it was forced, so no commit waited on it. Recovery cuts the segment short
+ * before it, and the segment started after recovery carries on the sequence. A segment that
+ * starts past a gap in the sequence is renamed {@code .log.unreplayed} and left alone.</p>
+ *
+ * <p>An open store holds a lock on {@code bookings.lock}, so only one process writes the
+ * directory at a time.</p>
+ *
+ * <p>A snapshot, {@code bookings-<last sequence>.snapshot}, holds every booking made up to
+ * and including a sequence, in columns after a 64 byte header:</p>
+ * <pre>
+ * header:  int magic, int version, long sequence, int bookings, int cars, long file length
+ * columns: long[bookings] ids, int[bookings] starts, int[bookings] ends, int[bookings] car numbers
+ * cars:    int[cars + 1] offsets into the bytes that follow, then the car ids in UTF-8
+ * </pre>
+ */
+final class BookingFormat {
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int RECORD_SIZE = 64;
+    static final int SEQUENCE_OFFSET = 0;
+    static final int ID_OFFSET = 8;
+    static final int START_OFFSET = 16;
+    static final int END_OFFSET = 20;
+    static final int TYPE_OFFSET = 24;
+    static final int CAR_ID_LENGTH_OFFSET = 25;
+    static final int CAR_ID_OFFSET = 26;
+    static final int CHECKSUM_OFFSET = 60;
+    static final int MAX_CAR_ID_BYTES = CHECKSUM_OFFSET - CAR_ID_OFFSET;
+
+    static final byte RESERVED = 1;
+    static final byte CANCELLED = 2;
+
+    static final int SNAPSHOT_MAGIC = 0x50534B42; // "BKSP" read little-endian
+    static final int SNAPSHOT_VERSION = 1;
+    static final int SNAPSHOT_HEADER_SIZE = 64;
+    static final int SNAPSHOT_VERSION_OFFSET = 4;
+    static final int SNAPSHOT_SEQUENCE_OFFSET = 8;
+    static final int SNAPSHOT_BOOKINGS_OFFSET = 16;
+    static final int SNAPSHOT_CARS_OFFSET = 20;
+    static final int SNAPSHOT_LENGTH_OFFSET = 24;
+
+    private static final String PREFIX = "bookings-";
+    static final String LOG_SUFFIX = ".log";
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+    static final String UNREPLAYED_SUFFIX = ".unreplayed";
+    static final String LOCK_FILE = "bookings.lock";
+
+    private BookingFormat() {
+    }
+
+    static Path logPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%015d%s", PREFIX, firstSequence, LOG_SUFFIX));
+    }
+
+    static Path snapshotPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%015d%s", PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * @return the sequence number in a log or snapshot file name with the given suffix, or -1
+     */
+    static long sequenceOf(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(suffix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the files with the given suffix in sequence order
+     */
+    static List<Path> list(Path directory, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path file : entries) {
+                if (sequenceOf(file, suffix) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files, (a, b) -> Long.compare(sequenceOf(a, suffix), sequenceOf(b, suffix)));
+        return files;
+    }
+}
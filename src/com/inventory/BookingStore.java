@@ -0,0 +1,605 @@
+package com.inventory;
+
+import static com.inventory.BookingFormat.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the bookings of an {@link AvailabilityCalendar} on disk.
+ *
+ * <p>Every reservation made or cancelled is appended to a write-ahead log, and the call that
+ * made it returns only once the record is forced to disk. A single writer thread takes every
+ * record waiting when it comes round and forces them together, so concurrent bookings share
+ * one fsync (group commit) and the more bookings commit at once, the more each force carries.
+ * See {@link BookingFormat} for the files.</p>
+ *
+ * <p>The writer also keeps every booking, past ones included, in a compact table in log
+ * order. Every {@link #SNAPSHOT_EVERY} records it starts a new log segment and hands a copy
+ * of the table to a background thread, which writes it as a snapshot and then deletes the
+ * snapshots and segments it replaces. On {@link #open}, the latest snapshot is mapped and
+ * read in bulk, and only the log written after it is replayed.</p>
+ *
+ * <p>If the disk fails the store stops: bookings keep working in memory, the failure is
+ * reported once, and {@link #close} rethrows it.</p>
+ */
+public final class BookingStore implements AutoCloseable {
+
+    /** The number of log records after which a snapshot is taken. */
+    public static final int SNAPSHOT_EVERY = 1 << 16;
+
+    private static final int MAX_GROUP = 4096;
+    private static final long IDLE_POLL_MILLIS = 200;
+    private static final Runnable STOP = () -> { };
+
+    private static final class Entry {
+        final byte type;
+        final long id;
+        final String carId;
+        final byte[] carIdBytes;
+        final int start;
+        final int end;
+        final CompletableFuture<Void> forced = new CompletableFuture<>();
+
+        Entry(byte type, long id, String carId, byte[] carIdBytes, int start, int end) {
+            this.type = type;
+            this.id = id;
+            this.carId = carId;
+            this.carIdBytes = carIdBytes;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final Path directory;
+    private final FileLock lock; // Held until the log is closed
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Thread snapshotter;
+    private final BlockingQueue<Runnable> snapshots = new LinkedBlockingQueue<>();
+    private volatile boolean open = true;
+    private volatile IOException failure;
+    private final AvailabilityCalendar calendar;
+
+    // Recovery statistics
+    private final boolean isNew;
+    private final int restored;
+    private final int replayed;
+    private final long recoveryNanos;
+
+    // Counters written by the writer thread
+    private volatile long committed;
+    private volatile long forces;
+
+    // Owned by the writer thread
+    private final BookingTable table;
+    private long sequence;
+    private long snapshotSequence;
+    private FileChannel log;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_GROUP * RECORD_SIZE).order(ORDER);
+    private final CRC32 crc = new CRC32();
+
+    private BookingStore(Path directory, FileLock lock, AvailabilityCalendar calendar, BookingTable table,
+            long sequence, long snapshotSequence, boolean isNew, int restored, int replayed, long recoveryNanos)
+            throws IOException {
+        this.directory = directory;
+        this.lock = lock;
+        this.isNew = isNew;
+        this.calendar = calendar;
+        this.table = table;
+        this.sequence = sequence;
+        this.snapshotSequence = snapshotSequence;
+        this.restored = restored;
+        this.replayed = replayed;
+        this.recoveryNanos = recoveryNanos;
+        startSegment();
+
+        this.writer = new Thread(this::writeLoop, "booking-log");
+        writer.setDaemon(true);
+        this.snapshotter = new Thread(this::snapshotLoop, "booking-snapshot");
+        snapshotter.setDaemon(true);
+        writer.start();
+        snapshotter.start();
+        calendar.setListener(new AvailabilityCalendar.Listener() {
+            @Override
+            public CompletableFuture<Void> reserved(Reservation reservation) {
+                return commit(RESERVED, reservation);
+            }
+
+            @Override
+            public CompletableFuture<Void> cancelled(Reservation reservation) {
+                return commit(CANCELLED, reservation);
+            }
+        });
+    }
+
+    /**
+     * Restores the saved bookings into an empty calendar and logs every change made to it
+     * from now on. Bookings outside the calendar's horizon, or of cars it does not know, are
+     * kept on disk but not put in the calendar.
+     *
+     * @param directory The directory holding the log and snapshots; created if missing
+     * @throws IOException if the directory or the latest snapshot cannot be read, or another
+     *         store has the directory open
+     */
+    public static BookingStore open(Path directory, AvailabilityCalendar calendar) throws IOException {
+        long startTime = System.nanoTime();
+        Files.createDirectories(directory);
+        FileLock lock = lock(directory);
+        try {
+            return recover(directory, calendar, lock, startTime);
+        } catch (IOException | RuntimeException e) {
+            lock.channel().close();
+            throw e;
+        }
+    }
+
+    /**
+     * Locks the directory for this process, so that two kiosks never write the same segments.
+     */
+    private static FileLock lock(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Booking directory " + directory + " is in use by another booking store");
+        }
+        return lock;
+    }
+
+    private static BookingStore recover(Path directory, AvailabilityCalendar calendar, FileLock lock, long startTime)
+            throws IOException {
+        List<Path> snapshotFiles = list(directory, SNAPSHOT_SUFFIX);
+        Path latest = snapshotFiles.isEmpty() ? null : snapshotFiles.get(snapshotFiles.size() - 1);
+        BookingTable table = latest != null ? readSnapshot(latest) : new BookingTable(1024);
+        long snapshotSequence = latest != null ? sequenceOf(latest, SNAPSHOT_SUFFIX) : 0;
+        int restored = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (calendar.restore(table.id(row), table.carId(row), LocalDate.ofEpochDay(table.start(row)),
+                    LocalDate.ofEpochDay(table.end(row)))) {
+                restored++;
+            }
+        }
+        long sequence = snapshotSequence;
+        int replayed = 0;
+        for (Path segment : list(directory, LOG_SUFFIX)) {
+            if (sequenceOf(segment, LOG_SUFFIX) > sequence + 1) {
+                // Records before this segment are missing, so its own cannot be applied
+                Path aside = segment.resolveSibling(segment.getFileName() + UNREPLAYED_SUFFIX);
+                Files.move(segment, aside, StandardCopyOption.REPLACE_EXISTING);
+                System.err.println("Booking log " + segment + " follows a gap after record " + sequence
+                        + "; kept as " + aside.getFileName());
+                continue;
+            }
+            long[] last = {sequence};
+            int[] count = {0};
+            long intact = replay(segment, sequence, (type, id, carId, start, end) -> {
+                if (type == RESERVED) {
+                    table.add(id, carId, start, end);
+                    calendar.restore(id, carId, LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end));
+                } else {
+                    table.remove(id);
+                    calendar.restoreCancel(carId, id);
+                }
+                count[0]++;
+            }, last);
+            sequence = last[0];
+            replayed += count[0];
+            if (intact < Files.size(segment)) {
+                // Anything after a torn record was never acknowledged. Cut it off, so the
+                // next recovery reads on into the segments written after this one
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    channel.truncate(intact);
+                    channel.force(true);
+                }
+            }
+        }
+        return new BookingStore(directory, lock, calendar, table, sequence, snapshotSequence,
+                latest == null && replayed == 0, restored, replayed, System.nanoTime() - startTime);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return whether the directory held no bookings when the store was opened
+     */
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * @return the number of bookings put back into the calendar from the snapshot
+     */
+    public int getRestoredCount() {
+        return restored;
+    }
+
+    /**
+     * @return the number of log records replayed after the snapshot
+     */
+    public int getReplayedCount() {
+        return replayed;
+    }
+
+    /**
+     * @return how long {@link #open} took to read the snapshot and log, in milliseconds
+     */
+    public double getRecoveryMillis() {
+        return recoveryNanos / 1e6;
+    }
+
+    /**
+     * @return the number of records forced to the log since opening
+     */
+    public long getCommittedCount() {
+        return committed;
+    }
+
+    /**
+     * @return the number of times the log was forced; commits per force shows the grouping
+     */
+    public long getForceCount() {
+        return forces;
+    }
+
+    /**
+     * Queues a record for the writer, in the order the calendar made the changes.
+     *
+     * @return a future completed once the record is forced, or null if the store is closed
+     */
+    private CompletableFuture<Void> commit(byte type, Reservation reservation) {
+        if (!open) {
+            return null;
+        }
+        byte[] carId = reservation.getCarId().getBytes(StandardCharsets.UTF_8);
+        if (carId.length > MAX_CAR_ID_BYTES) {
+            // The catalog refuses such ids; a cut-short one would not match its car on recovery
+            IOException e = new IOException("Booking " + reservation.getId() + " not saved: car id is longer than "
+                    + MAX_CAR_ID_BYTES + " bytes: " + reservation.getCarId());
+            System.err.println(e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+        Entry entry = new Entry(type, reservation.getId(), reservation.getCarId(), carId,
+                (int) reservation.getStart().toEpochDay(), (int) reservation.getEnd().toEpochDay());
+        queue.add(entry);
+        return entry.forced;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_GROUP);
+        try {
+            while (open || !queue.isEmpty()) {
+                Entry first;
+                try {
+                    first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_GROUP - 1);
+                write(batch);
+                for (Entry entry : batch) {
+                    entry.forced.complete(null);
+                }
+                batch.clear();
+                if (sequence - snapshotSequence >= SNAPSHOT_EVERY) {
+                    takeSnapshot();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            open = false;
+            System.err.println("Booking log stopped: " + e.getMessage());
+            for (Entry entry : batch) {
+                entry.forced.completeExceptionally(e);
+            }
+            for (Entry entry; (entry = queue.poll()) != null;) {
+                entry.forced.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) throws IOException {
+        buffer.clear();
+        for (Entry entry : batch) {
+            sequence++;
+            int offset = buffer.position();
+            byte[] carId = entry.carIdBytes;
+            int length = carId.length;
+            buffer.putLong(offset + SEQUENCE_OFFSET, sequence);
+            buffer.putLong(offset + ID_OFFSET, entry.id);
+            buffer.putInt(offset + START_OFFSET, entry.start);
+            buffer.putInt(offset + END_OFFSET, entry.end);
+            buffer.put(offset + TYPE_OFFSET, entry.type);
+            buffer.put(offset + CAR_ID_LENGTH_OFFSET, (byte) length);
+            for (int i = 0; i < MAX_CAR_ID_BYTES; i++) {
+                buffer.put(offset + CAR_ID_OFFSET + i, i < length ? carId[i] : 0);
+            }
+            crc.reset();
+            crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+            buffer.putInt(offset + CHECKSUM_OFFSET, (int) crc.getValue());
+            buffer.position(offset + RECORD_SIZE);
+            if (entry.type == RESERVED) {
+                table.add(entry.id, entry.carId, entry.start, entry.end);
+            } else {
+                table.remove(entry.id);
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        log.force(false);
+        forces++;
+        committed += batch.size();
+    }
+
+    /**
+     * Starts a new log segment and queues a copy of the table for the snapshot thread.
+     */
+    private void takeSnapshot() throws IOException {
+        BookingTable copy = table.copy();
+        long covered = sequence;
+        snapshotSequence = covered;
+        startSegment();
+        snapshots.add(() -> {
+            try {
+                writeSnapshot(directory, copy, covered);
+                deleteReplaced(covered);
+            } catch (IOException e) {
+                System.err.println("Booking snapshot failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void snapshotLoop() {
+        try {
+            for (Runnable task; (task = snapshots.take()) != STOP;) {
+                task.run();
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        log = FileChannel.open(logPath(directory, sequence + 1), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Deletes the snapshots older than the one covering a sequence, and the log segments
+     * holding only records it covers.
+     */
+    private void deleteReplaced(long covered) throws IOException {
+        for (Path file : list(directory, SNAPSHOT_SUFFIX)) {
+            if (sequenceOf(file, SNAPSHOT_SUFFIX) < covered) {
+                Files.deleteIfExists(file);
+            }
+        }
+        // A segment is named after its first record, so it ends where the next one begins
+        for (Path file : list(directory, LOG_SUFFIX)) {
+            if (sequenceOf(file, LOG_SUFFIX) <= covered) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Writes a table as a snapshot covering the log up to a sequence, via a temporary file so
+     * a crash never leaves half a snapshot under the real name.
+     */
+    static void writeSnapshot(Path directory, BookingTable table, long covered) throws IOException {
+        int bookings = table.size();
+        List<String> carIds = table.carIds();
+        byte[][] names = new byte[carIds.size()][];
+        long nameBytes = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = carIds.get(i).getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[i].length;
+        }
+        long length = SNAPSHOT_HEADER_SIZE + 20L * bookings + 4L * (names.length + 1) + nameBytes;
+        Path temporary = directory.resolve("bookings.snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            out.order(ORDER);
+            out.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(covered).putInt(bookings)
+                    .putInt(names.length).putLong(length);
+            out.position(SNAPSHOT_HEADER_SIZE);
+            out.asLongBuffer().put(table.idColumn(), 0, bookings);
+            out.position(out.position() + 8 * bookings);
+            out.asIntBuffer().put(table.startColumn(), 0, bookings);
+            out.position(out.position() + 4 * bookings);
+            out.asIntBuffer().put(table.endColumn(), 0, bookings);
+            out.position(out.position() + 4 * bookings);
+            out.asIntBuffer().put(table.carColumn(), 0, bookings);
+            out.position(out.position() + 4 * bookings);
+            int offset = 0;
+            for (byte[] name : names) {
+                out.putInt(offset);
+                offset += name.length;
+            }
+            out.putInt(offset);
+            for (byte[] name : names) {
+                out.put(name);
+            }
+            out.force();
+        }
+        Files.move(temporary, snapshotPath(directory, covered), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static BookingTable readSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SNAPSHOT_HEADER_SIZE) {
+                throw new IOException(file + ": not a booking snapshot");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            in.order(ORDER);
+            if (in.getInt(0) != SNAPSHOT_MAGIC) {
+                throw new IOException(file + ": not a booking snapshot");
+            }
+            if (in.getInt(SNAPSHOT_VERSION_OFFSET) != SNAPSHOT_VERSION) {
+                throw new IOException(file + ": unsupported snapshot version " + in.getInt(SNAPSHOT_VERSION_OFFSET));
+            }
+            if (in.getLong(SNAPSHOT_LENGTH_OFFSET) != size) {
+                throw new IOException(file + ": truncated, " + size + " of " + in.getLong(SNAPSHOT_LENGTH_OFFSET)
+                        + " bytes");
+            }
+            int bookings = in.getInt(SNAPSHOT_BOOKINGS_OFFSET);
+            int cars = in.getInt(SNAPSHOT_CARS_OFFSET);
+            long[] ids = new long[bookings];
+            int[] starts = new int[bookings];
+            int[] ends = new int[bookings];
+            int[] carColumn = new int[bookings];
+            in.position(SNAPSHOT_HEADER_SIZE);
+            in.asLongBuffer().get(ids);
+            in.position(in.position() + 8 * bookings);
+            in.asIntBuffer().get(starts);
+            in.position(in.position() + 4 * bookings);
+            in.asIntBuffer().get(ends);
+            in.position(in.position() + 4 * bookings);
+            in.asIntBuffer().get(carColumn);
+            in.position(in.position() + 4 * bookings);
+            int[] offsets = new int[cars + 1];
+            in.asIntBuffer().get(offsets);
+            int names = in.position() + 4 * (cars + 1);
+            String[] carIds = new String[cars];
+            byte[] bytes = new byte[offsets[cars]];
+            in.get(names, bytes);
+            for (int i = 0; i < cars; i++) {
+                carIds[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+            }
+            BookingTable table = new BookingTable(bookings);
+            table.load(ids, starts, ends, carColumn, carIds);
+            return table;
+        }
+    }
+
+    private interface RecordHandler {
+        void apply(byte type, long id, String carId, int start, int end);
+    }
+
+    /**
+     * Applies the records of a segment that follow a sequence.
+     *
+     * @param last Receives the sequence of the last good record
+     * @return the length of the segment up to its first torn record or gap in the sequence,
+     *         which is its whole length if it has neither
+     */
+    private static long replay(Path segment, long after, RecordHandler handler, long[] last) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            // Read rather than mapped, as a torn segment is truncated next and some systems
+            // refuse to truncate a file that is still mapped
+            ByteBuffer in = ByteBuffer.allocate((int) size).order(ORDER);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // Keep reading
+            }
+            CRC32 check = new CRC32();
+            int offset = 0;
+            for (; offset + RECORD_SIZE <= size; offset += RECORD_SIZE) {
+                check.reset();
+                check.update(in.slice(offset, CHECKSUM_OFFSET));
+                long sequence = in.getLong(offset + SEQUENCE_OFFSET);
+                if ((int) check.getValue() != in.getInt(offset + CHECKSUM_OFFSET)
+                        || (sequence > after && sequence != last[0] + 1)) {
+                    return offset;
+                }
+                if (sequence <= after) {
+                    continue;
+                }
+                byte[] carId = new byte[in.get(offset + CAR_ID_LENGTH_OFFSET)];
+                in.get(offset + CAR_ID_OFFSET, carId);
+                handler.apply(in.get(offset + TYPE_OFFSET), in.getLong(offset + ID_OFFSET),
+                        new String(carId, StandardCharsets.UTF_8), in.getInt(offset + START_OFFSET),
+                        in.getInt(offset + END_OFFSET));
+                last[0] = sequence;
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Stops logging, forces everything already committed, and writes a final snapshot so the
+     * next start has no log to replay.
+     *
+     * @throws IOException if the log or the final snapshot could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        closeLog();
+        if (failure == null && sequence > snapshotSequence) {
+            writeSnapshot(directory, table, sequence);
+            deleteReplaced(sequence);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops the threads and closes the log without a final snapshot, as a crash would leave it.
+     */
+    void closeLog() throws IOException {
+        calendar.setListener(null);
+        open = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A commit that raced with closing is not on disk
+        IOException closed = new IOException("booking store closed");
+        for (Entry entry; (entry = queue.poll()) != null;) {
+            entry.forced.completeExceptionally(closed);
+        }
+        snapshots.add(STOP);
+        try {
+            snapshotter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+        lock.channel().close();
+    }
+}
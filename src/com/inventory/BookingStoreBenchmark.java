@@ -0,0 +1,178 @@
+package com.inventory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Saves a snapshot of a fleet with the given number of bookings, commits a tail of new
+ * bookings and cancellations from several threads, and stops the store as a crash would.
+ * It then times recovery from the snapshot and log, checks that every acknowledged booking
+ * came back, and does the same after a crash that tears a record, after a second crash that
+ * follows it, and after a clean close.
+ *
+ * <p>Usage: {@code BookingStoreBenchmark [bookings] [tail] [threads] [directory]}</p>
+ */
+public final class BookingStoreBenchmark {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2026, 1, 1);
+    private static final int BOOKINGS_PER_CAR = 10;
+    private static final int SPACING = 30;
+
+    private BookingStoreBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int tail = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Path directory = args.length > 3 ? Path.of(args[3]) : Files.createTempDirectory("bookings");
+
+        int cars = Math.max(1, bookings / BOOKINGS_PER_CAR);
+        List<CarData> list = new ArrayList<>(cars);
+        for (int i = 0; i < cars; i++) {
+            list.add(new CarData("car" + i, "Volkswagen", "Golf", "golf_r", "vw", 200, 4, 1000));
+        }
+        CarCatalog catalog = new CarCatalog(list);
+
+        // A 3-day booking every month for each car, as if logged and then snapshotted
+        BookingTable table = new BookingTable(bookings);
+        long firstDay = ORIGIN.toEpochDay();
+        for (int i = 0; i < bookings; i++) {
+            int start = (int) firstDay + SPACING * (i / cars) + (i % 7);
+            table.add(i + 1, catalog.get(i % cars).getId(), start, start + 3);
+        }
+        long start = System.nanoTime();
+        BookingStore.writeSnapshot(directory, table, bookings);
+        System.out.printf("%,d bookings of %,d cars: snapshot written in %.0f ms, %,d KB%n", bookings, cars,
+                (System.nanoTime() - start) / 1e6, Files.size(BookingFormat.snapshotPath(directory, bookings)) / 1024);
+        table = null;
+
+        AvailabilityCalendar calendar = newCalendar(catalog);
+        BookingStore store = BookingStore.open(directory, calendar);
+        report("Opened", store, calendar);
+
+        start = System.nanoTime();
+        int live = commitTail(catalog, calendar, tail, threads);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%,d commits from %d threads in %.0f ms: %,.0f commits/s, %.1f commits per force%n",
+                store.getCommittedCount(), threads, elapsed / 1e6, store.getCommittedCount() / (elapsed / 1e9),
+                (double) store.getCommittedCount() / Math.max(1, store.getForceCount()));
+
+        // Crash: no final snapshot, the tail is only in the log
+        store.closeLog();
+        calendar = newCalendar(catalog);
+        store = BookingStore.open(directory, calendar);
+        report("Recovered after crash", store, calendar);
+        check(calendar, live);
+
+        // Crash in the middle of writing a record, then again after more bookings: those made
+        // after the first recovery must come back from behind the torn segment
+        live = commitTail(catalog, calendar, tail / 10, threads);
+        store.closeLog();
+        tearLog(directory);
+        calendar = newCalendar(catalog);
+        store = BookingStore.open(directory, calendar);
+        report("Recovered from a torn record", store, calendar);
+        check(calendar, live);
+        live = commitTail(catalog, calendar, tail / 10, threads);
+        store.closeLog();
+        calendar = newCalendar(catalog);
+        store = BookingStore.open(directory, calendar);
+        report("Recovered after a second crash", store, calendar);
+        check(calendar, live);
+
+        store.close();
+        calendar = newCalendar(catalog);
+        store = BookingStore.open(directory, calendar);
+        report("Reopened after close", store, calendar);
+        check(calendar, live);
+        store.close();
+
+        if (args.length <= 3) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Books and cancels random cars from several threads.
+     *
+     * @return the number of bookings left in the calendar
+     */
+    private static int commitTail(CarCatalog catalog, AvailabilityCalendar calendar, int tail, int threads)
+            throws InterruptedException {
+        int cars = catalog.size();
+        AtomicInteger live = new AtomicInteger(calendar.size());
+        AtomicInteger remaining = new AtomicInteger(tail);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Reservation last = null;
+                while (remaining.getAndDecrement() > 0) {
+                    if (last != null && random.nextInt(10) == 0) {
+                        if (calendar.cancel(last)) {
+                            live.decrementAndGet();
+                        }
+                        last = null;
+                        continue;
+                    }
+                    String car = catalog.get(random.nextInt(cars)).getId();
+                    LocalDate day = ORIGIN.plusDays(random.nextInt(AvailabilityCalendar.DEFAULT_HORIZON_DAYS - 7));
+                    last = calendar.reserve(car, day, day.plusDays(1 + random.nextInt(7)));
+                    if (last != null) {
+                        live.incrementAndGet();
+                    }
+                }
+            }, "booker-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return live.get();
+    }
+
+    /**
+     * Appends a record that fails its checksum and part of another to the newest log segment.
+     */
+    private static void tearLog(Path directory) throws IOException {
+        List<Path> segments = BookingFormat.list(directory, BookingFormat.LOG_SUFFIX);
+        byte[] torn = new byte[BookingFormat.RECORD_SIZE + BookingFormat.RECORD_SIZE / 2];
+        Arrays.fill(torn, (byte) 0x5A);
+        Files.write(segments.get(segments.size() - 1), torn, StandardOpenOption.APPEND);
+    }
+
+    private static AvailabilityCalendar newCalendar(CarCatalog catalog) {
+        return new AvailabilityCalendar(catalog, ORIGIN, AvailabilityCalendar.DEFAULT_HORIZON_DAYS);
+    }
+
+    private static void report(String what, BookingStore store, AvailabilityCalendar calendar) {
+        System.out.printf("%s in %.0f ms: %,d bookings from the snapshot, %,d log records replayed, %,d in the"
+                + " calendar%n", what, store.getRecoveryMillis(), store.getRestoredCount(), store.getReplayedCount(),
+                calendar.size());
+    }
+
+    private static void check(AvailabilityCalendar calendar, int expected) {
+        if (calendar.size() != expected) {
+            throw new IllegalStateException("recovered " + calendar.size() + " bookings, expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every booking in a store, past ones included, in primitive columns: about 24 bytes a
+ * booking. Car ids are stored once and referred to by number. Not thread safe.
+ */
+final class BookingTable {
+    /** Marks an empty slot; reservation ids start at 1. */
+    private static final long EMPTY_ID = 0;
+
+    private long[] ids;
+    private int[] starts;
+    private int[] ends;
+    private int[] cars;
+    private int size;
+    // Open addressing from id to row
+    private long[] slotIds;
+    private int[] slotRows;
+    private final List<String> carIds = new ArrayList<>();
+    private final Map<String, Integer> carNumbers = new HashMap<>();
+
+    BookingTable(int capacity) {
+        capacity = Math.max(16, capacity);
+        ids = new long[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        cars = new int[capacity];
+        int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        slotIds = new long[slots];
+        slotRows = new int[slots];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    int start(int row) {
+        return starts[row];
+    }
+
+    int end(int row) {
+        return ends[row];
+    }
+
+    String carId(int row) {
+        return carIds.get(cars[row]);
+    }
+
+    void add(long id, String carId, int start, int end) {
+        Integer car = carNumbers.get(carId);
+        if (car == null) {
+            car = carIds.size();
+            carIds.add(carId);
+            carNumbers.put(carId, car);
+        }
+        addRow(id, car, start, end);
+    }
+
+    /**
+     * @return whether a booking with the id was removed
+     */
+    boolean remove(long id) {
+        int slot = find(id);
+        if (slotIds[slot] == EMPTY_ID) {
+            return false;
+        }
+        int row = slotRows[slot];
+        deleteSlot(slot);
+        // Move the last row into the hole
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            starts[row] = starts[last];
+            ends[row] = ends[last];
+            cars[row] = cars[last];
+            slotRows[find(ids[row])] = row;
+        }
+        return true;
+    }
+
+    /**
+     * @return an independent copy, for writing a snapshot on another thread
+     */
+    BookingTable copy() {
+        BookingTable copy = new BookingTable(0);
+        copy.ids = Arrays.copyOf(ids, size);
+        copy.starts = Arrays.copyOf(starts, size);
+        copy.ends = Arrays.copyOf(ends, size);
+        copy.cars = Arrays.copyOf(cars, size);
+        copy.size = size;
+        copy.carIds.addAll(carIds);
+        // The copy is only read column by column, so it needs no id lookup
+        copy.slotIds = null;
+        copy.slotRows = null;
+        return copy;
+    }
+
+    int[] carColumn() {
+        return cars;
+    }
+
+    long[] idColumn() {
+        return ids;
+    }
+
+    int[] startColumn() {
+        return starts;
+    }
+
+    int[] endColumn() {
+        return ends;
+    }
+
+    List<String> carIds() {
+        return carIds;
+    }
+
+    /**
+     * Appends rows read from a snapshot; the car ids are numbered as in the snapshot.
+     */
+    void load(long[] snapshotIds, int[] snapshotStarts, int[] snapshotEnds, int[] snapshotCars, String[] snapshotCarIds) {
+        for (String carId : snapshotCarIds) {
+            carNumbers.put(carId, carIds.size());
+            carIds.add(carId);
+        }
+        for (int i = 0; i < snapshotIds.length; i++) {
+            addRow(snapshotIds[i], snapshotCars[i], snapshotStarts[i], snapshotEnds[i]);
+        }
+    }
+
+    private void addRow(long id, int car, int start, int end) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            cars = Arrays.copyOf(cars, capacity);
+        }
+        if ((size + 1) * 2 > slotIds.length) {
+            rehash(slotIds.length * 2);
+        }
+        int slot = find(id);
+        if (slotIds[slot] != EMPTY_ID) {
+            // The same booking logged twice replaces itself
+            int row = slotRows[slot];
+            starts[row] = start;
+            ends[row] = end;
+            cars[row] = car;
+            return;
+        }
+        ids[size] = id;
+        starts[size] = start;
+        ends[size] = end;
+        cars[size] = car;
+        slotIds[slot] = id;
+        slotRows[slot] = size;
+        size++;
+    }
+
+    private int find(long id) {
+        int mask = slotIds.length - 1;
+        int slot = (int) (id * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (slotIds[slot] != EMPTY_ID && slotIds[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, moving later entries of its probe run back so lookups still find them.
+     */
+    private void deleteSlot(int slot) {
+        int mask = slotIds.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slotIds[next] != EMPTY_ID) {
+            int home = (int) (slotIds[next] * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            // Move the entry back if the hole lies between its home slot and where it sits
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slotIds[hole] = slotIds[next];
+                slotRows[hole] = slotRows[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slotIds[hole] = EMPTY_ID;
+    }
+
+    private void rehash(int slots) {
+        long[] oldIds = slotIds;
+        int[] oldRows = slotRows;
+        slotIds = new long[slots];
+        slotRows = new int[slots];
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY_ID) {
+                int slot = find(oldIds[i]);
+                slotIds[slot] = oldIds[i];
+                slotRows[slot] = oldRows[i];
+            }
+        }
+    }
+}
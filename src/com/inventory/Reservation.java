@@ -0,0 +1,89 @@
+package com.inventory;
+
+import java.time.LocalDate;
+
+/**
+ * A car booked for a run of days, from its start date up to but not including its end date.
+ * A hold is a reservation that lapses at a deadline unless it is confirmed first.
+ */
+public final class Reservation {
+    private final long id;
+    private final int car;
+    private final String carId;
+    // Epoch days, so a fleet's worth of reservations stays small
+    private final int startDay;
+    private final int endDay;
+    /** The {@link System#nanoTime()} at which a hold lapses. */
+    private final long deadline;
+    private volatile boolean hold;
+
+    Reservation(long id, int car, String carId, LocalDate start, LocalDate end, boolean hold, long deadline) {
+        this.id = id;
+        this.car = car;
+        this.carId = carId;
+        this.hold = hold;
+        this.deadline = deadline;
+        this.startDay = (int) start.toEpochDay();
+        this.endDay = (int) end.toEpochDay();
+    }
+
+    /**
+     * @return a number identifying the reservation within its calendar
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the car's catalog index
+     */
+    int getCar() {
+        return car;
+    }
+
+    public String getCarId() {
+        return carId;
+    }
+
+    /**
+     * @return the first day the car is taken
+     */
+    public LocalDate getStart() {
+        return LocalDate.ofEpochDay(startDay);
+    }
+
+    /**
+     * @return the day the car is free again
+     */
+    public LocalDate getEnd() {
+        return LocalDate.ofEpochDay(endDay);
+    }
+
+    public int getDays() {
+        return endDay - startDay;
+    }
+
+    /**
+     * @return whether this is a hold that has not been confirmed
+     */
+    public boolean isHold() {
+        return hold;
+    }
+
+    boolean hasLapsed(long now) {
+        return hold && now - deadline >= 0;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    void confirm() {
+        hold = false;
+    }
+
+    @Override
+    public String toString() {
+        return carId + " " + getStart() + ".." + getEnd() + (hold ? " (held)" : "");
+    }
+}
@@ -0,0 +1,122 @@
+package com.inventory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Places short-lived holds on cars while a customer decides, and confirms or releases them.
+ *
+ * <p>A hold blocks its car's days like any reservation, so a second booking of the calendar
+ * asking for an overlapping run is turned away at once rather than waiting. A hold that is neither
+ * confirmed nor released within the hold time lapses: the next booking of the car that
+ * needs its days frees it, and {@link #expireHolds()}, run by {@link #startExpiring}, frees
+ * the rest so the car shows as available again. Thread safe.</p>
+ */
+public final class ReservationManager {
+    private final AvailabilityCalendar calendar;
+    private final long holdNanos;
+    /** Holds in the order they were placed, which is also the order they lapse in. */
+    private final Queue<Reservation> holds = new ConcurrentLinkedQueue<>();
+    private volatile Thread expiry;
+
+    /**
+     * @param holdTime How long a hold lasts unless confirmed
+     */
+    public ReservationManager(AvailabilityCalendar calendar, Duration holdTime) {
+        if (holdTime.isNegative() || holdTime.isZero()) {
+            throw new IllegalArgumentException("hold time must be positive: " + holdTime);
+        }
+        this.calendar = calendar;
+        this.holdNanos = holdTime.toNanos();
+    }
+
+    public AvailabilityCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Holds a car for {@code [start, end)} if it is free on each of those days.
+     *
+     * @return the hold, or null if the car is reserved or held on one of the days
+     * @throws IllegalArgumentException if the car is unknown, or the run is empty or leaves the horizon
+     */
+    public Reservation hold(String carId, LocalDate start, LocalDate end) {
+        Reservation hold = calendar.reserve(carId, start, end, true, System.nanoTime() + holdNanos);
+        if (hold != null) {
+            holds.add(hold);
+        }
+        return hold;
+    }
+
+    /**
+     * Turns a hold into a reservation.
+     *
+     * @return true if the car is now reserved; false if the hold lapsed or was released first
+     */
+    public boolean confirm(Reservation hold) {
+        return calendar.confirm(hold);
+    }
+
+    /**
+     * Gives up a hold or cancels a reservation.
+     *
+     * @return false if it was already released, cancelled or freed after lapsing
+     */
+    public boolean release(Reservation reservation) {
+        return calendar.cancel(reservation);
+    }
+
+    /**
+     * Frees every hold that has lapsed.
+     *
+     * @return the number freed
+     */
+    public int expireHolds() {
+        long now = System.nanoTime();
+        int freed = 0;
+        Reservation hold;
+        // Holds are queued in deadline order, give or take placements racing each other
+        while ((hold = holds.peek()) != null && (!hold.isHold() || hold.hasLapsed(now))) {
+            holds.poll();
+            if (calendar.expire(hold, now)) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Starts a daemon thread that frees lapsed holds periodically.
+     */
+    public synchronized void startExpiring(Duration period) {
+        if (expiry != null) {
+            return;
+        }
+        long millis = Math.max(1, period.toMillis());
+        Thread thread = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.sleep(millis);
+                    expireHolds();
+                }
+            } catch (InterruptedException e) {
+                // Stopped
+            }
+        }, "reservation-expiry");
+        thread.setDaemon(true);
+        thread.start();
+        expiry = thread;
+    }
+
+    /**
+     * Stops the thread started by {@link #startExpiring}.
+     */
+    public synchronized void stopExpiring() {
+        if (expiry != null) {
+            expiry.interrupt();
+            expiry = null;
+        }
+    }
+}
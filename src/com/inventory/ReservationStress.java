@@ -0,0 +1,158 @@
+package com.inventory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Has threads hold, confirm, release and abandon reservations as fast as they can, first
+ * spread over the whole fleet and then fighting over a few cars, for 1, 2, 4... threads. It
+ * reports throughput for each thread count and then checks that no two confirmed
+ * reservations of a car overlap and that the calendar holds exactly the confirmed ones.
+ *
+ * <p>Usage: {@code ReservationStress [cars] [seconds] [maxThreads]}</p>
+ */
+public final class ReservationStress {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2026, 1, 1);
+    private static final int DAYS = 60;
+    private static final int HOT_CARS = 8;
+    private static final Duration HOLD_TIME = Duration.ofMillis(20);
+
+    private ReservationStress() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cars = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        List<CarData> list = new ArrayList<>(cars);
+        for (int i = 0; i < cars; i++) {
+            list.add(new CarData("car" + i, "Volkswagen", "Golf", "golf_r", "vw", 200, 4, 1000));
+        }
+        CarCatalog catalog = new CarCatalog(list);
+        System.out.printf("%,d cars, %d cores%n", cars, Runtime.getRuntime().availableProcessors());
+
+        for (boolean hot : new boolean[] {false, true}) {
+            System.out.println(hot ? "Contended (" + HOT_CARS + " cars):" : "Spread over the fleet:");
+            double single = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                double rate = run(catalog, threads, seconds, hot ? HOT_CARS : cars);
+                if (threads == 1) {
+                    single = rate;
+                }
+                System.out.printf("  %2d threads %,12.0f ops/s  %5.2fx%n", threads, rate, rate / single);
+            }
+        }
+        System.out.println("No double bookings");
+    }
+
+    private static double run(CarCatalog catalog, int threads, double seconds, int carRange)
+            throws InterruptedException {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(catalog, ORIGIN, DAYS + 14);
+        ReservationManager manager = new ReservationManager(calendar, HOLD_TIME);
+        manager.startExpiring(Duration.ofMillis(5));
+        LongAdder operations = new LongAdder();
+        List<List<Reservation>> confirmed = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        long stopAt = System.nanoTime() + (long) (seconds * 1e9);
+        for (int t = 0; t < threads; t++) {
+            List<Reservation> mine = new ArrayList<>();
+            confirmed.add(mine);
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                while ((ops & 255) != 0 || System.nanoTime() < stopAt) {
+                    String car = catalog.get(random.nextInt(carRange)).getId();
+                    LocalDate start = ORIGIN.plusDays(random.nextInt(DAYS));
+                    Reservation hold = manager.hold(car, start, start.plusDays(1 + random.nextInt(7)));
+                    ops++;
+                    if (hold == null) {
+                        continue;
+                    }
+                    int choice = random.nextInt(100);
+                    if (choice < 10) {
+                        // Abandoned at the kiosk; left to lapse
+                    } else if (choice < 40) {
+                        manager.release(hold);
+                        ops++;
+                    } else {
+                        if (manager.confirm(hold)) {
+                            mine.add(hold);
+                        }
+                        ops++;
+                    }
+                }
+                operations.add(ops);
+            }, "stress-" + t);
+            workers.add(worker);
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        Thread.sleep(HOLD_TIME.toMillis() * 2);
+        manager.expireHolds();
+        manager.stopExpiring();
+        verify(catalog, calendar, confirmed);
+        return operations.sum() / elapsed;
+    }
+
+    /**
+     * Checks that confirmed reservations never overlap and that the calendar, once lapsed
+     * holds are freed, holds exactly those and marks exactly their days.
+     */
+    private static void verify(CarCatalog catalog, AvailabilityCalendar calendar,
+            List<List<Reservation>> confirmed) {
+        List<List<Reservation>> byCar = new ArrayList<>();
+        for (int car = 0; car < catalog.size(); car++) {
+            byCar.add(new ArrayList<>());
+        }
+        int total = 0;
+        for (List<Reservation> reservations : confirmed) {
+            for (Reservation reservation : reservations) {
+                byCar.get(catalog.indexOf(reservation.getCarId())).add(reservation);
+                total++;
+            }
+        }
+        if (calendar.size() != total) {
+            throw new IllegalStateException("calendar holds " + calendar.size() + " reservations, " + total
+                    + " were confirmed");
+        }
+        for (int car = 0; car < catalog.size(); car++) {
+            List<Reservation> reservations = byCar.get(car);
+            reservations.sort(Comparator.comparing(Reservation::getStart));
+            for (int i = 1; i < reservations.size(); i++) {
+                if (reservations.get(i).getStart().isBefore(reservations.get(i - 1).getEnd())) {
+                    throw new IllegalStateException("double booking: " + reservations.get(i - 1) + " and "
+                            + reservations.get(i));
+                }
+            }
+            int next = 0;
+            for (int day = 0; day < DAYS + 7; day++) {
+                LocalDate date = ORIGIN.plusDays(day);
+                while (next < reservations.size() && !reservations.get(next).getEnd().isAfter(date)) {
+                    next++;
+                }
+                boolean booked = next < reservations.size() && !reservations.get(next).getStart().isAfter(date);
+                if (calendar.isFree(car, date, date.plusDays(1)) == booked) {
+                    throw new IllegalStateException(catalog.get(car).getId() + " on " + date + " should be "
+                            + (booked ? "booked" : "free"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On-disk layout of the quote journal.
+ *
+ * <p>A journal is a directory of segment files named {@code quotes-<sequence>.journal}. Each
+ * segment is a 64 byte header followed by fixed-size 64 byte records, little-endian:</p>
+ * <pre>
+ *  0 long  timestamp (epoch millis, written last; 0 marks the end of the segment)
+ *  8 long  price table version
+ * 16 long  option mask
+ * 24 long  total in cents
+ * 32 int   days
+ * 36 byte  car id length in bytes
+ * 37 byte[27] car id, UTF-8
+ * </pre>
+ */
+final class JournalFormat {
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int MAGIC = 0x4C4E4A51; // "QJNL" read little-endian
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+
+    // Header fields
+    static final int MAGIC_OFFSET = 0;
+    static final int FORMAT_VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 8;
+    static final int RECORD_CAPACITY_OFFSET = 12;
+    static final int SEQUENCE_OFFSET = 16;
+
+    // Record fields
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int PRICE_VERSION_OFFSET = 8;
+    static final int OPTIONS_OFFSET = 16;
+    static final int TOTAL_OFFSET = 24;
+    static final int DAYS_OFFSET = 32;
+    static final int CAR_ID_LENGTH_OFFSET = 36;
+    static final int CAR_ID_OFFSET = 37;
+    static final int MAX_CAR_ID_BYTES = RECORD_SIZE - CAR_ID_OFFSET;
+
+    private static final String PREFIX = "quotes-";
+    private static final String SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static Path segmentPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%012d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    /**
+     * @return the sequence number encoded in a segment file name, or -1 if it is not a segment
+     */
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the segment files of a journal in sequence order; empty if the directory does not exist
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (sequenceOf(file) >= 0) {
+                    segments.add(file);
+                }
+            }
+        }
+        Collections.sort(segments, (a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+}
@@ -0,0 +1,162 @@
+package com.journal;
+
+import static com.journal.JournalFormat.*;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sequential cursor over every record of a quote journal, oldest segment first.
+ *
+ * <p>Each segment is mapped read-only and walked with absolute reads, so scanning costs
+ * little more than paging the files in. The accessors describe the current record and
+ * allocate nothing except {@link #getCarId()}. Records still being written by a live
+ * {@link QuoteJournal} are skipped; a segment ends at its first incomplete record.</p>
+ *
+ * <pre>
+ * try (JournalReader reader = new JournalReader(directory)) {
+ *     while (reader.next()) {
+ *         total += reader.getTotalCents();
+ *     }
+ * }
+ * </pre>
+ */
+public final class JournalReader implements AutoCloseable {
+    private final List<Path> segments;
+    private int segmentIndex = -1;
+    private MappedByteBuffer segment;
+    private int recordCapacity;
+    private int recordIndex;
+    private int offset;
+    private long bytesMapped;
+
+    /**
+     * Lists the segments present in the directory now; segments created later are not read.
+     */
+    public JournalReader(Path directory) throws IOException {
+        this.segments = listSegments(directory);
+    }
+
+    /**
+     * Advances to the next complete record.
+     *
+     * @return false once every segment has been read
+     * @throws IOException if a segment cannot be mapped or is not a journal segment
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (segment != null && recordIndex < recordCapacity) {
+                int candidate = HEADER_SIZE + recordIndex * RECORD_SIZE;
+                if (segment.getLong(candidate + TIMESTAMP_OFFSET) != 0) {
+                    offset = candidate;
+                    recordIndex++;
+                    return true;
+                }
+            }
+            if (segmentIndex + 1 >= segments.size()) {
+                segment = null;
+                return false;
+            }
+            openSegment(segments.get(++segmentIndex));
+        }
+    }
+
+    private void openSegment(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Truncated journal segment: " + path);
+            }
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        segment.order(ORDER);
+        if (segment.getInt(MAGIC_OFFSET) != MAGIC || segment.getInt(FORMAT_VERSION_OFFSET) != FORMAT_VERSION
+                || segment.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+            throw new IOException("Not a version " + FORMAT_VERSION + " quote journal segment: " + path);
+        }
+        // A segment cut short by a crash holds only the records that fit its length
+        recordCapacity = Math.min(segment.getInt(RECORD_CAPACITY_OFFSET),
+                (segment.capacity() - HEADER_SIZE) / RECORD_SIZE);
+        recordIndex = 0;
+        bytesMapped += segment.capacity();
+    }
+
+    /**
+     * @return the time the quote was shown, in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return segment.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    public String getCarId() {
+        byte[] id = new byte[segment.get(offset + CAR_ID_LENGTH_OFFSET)];
+        segment.get(offset + CAR_ID_OFFSET, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    public int getDays() {
+        return segment.getInt(offset + DAYS_OFFSET);
+    }
+
+    public long getOptionMask() {
+        return segment.getLong(offset + OPTIONS_OFFSET);
+    }
+
+    public long getPriceVersion() {
+        return segment.getLong(offset + PRICE_VERSION_OFFSET);
+    }
+
+    public long getTotalCents() {
+        return segment.getLong(offset + TOTAL_OFFSET);
+    }
+
+    /**
+     * @return the sequence number of the segment holding the current record
+     */
+    public long getSegmentSequence() {
+        return segment.getLong(SEQUENCE_OFFSET);
+    }
+
+    /**
+     * @return the size of the segments mapped so far, in bytes
+     */
+    public long getBytesMapped() {
+        return bytesMapped;
+    }
+
+    @Override
+    public void close() {
+        // Mappings are released when they are garbage collected
+        segment = null;
+        segmentIndex = segments.size();
+    }
+
+    /**
+     * Scans a journal and reports the record count and scan rate.
+     *
+     * @param args {@code [directory]}, defaulting to {@code journal}
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "journal");
+        long records = 0;
+        long checksum = 0;
+        long start = System.nanoTime();
+        long bytes;
+        try (JournalReader reader = new JournalReader(directory)) {
+            while (reader.next()) {
+                records++;
+                checksum += reader.getTotalCents() ^ reader.getOptionMask() ^ reader.getDays();
+            }
+            bytes = reader.getBytesMapped();
+        }
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        System.out.printf("%,d records in %.3f s: %,.0f records/s, %.1f MB/s of segments (checksum %x)%n",
+                records, seconds, records / seconds, bytes / seconds / (1024 * 1024), checksum);
+    }
+}
@@ -0,0 +1,253 @@
+package com.journal;
+
+import static com.journal.JournalFormat.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only record of the quotes shown to customers.
+ *
+ * <p>{@link #append} only places the quote on a bounded queue and never waits, so it is safe
+ * to call from the Event Dispatch Thread; when the queue is full the quote is dropped and
+ * counted. A single writer thread copies queued quotes into a memory-mapped segment of
+ * fixed-size records (see {@link JournalFormat}), starts a new segment when the current one
+ * is full, and forces written records to disk in groups: once {@link #FLUSH_GROUP} records
+ * are pending, or as soon as the queue runs dry.</p>
+ *
+ * <p>Each journal instance starts a new segment, so several sessions never write to the
+ * same file. Read a journal back with {@link JournalReader}.</p>
+ */
+public final class QuoteJournal implements AutoCloseable {
+
+    /** The number of written records after which the writer forces them to disk even while busy. */
+    public static final int FLUSH_GROUP = 1024;
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 16;
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    private static final class Entry {
+        final long timestamp;
+        final byte[] carId;
+        final int days;
+        final long optionMask;
+        final long priceVersion;
+        final long totalCents;
+
+        Entry(long timestamp, byte[] carId, int days, long optionMask, long priceVersion, long totalCents) {
+            this.timestamp = timestamp;
+            this.carId = carId;
+            this.days = days;
+            this.optionMask = optionMask;
+            this.priceVersion = priceVersion;
+            this.totalCents = totalCents;
+        }
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+    private volatile boolean open = true;
+    // Held to queue a quote and to close, so no quote lands after the writer's last look
+    private final Object closing = new Object();
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long written;
+    private volatile IOException failure;
+
+    // Owned by the writer thread
+    private long nextSequence;
+    private MappedByteBuffer segment;
+    private int segmentRecords;
+    private int unflushed;
+
+    /**
+     * Opens a journal in the given directory with the default queue and segment sizes.
+     */
+    public QuoteJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_QUEUE_CAPACITY, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * @param directory The directory holding the segments; created if missing
+     * @param queueCapacity The number of quotes that may wait for the writer before new ones are dropped
+     * @param recordsPerSegment The number of records in each segment file
+     */
+    public QuoteJournal(Path directory, int queueCapacity, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment < 1 || (long) recordsPerSegment * RECORD_SIZE > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid records per segment: " + recordsPerSegment);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.recordsPerSegment = recordsPerSegment;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        List<Path> existing = listSegments(directory);
+        this.nextSequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1)) + 1;
+        startSegment();
+
+        this.writer = new Thread(this::writeLoop, "quote-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a quote for the journal without waiting.
+     *
+     * @param carId The id of the quoted car, at most {@link JournalFormat#MAX_CAR_ID_BYTES} bytes of UTF-8
+     * @param days The rental duration
+     * @param optionMask The selected options
+     * @param priceVersion The version of the price table the quote was computed with
+     * @param totalCents The quoted total
+     * @return true if the quote was queued, false if the journal is closed, its queue is full
+     *         or the car id is too long for a record
+     */
+    public boolean append(String carId, int days, long optionMask, long priceVersion, long totalCents) {
+        byte[] id = carId.getBytes(StandardCharsets.UTF_8);
+        if (id.length <= MAX_CAR_ID_BYTES) {
+            Entry entry = new Entry(System.currentTimeMillis(), id, days, optionMask, priceVersion, totalCents);
+            synchronized (closing) {
+                if (open && queue.offer(entry)) {
+                    appended.increment();
+                    return true;
+                }
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of quotes accepted by {@link #append}
+     */
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    /**
+     * @return the number of quotes refused because the queue was full or the journal closed
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of records written to the mapped segments so far
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(FLUSH_GROUP);
+        try {
+            while (open || !queue.isEmpty()) {
+                Entry first;
+                try {
+                    first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (first == null) {
+                    flush();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, FLUSH_GROUP - 1);
+                for (Entry entry : batch) {
+                    write(entry);
+                }
+                written += batch.size();
+                batch.clear();
+                if (unflushed >= FLUSH_GROUP || queue.isEmpty()) {
+                    flush();
+                }
+            }
+            flush();
+        } catch (IOException | UncheckedIOException e) {
+            failure = e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+            open = false;
+            System.err.println("Quote journal stopped: " + failure.getMessage());
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        if (segmentRecords == recordsPerSegment) {
+            flush();
+            startSegment();
+        }
+        int offset = HEADER_SIZE + segmentRecords * RECORD_SIZE;
+        segment.putLong(offset + PRICE_VERSION_OFFSET, entry.priceVersion);
+        segment.putLong(offset + OPTIONS_OFFSET, entry.optionMask);
+        segment.putLong(offset + TOTAL_OFFSET, entry.totalCents);
+        segment.putInt(offset + DAYS_OFFSET, entry.days);
+        segment.put(offset + CAR_ID_LENGTH_OFFSET, (byte) entry.carId.length);
+        segment.put(offset + CAR_ID_OFFSET, entry.carId);
+        // The timestamp marks the record as complete, so it goes in last
+        segment.putLong(offset + TIMESTAMP_OFFSET, entry.timestamp);
+        segmentRecords++;
+        unflushed++;
+    }
+
+    private void flush() {
+        if (unflushed > 0) {
+            segment.force();
+            unflushed = 0;
+        }
+    }
+
+    private void startSegment() throws IOException {
+        Path path = segmentPath(directory, nextSequence);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE);
+        }
+        segment.order(ORDER);
+        segment.putInt(MAGIC_OFFSET, MAGIC);
+        segment.putInt(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+        segment.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+        segment.putInt(RECORD_CAPACITY_OFFSET, recordsPerSegment);
+        segment.putLong(SEQUENCE_OFFSET, nextSequence);
+        nextSequence++;
+        segmentRecords = 0;
+    }
+
+    /**
+     * Stops accepting quotes, writes and forces everything already queued, and waits for the writer to finish.
+     *
+     * @throws IOException if the writer failed to write a segment
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (closing) {
+            open = false;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
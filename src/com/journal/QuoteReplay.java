@@ -0,0 +1,351 @@
+package com.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.data.CarCatalog;
+import com.pricing.BookingOption;
+import com.pricing.Money;
+import com.pricing.MoneyFormat;
+import com.pricing.OptionSet;
+import com.pricing.PriceTable;
+import com.pricing.QuoteEngine;
+
+/**
+ * Re-prices every quote in a journal under a baseline and a candidate set of prices and
+ * reports the revenue difference per car and per option.
+ *
+ * <p>Both sides are priced with {@link QuoteEngine}, the engine behind the kiosk, so the
+ * figures match what customers would have been shown. The reader thread streams records into
+ * a fixed pool of primitive chunks that worker threads price and aggregate; a chunk is only
+ * refilled once its worker hands it back, so memory stays bounded whatever the journal size.</p>
+ */
+public final class QuoteReplay {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final BookingOption[] OPTIONS = BookingOption.values();
+
+    private final CarCatalog catalog;
+    private final QuoteEngine baselineEngine;
+    private final QuoteEngine candidateEngine;
+    private final int[] baselineCarPrices;
+    private final int[] candidateCarPrices;
+    private final int parallelism;
+
+    /**
+     * @param catalog Resolves the journal's car ids; its daily prices are the baseline car prices
+     * @param baselinePrices The option prices currently in use
+     * @param candidatePrices The option prices to evaluate
+     * @param candidateCarPrices The daily car prices in rand to evaluate, indexed like the catalog
+     * @param parallelism The number of worker threads
+     */
+    public QuoteReplay(CarCatalog catalog, PriceTable baselinePrices, PriceTable candidatePrices,
+            int[] candidateCarPrices, int parallelism) {
+        if (candidateCarPrices.length != catalog.size()) {
+            throw new IllegalArgumentException("Expected " + catalog.size() + " car prices, got " + candidateCarPrices.length);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.catalog = catalog;
+        this.baselineEngine = new QuoteEngine(baselinePrices);
+        this.candidateEngine = new QuoteEngine(candidatePrices);
+        this.baselineCarPrices = new int[catalog.size()];
+        for (int i = 0; i < baselineCarPrices.length; i++) {
+            baselineCarPrices[i] = catalog.get(i).getPrice();
+        }
+        this.candidateCarPrices = candidateCarPrices.clone();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Aggregated replay results, all amounts in cents.
+     */
+    public static final class Report {
+        private long records;
+        private long skipped;
+        private long recordedCents;
+        private final long[] carQuotes;
+        private final long[] carBaseline;
+        private final long[] carCandidate;
+        private final long[] optionQuotes = new long[OPTIONS.length];
+        private final long[] optionBaseline = new long[OPTIONS.length];
+        private final long[] optionCandidate = new long[OPTIONS.length];
+
+        Report(int cars) {
+            carQuotes = new long[cars];
+            carBaseline = new long[cars];
+            carCandidate = new long[cars];
+        }
+
+        void add(Report other) {
+            records += other.records;
+            skipped += other.skipped;
+            recordedCents += other.recordedCents;
+            addAll(carQuotes, other.carQuotes);
+            addAll(carBaseline, other.carBaseline);
+            addAll(carCandidate, other.carCandidate);
+            addAll(optionQuotes, other.optionQuotes);
+            addAll(optionBaseline, other.optionBaseline);
+            addAll(optionCandidate, other.optionCandidate);
+        }
+
+        private static void addAll(long[] into, long[] values) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += values[i];
+            }
+        }
+
+        /**
+         * @return the number of records re-priced
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * @return the number of records for unknown cars or with invalid durations or options
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return the sum of the totals as they were shown at the time
+         */
+        public long getRecordedCents() {
+            return recordedCents;
+        }
+
+        public long getBaselineCents() {
+            return sum(carBaseline);
+        }
+
+        public long getCandidateCents() {
+            return sum(carCandidate);
+        }
+
+        public long getCarBaselineCents(int carIndex) {
+            return carBaseline[carIndex];
+        }
+
+        public long getCarCandidateCents(int carIndex) {
+            return carCandidate[carIndex];
+        }
+
+        public long getOptionBaselineCents(BookingOption option) {
+            return optionBaseline[option.ordinal()];
+        }
+
+        public long getOptionCandidateCents(BookingOption option) {
+            return optionCandidate[option.ordinal()];
+        }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        /**
+         * Prints the totals, then one row per car and per option.
+         */
+        public void print(CarCatalog catalog, PrintStream out) {
+            out.printf("%,d quotes re-priced, %,d skipped%n", records, skipped);
+            out.printf("Recorded %s, baseline %s, candidate %s, delta %s%n", MoneyFormat.format(recordedCents),
+                    MoneyFormat.format(getBaselineCents()), MoneyFormat.format(getCandidateCents()),
+                    MoneyFormat.format(getCandidateCents() - getBaselineCents()));
+            out.printf("%n%-20s %10s %16s %16s %14s%n", "Car", "Quotes", "Baseline", "Candidate", "Delta");
+            for (int i = 0; i < carQuotes.length; i++) {
+                printRow(out, catalog.get(i).getId(), carQuotes[i], carBaseline[i], carCandidate[i]);
+            }
+            out.printf("%n%-20s %10s %16s %16s %14s%n", "Option", "Quotes", "Baseline", "Candidate", "Delta");
+            for (BookingOption option : OPTIONS) {
+                int i = option.ordinal();
+                printRow(out, option.name(), optionQuotes[i], optionBaseline[i], optionCandidate[i]);
+            }
+        }
+
+        private static void printRow(PrintStream out, String name, long quotes, long baseline, long candidate) {
+            out.printf("%-20s %,10d %16s %16s %14s%n", name, quotes, MoneyFormat.format(baseline),
+                    MoneyFormat.format(candidate), MoneyFormat.format(candidate - baseline));
+        }
+    }
+
+    private static final class Chunk {
+        final int[] cars = new int[CHUNK_SIZE];
+        final int[] days = new int[CHUNK_SIZE];
+        final long[] masks = new long[CHUNK_SIZE];
+        final long[] recorded = new long[CHUNK_SIZE];
+        int size;
+    }
+
+    /**
+     * Replays every complete record in the journal.
+     *
+     * @throws IOException if the journal cannot be read
+     */
+    public Report replay(Path journal) throws IOException {
+        Report result = new Report(catalog.size());
+        BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(parallelism * 2);
+        for (int i = 0; i < parallelism * 2; i++) {
+            free.add(new Chunk());
+        }
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try (JournalReader reader = new JournalReader(journal)) {
+            long skipped = 0;
+            Chunk chunk = takeChunk(free);
+            while (reader.next()) {
+                int carIndex = catalog.indexOf(reader.getCarId());
+                int days = reader.getDays();
+                long mask = reader.getOptionMask();
+                if (carIndex < 0 || days < 1 || !OptionSet.isValid(mask)) {
+                    skipped++;
+                    continue;
+                }
+                chunk.cars[chunk.size] = carIndex;
+                chunk.days[chunk.size] = days;
+                chunk.masks[chunk.size] = mask;
+                chunk.recorded[chunk.size] = reader.getTotalCents();
+                if (++chunk.size == CHUNK_SIZE) {
+                    submit(workers, chunk, free, result, failure);
+                    chunk = takeChunk(free);
+                }
+            }
+            submit(workers, chunk, free, result, failure);
+            // Every chunk is back in the pool once all workers are done
+            for (int i = 0; i < parallelism * 2; i++) {
+                takeChunk(free);
+            }
+            result.skipped += skipped;
+        } finally {
+            workers.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result;
+    }
+
+    private static Chunk takeChunk(BlockingQueue<Chunk> free) throws IOException {
+        try {
+            return free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted", e);
+        }
+    }
+
+    private void submit(ExecutorService workers, Chunk chunk, BlockingQueue<Chunk> free, Report result,
+            AtomicReference<RuntimeException> failure) {
+        workers.execute(() -> {
+            try {
+                Report partial = price(chunk);
+                synchronized (result) {
+                    result.add(partial);
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                chunk.size = 0;
+                free.add(chunk);
+            }
+        });
+    }
+
+    private Report price(Chunk chunk) {
+        Report report = new Report(catalog.size());
+        PriceTable baselinePrices = baselineEngine.getPriceTable();
+        PriceTable candidatePrices = candidateEngine.getPriceTable();
+        for (int i = 0; i < chunk.size; i++) {
+            int car = chunk.cars[i];
+            int days = chunk.days[i];
+            long mask = chunk.masks[i];
+            report.carQuotes[car]++;
+            report.carBaseline[car] += baselineEngine.total(baselineCarPrices[car], days, mask);
+            report.carCandidate[car] += candidateEngine.total(candidateCarPrices[car], days, mask);
+            report.recordedCents += chunk.recorded[i];
+            for (long bits = mask; bits != 0; bits &= bits - 1) {
+                int ordinal = Long.numberOfTrailingZeros(bits);
+                int times = OPTIONS[ordinal].getCategory().isPerDay() ? days : 1;
+                report.optionQuotes[ordinal]++;
+                report.optionBaseline[ordinal] += baselinePrices.getPriceCents(ordinal) * times;
+                report.optionCandidate[ordinal] += candidatePrices.getPriceCents(ordinal) * times;
+            }
+        }
+        report.records = chunk.size;
+        return report;
+    }
+
+    /**
+     * Replays a journal against the sample catalog under changed prices.
+     *
+     * @param args {@code [--journal dir] [--threads n] [--price OPTION=rand]... [--car id=rand]...}
+     */
+    public static void main(String[] args) throws IOException {
+        CarCatalog catalog = CarCatalog.sample();
+        PriceTable baseline = PriceTable.defaults();
+        PriceTable candidate = baseline;
+        int[] carPrices = new int[catalog.size()];
+        for (int i = 0; i < carPrices.length; i++) {
+            carPrices[i] = catalog.get(i).getPrice();
+        }
+        Path journal = Paths.get("journal");
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            String flag = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + flag);
+            }
+            String value = args[++i];
+            switch (flag) {
+                case "--journal":
+                    journal = Paths.get(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--price": {
+                    String[] pair = splitAssignment(value);
+                    candidate = candidate.withPrice(BookingOption.valueOf(pair[0]), Money.ofRand(Long.parseLong(pair[1])));
+                    break;
+                }
+                case "--car": {
+                    String[] pair = splitAssignment(value);
+                    int index = catalog.indexOf(pair[0]);
+                    if (index < 0) {
+                        throw new IllegalArgumentException("Unknown car: " + pair[0]);
+                    }
+                    carPrices[index] = Integer.parseInt(pair[1]);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + flag);
+            }
+        }
+
+        long start = System.nanoTime();
+        Report report = new QuoteReplay(catalog, baseline, candidate, carPrices, threads).replay(journal);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report.print(catalog, System.out);
+        System.out.printf("%nReplayed in %.2f s with %d threads%n", seconds, threads);
+    }
+
+    private static String[] splitAssignment(String value) {
+        int eq = value.indexOf('=');
+        if (eq <= 0) {
+            throw new IllegalArgumentException("Expected NAME=value: " + value);
+        }
+        return new String[] {value.substring(0, eq), value.substring(eq + 1)};
+    }
+}
@@ -0,0 +1,9 @@
+package com.listeners;
+
+import com.data.filter.CarFilter;
+import java.util.EventListener;
+
+// Listener interface for changes to the fleet filter
+public interface CarFilterListener extends EventListener {
+    void filterChanged(CarFilter filter);
+}
@@ -0,0 +1,8 @@
+package com.listeners;
+
+import java.util.EventListener;
+
+// Listener interface for edits to the fleet search text
+public interface CarSearchListener extends EventListener {
+    void searchChanged(String query);
+}
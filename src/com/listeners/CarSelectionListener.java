@@ -3,7 +3,7 @@ package com.listeners;
 import com.data.CarData;
 import java.util.EventListener;
 
-// Listener interface for car selection events
+// Listener interface for car selection events; the car is null when there is none left to select
 public interface CarSelectionListener extends EventListener {
     void carSelected(CarData selectedCar);
 }
\ No newline at end of file
@@ -4,10 +4,13 @@ import javax.swing.SwingUtilities;
 import javax.swing.JFrame;
 
 import com.components.CarDisplayPanel;
+import com.server.QuoteServer;
 
 import java.awt.BorderLayout;
 import java.awt.GraphicsEnvironment;
 import java.awt.GraphicsDevice;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class RentalEstimator extends JFrame {
 
@@ -23,7 +26,12 @@ public class RentalEstimator extends JFrame {
         add(new CarDisplayPanel(), BorderLayout.CENTER);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // --server [port] runs the headless quote service instead of the kiosk UI
+        if (args.length > 0 && args[0].equals("--server")) {
+            QuoteServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         SwingUtilities.invokeLater(() -> new RentalEstimator().setVisible(true));
     }
 }
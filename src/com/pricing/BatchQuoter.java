@@ -0,0 +1,215 @@
+package com.pricing;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Prices large numbers of quotes in parallel. Requests are given as parallel primitive
+ * arrays or as a cartesian product of car prices, durations and option masks, and the
+ * totals are written in cents into a caller supplied {@code long[]}. Car prices are
+ * whole rand per day, as in the catalog.
+ *
+ * <p>Work is split with fork/join over index ranges. Option masks are resolved to their
+ * per-day and once-off sums once per batch, so the inner loops are branch-free
+ * multiply-adds over primitive arrays that the JIT can unroll and vectorize.</p>
+ */
+public final class BatchQuoter {
+    /**
+     * Below this many quotes a task is evaluated on the current thread instead of being split.
+     */
+    private static final int SPLIT_THRESHOLD = 8192;
+
+    private final QuoteEngine engine;
+    private final ForkJoinPool pool;
+
+    public BatchQuoter(QuoteEngine engine) {
+        this(engine, ForkJoinPool.commonPool());
+    }
+
+    public BatchQuoter(QuoteEngine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    /**
+     * Prices {@code carPrices.length} independent requests.
+     *
+     * @param carPrices The car's daily price per request
+     * @param days The rental duration per request
+     * @param optionMasks The selected options per request
+     * @param totals Receives the total per request
+     * @throws ArithmeticException if a total overflows
+     */
+    public void quoteAll(int[] carPrices, int[] days, long[] optionMasks, long[] totals) {
+        int n = carPrices.length;
+        if (days.length != n || optionMasks.length != n || totals.length < n) {
+            throw new IllegalArgumentException("Request arrays must have equal length and totals must fit them");
+        }
+        pool.invoke(new RequestTask(carPrices, days, optionMasks, totals, 0, n));
+    }
+
+    /**
+     * Convenience variant of {@link #quoteAll(int[], int[], long[], long[])} that allocates the result.
+     */
+    public long[] quoteAll(int[] carPrices, int[] days, long[] optionMasks) {
+        long[] totals = new long[carPrices.length];
+        quoteAll(carPrices, days, optionMasks, totals);
+        return totals;
+    }
+
+    /**
+     * Prices every combination of car, duration and option mask. The total for
+     * {@code (car c, duration d, mask m)} is written to {@link #gridIndex}.
+     *
+     * @param carPrices The daily price of each car
+     * @param durations The rental durations in days
+     * @param optionMasks The option masks to price
+     * @param totals Receives the totals; must hold at least {@link #gridSize} entries
+     * @throws ArithmeticException if the largest total of the grid would overflow
+     */
+    public void quoteGrid(int[] carPrices, int[] durations, long[] optionMasks, long[] totals) {
+        long size = gridSize(carPrices.length, durations.length, optionMasks.length);
+        if (size > totals.length) {
+            throw new IllegalArgumentException("totals holds " + totals.length + " entries but the grid needs " + size);
+        }
+        long[] perDay = new long[optionMasks.length];
+        long[] onceOff = new long[optionMasks.length];
+        long maxPerDay = 0;
+        long maxOnceOff = 0;
+        for (int m = 0; m < optionMasks.length; m++) {
+            perDay[m] = engine.perDayOptionPrice(optionMasks[m]);
+            onceOff[m] = engine.onceOffOptionPrice(optionMasks[m]);
+            maxPerDay = Math.max(maxPerDay, perDay[m]);
+            maxOnceOff = Math.max(maxOnceOff, onceOff[m]);
+        }
+        checkGridBounds(carPrices, durations, maxPerDay, maxOnceOff);
+        pool.invoke(new GridTask(carPrices, durations, perDay, onceOff, totals, 0,
+                carPrices.length * durations.length));
+    }
+
+    /**
+     * Convenience variant of {@link #quoteGrid(int[], int[], long[], long[])} that allocates the result.
+     */
+    public long[] quoteGrid(int[] carPrices, int[] durations, long[] optionMasks) {
+        long[] totals = new long[(int) gridSize(carPrices.length, durations.length, optionMasks.length)];
+        quoteGrid(carPrices, durations, optionMasks, totals);
+        return totals;
+    }
+
+    /**
+     * Checks once that the largest total of a grid fits in a long, so the grid loop
+     * itself can use plain arithmetic.
+     */
+    private static void checkGridBounds(int[] carPrices, int[] durations, long maxPerDay, long maxOnceOff) {
+        int maxCarPrice = 0;
+        for (int price : carPrices) {
+            if (price < 0) {
+                throw new IllegalArgumentException("Car prices must not be negative: " + price);
+            }
+            maxCarPrice = Math.max(maxCarPrice, price);
+        }
+        int maxDays = 0;
+        for (int days : durations) {
+            if (days < 1) {
+                throw new IllegalArgumentException("Durations must be at least 1 day: " + days);
+            }
+            maxDays = Math.max(maxDays, days);
+        }
+        long perDay = Math.addExact(Money.randToCents(maxCarPrice), maxPerDay);
+        Math.addExact(Math.multiplyExact(perDay, maxDays), maxOnceOff);
+    }
+
+    /**
+     * @return the number of totals produced by a grid of the given dimensions
+     * @throws IllegalArgumentException if the grid does not fit in a Java array
+     */
+    public static long gridSize(int cars, int durations, int optionMasks) {
+        long size = (long) cars * durations * optionMasks;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid of " + size + " quotes does not fit in an array");
+        }
+        return size;
+    }
+
+    /**
+     * @return the position of {@code (car, duration, mask)} in a grid's result array
+     */
+    public static int gridIndex(int car, int duration, int mask, int durations, int optionMasks) {
+        return (car * durations + duration) * optionMasks + mask;
+    }
+
+    private final class RequestTask extends RecursiveAction {
+        private final int[] carPrices;
+        private final int[] days;
+        private final long[] optionMasks;
+        private final long[] totals;
+        private final int from;
+        private final int to;
+
+        RequestTask(int[] carPrices, int[] days, long[] optionMasks, long[] totals, int from, int to) {
+            this.carPrices = carPrices;
+            this.days = days;
+            this.optionMasks = optionMasks;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    long mask = optionMasks[i];
+                    totals[i] = engine.total(carPrices[i], days[i], mask);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RequestTask(carPrices, days, optionMasks, totals, from, mid),
+                    new RequestTask(carPrices, days, optionMasks, totals, mid, to));
+        }
+    }
+
+    /**
+     * Splits a grid over its (car, duration) rows; each row is a contiguous run over all masks.
+     */
+    private static final class GridTask extends RecursiveAction {
+        private final int[] carPrices;
+        private final int[] durations;
+        private final long[] perDay;
+        private final long[] onceOff;
+        private final long[] totals;
+        private final int fromRow;
+        private final int toRow;
+
+        GridTask(int[] carPrices, int[] durations, long[] perDay, long[] onceOff, long[] totals,
+                 int fromRow, int toRow) {
+            this.carPrices = carPrices;
+            this.durations = durations;
+            this.perDay = perDay;
+            this.onceOff = onceOff;
+            this.totals = totals;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            int masks = perDay.length;
+            if ((long) (toRow - fromRow) * masks <= SPLIT_THRESHOLD || toRow - fromRow == 1) {
+                for (int row = fromRow; row < toRow; row++) {
+                    long carPrice = carPrices[row / durations.length] * Money.CENTS_PER_RAND;
+                    long days = durations[row % durations.length];
+                    int base = row * masks;
+                    for (int m = 0; m < masks; m++) {
+                        totals[base + m] = (carPrice + perDay[m]) * days + onceOff[m];
+                    }
+                }
+                return;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            invokeAll(new GridTask(carPrices, durations, perDay, onceOff, totals, fromRow, mid),
+                    new GridTask(carPrices, durations, perDay, onceOff, totals, mid, toRow));
+        }
+    }
+}
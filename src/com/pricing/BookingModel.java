@@ -0,0 +1,313 @@
+package com.pricing;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.data.CarData;
+import com.pricing.rules.RuleContext;
+import com.pricing.rules.RuleSet;
+
+/**
+ * The state of one booking as a small dependency graph.
+ *
+ * <p>The inputs are the car, the rental duration and the option mask. The derived
+ * nodes are the car rental line, one line item per {@link OptionCategory} and the
+ * total. Changing an input marks only the nodes that depend on it as dirty; the next
+ * flush re-prices the booking once and notifies listeners with the bit set of nodes
+ * whose displayed values actually changed. Several input changes can be coalesced into
+ * a single flush with {@link #update(Runnable)}.</p>
+ *
+ * <p>Pricing rules, when set, adjust the engine's breakdown on every flush. A rule can tie
+ * any input to any node, so with rules every input change re-evaluates all nodes; unchanged
+ * values are still filtered out.</p>
+ *
+ * <p>The model is not thread-safe; use it from one thread, typically the Event Dispatch Thread.</p>
+ */
+public final class BookingModel {
+
+    /**
+     * Receives the nodes that changed during a flush.
+     */
+    public interface Listener {
+        /**
+         * @param model The model that changed
+         * @param changedNodes Bit set of {@link #CAR_RENTAL}, {@link #TOTAL} and {@link #lineItem} nodes
+         */
+        void bookingChanged(BookingModel model, int changedNodes);
+    }
+
+    private static final int[] STANDARD_DURATIONS = {1, 3, 7};
+
+    public static final int CAR_RENTAL = 1;
+    public static final int TOTAL = 1 << 1;
+    private static final int FIRST_LINE_ITEM_BIT = 2;
+    private static final OptionCategory[] CATEGORIES = OptionCategory.values();
+    public static final int ALL_NODES = (1 << (FIRST_LINE_ITEM_BIT + CATEGORIES.length)) - 1;
+
+    // Nodes affected by a change of the duration
+    private static final int DAYS_DEPENDENTS;
+
+    static {
+        int days = CAR_RENTAL | TOTAL;
+        for (OptionCategory category : CATEGORIES) {
+            if (category.isPerDay()) {
+                days |= lineItem(category);
+            }
+        }
+        DAYS_DEPENDENTS = days;
+    }
+
+    private QuoteEngine engine;
+    private QuoteMatrix matrix;
+    private final Quote quote = new Quote();
+    private final RuleContext ruleContext = new RuleContext();
+    private RuleSet rules = RuleSet.empty();
+    private DayOfWeek startDay;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private CarData car;
+    private int carIndex = -1;
+    private int days = 1;
+    private long optionMask = OptionSet.EMPTY;
+
+    private int dirtyNodes;
+    private int updateDepth;
+
+    // Values last published to listeners, used to drop no-op changes
+    private long publishedCarRental;
+    private long publishedTotal;
+    private int publishedDays;
+    private final long[] publishedBasePrices = new long[CATEGORIES.length];
+    private final long[] publishedAmounts = new long[CATEGORIES.length];
+
+    /**
+     * @param engine Prices cars that are not part of the matrix and durations it does not cover
+     * @param matrix Precomputed quotes for the catalog, or null to price every change with the engine
+     */
+    public BookingModel(QuoteEngine engine, QuoteMatrix matrix) {
+        this.engine = engine;
+        this.matrix = matrix;
+    }
+
+    /**
+     * @return the node bit of a category's line item
+     */
+    public static int lineItem(OptionCategory category) {
+        return 1 << (FIRST_LINE_ITEM_BIT + category.ordinal());
+    }
+
+    /**
+     * @return a copy of the rental durations in days that bookings normally choose from
+     */
+    public static int[] standardDurations() {
+        return STANDARD_DURATIONS.clone();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the car to quote, or null to show an empty quote.
+     */
+    public void setCar(CarData car) {
+        if (car == this.car) {
+            return;
+        }
+        this.car = car;
+        this.carIndex = (matrix != null) ? matrix.indexOf(car) : -1;
+        // Line items read zero without a car and pricing rules may depend on the car,
+        // so every node is re-evaluated; unchanged values are still filtered out
+        markDirty(ALL_NODES);
+    }
+
+    /**
+     * Switches to new prices, for example after a price reload, and re-prices the booking.
+     *
+     * @param engine Prices cars that are not part of the matrix and durations it does not cover
+     * @param matrix Precomputed quotes for the catalog, or null to price every change with the engine
+     */
+    public void setPricing(QuoteEngine engine, QuoteMatrix matrix) {
+        this.engine = engine;
+        this.matrix = matrix;
+        this.carIndex = (matrix != null) ? matrix.indexOf(car) : -1;
+        markDirty(ALL_NODES);
+    }
+
+    /**
+     * Sets the pricing rules applied to every quote.
+     *
+     * @param rules The rules, or {@link RuleSet#empty()} for the engine's prices alone
+     */
+    public void setRules(RuleSet rules) {
+        this.rules = rules;
+        markDirty(ALL_NODES);
+    }
+
+    /**
+     * Sets the first day of the rental, which weekend rules depend on.
+     *
+     * @param startDay The day, or null to start today
+     */
+    public void setStartDay(DayOfWeek startDay) {
+        this.startDay = startDay;
+        if (!rules.isEmpty()) {
+            markDirty(ALL_NODES);
+        }
+    }
+
+    public void setDays(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("days must be at least 1: " + days);
+        }
+        if (days == this.days) {
+            return;
+        }
+        this.days = days;
+        markDirty(DAYS_DEPENDENTS);
+    }
+
+    /**
+     * Replaces the selected options.
+     */
+    public void setOptions(long optionMask) {
+        long changed = optionMask ^ this.optionMask;
+        if (changed == 0) {
+            return;
+        }
+        this.optionMask = optionMask;
+        markDirty(optionDependents(changed) | TOTAL);
+    }
+
+    /**
+     * Selects or deselects one option. Selecting an option of an exclusive category
+     * replaces the category's previous option.
+     */
+    public void setOptionSelected(BookingOption option, boolean selected) {
+        setOptions(selected ? OptionSet.select(optionMask, option) : OptionSet.without(optionMask, option));
+    }
+
+    /**
+     * Runs several input changes and flushes them in a single pass once the outermost update ends.
+     */
+    public void update(Runnable changes) {
+        updateDepth++;
+        try {
+            changes.run();
+        } finally {
+            updateDepth--;
+        }
+        flush();
+    }
+
+    /**
+     * Notifies listeners of every node regardless of whether its value changed,
+     * for example to render a freshly built view.
+     */
+    public void refreshAll() {
+        dirtyNodes = ALL_NODES;
+        recompute();
+        publish(ALL_NODES);
+    }
+
+    public CarData getCar() {
+        return car;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public long getOptions() {
+        return optionMask;
+    }
+
+    /**
+     * @return the version of the price table behind the current breakdown
+     */
+    public long getPriceVersion() {
+        return engine.getPriceTable().getVersion();
+    }
+
+    /**
+     * @return the current breakdown; only valid until the next input change
+     */
+    public Quote getQuote() {
+        return quote;
+    }
+
+    private void markDirty(int nodes) {
+        dirtyNodes |= rules.isEmpty() ? nodes : ALL_NODES;
+        if (updateDepth == 0) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (updateDepth > 0 || dirtyNodes == 0) {
+            return;
+        }
+        recompute();
+        int changed = 0;
+        if ((dirtyNodes & CAR_RENTAL) != 0 && quote.carRental != publishedCarRental) {
+            changed |= CAR_RENTAL;
+        }
+        for (OptionCategory category : CATEGORIES) {
+            int i = category.ordinal();
+            if ((dirtyNodes & lineItem(category)) != 0
+                    && (quote.perDay[i] != publishedBasePrices[i] || quote.amounts[i] != publishedAmounts[i]
+                        || (category.isPerDay() && quote.perDay[i] != 0 && quote.days != publishedDays))) {
+                changed |= lineItem(category);
+            }
+        }
+        if ((dirtyNodes & TOTAL) != 0 && quote.total != publishedTotal) {
+            changed |= TOTAL;
+        }
+        publish(changed);
+    }
+
+    private void recompute() {
+        if (car == null) {
+            quote.clear();
+            quote.days = days;
+        } else if (carIndex >= 0) {
+            matrix.quote(carIndex, days, optionMask, quote);
+        } else {
+            engine.quote(car.getPrice(), days, optionMask, quote);
+        }
+        if (car != null) {
+            rules.apply(quote, car, optionMask, startDay != null ? startDay : LocalDate.now().getDayOfWeek(), ruleContext);
+        }
+    }
+
+    private void publish(int changed) {
+        dirtyNodes = 0;
+        publishedCarRental = quote.carRental;
+        publishedTotal = quote.total;
+        publishedDays = quote.days;
+        System.arraycopy(quote.perDay, 0, publishedBasePrices, 0, CATEGORIES.length);
+        System.arraycopy(quote.amounts, 0, publishedAmounts, 0, CATEGORIES.length);
+        if (changed == 0) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.bookingChanged(this, changed);
+        }
+    }
+
+    private static int optionDependents(long options) {
+        int nodes = 0;
+        for (OptionCategory category : CATEGORIES) {
+            if ((options & OptionSet.categoryMask(category)) != 0) {
+                nodes |= lineItem(category);
+            }
+        }
+        return nodes;
+    }
+}
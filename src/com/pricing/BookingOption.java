@@ -0,0 +1,82 @@
+package com.pricing;
+
+/**
+ * Every selectable booking option together with its category and default price in rand.
+ * The ordinal of an option is its bit position in an option mask (see {@link OptionSet})
+ * and its index into {@link PriceTable}, so new options must be appended, never reordered.
+ */
+public enum BookingOption {
+    BABY_SEAT("Baby Seat", OptionCategory.EXTRAS, 60),
+    ROADSIDE_SUPPORT("Roadside Support", OptionCategory.EXTRAS, 40),
+    THEFT("Theft", OptionCategory.INSURANCE, 100),
+    DAMAGE_WAIVER("Damage Waiver", OptionCategory.INSURANCE, 80),
+    PREPAID("Prepaid", OptionCategory.FUEL_POLICY, 0),
+    FULL_TO_FULL("Full-to-Full", OptionCategory.FUEL_POLICY, 300),
+    SELF_DRIVING("Self-Driving", OptionCategory.DRIVER, 0),
+    ASSIGN_DRIVER("Assign Driver", OptionCategory.DRIVER, 200);
+
+    private static final BookingOption[] VALUES = values();
+    private static final BookingOption[][] BY_CATEGORY = new BookingOption[OptionCategory.values().length][];
+
+    static {
+        for (OptionCategory category : OptionCategory.values()) {
+            int count = 0;
+            for (BookingOption option : VALUES) {
+                if (option.category == category) count++;
+            }
+            BookingOption[] options = new BookingOption[count];
+            int i = 0;
+            for (BookingOption option : VALUES) {
+                if (option.category == category) options[i++] = option;
+            }
+            BY_CATEGORY[category.ordinal()] = options;
+        }
+    }
+
+    private final String label;
+    private final OptionCategory category;
+    private final int defaultPrice;
+
+    BookingOption(String label, OptionCategory category, int defaultPrice) {
+        this.label = label;
+        this.category = category;
+        this.defaultPrice = defaultPrice;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public OptionCategory getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the price used by {@link PriceTable#defaults()}
+     */
+    public int getDefaultPrice() {
+        return defaultPrice;
+    }
+
+    /**
+     * @return the option with the given ordinal
+     */
+    public static BookingOption byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * @return the number of options, which is also the number of bits used by an option mask
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Returns the options of a category in declaration order.
+     * The returned array is shared and must not be modified.
+     */
+    public static BookingOption[] inCategory(OptionCategory category) {
+        return BY_CATEGORY[category.ordinal()];
+    }
+}
@@ -0,0 +1,98 @@
+package com.pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount of rand stored as a {@code long} number of cents.
+ * Arithmetic is overflow-checked and throws {@link ArithmeticException} instead of wrapping.
+ */
+public final class Money implements Comparable<Money> {
+    public static final long CENTS_PER_RAND = 100;
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money ofRand(long rand) {
+        return ofCents(randToCents(rand));
+    }
+
+    /**
+     * Parses an amount of rand with at most two decimals, such as {@code 60} or {@code 12.50}.
+     *
+     * @throws NumberFormatException if the text is not such an amount or does not fit a long
+     */
+    public static Money parse(String rand) {
+        try {
+            return ofCents(new BigDecimal(rand.trim()).movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Not an amount in whole cents: " + rand);
+        }
+    }
+
+    /**
+     * Converts whole rand to cents.
+     *
+     * @throws ArithmeticException if the result overflows a long
+     */
+    public static long randToCents(long rand) {
+        return Math.multiplyExact(rand, CENTS_PER_RAND);
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * @return the whole rand part, truncated towards zero
+     */
+    public long getRand() {
+        return cents / CENTS_PER_RAND;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * @return the amount formatted by {@link MoneyFormat}, e.g. {@code R9,500}
+     */
+    @Override
+    public String toString() {
+        return MoneyFormat.format(cents);
+    }
+}
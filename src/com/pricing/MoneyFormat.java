@@ -0,0 +1,109 @@
+package com.pricing;
+
+/**
+ * Formats amounts in cents as rand, e.g. {@code R9,500} or {@code R12.50}.
+ *
+ * <p>Digits are written straight into a caller supplied {@link StringBuilder} or a
+ * per-thread {@code char[]}, so formatting never creates a {@code NumberFormat}.
+ * Whole-rand amounts up to {@link #CACHE_LIMIT} are additionally cached as strings.
+ * All methods are thread-safe.</p>
+ */
+public final class MoneyFormat {
+    /**
+     * Whole-rand amounts from zero up to this value are cached after their first use.
+     */
+    public static final int CACHE_LIMIT = 20_000;
+
+    private static final char CURRENCY = 'R';
+    private static final char GROUPING = ',';
+    private static final char DECIMAL = '.';
+    // "-R" + 19 digits + 6 separators + ".00"
+    private static final int MAX_LENGTH = 30;
+
+    // Racy publication is safe: Strings are immutable and a lost write is simply recomputed
+    private static final String[] CACHE = new String[CACHE_LIMIT + 1];
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+    private MoneyFormat() {
+    }
+
+    /**
+     * Formats an amount in cents. Cents are only shown when the amount is not whole rand.
+     */
+    public static String format(long cents) {
+        if (cents >= 0 && cents % Money.CENTS_PER_RAND == 0 && cents / Money.CENTS_PER_RAND <= CACHE_LIMIT) {
+            int rand = (int) (cents / Money.CENTS_PER_RAND);
+            String cached = CACHE[rand];
+            if (cached == null) {
+                cached = render(cents);
+                CACHE[rand] = cached;
+            }
+            return cached;
+        }
+        return render(cents);
+    }
+
+    public static String format(Money amount) {
+        return format(amount.getCents());
+    }
+
+    /**
+     * Formats an amount of whole rand.
+     */
+    public static String formatRand(long rand) {
+        return format(Money.randToCents(rand));
+    }
+
+    /**
+     * Appends a formatted amount in cents to a builder without creating intermediate strings.
+     *
+     * @return the same builder, for chaining
+     */
+    public static StringBuilder formatTo(long cents, StringBuilder sb) {
+        char[] buffer = BUFFER.get();
+        int start = write(cents, buffer);
+        return sb.append(buffer, start, MAX_LENGTH - start);
+    }
+
+    private static String render(long cents) {
+        char[] buffer = BUFFER.get();
+        int start = write(cents, buffer);
+        return new String(buffer, start, MAX_LENGTH - start);
+    }
+
+    /**
+     * Writes the amount right-aligned into the buffer.
+     *
+     * @return the index of the first written character
+     */
+    private static int write(long cents, char[] buffer) {
+        int pos = MAX_LENGTH;
+        boolean negative = cents < 0;
+        // Work with non-positive values so Long.MIN_VALUE does not overflow
+        long value = negative ? cents : -cents;
+
+        long fraction = -(value % Money.CENTS_PER_RAND);
+        long rand = -(value / Money.CENTS_PER_RAND);
+        if (fraction != 0) {
+            buffer[--pos] = (char) ('0' + fraction % 10);
+            buffer[--pos] = (char) ('0' + fraction / 10);
+            buffer[--pos] = DECIMAL;
+        }
+
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) {
+                buffer[--pos] = GROUPING;
+            }
+            buffer[--pos] = (char) ('0' + rand % 10);
+            rand /= 10;
+            digits++;
+        } while (rand != 0);
+
+        buffer[--pos] = CURRENCY;
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,41 @@
+package com.pricing;
+
+/**
+ * Groups of booking options as they appear on the booking panel.
+ * A category decides whether its price is charged per day or once per booking,
+ * and whether its options can be combined or exclude each other.
+ */
+public enum OptionCategory {
+    EXTRAS("Extras", true, false),
+    INSURANCE("Insurance", true, false),
+    FUEL_POLICY("Fuel Policy", false, true),
+    DRIVER("Driver Choice", true, true);
+
+    private final String title;
+    private final boolean perDay;
+    private final boolean exclusive;
+
+    OptionCategory(String title, boolean perDay, boolean exclusive) {
+        this.title = title;
+        this.perDay = perDay;
+        this.exclusive = exclusive;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return true if the option price is multiplied by the number of rental days
+     */
+    public boolean isPerDay() {
+        return perDay;
+    }
+
+    /**
+     * @return true if at most one option of this category can be selected
+     */
+    public boolean isExclusive() {
+        return exclusive;
+    }
+}
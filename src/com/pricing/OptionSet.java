@@ -0,0 +1,126 @@
+package com.pricing;
+
+/**
+ * Static helpers for option masks: a selection of {@link BookingOption}s encoded as a
+ * single {@code long} where bit {@code n} is set when the option with ordinal {@code n}
+ * is selected. Masks are cheap to hash, compare, cache and serialize.
+ */
+public final class OptionSet {
+    public static final long EMPTY = 0L;
+
+    /**
+     * Mask with every defined option set; masks outside this range are invalid.
+     */
+    public static final long ALL = (1L << BookingOption.count()) - 1;
+
+    private static final long[] CATEGORY_MASKS = new long[OptionCategory.values().length];
+
+    static {
+        for (BookingOption option : BookingOption.values()) {
+            CATEGORY_MASKS[option.getCategory().ordinal()] |= bit(option);
+        }
+    }
+
+    private OptionSet() {
+    }
+
+    public static long bit(BookingOption option) {
+        return 1L << option.ordinal();
+    }
+
+    public static long of(BookingOption... options) {
+        long mask = EMPTY;
+        for (BookingOption option : options) {
+            mask |= bit(option);
+        }
+        return mask;
+    }
+
+    public static boolean contains(long mask, BookingOption option) {
+        return (mask & bit(option)) != 0;
+    }
+
+    public static long with(long mask, BookingOption option) {
+        return mask | bit(option);
+    }
+
+    public static long without(long mask, BookingOption option) {
+        return mask & ~bit(option);
+    }
+
+    /**
+     * Selects an option, first clearing the other options of its category if that category is exclusive.
+     */
+    public static long select(long mask, BookingOption option) {
+        if (option.getCategory().isExclusive()) {
+            mask &= ~categoryMask(option.getCategory());
+        }
+        return mask | bit(option);
+    }
+
+    /**
+     * @return the mask of every option in the category
+     */
+    public static long categoryMask(OptionCategory category) {
+        return CATEGORY_MASKS[category.ordinal()];
+    }
+
+    /**
+     * Checks that a mask only uses defined options and selects at most one option per exclusive category.
+     */
+    public static boolean isValid(long mask) {
+        if ((mask & ~ALL) != 0) {
+            return false;
+        }
+        for (OptionCategory category : OptionCategory.values()) {
+            if (category.isExclusive() && Long.bitCount(mask & categoryMask(category)) > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Enumerates every valid mask in ascending order, i.e. the whole option space a booking can select.
+     */
+    public static long[] validMasks() {
+        int count = 0;
+        for (long mask = 0; mask <= ALL; mask++) {
+            if (isValid(mask)) count++;
+        }
+        long[] masks = new long[count];
+        int i = 0;
+        for (long mask = 0; mask <= ALL; mask++) {
+            if (isValid(mask)) masks[i++] = mask;
+        }
+        return masks;
+    }
+
+    /**
+     * Parses a comma separated list of option names such as {@code "BABY_SEAT,THEFT"}.
+     *
+     * @throws IllegalArgumentException if a name does not match a booking option
+     */
+    public static long parse(String names) {
+        long mask = EMPTY;
+        if (names == null || names.isBlank()) {
+            return mask;
+        }
+        for (String name : names.split(",")) {
+            mask |= bit(BookingOption.valueOf(name.trim()));
+        }
+        return mask;
+    }
+
+    /**
+     * Formats a mask as the comma separated option names accepted by {@link #parse(String)}.
+     */
+    public static String toString(long mask) {
+        StringBuilder sb = new StringBuilder();
+        for (long bits = mask & ALL; bits != 0; bits &= bits - 1) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(BookingOption.byOrdinal(Long.numberOfTrailingZeros(bits)).name());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.pricing;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import com.data.CarCatalog;
+
+/**
+ * Publishes the current {@link PriceSnapshot} through a single volatile reference and
+ * replaces it when the price file changes.
+ *
+ * <p>Readers call {@link #current()} once per quote and keep using that snapshot, so they
+ * never lock and never see a mix of old and new prices. Reloads build a complete snapshot
+ * off to the side and swap it in with one write; a file with an invalid line is reported
+ * and the previous snapshot stays in place. Every snapshot that changes a price gets the
+ * next version number.</p>
+ */
+public final class PriceBook implements AutoCloseable {
+
+    /**
+     * Receives each newly published snapshot, on the thread that loaded it.
+     */
+    public interface Listener {
+        void pricesChanged(PriceSnapshot prices);
+    }
+
+    // Editors often write a file in several steps; wait for them to settle before reloading
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path file;
+    private final PriceSnapshot defaults;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile PriceSnapshot current;
+    private WatchService watchService;
+
+    /**
+     * Starts with the catalog's built-in prices; call {@link #reload()} to read the file.
+     *
+     * @param catalog The cars being priced
+     * @param file The price file, see {@link PriceFile}
+     */
+    public PriceBook(CarCatalog catalog, Path file) {
+        this.file = file.toAbsolutePath();
+        this.defaults = PriceSnapshot.defaults(catalog);
+        this.current = defaults;
+    }
+
+    /**
+     * @return the snapshot to price with; read it once per quote
+     */
+    public PriceSnapshot current() {
+        return current;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reloads the price file and publishes it if any price changed. A deleted file
+     * restores the built-in prices.
+     *
+     * @return true if a new snapshot was published
+     * @throws IOException if the file cannot be loaded; the current snapshot is kept
+     */
+    public synchronized boolean reload() throws IOException {
+        PriceSnapshot previous = current;
+        long version = previous.getVersion() + 1;
+        PriceSnapshot next = Files.exists(file) ? PriceFile.load(file, defaults, version) : defaults.withVersion(version);
+        if (next.hasSamePrices(previous)) {
+            return false;
+        }
+        current = next;
+        for (Listener listener : listeners) {
+            listener.pricesChanged(next);
+        }
+        return true;
+    }
+
+    /**
+     * Publishes prices changed from somewhere other than the file, such as the kiosk feed,
+     * if any price changed. The file's prices apply again on its next reload.
+     *
+     * @param change Derives the new prices from the current snapshot
+     * @return true if a new snapshot was published
+     */
+    public synchronized boolean update(UnaryOperator<PriceSnapshot> change) {
+        PriceSnapshot previous = current;
+        PriceSnapshot next = change.apply(previous);
+        if (next.hasSamePrices(previous)) {
+            return false;
+        }
+        current = next.withVersion(previous.getVersion() + 1);
+        for (Listener listener : listeners) {
+            listener.pricesChanged(current);
+        }
+        return true;
+    }
+
+    /**
+     * Starts a daemon thread that reloads the prices whenever the file is created, modified or deleted.
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path directory = file.getParent();
+        WatchService service = directory.getFileSystem().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchService = service;
+        Thread watcher = new Thread(() -> watchLoop(service), "price-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watchLoop(WatchService service) {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                // Collect the burst of events one save produces into a single reload
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                    }
+                    key.reset();
+                } while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        System.err.println("Keeping current prices: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Stops watching the price file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.pricing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.data.CarCatalog;
+
+/**
+ * Reads prices from a text file of {@code key=value} lines; blank lines and lines starting
+ * with {@code #} are ignored.
+ *
+ * <pre>
+ * # Daily car prices in whole rand, by car id
+ * car.gle=9500
+ * # Option prices in rand, by option name
+ * option.BABY_SEAT=60
+ * option.FULL_TO_FULL=299.99
+ * </pre>
+ *
+ * Anything the file does not mention keeps the price of the base snapshot it is applied to.
+ */
+public final class PriceFile {
+    private static final String CAR_PREFIX = "car.";
+    private static final String OPTION_PREFIX = "option.";
+
+    private PriceFile() {
+    }
+
+    /**
+     * Applies the prices in a file to a base snapshot.
+     *
+     * @param file The price file
+     * @param base The prices of everything the file does not mention
+     * @param version The version of the resulting snapshot
+     * @throws IOException if the file cannot be read or has an invalid line; the message names the line
+     */
+    public static PriceSnapshot load(Path file, PriceSnapshot base, long version) throws IOException {
+        CarCatalog catalog = base.getCatalog();
+        PriceTable options = base.getOptionPrices();
+        int[] carPrices = base.getCarPrices();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (eq <= 0) {
+                    throw invalidLine(file, lineNumber, "expected key=value");
+                }
+                String key = line.substring(0, eq).trim();
+                String value = line.substring(eq + 1).trim();
+                try {
+                    if (key.startsWith(CAR_PREFIX)) {
+                        String id = key.substring(CAR_PREFIX.length());
+                        int index = catalog.indexOf(id);
+                        if (index < 0) {
+                            throw invalidLine(file, lineNumber, "unknown car " + id);
+                        }
+                        carPrices[index] = Integer.parseInt(value);
+                        if (carPrices[index] < 0) {
+                            throw invalidLine(file, lineNumber, "negative price");
+                        }
+                    } else if (key.startsWith(OPTION_PREFIX)) {
+                        BookingOption option = BookingOption.valueOf(key.substring(OPTION_PREFIX.length()));
+                        options = options.withPrice(option, Money.parse(value));
+                    } else {
+                        throw invalidLine(file, lineNumber, "unknown key " + key);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Also covers NumberFormatException and unknown option names
+                    throw invalidLine(file, lineNumber, e.getMessage());
+                }
+            }
+        }
+        return new PriceSnapshot(catalog, options.withVersion(version), carPrices);
+    }
+
+    private static IOException invalidLine(Path file, int lineNumber, String reason) {
+        return new IOException(file + ":" + lineNumber + ": " + reason);
+    }
+}
@@ -0,0 +1,300 @@
+package com.pricing;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+import java.util.function.LongUnaryOperator;
+
+import com.data.filter.CompressedBitmap;
+
+/**
+ * The catalog's cars sorted by daily price, kept in primitive arrays, for range and
+ * cheapest-first queries.
+ *
+ * <p>The engine's total for a rental is {@code (car price + per-day options) x days +
+ * once-off options}, which rises with the car's daily price for any duration and options.
+ * The same order therefore ranks cars by total, and {@link #forTotals} answers total
+ * queries by binary search over it, pricing only the cars it probes. Pricing rules are
+ * applied after the engine and are not reflected in the order.</p>
+ *
+ * <p>An index is immutable. {@link #withPrices} moves only the cars whose price changed:
+ * they are removed, sorted among themselves and merged back in, without re-sorting the
+ * fleet. Equal prices are ordered by catalog index.</p>
+ */
+public final class PriceIndex {
+    /** Rows are looked up in the order instead of being sorted directly above this share. */
+    private static final int SCAN_DIVISOR = 16;
+
+    private final int[] prices;
+    private final int[] sortedRows;
+    private final int[] sortedPrices;
+
+    private PriceIndex(int[] prices, int[] sortedRows, int[] sortedPrices) {
+        this.prices = prices;
+        this.sortedRows = sortedRows;
+        this.sortedPrices = sortedPrices;
+    }
+
+    /**
+     * @param carPrices The daily price of each car in rand, indexed like the catalog
+     * @throws IllegalArgumentException if a price is negative
+     */
+    public static PriceIndex build(int[] carPrices) {
+        int[] prices = carPrices.clone();
+        long[] packed = new long[prices.length];
+        for (int row = 0; row < prices.length; row++) {
+            packed[row] = pack(prices[row], row);
+        }
+        Arrays.sort(packed);
+        int[] sortedRows = new int[prices.length];
+        int[] sortedPrices = new int[prices.length];
+        for (int i = 0; i < packed.length; i++) {
+            sortedRows[i] = (int) packed[i];
+            sortedPrices[i] = (int) (packed[i] >>> 32);
+        }
+        return new PriceIndex(prices, sortedRows, sortedPrices);
+    }
+
+    public static PriceIndex build(PriceSnapshot snapshot) {
+        return build(snapshot.getCarPrices());
+    }
+
+    /**
+     * Sorts a price and row into one long, so that longs order like (price, row).
+     */
+    private static long pack(int price, int row) {
+        if (price < 0) {
+            throw new IllegalArgumentException("Car " + row + " has a negative price: " + price);
+        }
+        return (long) price << 32 | row;
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    /**
+     * @return the daily price of a car in rand
+     */
+    public int getPrice(int row) {
+        return prices[row];
+    }
+
+    /**
+     * Returns an index for new prices of the same cars, moving only the cars whose price
+     * changed.
+     *
+     * @param carPrices The daily price of each car in rand, indexed like the catalog
+     * @return this index if no price changed
+     */
+    public PriceIndex withPrices(int[] carPrices) {
+        if (carPrices.length != prices.length) {
+            throw new IllegalArgumentException(carPrices.length + " prices for " + prices.length + " cars");
+        }
+        int changedCount = 0;
+        for (int row = 0; row < prices.length; row++) {
+            if (carPrices[row] != prices[row]) {
+                changedCount++;
+            }
+        }
+        if (changedCount == 0) {
+            return this;
+        }
+        long[] changed = new long[changedCount];
+        boolean[] moved = new boolean[prices.length];
+        int c = 0;
+        for (int row = 0; row < prices.length; row++) {
+            if (carPrices[row] != prices[row]) {
+                changed[c++] = pack(carPrices[row], row);
+                moved[row] = true;
+            }
+        }
+        Arrays.sort(changed);
+
+        int[] newRows = new int[prices.length];
+        int[] newPrices = new int[prices.length];
+        int out = 0;
+        int next = 0;
+        for (int i = 0; i < sortedRows.length; i++) {
+            int row = sortedRows[i];
+            if (moved[row]) {
+                continue;
+            }
+            long key = pack(sortedPrices[i], row);
+            while (next < changed.length && changed[next] < key) {
+                newRows[out] = (int) changed[next];
+                newPrices[out++] = (int) (changed[next++] >>> 32);
+            }
+            newRows[out] = row;
+            newPrices[out++] = sortedPrices[i];
+        }
+        while (next < changed.length) {
+            newRows[out] = (int) changed[next];
+            newPrices[out++] = (int) (changed[next++] >>> 32);
+        }
+        return new PriceIndex(carPrices.clone(), newRows, newPrices);
+    }
+
+    public PriceIndex withPrices(PriceSnapshot snapshot) {
+        return withPrices(snapshot.getCarPrices());
+    }
+
+    /**
+     * @return the number of cars priced from minPrice to maxPrice inclusive
+     */
+    public int countInRange(int minPrice, int maxPrice) {
+        return Math.max(0, upperBound(maxPrice) - lowerBound(minPrice));
+    }
+
+    /**
+     * Lists cars priced from minPrice to maxPrice inclusive, cheapest first.
+     *
+     * @param filter Accepts the rows to include, or null to include all
+     * @param limit The most rows to return
+     */
+    public int[] range(int minPrice, int maxPrice, IntPredicate filter, int limit) {
+        return collect(lowerBound(minPrice), upperBound(maxPrice), false, filter, limit);
+    }
+
+    /**
+     * @param filter Accepts the rows to include, or null to include all
+     * @return up to k rows, cheapest first
+     */
+    public int[] cheapest(int k, IntPredicate filter) {
+        return collect(0, sortedRows.length, false, filter, k);
+    }
+
+    /**
+     * @param filter Accepts the rows to include, or null to include all
+     * @return up to k rows, dearest first
+     */
+    public int[] dearest(int k, IntPredicate filter) {
+        return collect(0, sortedRows.length, true, filter, k);
+    }
+
+    /**
+     * Returns the cheapest or dearest k of a set of rows. A small set is sorted directly;
+     * a large one is found by walking the order, which stops after k matches.
+     */
+    public int[] top(int k, CompressedBitmap rows, boolean dearest) {
+        if (rows.cardinality() > sortedRows.length / SCAN_DIVISOR) {
+            return collect(0, sortedRows.length, dearest, rows::contains, k);
+        }
+        long[] packed = new long[rows.cardinality()];
+        int n = 0;
+        for (PrimitiveIterator.OfInt it = rows.iterator(); it.hasNext();) {
+            int row = it.nextInt();
+            packed[n++] = pack(prices[row], row);
+        }
+        Arrays.sort(packed);
+        int[] result = new int[Math.min(k, n)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) packed[dearest ? n - 1 - i : i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns a view of this order ranked by the engine's total for a rental.
+     *
+     * @param engine The engine whose option prices apply
+     * @param days The rental duration
+     * @param optionMask The selected options
+     */
+    public TotalOrder forTotals(QuoteEngine engine, int days, long optionMask) {
+        return new TotalOrder(engine, days, optionMask);
+    }
+
+    /**
+     * The cars ranked by total for one duration and set of options.
+     */
+    public final class TotalOrder {
+        private final LongUnaryOperator totalOfPrice;
+
+        private TotalOrder(QuoteEngine engine, int days, long optionMask) {
+            long perDay = engine.perDayOptionPrice(optionMask);
+            long onceOff = engine.onceOffOptionPrice(optionMask);
+            this.totalOfPrice = price -> Math.addExact(
+                    Math.multiplyExact(Math.addExact(Money.randToCents(price), perDay), days), onceOff);
+        }
+
+        /**
+         * @return the engine's total in cents for a car
+         */
+        public long total(int row) {
+            return totalOfPrice.applyAsLong(prices[row]);
+        }
+
+        /**
+         * Lists cars whose total is from minTotal to maxTotal cents inclusive, cheapest first.
+         *
+         * @param filter Accepts the rows to include, or null to include all
+         * @param limit The most rows to return
+         */
+        public int[] range(long minTotal, long maxTotal, IntPredicate filter, int limit) {
+            return collect(lowerBound(minTotal), lowerBound(maxTotal == Long.MAX_VALUE ? maxTotal : maxTotal + 1),
+                    false, filter, limit);
+        }
+
+        public int[] cheapest(int k, IntPredicate filter) {
+            return PriceIndex.this.cheapest(k, filter);
+        }
+
+        public int[] dearest(int k, IntPredicate filter) {
+            return PriceIndex.this.dearest(k, filter);
+        }
+
+        /**
+         * @return the first position whose total is at least the given one
+         */
+        private int lowerBound(long total) {
+            int low = 0;
+            int high = sortedPrices.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (totalOfPrice.applyAsLong(sortedPrices[middle]) < total) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private int[] collect(int from, int to, boolean descending, IntPredicate filter, int limit) {
+        int[] result = new int[Math.max(0, Math.min(limit, to - from))];
+        int n = 0;
+        for (int i = 0; i < to - from && n < result.length; i++) {
+            int row = sortedRows[descending ? to - 1 - i : from + i];
+            if (filter == null || filter.test(row)) {
+                result[n++] = row;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @return the first position priced at least price
+     */
+    private int lowerBound(int price) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedPrices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the position after the last one priced at most price
+     */
+    private int upperBound(int price) {
+        return price == Integer.MAX_VALUE ? sortedPrices.length : lowerBound(price + 1);
+    }
+}
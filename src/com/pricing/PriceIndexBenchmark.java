@@ -0,0 +1,101 @@
+package com.pricing;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Times {@link PriceIndex} queries and updates on generated fleets of 10k, 100k and 1M
+ * cars, after checking each query against a brute-force answer.
+ *
+ * <p>Usage: {@code PriceIndexBenchmark [maxCars] [rounds]}</p>
+ */
+public final class PriceIndexBenchmark {
+
+    private PriceIndexBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxCars = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        QuoteEngine engine = new QuoteEngine();
+        long mask = OptionSet.validMasks()[OptionSet.validMasks().length - 1];
+
+        for (int cars = 10_000; cars <= maxCars; cars *= 10) {
+            Random random = new Random(cars);
+            int[] prices = new int[cars];
+            for (int i = 0; i < cars; i++) {
+                prices[i] = 500 + 10 * random.nextInt(2000);
+            }
+            // Every seventh car stands in for "matching X", such as a brand
+            IntPredicate filter = row -> row % 7 == 0;
+            int[] changedOne = prices.clone();
+            changedOne[cars / 2] += 10;
+            int[] changedMany = prices.clone();
+            for (int i = 0; i < cars / 100; i++) {
+                changedMany[random.nextInt(cars)] = 500 + 10 * random.nextInt(2000);
+            }
+
+            PriceIndex index = PriceIndex.build(prices);
+            check(index, prices, filter, engine, mask);
+            check(index.withPrices(changedMany), changedMany, filter, engine, mask);
+            PriceIndex.TotalOrder totals = index.forTotals(engine, 7, mask);
+
+            System.out.printf("%,d cars:%n", cars);
+            time("  build (full sort)", rounds, () -> PriceIndex.build(prices).size());
+            time("  update 1 price", rounds, () -> index.withPrices(changedOne).size());
+            time("  update 1% of prices", rounds, () -> index.withPrices(changedMany).size());
+            time("  cheapest 10 matching", rounds, () -> index.cheapest(10, filter).length);
+            time("  R1500-R2500/day", rounds, () -> index.range(1500, 2500, null, Integer.MAX_VALUE).length);
+            time("  count R1500-R2500/day", rounds, () -> index.countInRange(1500, 2500));
+            time("  7-day total R20k-R21k", rounds, () -> totals.range(2_000_000, 2_100_000, null, 100).length);
+        }
+    }
+
+    private interface Task {
+        int run();
+    }
+
+    private static void time(String label, int rounds, Task task) {
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            checksum += task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-26s %10.1f us  (%d)%n", label, best / 1e3, checksum / rounds);
+    }
+
+    private static void check(PriceIndex index, int[] prices, IntPredicate filter, QuoteEngine engine, long mask) {
+        long[] packed = new long[prices.length];
+        for (int row = 0; row < prices.length; row++) {
+            packed[row] = (long) prices[row] << 32 | row;
+        }
+        Arrays.sort(packed);
+        int[] order = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            order[i] = (int) packed[i];
+        }
+        expect("full order", order, index.cheapest(Integer.MAX_VALUE, null));
+        expect("cheapest 10", Arrays.stream(order).filter(filter::test).limit(10).toArray(), index.cheapest(10, filter));
+        int[] reversed = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            reversed[i] = order[order.length - 1 - i];
+        }
+        expect("dearest 10", Arrays.stream(reversed).filter(filter::test).limit(10).toArray(), index.dearest(10, filter));
+        expect("range", Arrays.stream(order).filter(r -> prices[r] >= 1500 && prices[r] <= 2500).toArray(),
+                index.range(1500, 2500, null, Integer.MAX_VALUE));
+        PriceIndex.TotalOrder totals = index.forTotals(engine, 7, mask);
+        expect("total range", Arrays.stream(order).filter(r -> {
+            long total = engine.total(prices[r], 7, mask);
+            return total >= 2_000_000 && total <= 2_100_000;
+        }).toArray(), totals.range(2_000_000, 2_100_000, null, Integer.MAX_VALUE));
+    }
+
+    private static void expect(String what, int[] expected, int[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(what + " differs from brute force");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pricing;
+
+import java.util.Arrays;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Every price the kiosk charges at one point in time: the option prices and the daily price
+ * of each car in a catalog, held in primitive arrays. Snapshots are immutable, so a quote
+ * that reads one snapshot at the start is priced consistently even if a new one is
+ * published meanwhile (see {@link PriceBook}).
+ */
+public final class PriceSnapshot {
+    private final CarCatalog catalog;
+    private final PriceTable optionPrices;
+    private final int[] carPrices;
+    private final QuoteEngine engine;
+
+    /**
+     * @param catalog The cars the prices apply to
+     * @param optionPrices The option prices; their version is the snapshot's version
+     * @param carPrices The daily price in rand of each car, indexed like the catalog
+     */
+    public PriceSnapshot(CarCatalog catalog, PriceTable optionPrices, int[] carPrices) {
+        if (carPrices.length != catalog.size()) {
+            throw new IllegalArgumentException("Expected " + catalog.size() + " car prices, got " + carPrices.length);
+        }
+        for (int i = 0; i < carPrices.length; i++) {
+            if (carPrices[i] < 0) {
+                throw new IllegalArgumentException("Price of " + catalog.get(i).getId() + " must not be negative");
+            }
+        }
+        this.catalog = catalog;
+        this.optionPrices = optionPrices;
+        this.carPrices = carPrices.clone();
+        this.engine = new QuoteEngine(optionPrices);
+    }
+
+    /**
+     * @return the default option prices and each car's built-in daily price, as version 1
+     */
+    public static PriceSnapshot defaults(CarCatalog catalog) {
+        int[] carPrices = new int[catalog.size()];
+        for (int i = 0; i < carPrices.length; i++) {
+            carPrices[i] = catalog.get(i).getPrice();
+        }
+        return new PriceSnapshot(catalog, PriceTable.defaults(), carPrices);
+    }
+
+    public long getVersion() {
+        return optionPrices.getVersion();
+    }
+
+    public CarCatalog getCatalog() {
+        return catalog;
+    }
+
+    public PriceTable getOptionPrices() {
+        return optionPrices;
+    }
+
+    /**
+     * @return an engine pricing options with this snapshot's prices
+     */
+    public QuoteEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return the daily price in rand of the car at the given catalog index
+     */
+    public int getCarPrice(int carIndex) {
+        return carPrices[carIndex];
+    }
+
+    /**
+     * @return the car's daily price in rand, or its built-in price if it is not in the catalog
+     */
+    public int getCarPrice(CarData car) {
+        int index = catalog.indexOf(car.getId());
+        return index >= 0 ? carPrices[index] : car.getPrice();
+    }
+
+    /**
+     * @return a copy of the daily car prices in rand, indexed like the catalog
+     */
+    public int[] getCarPrices() {
+        return carPrices.clone();
+    }
+
+    /**
+     * @return true if both snapshots charge the same for every option and car, whatever their versions
+     */
+    public boolean hasSamePrices(PriceSnapshot other) {
+        return catalog == other.catalog && optionPrices.hasSamePrices(other.optionPrices)
+                && Arrays.equals(carPrices, other.carPrices);
+    }
+
+    /**
+     * Returns the same prices under another version number.
+     */
+    PriceSnapshot withVersion(long version) {
+        return new PriceSnapshot(catalog, optionPrices.withVersion(version), carPrices);
+    }
+}
@@ -0,0 +1,76 @@
+package com.pricing;
+
+import java.util.Arrays;
+
+/**
+ * Immutable option prices in cents, stored in a primitive array indexed by option ordinal.
+ * Every table carries a version that increases whenever prices change, so anything derived
+ * from the prices (caches, logs) can tell which table it was computed with.
+ */
+public final class PriceTable {
+    private static final PriceTable DEFAULTS = createDefaults();
+
+    private final long version;
+    private final long[] optionPrices;
+
+    private PriceTable(long version, long[] optionPrices) {
+        this.version = version;
+        this.optionPrices = optionPrices;
+    }
+
+    /**
+     * @return the table built from {@link BookingOption#getDefaultPrice()}
+     */
+    public static PriceTable defaults() {
+        return DEFAULTS;
+    }
+
+    private static PriceTable createDefaults() {
+        long[] prices = new long[BookingOption.count()];
+        for (BookingOption option : BookingOption.values()) {
+            prices[option.ordinal()] = Money.randToCents(option.getDefaultPrice());
+        }
+        return new PriceTable(1, prices);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a copy of this table with one option re-priced and the next version number.
+     */
+    public PriceTable withPrice(BookingOption option, Money price) {
+        if (price.getCents() < 0) {
+            throw new IllegalArgumentException("Price of " + option + " must not be negative: " + price);
+        }
+        long[] prices = Arrays.copyOf(optionPrices, optionPrices.length);
+        prices[option.ordinal()] = price.getCents();
+        return new PriceTable(version + 1, prices);
+    }
+
+    /**
+     * Returns this table's prices under the given version number.
+     */
+    PriceTable withVersion(long version) {
+        return new PriceTable(version, optionPrices);
+    }
+
+    /**
+     * @return true if both tables charge the same for every option, whatever their versions
+     */
+    public boolean hasSamePrices(PriceTable other) {
+        return Arrays.equals(optionPrices, other.optionPrices);
+    }
+
+    public Money getPrice(BookingOption option) {
+        return Money.ofCents(optionPrices[option.ordinal()]);
+    }
+
+    /**
+     * @return the price in cents of the option with the given ordinal
+     */
+    public long getPriceCents(int ordinal) {
+        return optionPrices[ordinal];
+    }
+}
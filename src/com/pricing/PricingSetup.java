@@ -0,0 +1,110 @@
+package com.pricing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.data.CarCatalog;
+import com.data.CatalogLoader;
+import com.data.GradingPolicy;
+import com.pricing.rules.RuleSet;
+import com.pricing.rules.RuleSyntaxException;
+
+/**
+ * Reads the fleet, prices and pricing rules from the files named by the {@code rental.*}
+ * system properties. The kiosk and the quote server both start from here, so they give the
+ * same quotes. Missing or invalid files are reported on standard error and replaced by the
+ * built-in data.
+ */
+public final class PricingSetup {
+
+    /** Catalogs larger than this are priced live instead of precomputing every quote. */
+    public static final int MAX_PRECOMPUTED_CARS = 3_500;
+
+    private PricingSetup() {
+    }
+
+    /**
+     * Loads the fleet from the file named by the {@code rental.catalog} system property
+     * (default {@code assets/data/cars.csv}), graded by the policy in {@code rental.grades}.
+     *
+     * @return the loaded catalog, or the built-in one if the file is missing, invalid or empty
+     */
+    public static CarCatalog loadCatalog() {
+        Path file = Paths.get(System.getProperty("rental.catalog", "assets/data/cars.csv"));
+        GradingPolicy policy = GradingPolicy.DEFAULT;
+        String grades = System.getProperty("rental.grades");
+        if (grades != null) {
+            try {
+                policy = GradingPolicy.parse(grades);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Using default grades: " + e.getMessage());
+            }
+        }
+        try {
+            CarCatalog catalog = CatalogLoader.load(file, policy);
+            if (catalog.size() > 0) {
+                return catalog;
+            }
+            System.err.println("Using built-in cars: " + file + " lists no cars");
+        } catch (IOException e) {
+            System.err.println("Using built-in cars: " + e.getMessage());
+        }
+        return CarCatalog.sample();
+    }
+
+    /**
+     * Loads the prices from the file named by the {@code rental.prices} system property
+     * (default {@code prices.properties}) and watches it for edits.
+     *
+     * @return the price book; it holds the built-in prices if the file is missing or invalid
+     */
+    public static PriceBook openPriceBook(CarCatalog catalog) {
+        Path file = Paths.get(System.getProperty("rental.prices", "prices.properties"));
+        PriceBook priceBook = new PriceBook(catalog, file);
+        try {
+            priceBook.reload();
+        } catch (IOException e) {
+            System.err.println("Using built-in prices: " + e.getMessage());
+        }
+        try {
+            priceBook.startWatching();
+        } catch (IOException e) {
+            System.err.println("Price file will not be reloaded: " + e.getMessage());
+        }
+        return priceBook;
+    }
+
+    /**
+     * Loads the pricing rules from the file named by the {@code rental.rules} system property
+     * (default {@code pricing.rules}).
+     *
+     * @return the rules, or no rules if the file is missing or invalid
+     */
+    public static RuleSet loadRules() {
+        Path file = Paths.get(System.getProperty("rental.rules", "pricing.rules"));
+        if (!Files.exists(file)) {
+            return RuleSet.empty();
+        }
+        try {
+            return RuleSet.load(file);
+        } catch (IOException | RuleSyntaxException e) {
+            System.err.println("Pricing rules disabled: " + file + ": " + e.getMessage());
+            return RuleSet.empty();
+        }
+    }
+
+    /**
+     * Precomputes the standard durations for a small fleet. A large fleet gets an empty matrix
+     * that prices each quote live, so startup time and memory stay flat as the catalog grows.
+     *
+     * @param cache Caches quotes priced live, or null to price them every time
+     */
+    public static QuoteMatrix buildQuoteMatrix(PriceSnapshot prices, QuoteCache cache) {
+        if (prices.getCatalog().size() > MAX_PRECOMPUTED_CARS) {
+            return new QuoteMatrix(prices, cache);
+        }
+        return new QuoteMatrix(prices, cache, BookingModel.standardDurations());
+    }
+}
@@ -0,0 +1,127 @@
+package com.pricing;
+
+import java.util.Arrays;
+
+/**
+ * Mutable price breakdown filled in by {@link QuoteEngine}. All amounts are in cents.
+ * Instances are meant to be reused between calls so that quoting does not allocate.
+ */
+public final class Quote {
+    private static final OptionCategory[] CATEGORIES = OptionCategory.values();
+
+    /**
+     * Number of longs a breakdown occupies when packed by {@link #writeTo}:
+     * the car rental, one amount per category and the total.
+     */
+    static final int PACKED_LENGTH = CATEGORIES.length + 2;
+
+    int days;
+    long carRental;
+    final long[] perDay = new long[OptionCategory.values().length];
+    final long[] amounts = new long[OptionCategory.values().length];
+    long total;
+
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * @return the car's daily price multiplied by the number of days, in cents
+     */
+    public long getCarRentalCents() {
+        return carRental;
+    }
+
+    /**
+     * @return the summed price of the selected options of a category before applying the duration, in cents
+     */
+    public long getBasePriceCents(OptionCategory category) {
+        return perDay[category.ordinal()];
+    }
+
+    /**
+     * @return the amount charged for a category over the whole rental, in cents
+     */
+    public long getAmountCents(OptionCategory category) {
+        return amounts[category.ordinal()];
+    }
+
+    public long getTotalCents() {
+        return total;
+    }
+
+    public Money getTotal() {
+        return Money.ofCents(total);
+    }
+
+    /**
+     * Overrides the car rental amount, for example when a pricing rule applies a surcharge.
+     * The total is not recomputed.
+     */
+    public void setCarRentalCents(long cents) {
+        carRental = cents;
+    }
+
+    /**
+     * Overrides the amount charged for a category over the whole rental. The total is not recomputed.
+     */
+    public void setAmountCents(OptionCategory category, long cents) {
+        amounts[category.ordinal()] = cents;
+    }
+
+    public void setTotalCents(long cents) {
+        total = cents;
+    }
+
+    /**
+     * Packs the amounts into {@link #PACKED_LENGTH} consecutive slots of an array.
+     * The duration is not stored; tables keep it as part of their key.
+     */
+    void writeTo(long[] table, int offset) {
+        table[offset] = carRental;
+        System.arraycopy(amounts, 0, table, offset + 1, CATEGORIES.length);
+        table[offset + CATEGORIES.length + 1] = total;
+    }
+
+    /**
+     * Restores a breakdown packed by {@link #writeTo}.
+     *
+     * @return this breakdown, for chaining
+     */
+    Quote readFrom(long[] table, int offset, int days) {
+        this.days = days;
+        carRental = table[offset];
+        System.arraycopy(table, offset + 1, amounts, 0, CATEGORIES.length);
+        for (OptionCategory category : CATEGORIES) {
+            int i = category.ordinal();
+            perDay[i] = category.isPerDay() ? amounts[i] / days : amounts[i];
+        }
+        total = table[offset + CATEGORIES.length + 1];
+        return this;
+    }
+
+    /**
+     * Copies another breakdown into this one.
+     *
+     * @return this breakdown, for chaining
+     */
+    public Quote copyFrom(Quote other) {
+        days = other.days;
+        carRental = other.carRental;
+        System.arraycopy(other.perDay, 0, perDay, 0, perDay.length);
+        System.arraycopy(other.amounts, 0, amounts, 0, amounts.length);
+        total = other.total;
+        return this;
+    }
+
+    /**
+     * Resets every amount to zero.
+     */
+    public void clear() {
+        days = 0;
+        carRental = 0;
+        Arrays.fill(perDay, 0);
+        Arrays.fill(amounts, 0);
+        total = 0;
+    }
+}
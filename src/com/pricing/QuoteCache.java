@@ -0,0 +1,496 @@
+package com.pricing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Bounded cache of quote breakdowns keyed by a packed {@code long} (see {@link #key}).
+ *
+ * <p>The cache is split into lock-striped segments. Each segment stores its entries in
+ * primitive arrays: the keys, the packed breakdowns and an open-addressing index. Eviction
+ * follows W-TinyLFU: new entries enter a small FIFO window, and when the window overflows
+ * its oldest entry only replaces the main region's CLOCK victim if a count-min sketch has
+ * seen it more often. One-off quotes therefore cannot flush out popular ones.</p>
+ *
+ * <p>Reads use optimistic stamps and never block each other, so the cache can be shared by
+ * the UI and server threads. Each segment records the {@link PriceTable#getVersion() price
+ * table version} its entries were priced with, checked under its lock on every access, and
+ * drops them the first time it is used with a newer version, so a lookup never returns a
+ * breakdown priced with another table than the caller's.</p>
+ */
+public final class QuoteCache {
+    private static final int STRIDE = Quote.PACKED_LENGTH;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    /**
+     * Approximate heap cost of one entry: key, packed breakdown, two index slots and the CLOCK bit.
+     */
+    public static final int BYTES_PER_ENTRY = Long.BYTES + STRIDE * Long.BYTES + 2 * Integer.BYTES + 1;
+
+    private static final int CAR_BITS = 24;
+    private static final int DAYS_BITS = 16;
+    private static final int MASK_BITS = 24;
+
+    private final Segment[] segments;
+    private final int maxEntries;
+    // The newest version seen, 0 until the first access; price table versions start at 1
+    private volatile long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxEntries The most entries the cache holds across all segments
+     */
+    public QuoteCache(int maxEntries) {
+        if (maxEntries < MIN_SEGMENT_CAPACITY) {
+            throw new IllegalArgumentException("maxEntries must be at least " + MIN_SEGMENT_CAPACITY + ": " + maxEntries);
+        }
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries / MIN_SEGMENT_CAPACITY));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maxEntries / segmentCount);
+        }
+        this.maxEntries = segments[0].capacity * segmentCount;
+    }
+
+    /**
+     * Creates a cache whose entries take roughly the given number of bytes.
+     */
+    public static QuoteCache withByteBudget(long bytes) {
+        return new QuoteCache((int) Math.min(Integer.MAX_VALUE / STRIDE, bytes / BYTES_PER_ENTRY));
+    }
+
+    /**
+     * Packs a quote's inputs into a cache key: 24 bits of car index, 16 bits of days and 24 bits of options.
+     *
+     * @throws IllegalArgumentException if a value does not fit its field
+     */
+    public static long key(int carIndex, int days, long optionMask) {
+        if (carIndex < 0 || carIndex >= 1 << CAR_BITS || days < 1 || days >= 1 << DAYS_BITS
+                || (optionMask >>> MASK_BITS) != 0) {
+            throw new IllegalArgumentException("Quote does not fit a cache key: car=" + carIndex
+                    + " days=" + days + " options=" + Long.toHexString(optionMask));
+        }
+        return (long) carIndex << (DAYS_BITS + MASK_BITS) | (long) days << MASK_BITS | optionMask;
+    }
+
+    private static int daysOf(long key) {
+        return (int) (key >>> MASK_BITS) & ((1 << DAYS_BITS) - 1);
+    }
+
+    /**
+     * Looks up a breakdown.
+     *
+     * @param priceVersion The version of the price table the caller quotes with
+     * @param key The packed key, see {@link #key}
+     * @param into Receives the breakdown on a hit; its contents are unspecified after a miss
+     * @return true on a hit
+     */
+    public boolean get(long priceVersion, long key, Quote into) {
+        if (priceVersion > version) {
+            invalidate(priceVersion);
+        }
+        boolean hit = priceVersion == version && segmentFor(key).get(priceVersion, key, into);
+        (hit ? hits : misses).increment();
+        return hit;
+    }
+
+    /**
+     * Offers a breakdown to the cache. It may be declined by the admission policy,
+     * and breakdowns priced with an outdated table are ignored.
+     */
+    public void put(long priceVersion, long key, Quote quote) {
+        if (priceVersion > version) {
+            invalidate(priceVersion);
+        }
+        segmentFor(key).put(priceVersion, key, quote);
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Records a newer price table version; each segment drops its entries when next used.
+     */
+    private synchronized void invalidate(long newVersion) {
+        if (newVersion <= version) {
+            return;
+        }
+        if (version != 0) {
+            invalidations.increment();
+        }
+        version = newVersion;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the number of cached entries; approximate while other threads write
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of admitted entries that were later pushed out
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of new entries the admission policy refused
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteCache[size=" + size() + "/" + maxEntries + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + ", rejections=" + getRejectionCount()
+                + ", invalidations=" + getInvalidationCount() + "]";
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (mix(key) >>> 58) & (segments.length - 1)];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * One lock stripe. Entry slots {@code [0, windowSize)} form the FIFO admission window,
+     * the remaining slots the CLOCK-managed main region. An empty slot has key 0, which
+     * no real key uses because days are at least 1.
+     */
+    private final class Segment {
+        final StampedLock lock = new StampedLock();
+        final int capacity;
+        final int windowSize;
+        final long[] keys;
+        final long[] values;
+        final boolean[] referenced;
+        final int[] index;
+        final int indexMask;
+        final FrequencySketch sketch;
+        int windowHand;
+        int clockHand;
+        int mainCount;
+        int count;
+        long priceVersion; // Of the table the entries were priced with
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.windowSize = Math.max(1, capacity / 100);
+            this.keys = new long[capacity];
+            this.values = new long[capacity * STRIDE];
+            this.referenced = new boolean[capacity];
+            this.index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            this.indexMask = index.length - 1;
+            this.sketch = new FrequencySketch(capacity);
+            this.clockHand = windowSize;
+        }
+
+        boolean get(long version, long key, Quote into) {
+            long stamp = lock.tryOptimisticRead();
+            long current = priceVersion;
+            int slot = current == version ? find(key) : -1;
+            if (slot >= 0) {
+                into.readFrom(values, slot * STRIDE, daysOf(key));
+            }
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    current = priceVersion;
+                    slot = current == version ? find(key) : -1;
+                    if (slot >= 0) {
+                        into.readFrom(values, slot * STRIDE, daysOf(key));
+                    }
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            if (current < version) {
+                stamp = lock.writeLock();
+                try {
+                    advance(version);
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+                return false;
+            }
+            if (slot >= 0) {
+                referenced[slot] = true;
+            }
+            // Frequency updates are best effort so readers never wait for writers
+            long writeStamp = lock.tryWriteLock();
+            if (writeStamp != 0) {
+                sketch.increment(key);
+                lock.unlockWrite(writeStamp);
+            }
+            return slot >= 0;
+        }
+
+        void put(long version, long key, Quote quote) {
+            long stamp = lock.writeLock();
+            try {
+                advance(version);
+                if (version != priceVersion) {
+                    return;
+                }
+                int slot = find(key);
+                if (slot >= 0) {
+                    quote.writeTo(values, slot * STRIDE);
+                    return;
+                }
+                sketch.increment(key);
+                int windowSlot = windowHand;
+                windowHand = (windowHand + 1) % windowSize;
+                if (keys[windowSlot] != 0) {
+                    promoteOrEvict(windowSlot);
+                }
+                store(windowSlot, key, quote);
+                count++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Moves the window entry in {@code slot} to the main region if it wins against the
+         * CLOCK victim, otherwise drops it. Leaves {@code slot} empty.
+         */
+        private void promoteOrEvict(int slot) {
+            long candidate = keys[slot];
+            unlink(slot);
+            int target;
+            if (mainCount < capacity - windowSize) {
+                target = nextFreeMainSlot();
+                mainCount++;
+            } else {
+                int victim = clockVictim();
+                if (sketch.frequency(candidate) <= sketch.frequency(keys[victim])) {
+                    keys[slot] = 0;
+                    count--;
+                    rejections.increment();
+                    return;
+                }
+                unlink(victim);
+                evictions.increment();
+                count--;
+                target = victim;
+            }
+            keys[target] = candidate;
+            referenced[target] = false;
+            System.arraycopy(values, slot * STRIDE, values, target * STRIDE, STRIDE);
+            link(target);
+            keys[slot] = 0;
+        }
+
+        private int nextFreeMainSlot() {
+            while (keys[clockHand] != 0) {
+                advanceClock();
+            }
+            return clockHand;
+        }
+
+        private int clockVictim() {
+            while (referenced[clockHand]) {
+                referenced[clockHand] = false;
+                advanceClock();
+            }
+            int victim = clockHand;
+            advanceClock();
+            return victim;
+        }
+
+        private void advanceClock() {
+            clockHand = clockHand + 1 < capacity ? clockHand + 1 : windowSize;
+        }
+
+        private void store(int slot, long key, Quote quote) {
+            keys[slot] = key;
+            referenced[slot] = false;
+            quote.writeTo(values, slot * STRIDE);
+            link(slot);
+        }
+
+        /**
+         * @return the entry slot holding the key, or -1. Bounded so that racy optimistic reads terminate.
+         */
+        private int find(long key) {
+            int i = (int) mix(key) & indexMask;
+            for (int probes = 0; probes < index.length; probes++) {
+                int ref = index[i];
+                if (ref == 0) {
+                    return -1;
+                }
+                if (keys[ref - 1] == key) {
+                    return ref - 1;
+                }
+                i = (i + 1) & indexMask;
+            }
+            return -1;
+        }
+
+        private void link(int slot) {
+            int i = (int) mix(keys[slot]) & indexMask;
+            while (index[i] != 0) {
+                i = (i + 1) & indexMask;
+            }
+            index[i] = slot + 1;
+        }
+
+        /**
+         * Removes a slot from the index using backward-shift deletion, so probe chains stay intact.
+         */
+        private void unlink(int slot) {
+            int i = (int) mix(keys[slot]) & indexMask;
+            while (index[i] != slot + 1) {
+                i = (i + 1) & indexMask;
+            }
+            index[i] = 0;
+            int j = i;
+            while (true) {
+                j = (j + 1) & indexMask;
+                if (index[j] == 0) {
+                    return;
+                }
+                int home = (int) mix(keys[index[j] - 1]) & indexMask;
+                boolean movable = (j > i) ? (home <= i || home > j) : (home <= i && home > j);
+                if (movable) {
+                    index[i] = index[j];
+                    index[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * Drops the entries if they were priced with an older table than {@code version};
+         * call with the write lock held.
+         */
+        private void advance(long version) {
+            if (version > priceVersion) {
+                if (count != 0) {
+                    reset();
+                }
+                priceVersion = version;
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                reset();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void reset() {
+            Arrays.fill(keys, 0);
+            Arrays.fill(index, 0);
+            Arrays.fill(referenced, false);
+            windowHand = 0;
+            clockHand = windowSize;
+            mainCount = 0;
+            count = 0;
+        }
+
+        int size() {
+            return count;
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key, halved periodically so that
+     * old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int length = Integer.highestOneBit(Math.max(8, capacity) - 1) << 1;
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * Math.max(8, capacity);
+        }
+
+        int frequency(long key) {
+            int min = 15;
+            for (long seed : SEEDS) {
+                long h = mix(key ^ seed);
+                int shift = ((int) h & 15) << 2;
+                min = Math.min(min, (int) (table[(int) (h >>> 32) & tableMask] >>> shift) & 15);
+            }
+            return min;
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (long seed : SEEDS) {
+                long h = mix(key ^ seed);
+                int shift = ((int) h & 15) << 2;
+                int word = (int) (h >>> 32) & tableMask;
+                if (((table[word] >>> shift) & 15) < 15) {
+                    table[word] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+    }
+}
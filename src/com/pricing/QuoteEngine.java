@@ -0,0 +1,127 @@
+package com.pricing;
+
+import java.util.Arrays;
+
+/**
+ * Headless pricing engine. Computes the cost of a rental from a {@link QuoteRequest}
+ * without touching Swing, so quotes can be produced off the Event Dispatch Thread.
+ * The engine is immutable and safe to share between threads.
+ *
+ * <p>Car prices are whole rand per day as stored in the catalog; every amount the
+ * engine produces is in cents. Arithmetic is overflow-checked.</p>
+ */
+public final class QuoteEngine {
+    private static final OptionCategory[] CATEGORIES = OptionCategory.values();
+    private static final int[] CATEGORY_OF = new int[BookingOption.count()];
+
+    static {
+        for (BookingOption option : BookingOption.values()) {
+            CATEGORY_OF[option.ordinal()] = option.getCategory().ordinal();
+        }
+    }
+
+    private final PriceTable prices;
+
+    /**
+     * Creates an engine using the default option prices.
+     */
+    public QuoteEngine() {
+        this(PriceTable.defaults());
+    }
+
+    public QuoteEngine(PriceTable prices) {
+        this.prices = prices;
+    }
+
+    public PriceTable getPriceTable() {
+        return prices;
+    }
+
+    /**
+     * Prices a request into a caller supplied breakdown.
+     *
+     * @param request The quote request
+     * @param into The breakdown to overwrite
+     * @return the same breakdown instance, for chaining
+     */
+    public Quote quote(QuoteRequest request, Quote into) {
+        return quote(request.getCarPricePerDay(), request.getDays(), request.getOptionMask(), into);
+    }
+
+    /**
+     * Prices a rental given as primitives into a caller supplied breakdown.
+     *
+     * @param carPricePerDay The car's daily price in rand
+     * @param days The rental duration in days
+     * @param optionMask The selected options as an {@link OptionSet} mask
+     * @param into The breakdown to overwrite
+     * @return the same breakdown instance, for chaining
+     * @throws ArithmeticException if an amount overflows
+     */
+    public Quote quote(int carPricePerDay, int days, long optionMask, Quote into) {
+        long[] perDay = into.perDay;
+        long[] amounts = into.amounts;
+        Arrays.fill(perDay, 0);
+
+        for (long bits = optionMask; bits != 0; bits &= bits - 1) {
+            int ordinal = Long.numberOfTrailingZeros(bits);
+            perDay[CATEGORY_OF[ordinal]] += prices.getPriceCents(ordinal);
+        }
+
+        long total = Math.multiplyExact(Money.randToCents(carPricePerDay), days);
+        into.days = days;
+        into.carRental = total;
+        for (OptionCategory category : CATEGORIES) {
+            int i = category.ordinal();
+            amounts[i] = category.isPerDay() ? Math.multiplyExact(perDay[i], days) : perDay[i];
+            total = Math.addExact(total, amounts[i]);
+        }
+        into.total = total;
+        return into;
+    }
+
+    /**
+     * Prices a request and returns only the total in cents.
+     */
+    public long total(QuoteRequest request) {
+        return total(request.getCarPricePerDay(), request.getDays(), request.getOptionMask());
+    }
+
+    /**
+     * Prices a rental given as primitives and returns only the total in cents.
+     *
+     * @throws ArithmeticException if the total overflows
+     */
+    public long total(int carPricePerDay, int days, long optionMask) {
+        long perDay = Money.randToCents(carPricePerDay) + perDayOptionPrice(optionMask);
+        return Math.addExact(Math.multiplyExact(perDay, days), onceOffOptionPrice(optionMask));
+    }
+
+    /**
+     * @return the summed daily price in cents of the per-day options in the mask
+     */
+    public long perDayOptionPrice(long optionMask) {
+        long sum = 0;
+        for (long bits = optionMask; bits != 0; bits &= bits - 1) {
+            int ordinal = Long.numberOfTrailingZeros(bits);
+            if (CATEGORIES[CATEGORY_OF[ordinal]].isPerDay()) {
+                sum += prices.getPriceCents(ordinal);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return the summed price in cents of the once-off options in the mask
+     */
+    public long onceOffOptionPrice(long optionMask) {
+        long sum = 0;
+        for (long bits = optionMask; bits != 0; bits &= bits - 1) {
+            int ordinal = Long.numberOfTrailingZeros(bits);
+            if (!CATEGORIES[CATEGORY_OF[ordinal]].isPerDay()) {
+                sum += prices.getPriceCents(ordinal);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,208 @@
+package com.pricing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import com.data.CarData;
+
+/**
+ * Precomputed quotes for every car x duration x option mask of a small catalog.
+ *
+ * <p>The breakdowns are stored in cents in one flat {@code long[]} where each quote occupies
+ * {@link Quote#PACKED_LENGTH} consecutive slots: the car rental, one amount per
+ * {@link OptionCategory} and the total. Only the valid option masks are stored: a mask maps to its
+ * position among them through a small lookup table, so each row holds {@code OptionSet.validMasks().length}
+ * quotes rather than one per possible mask, and looking up a quote is still a multiply-add. Durations that were not precomputed are priced live
+ * by the engine, optionally through a {@link QuoteCache}.</p>
+ *
+ * <p>A matrix is immutable once built; build a new one when prices or the catalog change.</p>
+ */
+public final class QuoteMatrix {
+    private static final int STRIDE = Quote.PACKED_LENGTH;
+    private static final int TOTAL_SLOT = STRIDE - 1;
+    private static final long[] VALID_MASKS = OptionSet.validMasks();
+    private static final int MASK_SLOTS = VALID_MASKS.length;
+    // Position of each mask among the valid ones, or -1
+    private static final int[] MASK_ORDINALS = new int[(int) OptionSet.ALL + 1];
+
+    static {
+        Arrays.fill(MASK_ORDINALS, -1);
+        for (int i = 0; i < VALID_MASKS.length; i++) {
+            MASK_ORDINALS[(int) VALID_MASKS[i]] = i;
+        }
+    }
+
+    private final QuoteEngine engine;
+    private final QuoteCache cache;
+    private final int[] carPrices;
+    private final ToIntFunction<String> carIndexById;
+    private final int[] durations;
+    private final int[] durationIndexByDays;
+    private final long[] table;
+
+    /**
+     * Builds the matrix in parallel.
+     *
+     * @param engine The engine used to price each entry and custom durations
+     * @param cars The catalog; a car's position in the list is its index in the matrix
+     * @param durations The durations in days to precompute
+     */
+    public QuoteMatrix(QuoteEngine engine, List<CarData> cars, int... durations) {
+        this(engine, cars, null, durations);
+    }
+
+    /**
+     * Builds the matrix in parallel, caching live quotes for durations outside the matrix.
+     *
+     * @param engine The engine used to price each entry and custom durations
+     * @param cars The catalog; a car's position in the list is its index in the matrix
+     * @param cache Caches quotes for custom durations, or null to price them every time
+     * @param durations The durations in days to precompute
+     */
+    public QuoteMatrix(QuoteEngine engine, List<CarData> cars, QuoteCache cache, int... durations) {
+        this(engine, indexById(cars), builtInPrices(cars), cache, durations);
+    }
+
+    /**
+     * Builds the matrix in parallel from a price snapshot, including its car prices.
+     *
+     * @param prices The option and car prices; the snapshot's catalog order gives the car indexes
+     * @param cache Caches quotes for custom durations, or null to price them every time
+     * @param durations The durations in days to precompute
+     */
+    public QuoteMatrix(PriceSnapshot prices, QuoteCache cache, int... durations) {
+        this(prices.getEngine(), prices.getCatalog()::indexOf, prices.getCarPrices(), cache, durations);
+    }
+
+    private QuoteMatrix(QuoteEngine engine, ToIntFunction<String> carIndexById, int[] carPrices, QuoteCache cache,
+            int... durations) {
+        this.engine = engine;
+        this.cache = cache;
+        this.carPrices = carPrices;
+        this.carIndexById = carIndexById;
+        this.durations = durations.clone();
+        int maxDays = Arrays.stream(durations).max().orElse(0);
+        this.durationIndexByDays = new int[maxDays + 1];
+        Arrays.fill(durationIndexByDays, -1);
+        for (int d = 0; d < durations.length; d++) {
+            if (durations[d] < 1) {
+                throw new IllegalArgumentException("Durations must be at least 1 day: " + durations[d]);
+            }
+            durationIndexByDays[durations[d]] = d;
+        }
+
+        long size = (long) carPrices.length * durations.length * MASK_SLOTS * STRIDE;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Catalog of " + carPrices.length + " cars is too large to precompute");
+        }
+        this.table = new long[(int) size];
+        IntStream.range(0, carPrices.length * durations.length).parallel().forEach(this::fillRow);
+    }
+
+    private static ToIntFunction<String> indexById(List<CarData> cars) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < cars.size(); i++) {
+            indexes.putIfAbsent(cars.get(i).getId(), i);
+        }
+        return id -> indexes.getOrDefault(id, -1);
+    }
+
+    private static int[] builtInPrices(List<CarData> cars) {
+        int[] prices = new int[cars.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = cars.get(i).getPrice();
+        }
+        return prices;
+    }
+
+    private void fillRow(int row) {
+        Quote quote = new Quote();
+        int carPrice = carPrices[row / durations.length];
+        int days = durations[row % durations.length];
+        for (int m = 0; m < VALID_MASKS.length; m++) {
+            engine.quote(carPrice, days, VALID_MASKS[m], quote);
+            quote.writeTo(table, (row * MASK_SLOTS + m) * STRIDE);
+        }
+    }
+
+    /**
+     * @return the car's index in the matrix, or -1 if the car is not part of the catalog
+     */
+    public int indexOf(CarData car) {
+        if (car == null) {
+            return -1;
+        }
+        return carIndexById.applyAsInt(car.getId());
+    }
+
+    /**
+     * @return the engine the matrix was built with, which also prices durations outside it
+     */
+    public QuoteEngine getEngine() {
+        return engine;
+    }
+
+    public int getCarCount() {
+        return carPrices.length;
+    }
+
+    /**
+     * @return true if quotes for this duration are served from the table
+     */
+    public boolean isPrecomputed(int days) {
+        return days > 0 && days < durationIndexByDays.length && durationIndexByDays[days] >= 0;
+    }
+
+    /**
+     * Looks up the breakdown for a car, falling back to the engine for durations that were not precomputed.
+     *
+     * @param carIndex The car's index, see {@link #indexOf(CarData)}
+     * @param days The rental duration
+     * @param optionMask The selected options
+     * @param into The breakdown to overwrite
+     * @return the same breakdown instance, for chaining
+     */
+    public Quote quote(int carIndex, int days, long optionMask, Quote into) {
+        int offset = offsetOf(carIndex, days, optionMask);
+        if (offset >= 0) {
+            return into.readFrom(table, offset, days);
+        }
+        if (cache == null) {
+            return engine.quote(carPrices[carIndex], days, optionMask, into);
+        }
+        long version = engine.getPriceTable().getVersion();
+        long key = QuoteCache.key(carIndex, days, optionMask);
+        if (!cache.get(version, key, into)) {
+            engine.quote(carPrices[carIndex], days, optionMask, into);
+            cache.put(version, key, into);
+        }
+        return into;
+    }
+
+    /**
+     * Looks up only the total in cents, falling back to the engine for durations that were not precomputed.
+     */
+    public long total(int carIndex, int days, long optionMask) {
+        int offset = offsetOf(carIndex, days, optionMask);
+        return offset < 0 ? engine.total(carPrices[carIndex], days, optionMask) : table[offset + TOTAL_SLOT];
+    }
+
+    private int offsetOf(int carIndex, int days, long optionMask) {
+        if (carIndex < 0 || carIndex >= carPrices.length) {
+            throw new IndexOutOfBoundsException("Car index " + carIndex + " out of range for " + carPrices.length + " cars");
+        }
+        if (!isPrecomputed(days) || (optionMask & ~OptionSet.ALL) != 0) {
+            return -1;
+        }
+        int ordinal = MASK_ORDINALS[(int) optionMask];
+        if (ordinal < 0) {
+            return -1;
+        }
+        int row = carIndex * durations.length + durationIndexByDays[days];
+        return (row * MASK_SLOTS + ordinal) * STRIDE;
+    }
+}
@@ -0,0 +1,66 @@
+package com.pricing;
+
+import com.data.CarData;
+
+/**
+ * Immutable input for a single quote: the car's daily price, the rental duration
+ * and the selected booking options as an {@link OptionSet} mask.
+ */
+public final class QuoteRequest {
+    private final int carPricePerDay;
+    private final int days;
+    private final long optionMask;
+
+    public QuoteRequest(int carPricePerDay, int days, long optionMask) {
+        if (carPricePerDay < 0) {
+            throw new IllegalArgumentException("carPricePerDay must not be negative: " + carPricePerDay);
+        }
+        if (days < 1) {
+            throw new IllegalArgumentException("days must be at least 1: " + days);
+        }
+        if (!OptionSet.isValid(optionMask)) {
+            throw new IllegalArgumentException("Invalid option mask: " + Long.toHexString(optionMask));
+        }
+        this.carPricePerDay = carPricePerDay;
+        this.days = days;
+        this.optionMask = optionMask;
+    }
+
+    /**
+     * Creates a request for the given car, or a zero-priced request if no car is selected.
+     */
+    public static QuoteRequest of(CarData car, int days, long optionMask) {
+        return new QuoteRequest(car != null ? car.getPrice() : 0, days, optionMask);
+    }
+
+    public int getCarPricePerDay() {
+        return carPricePerDay;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public long getOptionMask() {
+        return optionMask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuoteRequest)) return false;
+        QuoteRequest other = (QuoteRequest) o;
+        return carPricePerDay == other.carPricePerDay && days == other.days && optionMask == other.optionMask;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * carPricePerDay + days) + Long.hashCode(optionMask);
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteRequest[carPricePerDay=" + carPricePerDay + ", days=" + days
+                + ", options=" + OptionSet.toString(optionMask) + "]";
+    }
+}
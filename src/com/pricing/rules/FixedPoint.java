@@ -0,0 +1,30 @@
+package com.pricing.rules;
+
+/**
+ * Arithmetic on fixed-point numbers with {@link RuleContext#SCALE} units per one.
+ * Results are rounded half away from zero and overflow throws {@link ArithmeticException}.
+ */
+final class FixedPoint {
+    private FixedPoint() {
+    }
+
+    static long multiply(long a, long b) {
+        return divideRounded(Math.multiplyExact(a, b), RuleContext.SCALE);
+    }
+
+    static long divide(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("Division by zero in a pricing rule");
+        }
+        return divideRounded(Math.multiplyExact(a, RuleContext.SCALE), b);
+    }
+
+    static long divideRounded(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
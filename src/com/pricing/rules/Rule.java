@@ -0,0 +1,32 @@
+package com.pricing.rules;
+
+/**
+ * One parsed rule: an optional condition and the assignments made when it holds.
+ */
+final class Rule {
+    static final int SET = 0;
+    static final int ADD = 1;
+    static final int SUBTRACT = 2;
+    static final int MULTIPLY = 3;
+
+    final String name;
+    final RuleNode condition;
+    final int[] targets;
+    final int[] operators;
+    final RuleNode[] values;
+
+    /**
+     * @param name The rule's name from the source
+     * @param condition The condition, or null if the rule always applies
+     * @param targets The variable slot each assignment writes
+     * @param operators The assignment operator of each assignment
+     * @param values The expression each assignment evaluates
+     */
+    Rule(String name, RuleNode condition, int[] targets, int[] operators, RuleNode[] values) {
+        this.name = name;
+        this.condition = condition;
+        this.targets = targets;
+        this.operators = operators;
+        this.values = values;
+    }
+}
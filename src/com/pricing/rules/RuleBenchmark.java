@@ -0,0 +1,107 @@
+package com.pricing.rules;
+
+import java.time.DayOfWeek;
+import java.util.Random;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+import com.pricing.OptionSet;
+import com.pricing.Quote;
+import com.pricing.QuoteEngine;
+
+/**
+ * Compares the compiled and interpreted forms of the same rule sets on identical quotes,
+ * after checking that both produce the same totals.
+ *
+ * <p>Usage: {@code RuleBenchmark [quotes] [rounds]}</p>
+ */
+public final class RuleBenchmark {
+
+    private static final String[] RULE_SETS = {
+        // A single simple rule
+        "rule \"minimum charge\" then total = max(total, 1000)",
+
+        // The kiosk's typical promotions
+        "rule \"weekend surcharge\" when weekendDays > 0 then carRental += carPrice * weekendDays * 10%\n"
+            + "rule \"driver free on 7-day rentals\" when days >= 7 and ASSIGN_DRIVER then driver = 0\n"
+            + "rule \"premium insurance\" when brand == \"mercedes_benz\" or brand == \"land_rover\" then insurance *= 150%\n"
+            + "rule \"minimum charge\" then total = max(total, 1000)",
+
+        // Many rules with deeper expressions
+        "rule \"weekend surcharge\" when weekendDays > 0 then carRental += carPrice * weekendDays * 10%\n"
+            + "rule \"long rental discount\" when days >= 7 then carRental *= 90%, extras *= 95%\n"
+            + "rule \"driver free on 7-day rentals\" when days >= 7 and ASSIGN_DRIVER then driver = 0\n"
+            + "rule \"seat and roadside bundle\" when BABY_SEAT and ROADSIDE_SUPPORT then extras -= 10 * days\n"
+            + "rule \"premium insurance\" when brand == \"mercedes_benz\" or brand == \"land_rover\" then insurance *= 150%\n"
+            + "rule \"bmw theft cover\" when brand == \"bmw\" and THEFT then insurance += min(carPrice / 20, 150) * days\n"
+            + "rule \"refuel fee cap\" when FULL_TO_FULL and not (days < 3) then fuelPolicy = min(fuelPolicy, 250)\n"
+            + "rule \"flagship surcharge\" when car == \"gle\" then total += 5% * carRental\n"
+            + "rule \"minimum charge\" then total = max(total, 1000)\n"
+            + "rule \"round down\" when total > 100000 then total -= (total - 100000) * 2%",
+    };
+
+    private RuleBenchmark() {
+    }
+
+    public static void main(String[] args) throws RuleSyntaxException {
+        int quotes = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        CarCatalog catalog = CarCatalog.sample();
+        QuoteEngine engine = new QuoteEngine();
+        long[] masks = OptionSet.validMasks();
+        Random random = new Random(42);
+        Quote[] base = new Quote[quotes];
+        CarData[] cars = new CarData[quotes];
+        long[] options = new long[quotes];
+        DayOfWeek[] startDays = new DayOfWeek[quotes];
+        for (int i = 0; i < quotes; i++) {
+            cars[i] = catalog.get(random.nextInt(catalog.size()));
+            options[i] = masks[random.nextInt(masks.length)];
+            startDays[i] = DayOfWeek.of(1 + random.nextInt(7));
+            base[i] = engine.quote(cars[i].getPrice(), 1 + random.nextInt(14), options[i], new Quote());
+        }
+
+        report("Loading only", RuleSet.empty(), rounds, base, cars, options, startDays);
+        for (int s = 0; s < RULE_SETS.length; s++) {
+            RuleSet compiled = RuleSet.compile(RULE_SETS[s]);
+            RuleSet interpreted = RuleSet.interpret(RULE_SETS[s]);
+            long compiledSum = run(compiled, base, cars, options, startDays);
+            long interpretedSum = run(interpreted, base, cars, options, startDays);
+            if (compiledSum != interpretedSum) {
+                throw new IllegalStateException("Compiled and interpreted rules disagree: "
+                        + compiledSum + " != " + interpretedSum);
+            }
+            System.out.printf("Rule set %d (%d rules):%n", s + 1, compiled.getRuleNames().size());
+            report("  compiled", compiled, rounds, base, cars, options, startDays);
+            report("  interpreted", interpreted, rounds, base, cars, options, startDays);
+        }
+    }
+
+    private static void report(String label, RuleSet rules, int rounds, Quote[] base, CarData[] cars, long[] options,
+            DayOfWeek[] startDays) {
+        // Warm up so both forms are measured after JIT compilation
+        for (int i = 0; i < rounds; i++) {
+            run(rules, base, cars, options, startDays);
+        }
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            checksum += run(rules, base, cars, options, startDays);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-16s %7.1f ns/quote (checksum %d)%n", label, (double) best / base.length, checksum);
+    }
+
+    private static long run(RuleSet rules, Quote[] base, CarData[] cars, long[] options, DayOfWeek[] startDays) {
+        RuleContext context = new RuleContext();
+        long sum = 0;
+        for (int i = 0; i < base.length; i++) {
+            context.load(base[i], cars[i], options[i], startDays[i]);
+            rules.apply(context);
+            sum += context.getTotalCents();
+        }
+        return sum;
+    }
+}
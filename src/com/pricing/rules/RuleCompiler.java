@@ -0,0 +1,295 @@
+package com.pricing.rules;
+
+import java.util.List;
+
+/**
+ * Turns parsed rules into a tree of small lambdas, one per node, each specialized for its
+ * operator and operand shapes: variables read their field directly, constants are folded
+ * and captured, options become a mask test and string comparisons capture the literal.
+ * After warm-up the JIT inlines the tree into code much like a handwritten method, with no
+ * node-type dispatch left at run time.
+ */
+final class RuleCompiler {
+
+    interface NumberFn {
+        long eval(RuleContext c);
+    }
+
+    interface ConditionFn {
+        boolean test(RuleContext c);
+    }
+
+    private RuleCompiler() {
+    }
+
+    static RuleProgram compile(List<Rule> rules) {
+        RuleProgram program = c -> { };
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            program = then(rule(rules.get(i)), program, i == rules.size() - 1);
+        }
+        return program;
+    }
+
+    private static RuleProgram then(RuleProgram first, RuleProgram rest, boolean restIsEmpty) {
+        if (restIsEmpty) {
+            return first;
+        }
+        return c -> {
+            first.apply(c);
+            rest.apply(c);
+        };
+    }
+
+    private static RuleProgram rule(Rule rule) {
+        RuleProgram body = assignment(rule.targets[rule.targets.length - 1], rule.operators[rule.targets.length - 1],
+                number(rule.values[rule.targets.length - 1]));
+        for (int i = rule.targets.length - 2; i >= 0; i--) {
+            body = then(assignment(rule.targets[i], rule.operators[i], number(rule.values[i])), body, false);
+        }
+        if (rule.condition == null) {
+            return body;
+        }
+        RuleNode folded = fold(rule.condition);
+        if (folded.isConstant()) {
+            return folded.value != 0 ? body : c -> { };
+        }
+        ConditionFn condition = condition(rule.condition);
+        RuleProgram action = body;
+        return c -> {
+            if (condition.test(c)) {
+                action.apply(c);
+            }
+        };
+    }
+
+    private static RuleProgram assignment(int slot, int operator, NumberFn value) {
+        switch (operator) {
+            case Rule.SET:
+                if (slot == RuleContext.CAR_RENTAL) {
+                    return c -> c.carRental = value.eval(c);
+                } else if (slot == RuleContext.TOTAL) {
+                    return c -> c.setTotal(value.eval(c));
+                } else {
+                    int index = slot - RuleContext.FIRST_AMOUNT;
+                    return c -> c.amounts[index] = value.eval(c);
+                }
+            case Rule.ADD:
+                if (slot == RuleContext.CAR_RENTAL) {
+                    return c -> c.carRental = Math.addExact(c.carRental, value.eval(c));
+                } else if (slot == RuleContext.TOTAL) {
+                    return c -> c.adjustment = Math.addExact(c.adjustment, value.eval(c));
+                } else {
+                    int index = slot - RuleContext.FIRST_AMOUNT;
+                    return c -> c.amounts[index] = Math.addExact(c.amounts[index], value.eval(c));
+                }
+            case Rule.SUBTRACT:
+                if (slot == RuleContext.CAR_RENTAL) {
+                    return c -> c.carRental = Math.subtractExact(c.carRental, value.eval(c));
+                } else if (slot == RuleContext.TOTAL) {
+                    return c -> c.adjustment = Math.subtractExact(c.adjustment, value.eval(c));
+                } else {
+                    int index = slot - RuleContext.FIRST_AMOUNT;
+                    return c -> c.amounts[index] = Math.subtractExact(c.amounts[index], value.eval(c));
+                }
+            default:
+                if (slot == RuleContext.CAR_RENTAL) {
+                    return c -> c.carRental = FixedPoint.multiply(c.carRental, value.eval(c));
+                } else if (slot == RuleContext.TOTAL) {
+                    return c -> c.setTotal(FixedPoint.multiply(c.total(), value.eval(c)));
+                } else {
+                    int index = slot - RuleContext.FIRST_AMOUNT;
+                    return c -> c.amounts[index] = FixedPoint.multiply(c.amounts[index], value.eval(c));
+                }
+        }
+    }
+
+    static NumberFn number(RuleNode node) {
+        node = fold(node);
+        switch (node.op) {
+            case RuleNode.CONSTANT: {
+                long k = node.value;
+                return c -> k;
+            }
+            case RuleNode.VARIABLE:
+                return variable((int) node.value);
+            case RuleNode.NEGATE: {
+                NumberFn operand = number(node.left);
+                return c -> Math.negateExact(operand.eval(c));
+            }
+            case RuleNode.MIN: {
+                NumberFn left = number(node.left);
+                NumberFn right = number(node.right);
+                return c -> Math.min(left.eval(c), right.eval(c));
+            }
+            case RuleNode.MAX: {
+                NumberFn left = number(node.left);
+                NumberFn right = number(node.right);
+                return c -> Math.max(left.eval(c), right.eval(c));
+            }
+            default:
+                return arithmetic(node);
+        }
+    }
+
+    private static NumberFn variable(int slot) {
+        switch (slot) {
+            case RuleContext.DAYS:
+                return c -> c.days * RuleContext.SCALE;
+            case RuleContext.WEEKEND_DAYS:
+                return c -> c.weekendDays * RuleContext.SCALE;
+            case RuleContext.CAR_PRICE:
+                return c -> c.carPrice;
+            case RuleContext.CAR_RENTAL:
+                return c -> c.carRental;
+            case RuleContext.TOTAL:
+                return RuleContext::total;
+            default: {
+                int index = slot - RuleContext.FIRST_AMOUNT;
+                return c -> c.amounts[index];
+            }
+        }
+    }
+
+    private static NumberFn arithmetic(RuleNode node) {
+        NumberFn left = number(node.left);
+        if (node.right.isConstant()) {
+            long k = node.right.value;
+            switch (node.op) {
+                case RuleNode.ADD:
+                    return c -> Math.addExact(left.eval(c), k);
+                case RuleNode.SUBTRACT:
+                    return c -> Math.subtractExact(left.eval(c), k);
+                case RuleNode.MULTIPLY:
+                    return c -> FixedPoint.multiply(left.eval(c), k);
+                default:
+                    if (k != 0) {
+                        return c -> FixedPoint.divide(left.eval(c), k);
+                    }
+                    break;
+            }
+        }
+        NumberFn right = number(node.right);
+        switch (node.op) {
+            case RuleNode.ADD:
+                return c -> Math.addExact(left.eval(c), right.eval(c));
+            case RuleNode.SUBTRACT:
+                return c -> Math.subtractExact(left.eval(c), right.eval(c));
+            case RuleNode.MULTIPLY:
+                return c -> FixedPoint.multiply(left.eval(c), right.eval(c));
+            case RuleNode.DIVIDE:
+                return c -> FixedPoint.divide(left.eval(c), right.eval(c));
+            default:
+                throw new IllegalStateException("Not a numeric node: " + node.op);
+        }
+    }
+
+    static ConditionFn condition(RuleNode node) {
+        node = fold(node);
+        switch (node.op) {
+            case RuleNode.CONSTANT: {
+                boolean k = node.value != 0;
+                return c -> k;
+            }
+            case RuleNode.OPTION: {
+                long bit = 1L << node.value;
+                return c -> (c.optionMask & bit) != 0;
+            }
+            case RuleNode.NOT: {
+                ConditionFn operand = condition(node.left);
+                return c -> !operand.test(c);
+            }
+            case RuleNode.AND: {
+                ConditionFn left = condition(node.left);
+                ConditionFn right = condition(node.right);
+                return c -> left.test(c) && right.test(c);
+            }
+            case RuleNode.OR: {
+                ConditionFn left = condition(node.left);
+                ConditionFn right = condition(node.right);
+                return c -> left.test(c) || right.test(c);
+            }
+            default:
+                return comparison(node);
+        }
+    }
+
+    private static ConditionFn comparison(RuleNode node) {
+        if (node.left.type == RuleNode.STRING) {
+            ConditionFn equal = textEquals(node.left, node.right);
+            return node.op == RuleNode.EQUAL ? equal : c -> !equal.test(c);
+        }
+        if (node.left.type == RuleNode.BOOLEAN) {
+            ConditionFn left = condition(node.left);
+            ConditionFn right = condition(node.right);
+            return node.op == RuleNode.EQUAL ? c -> left.test(c) == right.test(c) : c -> left.test(c) != right.test(c);
+        }
+        NumberFn left = number(node.left);
+        RuleNode right = fold(node.right);
+        if (right.isConstant()) {
+            long k = right.value;
+            switch (node.op) {
+                case RuleNode.LESS: return c -> left.eval(c) < k;
+                case RuleNode.LESS_OR_EQUAL: return c -> left.eval(c) <= k;
+                case RuleNode.GREATER: return c -> left.eval(c) > k;
+                case RuleNode.GREATER_OR_EQUAL: return c -> left.eval(c) >= k;
+                case RuleNode.EQUAL: return c -> left.eval(c) == k;
+                default: return c -> left.eval(c) != k;
+            }
+        }
+        NumberFn r = number(right);
+        switch (node.op) {
+            case RuleNode.LESS: return c -> left.eval(c) < r.eval(c);
+            case RuleNode.LESS_OR_EQUAL: return c -> left.eval(c) <= r.eval(c);
+            case RuleNode.GREATER: return c -> left.eval(c) > r.eval(c);
+            case RuleNode.GREATER_OR_EQUAL: return c -> left.eval(c) >= r.eval(c);
+            case RuleNode.EQUAL: return c -> left.eval(c) == r.eval(c);
+            default: return c -> left.eval(c) != r.eval(c);
+        }
+    }
+
+    private static ConditionFn textEquals(RuleNode left, RuleNode right) {
+        if (right.op == RuleNode.TEXT && left.op != RuleNode.TEXT) {
+            return textEquals(right, left);
+        }
+        if (left.op == RuleNode.TEXT) {
+            String literal = left.text;
+            switch (right.op) {
+                case RuleNode.BRAND:
+                    return c -> literal.equals(c.brand);
+                case RuleNode.CAR:
+                    return c -> literal.equals(c.carId);
+                default: {
+                    boolean k = literal.equals(right.text);
+                    return c -> k;
+                }
+            }
+        }
+        // Both sides read the context
+        return left.op == right.op ? c -> true : c -> c.brand.equals(c.carId);
+    }
+
+    /**
+     * Evaluates nodes whose operands are all constants, leaving the rest of the tree as is.
+     */
+    private static RuleNode fold(RuleNode node) {
+        if (node.left == null || node.left.type == RuleNode.STRING) {
+            return node;
+        }
+        RuleNode left = fold(node.left);
+        RuleNode right = node.right != null ? fold(node.right) : null;
+        if (!left.isConstant() || (right != null && !right.isConstant())) {
+            return node.right == null ? RuleNode.unary(node.op, node.type, left)
+                    : RuleNode.binary(node.op, node.type, left, right);
+        }
+        RuleNode constant = node.right == null ? RuleNode.unary(node.op, node.type, left)
+                : RuleNode.binary(node.op, node.type, left, right);
+        try {
+            long value = node.type == RuleNode.NUMBER ? RuleInterpreter.number(constant, null)
+                    : RuleInterpreter.test(constant, null) ? 1 : 0;
+            return RuleNode.leaf(RuleNode.CONSTANT, node.type, value, null);
+        } catch (ArithmeticException e) {
+            // Division by zero or overflow is left to fail when the rule runs
+            return constant;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.pricing.rules;
+
+import java.time.DayOfWeek;
+
+import com.data.CarData;
+import com.pricing.OptionCategory;
+import com.pricing.Quote;
+
+/**
+ * The values pricing rules read and adjust for one quote. Load it from a base quote, apply a
+ * {@link RuleSet} and store the result back; an instance can be reused for every quote.
+ *
+ * <p>While rules run, amounts are held as fixed-point numbers with four decimals of a rand
+ * (see {@link #SCALE}) so that percentages of cents do not lose precision between operations.
+ * The total is the sum of the line items plus an adjustment, which is what assigning
+ * {@code total} changes.</p>
+ */
+public final class RuleContext {
+
+    /** Fixed-point units per rand. */
+    public static final long SCALE = 10_000;
+    static final long UNITS_PER_CENT = SCALE / 100;
+
+    private static final OptionCategory[] CATEGORIES = OptionCategory.values();
+
+    // Variable slots, see variableSlot
+    static final int DAYS = 0;
+    static final int WEEKEND_DAYS = 1;
+    static final int CAR_PRICE = 2;
+    static final int CAR_RENTAL = 3;
+    static final int TOTAL = 4;
+    static final int FIRST_AMOUNT = 5;
+    static final int FIRST_WRITABLE = CAR_RENTAL;
+
+    // Inputs
+    int days;
+    int weekendDays;
+    long carPrice;
+    String brand = "";
+    String carId = "";
+    long optionMask;
+
+    // Adjustable amounts, in fixed-point units
+    long carRental;
+    final long[] amounts = new long[CATEGORIES.length];
+    long adjustment;
+
+    /**
+     * Loads a base quote and the booking it was computed for.
+     *
+     * @param quote The breakdown from the quote engine
+     * @param car The quoted car
+     * @param optionMask The selected options
+     * @param startDay The day the rental starts, used to count weekend days
+     */
+    public void load(Quote quote, CarData car, long optionMask, DayOfWeek startDay) {
+        days = quote.getDays();
+        weekendDays = weekendDays(startDay, days);
+        carPrice = days > 0 ? toUnits(quote.getCarRentalCents() / days) : 0;
+        brand = car.getBrand();
+        carId = car.getId();
+        this.optionMask = optionMask;
+        carRental = toUnits(quote.getCarRentalCents());
+        long itemSum = carRental;
+        for (OptionCategory category : CATEGORIES) {
+            amounts[category.ordinal()] = toUnits(quote.getAmountCents(category));
+            itemSum = Math.addExact(itemSum, amounts[category.ordinal()]);
+        }
+        adjustment = toUnits(quote.getTotalCents()) - itemSum;
+    }
+
+    /**
+     * Writes the adjusted amounts back, rounded to cents.
+     */
+    public void store(Quote quote) {
+        quote.setCarRentalCents(toCents(carRental));
+        for (OptionCategory category : CATEGORIES) {
+            quote.setAmountCents(category, toCents(amounts[category.ordinal()]));
+        }
+        quote.setTotalCents(toCents(total()));
+    }
+
+    public long getTotalCents() {
+        return toCents(total());
+    }
+
+    long total() {
+        long sum = Math.addExact(carRental, adjustment);
+        for (long amount : amounts) {
+            sum = Math.addExact(sum, amount);
+        }
+        return sum;
+    }
+
+    void setTotal(long total) {
+        adjustment = Math.subtractExact(Math.addExact(adjustment, total), total());
+    }
+
+    long read(int slot) {
+        switch (slot) {
+            case DAYS:
+                return days * SCALE;
+            case WEEKEND_DAYS:
+                return weekendDays * SCALE;
+            case CAR_PRICE:
+                return carPrice;
+            case CAR_RENTAL:
+                return carRental;
+            case TOTAL:
+                return total();
+            default:
+                return amounts[slot - FIRST_AMOUNT];
+        }
+    }
+
+    void write(int slot, long value) {
+        switch (slot) {
+            case CAR_RENTAL:
+                carRental = value;
+                break;
+            case TOTAL:
+                setTotal(value);
+                break;
+            default:
+                amounts[slot - FIRST_AMOUNT] = value;
+        }
+    }
+
+    boolean isSelected(int optionOrdinal) {
+        return (optionMask & (1L << optionOrdinal)) != 0;
+    }
+
+    /**
+     * @return the slot of a numeric variable, or -1 if there is no such variable
+     */
+    static int variableSlot(String name) {
+        switch (name) {
+            case "days":
+                return DAYS;
+            case "weekendDays":
+                return WEEKEND_DAYS;
+            case "carPrice":
+                return CAR_PRICE;
+            case "carRental":
+                return CAR_RENTAL;
+            case "total":
+                return TOTAL;
+            default:
+                for (OptionCategory category : CATEGORIES) {
+                    if (variableName(category).equals(name)) {
+                        return FIRST_AMOUNT + category.ordinal();
+                    }
+                }
+                return -1;
+        }
+    }
+
+    /**
+     * @return the rule variable holding a category's amount, such as {@code fuelPolicy}
+     */
+    public static String variableName(OptionCategory category) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = false;
+        for (char c : category.name().toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                name.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * @return the number of Saturdays and Sundays among the rental days
+     */
+    static int weekendDays(DayOfWeek startDay, int days) {
+        int weekend = days / 7 * 2;
+        int day = startDay.getValue();
+        for (int i = 0; i < days % 7; i++) {
+            if (day >= DayOfWeek.SATURDAY.getValue()) {
+                weekend++;
+            }
+            day = day % 7 + 1;
+        }
+        return weekend;
+    }
+
+    static long toUnits(long cents) {
+        return Math.multiplyExact(cents, UNITS_PER_CENT);
+    }
+
+    static long toCents(long units) {
+        return FixedPoint.divideRounded(units, UNITS_PER_CENT);
+    }
+}
@@ -0,0 +1,118 @@
+package com.pricing.rules;
+
+import java.util.List;
+
+/**
+ * Evaluates parsed rules by walking their syntax trees on every quote. It is the reference
+ * the compiled form is checked and benchmarked against.
+ */
+final class RuleInterpreter implements RuleProgram {
+    private final Rule[] rules;
+
+    RuleInterpreter(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+    }
+
+    @Override
+    public void apply(RuleContext context) {
+        for (Rule rule : rules) {
+            if (rule.condition != null && !test(rule.condition, context)) {
+                continue;
+            }
+            for (int i = 0; i < rule.targets.length; i++) {
+                int slot = rule.targets[i];
+                long value = number(rule.values[i], context);
+                switch (rule.operators[i]) {
+                    case Rule.ADD:
+                        value = Math.addExact(context.read(slot), value);
+                        break;
+                    case Rule.SUBTRACT:
+                        value = Math.subtractExact(context.read(slot), value);
+                        break;
+                    case Rule.MULTIPLY:
+                        value = FixedPoint.multiply(context.read(slot), value);
+                        break;
+                    default:
+                        break;
+                }
+                context.write(slot, value);
+            }
+        }
+    }
+
+    static long number(RuleNode node, RuleContext context) {
+        switch (node.op) {
+            case RuleNode.CONSTANT:
+                return node.value;
+            case RuleNode.VARIABLE:
+                return context.read((int) node.value);
+            case RuleNode.NEGATE:
+                return Math.negateExact(number(node.left, context));
+            case RuleNode.ADD:
+                return Math.addExact(number(node.left, context), number(node.right, context));
+            case RuleNode.SUBTRACT:
+                return Math.subtractExact(number(node.left, context), number(node.right, context));
+            case RuleNode.MULTIPLY:
+                return FixedPoint.multiply(number(node.left, context), number(node.right, context));
+            case RuleNode.DIVIDE:
+                return FixedPoint.divide(number(node.left, context), number(node.right, context));
+            case RuleNode.MIN:
+                return Math.min(number(node.left, context), number(node.right, context));
+            case RuleNode.MAX:
+                return Math.max(number(node.left, context), number(node.right, context));
+            default:
+                throw new IllegalStateException("Not a numeric node: " + node.op);
+        }
+    }
+
+    static boolean test(RuleNode node, RuleContext context) {
+        switch (node.op) {
+            case RuleNode.CONSTANT:
+                return node.value != 0;
+            case RuleNode.OPTION:
+                return context.isSelected((int) node.value);
+            case RuleNode.NOT:
+                return !test(node.left, context);
+            case RuleNode.AND:
+                return test(node.left, context) && test(node.right, context);
+            case RuleNode.OR:
+                return test(node.left, context) || test(node.right, context);
+            case RuleNode.LESS:
+                return number(node.left, context) < number(node.right, context);
+            case RuleNode.LESS_OR_EQUAL:
+                return number(node.left, context) <= number(node.right, context);
+            case RuleNode.GREATER:
+                return number(node.left, context) > number(node.right, context);
+            case RuleNode.GREATER_OR_EQUAL:
+                return number(node.left, context) >= number(node.right, context);
+            case RuleNode.EQUAL:
+                return equal(node, context);
+            case RuleNode.NOT_EQUAL:
+                return !equal(node, context);
+            default:
+                throw new IllegalStateException("Not a condition node: " + node.op);
+        }
+    }
+
+    private static boolean equal(RuleNode node, RuleContext context) {
+        switch (node.left.type) {
+            case RuleNode.NUMBER:
+                return number(node.left, context) == number(node.right, context);
+            case RuleNode.BOOLEAN:
+                return test(node.left, context) == test(node.right, context);
+            default:
+                return text(node.left, context).equals(text(node.right, context));
+        }
+    }
+
+    private static String text(RuleNode node, RuleContext context) {
+        switch (node.op) {
+            case RuleNode.BRAND:
+                return context.brand;
+            case RuleNode.CAR:
+                return context.carId;
+            default:
+                return node.text;
+        }
+    }
+}
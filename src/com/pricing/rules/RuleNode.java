@@ -0,0 +1,71 @@
+package com.pricing.rules;
+
+/**
+ * A node of a parsed rule expression. Nodes are plain data; {@link RuleInterpreter} walks
+ * them directly and {@link RuleCompiler} turns them into specialized lambdas.
+ */
+final class RuleNode {
+    // Result types
+    static final int NUMBER = 0;
+    static final int BOOLEAN = 1;
+    static final int STRING = 2;
+
+    // Leaves
+    static final int CONSTANT = 0;     // number in fixed-point units, or boolean as 0/1
+    static final int TEXT = 1;         // string literal
+    static final int VARIABLE = 2;     // numeric variable, value is the slot
+    static final int OPTION = 3;       // option selected, value is the ordinal
+    static final int BRAND = 4;
+    static final int CAR = 5;
+    // Numeric operators
+    static final int NEGATE = 6;
+    static final int ADD = 7;
+    static final int SUBTRACT = 8;
+    static final int MULTIPLY = 9;
+    static final int DIVIDE = 10;
+    static final int MIN = 11;
+    static final int MAX = 12;
+    // Comparisons
+    static final int LESS = 13;
+    static final int LESS_OR_EQUAL = 14;
+    static final int GREATER = 15;
+    static final int GREATER_OR_EQUAL = 16;
+    static final int EQUAL = 17;
+    static final int NOT_EQUAL = 18;
+    // Boolean operators
+    static final int AND = 19;
+    static final int OR = 20;
+    static final int NOT = 21;
+
+    final int op;
+    final int type;
+    final long value;
+    final String text;
+    final RuleNode left;
+    final RuleNode right;
+
+    private RuleNode(int op, int type, long value, String text, RuleNode left, RuleNode right) {
+        this.op = op;
+        this.type = type;
+        this.value = value;
+        this.text = text;
+        this.left = left;
+        this.right = right;
+    }
+
+    static RuleNode leaf(int op, int type, long value, String text) {
+        return new RuleNode(op, type, value, text, null, null);
+    }
+
+    static RuleNode unary(int op, int type, RuleNode operand) {
+        return new RuleNode(op, type, 0, null, operand, null);
+    }
+
+    static RuleNode binary(int op, int type, RuleNode left, RuleNode right) {
+        return new RuleNode(op, type, 0, null, left, right);
+    }
+
+    boolean isConstant() {
+        return op == CONSTANT;
+    }
+}
@@ -0,0 +1,362 @@
+package com.pricing.rules;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pricing.BookingOption;
+
+/**
+ * Recursive-descent parser for the rule language described in {@link RuleSet}.
+ * Types are checked while parsing, so a parsed rule can be evaluated without further checks.
+ */
+final class RuleParser {
+    // Token kinds
+    private static final int END = 0;
+    private static final int NAME = 1;
+    private static final int NUMBER = 2;
+    private static final int STRING = 3;
+    private static final int SYMBOL = 4;
+
+    private final String source;
+    private int pos;
+    private int line = 1;
+
+    // Current token
+    private int kind;
+    private String token;
+    private int tokenLine;
+
+    private RuleParser(String source) {
+        this.source = source;
+    }
+
+    static List<Rule> parse(String source) throws RuleSyntaxException {
+        RuleParser parser = new RuleParser(source);
+        parser.advance();
+        List<Rule> rules = new ArrayList<>();
+        while (parser.kind != END) {
+            rules.add(parser.rule());
+        }
+        return rules;
+    }
+
+    // rule := 'rule' STRING ['when' expr] 'then' action (',' action)*
+    private Rule rule() throws RuleSyntaxException {
+        expectKeyword("rule");
+        if (kind != STRING) {
+            throw error("expected the rule's name in quotes");
+        }
+        String name = token;
+        advance();
+        RuleNode condition = null;
+        if (isKeyword("when")) {
+            advance();
+            condition = expression();
+            requireType(condition, RuleNode.BOOLEAN, "a condition");
+        }
+        expectKeyword("then");
+        List<int[]> assignments = new ArrayList<>();
+        List<RuleNode> values = new ArrayList<>();
+        do {
+            if (!values.isEmpty()) {
+                advance();
+            }
+            if (kind != NAME) {
+                throw error("expected a variable to assign");
+            }
+            int slot = RuleContext.variableSlot(token);
+            if (slot < RuleContext.FIRST_WRITABLE) {
+                throw error(token + " cannot be assigned");
+            }
+            advance();
+            int operator;
+            switch (kind == SYMBOL ? token : "") {
+                case "=": operator = Rule.SET; break;
+                case "+=": operator = Rule.ADD; break;
+                case "-=": operator = Rule.SUBTRACT; break;
+                case "*=": operator = Rule.MULTIPLY; break;
+                default: throw error("expected =, +=, -= or *=");
+            }
+            advance();
+            RuleNode value = expression();
+            requireType(value, RuleNode.NUMBER, "an assigned value");
+            assignments.add(new int[] {slot, operator});
+            values.add(value);
+        } while (isSymbol(","));
+
+        int[] targets = new int[values.size()];
+        int[] operators = new int[values.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = assignments.get(i)[0];
+            operators[i] = assignments.get(i)[1];
+        }
+        return new Rule(name, condition, targets, operators, values.toArray(new RuleNode[0]));
+    }
+
+    // expr := and ('or' and)*
+    private RuleNode expression() throws RuleSyntaxException {
+        RuleNode left = and();
+        while (isKeyword("or")) {
+            advance();
+            left = logical(RuleNode.OR, left, and());
+        }
+        return left;
+    }
+
+    private RuleNode and() throws RuleSyntaxException {
+        RuleNode left = not();
+        while (isKeyword("and")) {
+            advance();
+            left = logical(RuleNode.AND, left, not());
+        }
+        return left;
+    }
+
+    private RuleNode not() throws RuleSyntaxException {
+        if (isKeyword("not")) {
+            advance();
+            RuleNode operand = not();
+            requireType(operand, RuleNode.BOOLEAN, "the operand of not");
+            return RuleNode.unary(RuleNode.NOT, RuleNode.BOOLEAN, operand);
+        }
+        return comparison();
+    }
+
+    private RuleNode comparison() throws RuleSyntaxException {
+        RuleNode left = sum();
+        int op;
+        switch (kind == SYMBOL ? token : "") {
+            case "<": op = RuleNode.LESS; break;
+            case "<=": op = RuleNode.LESS_OR_EQUAL; break;
+            case ">": op = RuleNode.GREATER; break;
+            case ">=": op = RuleNode.GREATER_OR_EQUAL; break;
+            case "==": op = RuleNode.EQUAL; break;
+            case "!=": op = RuleNode.NOT_EQUAL; break;
+            default: return left;
+        }
+        advance();
+        RuleNode right = sum();
+        if (left.type != right.type) {
+            throw error("cannot compare " + typeName(left.type) + " with " + typeName(right.type));
+        }
+        if (left.type != RuleNode.NUMBER && op != RuleNode.EQUAL && op != RuleNode.NOT_EQUAL) {
+            throw error(typeName(left.type) + " values can only be compared with == and !=");
+        }
+        return RuleNode.binary(op, RuleNode.BOOLEAN, left, right);
+    }
+
+    private RuleNode sum() throws RuleSyntaxException {
+        RuleNode left = term();
+        while (isSymbol("+") || isSymbol("-")) {
+            int op = token.equals("+") ? RuleNode.ADD : RuleNode.SUBTRACT;
+            advance();
+            left = arithmetic(op, left, term());
+        }
+        return left;
+    }
+
+    private RuleNode term() throws RuleSyntaxException {
+        RuleNode left = unary();
+        while (isSymbol("*") || isSymbol("/")) {
+            int op = token.equals("*") ? RuleNode.MULTIPLY : RuleNode.DIVIDE;
+            advance();
+            left = arithmetic(op, left, unary());
+        }
+        return left;
+    }
+
+    private RuleNode unary() throws RuleSyntaxException {
+        if (isSymbol("-")) {
+            advance();
+            RuleNode operand = unary();
+            requireType(operand, RuleNode.NUMBER, "the operand of -");
+            return RuleNode.unary(RuleNode.NEGATE, RuleNode.NUMBER, operand);
+        }
+        return primary();
+    }
+
+    private RuleNode primary() throws RuleSyntaxException {
+        if (kind == NUMBER) {
+            BigDecimal number = new BigDecimal(token);
+            advance();
+            if (isSymbol("%")) {
+                advance();
+                number = number.movePointLeft(2);
+            }
+            try {
+                long units = number.multiply(BigDecimal.valueOf(RuleContext.SCALE)).longValueExact();
+                return RuleNode.leaf(RuleNode.CONSTANT, RuleNode.NUMBER, units, null);
+            } catch (ArithmeticException e) {
+                throw error("number has too many decimals or is too large: " + number.toPlainString());
+            }
+        }
+        if (kind == STRING) {
+            RuleNode text = RuleNode.leaf(RuleNode.TEXT, RuleNode.STRING, 0, token);
+            advance();
+            return text;
+        }
+        if (isSymbol("(")) {
+            advance();
+            RuleNode inner = expression();
+            expectSymbol(")");
+            return inner;
+        }
+        if (kind != NAME) {
+            throw error("expected a value");
+        }
+        String name = token;
+        advance();
+        switch (name) {
+            case "true":
+                return RuleNode.leaf(RuleNode.CONSTANT, RuleNode.BOOLEAN, 1, null);
+            case "false":
+                return RuleNode.leaf(RuleNode.CONSTANT, RuleNode.BOOLEAN, 0, null);
+            case "brand":
+                return RuleNode.leaf(RuleNode.BRAND, RuleNode.STRING, 0, null);
+            case "car":
+                return RuleNode.leaf(RuleNode.CAR, RuleNode.STRING, 0, null);
+            case "min":
+            case "max":
+                return function(name.equals("min") ? RuleNode.MIN : RuleNode.MAX);
+            default:
+                break;
+        }
+        int slot = RuleContext.variableSlot(name);
+        if (slot >= 0) {
+            return RuleNode.leaf(RuleNode.VARIABLE, RuleNode.NUMBER, slot, name);
+        }
+        for (BookingOption option : BookingOption.values()) {
+            if (option.name().equals(name)) {
+                return RuleNode.leaf(RuleNode.OPTION, RuleNode.BOOLEAN, option.ordinal(), name);
+            }
+        }
+        throw error("unknown name " + name);
+    }
+
+    private RuleNode function(int op) throws RuleSyntaxException {
+        expectSymbol("(");
+        RuleNode first = expression();
+        expectSymbol(",");
+        RuleNode second = expression();
+        expectSymbol(")");
+        return arithmetic(op, first, second);
+    }
+
+    private RuleNode arithmetic(int op, RuleNode left, RuleNode right) throws RuleSyntaxException {
+        requireType(left, RuleNode.NUMBER, "an arithmetic operand");
+        requireType(right, RuleNode.NUMBER, "an arithmetic operand");
+        return RuleNode.binary(op, RuleNode.NUMBER, left, right);
+    }
+
+    private RuleNode logical(int op, RuleNode left, RuleNode right) throws RuleSyntaxException {
+        requireType(left, RuleNode.BOOLEAN, "an operand of and/or");
+        requireType(right, RuleNode.BOOLEAN, "an operand of and/or");
+        return RuleNode.binary(op, RuleNode.BOOLEAN, left, right);
+    }
+
+    private void requireType(RuleNode node, int type, String what) throws RuleSyntaxException {
+        if (node.type != type) {
+            throw error(what + " must be a " + typeName(type) + ", not a " + typeName(node.type));
+        }
+    }
+
+    private static String typeName(int type) {
+        switch (type) {
+            case RuleNode.NUMBER: return "number";
+            case RuleNode.BOOLEAN: return "condition";
+            default: return "string";
+        }
+    }
+
+    private boolean isKeyword(String keyword) {
+        return kind == NAME && token.equals(keyword);
+    }
+
+    private boolean isSymbol(String symbol) {
+        return kind == SYMBOL && token.equals(symbol);
+    }
+
+    private void expectKeyword(String keyword) throws RuleSyntaxException {
+        if (!isKeyword(keyword)) {
+            throw error("expected " + keyword);
+        }
+        advance();
+    }
+
+    private void expectSymbol(String symbol) throws RuleSyntaxException {
+        if (!isSymbol(symbol)) {
+            throw error("expected " + symbol);
+        }
+        advance();
+    }
+
+    private RuleSyntaxException error(String message) {
+        String found = kind == END ? "end of rules" : kind == STRING ? '"' + token + '"' : token;
+        return new RuleSyntaxException(tokenLine, message + " (found " + found + ")");
+    }
+
+    private void advance() throws RuleSyntaxException {
+        skipWhitespaceAndComments();
+        tokenLine = line;
+        if (pos >= source.length()) {
+            kind = END;
+            token = "";
+            return;
+        }
+        char c = source.charAt(pos);
+        int start = pos;
+        if (Character.isLetter(c) || c == '_') {
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            kind = NAME;
+            token = source.substring(start, pos);
+        } else if (Character.isDigit(c)) {
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            kind = NUMBER;
+            token = source.substring(start, pos);
+            if (token.endsWith(".") || token.indexOf('.') != token.lastIndexOf('.')) {
+                throw new RuleSyntaxException(line, "invalid number " + token);
+            }
+        } else if (c == '"') {
+            int end = source.indexOf('"', pos + 1);
+            int newline = source.indexOf('\n', pos + 1);
+            if (end < 0 || (newline >= 0 && newline < end)) {
+                throw new RuleSyntaxException(line, "unterminated string");
+            }
+            kind = STRING;
+            token = source.substring(pos + 1, end);
+            pos = end + 1;
+        } else {
+            pos++;
+            if (pos < source.length() && source.charAt(pos) == '=' && "<>=!+-*".indexOf(c) >= 0) {
+                pos++;
+            } else if ("<>=+-*/%(),".indexOf(c) < 0) {
+                throw new RuleSyntaxException(line, "unexpected character '" + c + "'");
+            }
+            kind = SYMBOL;
+            token = source.substring(start, pos);
+        }
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '#') {
+                while (pos < source.length() && source.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.pricing.rules;
+
+/**
+ * An executable form of a rule set.
+ */
+interface RuleProgram {
+    void apply(RuleContext context);
+}
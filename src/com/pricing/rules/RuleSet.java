@@ -0,0 +1,130 @@
+package com.pricing.rules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.data.CarData;
+import com.pricing.Quote;
+
+/**
+ * Pricing rules applied on top of the quote engine's breakdown, written in a small
+ * declarative language and parsed once.
+ *
+ * <pre>
+ * # Comments start with #
+ * rule "weekend surcharge"
+ *   when weekendDays &gt; 0
+ *   then carRental += carPrice * weekendDays * 10%
+ *
+ * rule "driver free on 7-day rentals"
+ *   when days &gt;= 7 and ASSIGN_DRIVER
+ *   then driver = 0
+ *
+ * rule "premium insurance"
+ *   when brand == "mercedes_benz" or brand == "land_rover"
+ *   then insurance *= 150%
+ *
+ * rule "minimum charge"
+ *   then total = max(total, 1000)
+ * </pre>
+ *
+ * <p>Rules run in order, and each sees the amounts left by the ones before it. Numbers are
+ * rand; {@code 10%} is 0.1. The variables are {@code days}, {@code weekendDays} and
+ * {@code carPrice} (per day), which are read-only, and the amounts {@code carRental},
+ * {@code extras}, {@code insurance}, {@code fuelPolicy}, {@code driver} and {@code total},
+ * which can be assigned with {@code =}, {@code +=}, {@code -=} or {@code *=}. Assigning
+ * {@code total} adjusts the total without changing the line items. Option names such as
+ * {@code ASSIGN_DRIVER} are true when selected; {@code brand} and {@code car} compare with
+ * strings. Expressions support {@code + - * /}, {@code min}, {@code max}, comparisons,
+ * {@code and}, {@code or} and {@code not}.</p>
+ *
+ * <p>{@link #compile} turns the rules into specialized lambdas for the kiosk;
+ * {@link #interpret} walks the syntax tree instead and serves as the reference.</p>
+ */
+public final class RuleSet {
+    private static final RuleSet EMPTY = new RuleSet(Collections.emptyList(), c -> { });
+
+    private final List<String> ruleNames;
+    private final RuleProgram program;
+
+    private RuleSet(List<Rule> rules, RuleProgram program) {
+        List<String> names = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            names.add(rule.name);
+        }
+        this.ruleNames = Collections.unmodifiableList(names);
+        this.program = program;
+    }
+
+    /**
+     * @return a rule set that leaves every quote unchanged
+     */
+    public static RuleSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Parses rules and compiles them into specialized lambdas.
+     */
+    public static RuleSet compile(String source) throws RuleSyntaxException {
+        List<Rule> rules = RuleParser.parse(source);
+        return new RuleSet(rules, RuleCompiler.compile(rules));
+    }
+
+    /**
+     * Parses rules that are evaluated by walking their syntax tree.
+     */
+    public static RuleSet interpret(String source) throws RuleSyntaxException {
+        List<Rule> rules = RuleParser.parse(source);
+        return new RuleSet(rules, new RuleInterpreter(rules));
+    }
+
+    /**
+     * Reads and compiles a rule file.
+     */
+    public static RuleSet load(Path file) throws IOException, RuleSyntaxException {
+        return compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    public List<String> getRuleNames() {
+        return ruleNames;
+    }
+
+    public boolean isEmpty() {
+        return ruleNames.isEmpty();
+    }
+
+    /**
+     * Applies the rules to a loaded context.
+     *
+     * @throws ArithmeticException if a rule divides by zero or overflows
+     */
+    public void apply(RuleContext context) {
+        program.apply(context);
+    }
+
+    /**
+     * Applies the rules to a breakdown in place.
+     *
+     * @param quote The engine's breakdown, overwritten with the adjusted amounts
+     * @param car The quoted car
+     * @param optionMask The selected options
+     * @param startDay The first day of the rental
+     * @param context Scratch state, reused between calls
+     * @throws ArithmeticException if a rule divides by zero or overflows
+     */
+    public void apply(Quote quote, CarData car, long optionMask, DayOfWeek startDay, RuleContext context) {
+        if (isEmpty()) {
+            return;
+        }
+        context.load(quote, car, optionMask, startDay);
+        program.apply(context);
+        context.store(quote);
+    }
+}
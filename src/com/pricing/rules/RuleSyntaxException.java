@@ -0,0 +1,20 @@
+package com.pricing.rules;
+
+/**
+ * Thrown when rule source cannot be parsed or uses a value of the wrong type.
+ */
+public class RuleSyntaxException extends Exception {
+    private final int line;
+
+    public RuleSyntaxException(int line, String message) {
+        super("line " + line + ": " + message);
+        this.line = line;
+    }
+
+    /**
+     * @return the line of the source where the problem was found, starting at 1
+     */
+    public int getLine() {
+        return line;
+    }
+}
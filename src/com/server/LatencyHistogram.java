@@ -0,0 +1,77 @@
+package com.server;
+
+/**
+ * Log-linear latency histogram in the spirit of HdrHistogram: values are bucketed by
+ * power of two with {@value #SUB_BUCKETS} linear sub-buckets each, giving about 3%
+ * relative precision from nanoseconds to minutes in a few kilobytes.
+ * Not thread-safe; give each thread its own histogram and {@link #add} them at the end.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(BUCKETS + 1) * SUB_BUCKETS];
+    private long totalCount;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        totalCount++;
+        max = Math.max(max, value);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+    long getCount() {
+        return totalCount;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return an upper bound of the value at the percentile, in nanoseconds
+     */
+    long valueAt(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int bucket = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int sub = (int) (value >>> (bucket - 1)) & (SUB_BUCKETS - 1);
+        return bucket * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int index) {
+        int bucket = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (bucket == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKETS + sub + 1) << (bucket - 1)) - 1;
+    }
+}
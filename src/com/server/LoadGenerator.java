@@ -0,0 +1,122 @@
+package com.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.data.CarCatalog;
+import com.pricing.BookingModel;
+import com.pricing.OptionSet;
+import com.pricing.PriceSnapshot;
+import com.pricing.rules.RuleSet;
+
+/**
+ * Closed-loop load generator for {@link QuoteServer}. Each virtual-thread client sends
+ * random {@code /quote} requests back to back for the configured duration, then the
+ * throughput and p50/p99/p99.9 latencies are printed.
+ *
+ * <p>Usage: {@code LoadGenerator [clients=64] [seconds=10] [url]}. Without a URL an
+ * in-process server is started on a free localhost port.</p>
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        CarCatalog catalog = CarCatalog.sample();
+
+        QuoteServer localServer = null;
+        String baseUrl;
+        if (args.length > 2) {
+            baseUrl = args[2];
+        } else {
+            localServer = new QuoteServer(PriceSnapshot.defaults(catalog), RuleSet.empty(), 0);
+            localServer.start();
+            baseUrl = "http://localhost:" + localServer.getPort();
+        }
+
+        URI[] targets = buildTargets(baseUrl, catalog, 1024);
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Warm up the server and the client's connection pool before measuring
+        runClients(client, targets, clients, Math.max(1, seconds / 5), new AtomicLong());
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        LatencyHistogram histogram = runClients(client, targets, clients, seconds, errors);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("clients=%d duration=%.1fs requests=%d errors=%d%n",
+                clients, elapsed, histogram.getCount(), errors.get());
+        System.out.printf("throughput=%.0f req/s%n", histogram.getCount() / elapsed);
+        System.out.printf("p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms%n",
+                histogram.valueAt(50) / 1e6, histogram.valueAt(99) / 1e6,
+                histogram.valueAt(99.9) / 1e6, histogram.getMax() / 1e6);
+
+        if (localServer != null) {
+            localServer.close();
+        }
+    }
+
+    private static URI[] buildTargets(String baseUrl, CarCatalog catalog, int count) {
+        long[] masks = OptionSet.validMasks();
+        int[] durations = BookingModel.standardDurations();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        URI[] targets = new URI[count];
+        for (int i = 0; i < count; i++) {
+            targets[i] = URI.create(baseUrl + "/quote?car=" + catalog.get(random.nextInt(catalog.size())).getId()
+                    + "&days=" + durations[random.nextInt(durations.length)]
+                    + "&options=" + OptionSet.toString(masks[random.nextInt(masks.length)]));
+        }
+        return targets;
+    }
+
+    private static LatencyHistogram runClients(HttpClient client, URI[] targets, int clients, int seconds,
+                                               AtomicLong errors) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<LatencyHistogram> histograms = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                LatencyHistogram histogram = new LatencyHistogram();
+                histograms.add(histogram);
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(targets[random.nextInt(targets.length)]).build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        histogram.record(System.nanoTime() - sent);
+                    }
+                    return null;
+                });
+            }
+        }
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            merged.add(histogram);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,375 @@
+package com.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+import com.pricing.BatchQuoter;
+import com.pricing.OptionCategory;
+import com.pricing.OptionSet;
+import com.pricing.PriceBook;
+import com.pricing.PriceSnapshot;
+import com.pricing.PricingSetup;
+import com.pricing.Quote;
+import com.pricing.QuoteCache;
+import com.pricing.QuoteMatrix;
+import com.pricing.rules.RuleContext;
+import com.pricing.rules.RuleSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Headless HTTP front end for the kiosk's pricing so other systems get the same quotes.
+ * Every request runs on its own virtual thread. Started from {@link #main}, it reads the
+ * catalog, prices and pricing rules through {@link PricingSetup} as the kiosk does, and picks
+ * up price file edits as they are made.
+ *
+ * <ul>
+ *   <li>{@code GET /catalog} lists the cars and their daily prices.</li>
+ *   <li>{@code GET /quote?car=gle&days=3&options=BABY_SEAT,THEFT&start=2026-10-24} returns a
+ *       breakdown in cents; the start date, which weekend rules depend on, defaults to today.</li>
+ *   <li>{@code POST /quotes} takes one {@code car,days,options} line per quote and returns the totals.</li>
+ *   <li>{@code GET /stats} reports the counters of the quote cache.</li>
+ * </ul>
+ *
+ * Single quotes are read from the precomputed {@link QuoteMatrix} on the handler's own thread,
+ * as lookups need no locking; batches are priced in one pass by {@link BatchQuoter}. At most
+ * {@value #MAX_IN_FLIGHT} single quotes are priced at once, a batch counting as one quote per
+ * {@value #BATCH_LINES_PER_PERMIT} lines, and beyond that the server answers 503 so that
+ * clients back off instead of piling up latency.
+ */
+public final class QuoteServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8085;
+    private static final int MAX_IN_FLIGHT = 10_000;
+    private static final int MAX_BATCH_LINES = 100_000;
+    // Batched lines are far cheaper than single requests; a full batch takes 6,250 permits
+    private static final int BATCH_LINES_PER_PERMIT = 16;
+    private static final long CACHE_BYTES = 16L * 1024 * 1024;
+
+    static {
+        // Small JSON responses otherwise sit behind Nagle's algorithm and the client's delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * The prices and the quotes built from them, swapped as one so that a request never
+     * mixes two versions.
+     */
+    private static final class Pricing {
+        final PriceSnapshot prices;
+        final QuoteMatrix matrix;
+        final BatchQuoter batchQuoter;
+
+        Pricing(PriceSnapshot prices, QuoteCache cache) {
+            this.prices = prices;
+            this.matrix = PricingSetup.buildQuoteMatrix(prices, cache);
+            this.batchQuoter = new BatchQuoter(prices.getEngine());
+        }
+    }
+
+    private final CarCatalog catalog;
+    private final RuleSet rules;
+    private final QuoteCache cache;
+    private volatile Pricing pricing;
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param prices The prices to quote; see {@link #follow(PriceBook)} to keep them current
+     * @param rules The pricing rules applied to every quote
+     * @param port The port to listen on, or 0 for any free port
+     */
+    public QuoteServer(PriceSnapshot prices, RuleSet rules, int port) throws IOException {
+        this.catalog = prices.getCatalog();
+        this.rules = rules;
+        this.cache = QuoteCache.withByteBudget(CACHE_BYTES);
+        this.pricing = new Pricing(prices, cache);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/catalog", this::handleCatalog);
+        server.createContext("/quote", this::handleQuote);
+        server.createContext("/quotes", this::handleBatch);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Quotes the price book's current prices from now on, rebuilding the quotes on the
+     * book's thread whenever it publishes new ones.
+     */
+    public void follow(PriceBook priceBook) {
+        priceBook.addListener(prices -> pricing = new Pricing(prices, cache));
+        pricing = new Pricing(priceBook.current(), cache);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleCatalog(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) return;
+        PriceSnapshot prices = pricing.prices;
+        StringBuilder json = new StringBuilder(64 * catalog.size()).append('[');
+        List<CarData> cars = catalog.getCars();
+        for (int i = 0; i < cars.size(); i++) {
+            CarData car = cars.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"id\":");
+            appendString(json, car.getId());
+            json.append(",\"name\":");
+            appendString(json, car.getName());
+            json.append(",\"model\":");
+            appendString(json, car.getModel());
+            json.append(",\"pricePerDay\":").append(prices.getCarPrice(i)).append('}');
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) return;
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String carId = params.get("car");
+        int carIndex = carId != null ? catalog.indexOf(carId) : -1;
+        if (carIndex < 0) {
+            sendError(exchange, 404, "Unknown car: " + carId);
+            return;
+        }
+        int days;
+        long optionMask;
+        DayOfWeek startDay;
+        try {
+            days = Integer.parseInt(params.getOrDefault("days", "1"));
+            optionMask = OptionSet.parse(params.get("options"));
+            if (days < 1 || !OptionSet.isValid(optionMask)) {
+                throw new IllegalArgumentException("Invalid days or option combination");
+            }
+            String start = params.get("start");
+            startDay = (start != null ? LocalDate.parse(start) : LocalDate.now()).getDayOfWeek();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        if (!inFlight.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, "Too many quotes in progress");
+            return;
+        }
+        Quote quote;
+        try {
+            quote = pricing.matrix.quote(carIndex, days, optionMask, new Quote());
+            rules.apply(quote, catalog.get(carIndex), optionMask, startDay, new RuleContext());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+            return;
+        } finally {
+            inFlight.release();
+        }
+
+        StringBuilder json = new StringBuilder(256).append("{\"car\":");
+        appendString(json, carId);
+        json.append(",\"days\":").append(days).append(",\"options\":");
+        appendString(json, OptionSet.toString(optionMask));
+        json.append(",\"carRental\":").append(quote.getCarRentalCents());
+        for (OptionCategory category : OptionCategory.values()) {
+            json.append(",\"").append(category.name().toLowerCase()).append("\":").append(quote.getAmountCents(category));
+        }
+        json.append(",\"total\":").append(quote.getTotalCents()).append(",\"totalFormatted\":");
+        appendString(json, quote.getTotal().toString());
+        send(exchange, 200, json.append('}').toString());
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "POST")) return;
+        Pricing current = pricing;
+        int[] carIndexes = new int[64];
+        int[] carPrices = new int[64];
+        int[] days = new int[64];
+        long[] masks = new long[64];
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (count == MAX_BATCH_LINES) {
+                    sendError(exchange, 413, "At most " + MAX_BATCH_LINES + " quotes per request");
+                    return;
+                }
+                String[] fields = line.split(",", 3);
+                int carIndex = catalog.indexOf(fields[0].trim());
+                if (carIndex < 0) {
+                    sendError(exchange, 404, "Unknown car on line " + (count + 1) + ": " + fields[0]);
+                    return;
+                }
+                if (count == carPrices.length) {
+                    carIndexes = Arrays.copyOf(carIndexes, count * 2);
+                    carPrices = Arrays.copyOf(carPrices, count * 2);
+                    days = Arrays.copyOf(days, count * 2);
+                    masks = Arrays.copyOf(masks, count * 2);
+                }
+                carIndexes[count] = carIndex;
+                carPrices[count] = current.prices.getCarPrice(carIndex);
+                days[count] = fields.length > 1 ? Integer.parseInt(fields[1].trim()) : 1;
+                masks[count] = fields.length > 2 ? OptionSet.parse(fields[2].replace(';', ',')) : OptionSet.EMPTY;
+                if (days[count] < 1 || !OptionSet.isValid(masks[count])) {
+                    throw new IllegalArgumentException("Invalid days or option combination on line " + (count + 1));
+                }
+                count++;
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        int permits = Math.max(1, (count + BATCH_LINES_PER_PERMIT - 1) / BATCH_LINES_PER_PERMIT);
+        if (!inFlight.tryAcquire(permits)) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, "Too many quotes in progress");
+            return;
+        }
+        long[] totals;
+        try {
+            totals = rules.isEmpty()
+                    ? current.batchQuoter.quoteAll(Arrays.copyOf(carPrices, count), Arrays.copyOf(days, count),
+                            Arrays.copyOf(masks, count))
+                    : quoteWithRules(current, carIndexes, days, masks, count);
+        } catch (ArithmeticException e) {
+            sendError(exchange, 400, "Quote too large: " + e.getMessage());
+            return;
+        } finally {
+            inFlight.release(permits);
+        }
+        StringBuilder json = new StringBuilder(12 * count + 2).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append(totals[i]);
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    /**
+     * Prices a batch one quote at a time, as rules adjust each breakdown, for rentals
+     * starting today.
+     */
+    private long[] quoteWithRules(Pricing current, int[] carIndexes, int[] days, long[] masks, int count) {
+        DayOfWeek startDay = LocalDate.now().getDayOfWeek();
+        Quote quote = new Quote();
+        RuleContext context = new RuleContext();
+        long[] totals = new long[count];
+        for (int i = 0; i < count; i++) {
+            current.matrix.quote(carIndexes[i], days[i], masks[i], quote);
+            rules.apply(quote, catalog.get(carIndexes[i]), masks[i], startDay, context);
+            totals[i] = quote.getTotalCents();
+        }
+        return totals;
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) return;
+        send(exchange, 200, "{\"cacheSize\":" + cache.size()
+                + ",\"cacheCapacity\":" + cache.getMaxEntries()
+                + ",\"hits\":" + cache.getHitCount()
+                + ",\"misses\":" + cache.getMissCount()
+                + ",\"evictions\":" + cache.getEvictionCount()
+                + ",\"rejections\":" + cache.getRejectionCount()
+                + ",\"invalidations\":" + cache.getInvalidationCount() + "}");
+    }
+
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        sendError(exchange, 405, "Use " + method);
+        return false;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        send(exchange, status, json.append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Runs the server until the process is stopped, on the kiosk's catalog, prices and rules.
+     *
+     * @param args Optional port, defaults to {@value #DEFAULT_PORT}
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        PriceBook priceBook = PricingSetup.openPriceBook(PricingSetup.loadCatalog());
+        QuoteServer server = new QuoteServer(priceBook.current(), PricingSetup.loadRules(), port);
+        server.follow(priceBook);
+        server.start();
+        System.out.println("Quote server listening on port " + server.getPort());
+    }
+}
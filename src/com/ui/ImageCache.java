@@ -0,0 +1,338 @@
+package com.ui;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decoded images keyed by file path and target size, so an asset is read and scaled once
+ * however often the kiosk shows it.
+ *
+ * <p>Images are kept in least-recently-used order within a byte budget, counting four
+ * bytes a pixel. Images pushed out of the budget are still held through soft references
+ * and come back without a decode unless the garbage collector needed the memory. A file that
+ * cannot be read is remembered as missing. A scaled image is made from the cached full-size
+ * one, so each file is decoded at most once while it stays cached.</p>
+ *
+ * <p>The cache is thread-safe. Decoding and scaling happen outside its lock, so a slow
+ * file never holds up a lookup of an image already cached, and threads asking for an image
+ * being loaded wait for that load instead of starting another.</p>
+ *
+ * <p>Loading belongs on {@link ImageLoader}'s threads. A {@link #get} that has to load, or
+ * wait for a load, on the event dispatch thread is counted by {@link #getEdtLoadCount()},
+ * and throws if {@code rental.images.strict} is set, so a panel that stalls the UI on I/O
+ * shows up at once.</p>
+ */
+public final class ImageCache {
+
+    /** The byte budget of the shared cache unless {@code rental.images.budget} says otherwise. */
+    public static final long DEFAULT_BUDGET_BYTES = 64L << 20;
+
+    private static final ImageCache SHARED = new ImageCache(Long.getLong("rental.images.budget", DEFAULT_BUDGET_BYTES));
+    private static final boolean STRICT = Boolean.getBoolean("rental.images.strict");
+
+    // Marks a file that could not be read
+    private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private static final class Key {
+        final String path;
+        final int width;
+        final int height;
+
+        Key(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).width == width && ((Key) o).height == height
+                    && ((Key) o).path.equals(path);
+        }
+
+        @Override
+        public int hashCode() {
+            return (path.hashCode() * 31 + width) * 31 + height;
+        }
+    }
+
+    private static final class SoftImage extends SoftReference<BufferedImage> {
+        final Key key;
+
+        SoftImage(Key key, BufferedImage image, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+    }
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Key, BufferedImage> resident = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Key, SoftImage> evicted = new HashMap<>();
+    private final ReferenceQueue<BufferedImage> cleared = new ReferenceQueue<>();
+    private final Map<Key, CompletableFuture<BufferedImage>> loading = new HashMap<>();
+    private long residentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder softHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder decodes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder edtLoads = new LongAdder();
+
+    /**
+     * @param budgetBytes The most bytes of images held strongly
+     */
+    public ImageCache(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("budgetBytes must not be negative: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @return the cache the kiosk's panels share
+     */
+    public static ImageCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the image at full size, or null if the file cannot be read
+     */
+    public BufferedImage get(String path) {
+        return get(path, 0, 0);
+    }
+
+    /**
+     * @param width The width to scale to, or 0 with a height of 0 for the full size
+     * @param height The height to scale to
+     * @return the image scaled to exactly the given size, or null if the file cannot be read
+     */
+    public BufferedImage get(String path, int width, int height) {
+        Key key = new Key(path, width, height);
+        CompletableFuture<BufferedImage> pending;
+        boolean loader;
+        synchronized (this) {
+            BufferedImage image = lookup(key, true);
+            if (image != null) {
+                return image == MISSING ? null : image;
+            }
+            pending = loading.get(key);
+            loader = pending == null;
+            if (loader) {
+                pending = new CompletableFuture<>();
+                loading.put(key, pending);
+            }
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            edtLoads.increment();
+            if (STRICT) {
+                throw new IllegalStateException("Loading " + path + " on the event dispatch thread");
+            }
+        }
+        if (!loader) {
+            BufferedImage image = pending.join();
+            return image == MISSING ? null : image;
+        }
+        BufferedImage image = MISSING;
+        try {
+            image = load(key);
+        } finally {
+            synchronized (this) {
+                store(key, image);
+                loading.remove(key);
+            }
+            pending.complete(image);
+        }
+        return image == MISSING ? null : image;
+    }
+
+    /**
+     * @return the scaled image as an icon, or null if the file cannot be read
+     */
+    public ImageIcon getIcon(String path, int width, int height) {
+        BufferedImage image = get(path, width, height);
+        return image != null ? new ImageIcon(image) : null;
+    }
+
+    /**
+     * @return the image if it is cached, without loading it; only a hit is counted, as a
+     *         miss is followed by a load that counts it
+     */
+    public synchronized BufferedImage getIfPresent(String path, int width, int height) {
+        BufferedImage image = lookup(new Key(path, width, height), false);
+        return image == MISSING ? null : image;
+    }
+
+    // Call with the cache locked
+    private BufferedImage lookup(Key key, boolean countMiss) {
+        BufferedImage image = resident.get(key);
+        if (image != null) {
+            hits.increment();
+            return image;
+        }
+        SoftImage soft = evicted.remove(key);
+        image = soft != null ? soft.get() : null;
+        if (image != null) {
+            softHits.increment();
+            admit(key, image);
+            return image;
+        }
+        if (countMiss) {
+            misses.increment();
+        }
+        return null;
+    }
+
+    private BufferedImage load(Key key) {
+        if (key.width <= 0 || key.height <= 0) {
+            try {
+                decodes.increment();
+                BufferedImage image = ImageIO.read(new File(key.path));
+                return image != null ? image : MISSING;
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+        BufferedImage source = get(key.path);
+        return source != null ? scale(source, key.width, key.height) : MISSING;
+    }
+
+    // Call with the cache locked
+    private void store(Key key, BufferedImage image) {
+        if (!resident.containsKey(key)) {
+            admit(key, image);
+        }
+    }
+
+    private void admit(Key key, BufferedImage image) {
+        resident.put(key, image);
+        residentBytes += bytesOf(image);
+        Iterator<Map.Entry<Key, BufferedImage>> eldest = resident.entrySet().iterator();
+        while (residentBytes > budgetBytes && eldest.hasNext()) {
+            Map.Entry<Key, BufferedImage> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                // Never push out the image being returned
+                break;
+            }
+            eldest.remove();
+            residentBytes -= bytesOf(entry.getValue());
+            evicted.put(entry.getKey(), new SoftImage(entry.getKey(), entry.getValue(), cleared));
+            evictions.increment();
+        }
+        for (SoftImage gone; (gone = (SoftImage) cleared.poll()) != null;) {
+            evicted.remove(gone.key, gone);
+        }
+    }
+
+    private static long bytesOf(BufferedImage image) {
+        return image == MISSING ? 0 : 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Scales by halving with bilinear filtering until the last step, which looks close to
+     * area averaging at a fraction of its cost.
+     */
+    static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = w > width ? Math.max(width, w / 2) : width;
+            h = h > height ? Math.max(height, h / 2) : height;
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return the bytes of images held within the budget, not counting soft-held ones
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return the number of images held within the budget
+     */
+    public synchronized int size() {
+        return resident.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups answered by an image pushed out of the budget but not yet collected
+     */
+    public long getSoftHitCount() {
+        return softHits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of files read
+     */
+    public long getDecodeCount() {
+        return decodes.sum();
+    }
+
+    /**
+     * @return the number of images pushed out of the budget
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of lookups that loaded an image, or waited for one, on the event
+     *         dispatch thread
+     */
+    public long getEdtLoadCount() {
+        return edtLoads.sum();
+    }
+
+    /**
+     * @return the share of lookups answered without loading, soft hits included
+     */
+    public double getHitRate() {
+        long h = hits.sum() + softHits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImageCache[%d images, %,d of %,d bytes, hits=%d, softHits=%d, misses=%d, decodes=%d,"
+                + " evictions=%d, edtLoads=%d]", size(), getResidentBytes(), budgetBytes, getHitCount(),
+                getSoftHitCount(), getMissCount(), getDecodeCount(), getEvictionCount(), getEdtLoadCount());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ui;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import com.data.CarCatalog;
+import com.data.CarData;
+
+/**
+ * Steps through the fleet's cars as a customer clicking along the strip would, loading each
+ * car's render at full size, the preview size and the logo size, first decoding every time
+ * as the panels used to and then through an {@link ImageCache}, with the default budget and
+ * with one too small to hold the fleet.
+ *
+ * <p>Usage: {@code ImageCacheBenchmark [rounds]}</p>
+ */
+public final class ImageCacheBenchmark {
+
+    private static final int PREVIEW_WIDTH = 114;
+    private static final int PREVIEW_HEIGHT = 70;
+    private static final int LOGO_SIZE = 52;
+
+    private ImageCacheBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        CarCatalog catalog = CarCatalog.sample();
+
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < catalog.size(); i++) {
+                CarData car = catalog.get(i);
+                BufferedImage render = ImageIO.read(new File(car.getPreviewImagePath()));
+                BufferedImage logo = ImageIO.read(new File(car.getLogoPath()));
+                if (render != null) {
+                    ImageCache.scale(render, PREVIEW_WIDTH, PREVIEW_HEIGHT);
+                }
+                if (logo != null) {
+                    ImageCache.scale(logo, LOGO_SIZE, LOGO_SIZE);
+                }
+            }
+        }
+        report("decode every time", System.nanoTime() - start, rounds * catalog.size(), null);
+
+        for (long budget : new long[] {ImageCache.DEFAULT_BUDGET_BYTES, 4L << 20}) {
+            ImageCache cache = new ImageCache(budget);
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (int i = 0; i < catalog.size(); i++) {
+                    CarData car = catalog.get(i);
+                    cache.get(car.getPreviewImagePath());
+                    cache.get(car.getPreviewImagePath(), PREVIEW_WIDTH, PREVIEW_HEIGHT);
+                    cache.get(car.getLogoPath(), LOGO_SIZE, LOGO_SIZE);
+                }
+            }
+            report(String.format("cache, %,d KB budget", budget >> 10), System.nanoTime() - start,
+                    rounds * catalog.size(), cache);
+        }
+    }
+
+    private static void report(String what, long nanos, int selections, ImageCache cache) {
+        System.out.printf("%-26s %8.3f ms per selection%n", what, nanos / 1e6 / selections);
+        if (cache != null) {
+            System.out.printf("  hit rate %.1f%%, %s%n", 100 * cache.getHitRate(), cache);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.ui;
+
+import javax.swing.SwingUtilities;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Loads images through an {@link ImageCache} on a few background threads, so the event
+ * dispatch thread never waits for a file to be read or scaled.
+ *
+ * <p>Requests are served newest first: the car the customer just reached matters more than
+ * the ones they clicked past. At most {@value #MAX_QUEUED} wait; beyond that the oldest is
+ * cancelled. Cancelling a request that has not started takes it out of the queue, so a panel
+ * that no longer needs its image cancels the future it was given. Images already cached are
+ * handed back at once.</p>
+ */
+public final class ImageLoader {
+
+    private static final int MAX_QUEUED = 64;
+
+    private static final ImageLoader SHARED = new ImageLoader(ImageCache.shared(),
+            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)));
+
+    private final class Request {
+        final String path;
+        final int width;
+        final int height;
+        final CompletableFuture<BufferedImage> future = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                if (!super.cancel(mayInterruptIfRunning)) {
+                    return false;
+                }
+                // Frees its place at once, so cancelled requests never push out wanted ones
+                queue.remove(Request.this);
+                cancelled.increment();
+                return true;
+            }
+        };
+
+        Request(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final ImageCache cache;
+    private final LinkedBlockingDeque<Request> queue = new LinkedBlockingDeque<>();
+    private final LongAdder cancelled = new LongAdder();
+
+    /**
+     * @param threads The number of loading threads; decoding is CPU-bound, so a few at most
+     */
+    public ImageLoader(ImageCache cache, int threads) {
+        this.cache = cache;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::work, "image-loader-" + i);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return the loader the kiosk's panels share, over {@link ImageCache#shared()}
+     */
+    public static ImageLoader shared() {
+        return SHARED;
+    }
+
+    public ImageCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Loads an image on a loading thread.
+     *
+     * @param width The width to scale to, or 0 with a height of 0 for the full size
+     * @param height The height to scale to
+     * @return a future of the image, or of null if the file cannot be read; cancel it when
+     *         the image is no longer wanted
+     */
+    public CompletableFuture<BufferedImage> load(String path, int width, int height) {
+        BufferedImage cached = cache.getIfPresent(path, width, height);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        Request request = new Request(path, width, height);
+        synchronized (queue) {
+            if (queue.size() >= MAX_QUEUED) {
+                Request oldest = queue.pollLast();
+                if (oldest != null) {
+                    oldest.future.cancel(false);
+                }
+            }
+            queue.offerFirst(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Loads an image and hands it to a consumer on the event dispatch thread, or null if the
+     * file cannot be read. A cached image asked for on the event dispatch thread is handed
+     * over before this returns, so it shows without a placeholder.
+     *
+     * @return the load, completed on the event dispatch thread as the consumer is called;
+     *         cancelling it there before then means the consumer is not called. If the
+     *         loader drops the request to make room for newer ones, the load is cancelled on
+     *         the event dispatch thread instead, and the image can be asked for again
+     */
+    public CompletableFuture<BufferedImage> load(String path, int width, int height, Consumer<BufferedImage> consumer) {
+        CompletableFuture<BufferedImage> future = load(path, width, height);
+        if (future.isDone() && SwingUtilities.isEventDispatchThread()) {
+            consumer.accept(future.join());
+            return future;
+        }
+        // Handed out instead of the request's own future, which may already be complete when
+        // the panel cancels; this one only completes on the event dispatch thread, so a
+        // cancel made there always wins over the image still on its way
+        CompletableFuture<BufferedImage> handed = new CompletableFuture<>();
+        handed.whenComplete((image, failure) -> {
+            if (handed.isCancelled()) {
+                future.cancel(false);
+            }
+        });
+        future.whenComplete((image, failure) -> SwingUtilities.invokeLater(() -> {
+            if (failure != null) {
+                handed.cancel(false);
+            } else if (handed.complete(image)) {
+                consumer.accept(image);
+            }
+        }));
+        return handed;
+    }
+
+    /**
+     * @return the number of requests cancelled before their image was ready, by their panel or to
+     *         make room in the queue
+     */
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Request request = queue.takeFirst();
+                if (request.future.isCancelled()) {
+                    continue;
+                }
+                try {
+                    request.future.complete(cache.get(request.path, request.width, request.height));
+                } catch (RuntimeException e) {
+                    System.err.println("Error loading image '" + request.path + "': " + e.getMessage());
+                    request.future.complete(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shut down
+        }
+    }
+}